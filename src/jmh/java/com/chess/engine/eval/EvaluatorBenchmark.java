@@ -0,0 +1,79 @@
+package com.chess.engine.eval;
+
+import com.chess.engine.SearchBoard;
+import com.chess.engine.eval.nnue.NnueEvaluator;
+import com.chess.engine.eval.nnue.NnueNetwork;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluations per second of the handcrafted and NNUE evaluators.
+ *
+ * Run with: mvn -Pbenchmark test-compile exec:exec
+ * For the Vector API kernels add -Pvector and pass
+ * -Dbenchmark.jvmArgs="--add-modules jdk.incubator.vector -Dchess.nnue.vector=true".
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EvaluatorBenchmark {
+    private static final String POSITION = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    @Param({"tapered", "nnue"})
+    public String evaluator;
+
+    @Param({"256"})
+    public int hiddenSize;
+
+    private SearchBoard board;
+    private Evaluator attached;
+    private final int[] moves = new int[SearchBoard.MAX_MOVES];
+    private int moveCount;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        board = new SearchBoard(POSITION);
+        attached = evaluator.equals("nnue")
+                ? new NnueEvaluator(NnueNetwork.random(hiddenSize, 1))
+                : new TaperedEvaluator();
+        board.setEvaluator(attached);
+        int count = board.generateMoves(moves, false);
+        for (int i = 0; i < count; i++) {
+            if (board.makeMove(moves[i])) {
+                board.unmakeMove();
+                moves[moveCount++] = moves[i];
+            }
+        }
+    }
+
+    /** Evaluation of an up-to-date position, as at a quiescence leaf */
+    @Benchmark
+    public int evaluate() {
+        return attached.evaluate(board);
+    }
+
+    /** Incremental update, evaluation and undo, as along a search path */
+    @Benchmark
+    public int makeEvaluateUnmake() {
+        board.makeMove(moves[next]);
+        next = next + 1 == moveCount ? 0 : next + 1;
+        int score = attached.evaluate(board);
+        board.unmakeMove();
+        return score;
+    }
+}
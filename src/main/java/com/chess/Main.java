@@ -49,8 +49,11 @@ public class Main {
     public static void main(String[] args) {
         logger.info("Chess Game starting...");
         
+        // Engines, piece sprites, book and tables load in the background meanwhile
+        Startup startup = Startup.begin();
+        
         // Initialize FlatLaf theme before creating any GUI components
-        initializeFlatLaf();
+        startup.run("look and feel", Main::initializeFlatLaf);
         
         // Parse command line arguments
         if (args.length > 0) {
@@ -0,0 +1,147 @@
+package com.chess;
+
+import com.chess.engine.AnalysisCache;
+import com.chess.engine.EnginePool;
+import com.chess.engine.book.PolyglotBook;
+import com.chess.engine.endgame.EndgameOracle;
+import com.chess.gui.ChessBoardPanel;
+import com.chess.utils.Logger;
+
+import java.awt.AWTEvent;
+import java.awt.GraphicsEnvironment;
+import java.awt.Toolkit;
+import java.awt.event.AWTEventListener;
+import java.awt.event.WindowEvent;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Application start-up work, run in parallel so the first window does not wait for it.
+ *
+ * {@link #begin()} starts the engine pool (Stockfish processes and their handshakes),
+ * piece sprite rendering, the opening book, endgame tables and the analysis cache
+ * on background threads. Whatever needs one of them waits on its readiness future,
+ * e.g. {@link EnginePool#getSharedAsync()}. Once every task has finished and the
+ * first window has opened, a timing report is logged.
+ */
+public class Startup {
+    private static final Logger logger = Logger.getLogger(Startup.class);
+
+    /** Endgames common enough to have their tables mapped up front */
+    private static final String[] COMMON_ENDGAMES = {"KPK", "KRK", "KQK"};
+
+    private final long startNanos = System.nanoTime();
+    private final Map<String, Long> readyAt = new LinkedHashMap<>();
+    private long firstFrameMs = -1;
+    private boolean reported;
+
+    /**
+     * Start the background tasks and watch for the first window
+     */
+    public static Startup begin() {
+        Startup startup = new Startup();
+        startup.track("engines", EnginePool.getSharedAsync());
+        startup.track("piece images", ChessBoardPanel.preloadPieceImages());
+        startup.track("opening book", CompletableFuture.supplyAsync(PolyglotBook::getDefault));
+        startup.track("endgame tables", CompletableFuture.runAsync(() -> {
+            EndgameOracle oracle = EndgameOracle.getInstance();
+            for (String signature : COMMON_ENDGAMES) {
+                oracle.isAvailable(signature);
+            }
+        }));
+        startup.track("analysis cache", CompletableFuture.supplyAsync(AnalysisCache::getShared));
+        if (!GraphicsEnvironment.isHeadless()) {
+            startup.watchFirstWindow();
+        }
+        return startup;
+    }
+
+    /**
+     * Include a task in the report; its time is when it finished, counted from start-up
+     */
+    public synchronized <T> CompletableFuture<T> track(String name, CompletableFuture<T> task) {
+        readyAt.put(name, null);
+        task.whenComplete((result, error) -> {
+            if (error != null) {
+                logger.warn("Start-up task " + name + " failed: " + error.getMessage());
+            }
+            finished(name);
+        });
+        return task;
+    }
+
+    /**
+     * Run a task on the calling thread and include it in the report
+     */
+    public void run(String name, Runnable task) {
+        synchronized (this) {
+            readyAt.put(name, null);
+        }
+        try {
+            task.run();
+        } finally {
+            finished(name);
+        }
+    }
+
+    private synchronized void finished(String name) {
+        readyAt.put(name, elapsedMs());
+        reportIfDone();
+    }
+
+    /**
+     * Record that the first window is on screen
+     */
+    public synchronized void firstFrameShown() {
+        if (firstFrameMs < 0) {
+            firstFrameMs = elapsedMs();
+            reportIfDone();
+        }
+    }
+
+    private void watchFirstWindow() {
+        Toolkit toolkit = Toolkit.getDefaultToolkit();
+        AWTEventListener listener = new AWTEventListener() {
+            @Override
+            public void eventDispatched(AWTEvent event) {
+                if (event.getID() == WindowEvent.WINDOW_OPENED) {
+                    toolkit.removeAWTEventListener(this);
+                    firstFrameShown();
+                }
+            }
+        };
+        toolkit.addAWTEventListener(listener, AWTEvent.WINDOW_EVENT_MASK);
+    }
+
+    /**
+     * Whether every tracked task has finished
+     */
+    public synchronized boolean isComplete() {
+        return !readyAt.containsValue(null);
+    }
+
+    private void reportIfDone() {
+        if (!reported && firstFrameMs >= 0 && isComplete()) {
+            reported = true;
+            logger.info(getReport());
+        }
+    }
+
+    /**
+     * First frame and each task's finishing time, in milliseconds from start-up
+     */
+    public synchronized String getReport() {
+        StringBuilder report = new StringBuilder("Start-up: first frame ");
+        report.append(firstFrameMs >= 0 ? firstFrameMs + " ms" : "not shown");
+        for (Map.Entry<String, Long> task : readyAt.entrySet()) {
+            report.append(", ").append(task.getKey()).append(' ')
+                  .append(task.getValue() != null ? task.getValue() + " ms" : "running");
+        }
+        return report.toString();
+    }
+
+    private long elapsedMs() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
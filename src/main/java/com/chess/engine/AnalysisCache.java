@@ -0,0 +1,327 @@
+package com.chess.engine;
+
+import com.chess.engine.uci.SearchInfo;
+import com.chess.engine.uci.SearchResult;
+import com.chess.model.Board;
+import com.chess.model.Move;
+import com.chess.utils.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Finished search results, keyed by position and how hard the search looked.
+ *
+ * Recent results live in an LRU map of bounded size. Every result is also appended
+ * to a log file, and a fixed-size index record (key, limit class, log offset) to a
+ * second file; the index is read back at start-up, so a result evicted from memory
+ * or computed in an earlier session is one seek away. A crash can only cut off the
+ * last records, which are then ignored.
+ *
+ * Searches are only comparable within a limit class: one class per fixed depth, and
+ * power-of-two bands of time or nodes. Ponder searches and reduced skill levels,
+ * whose moves are deliberately random, are never cached.
+ */
+public class AnalysisCache implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(AnalysisCache.class);
+
+    /** System property overriding the directory of the shared cache */
+    public static final String DIRECTORY_PROPERTY = "chess.cache.dir";
+    public static final String DEFAULT_DIRECTORY = "cache";
+    public static final int DEFAULT_CAPACITY = 10_000;
+    private static final String LOG_FILE = "analysis.log";
+    private static final String INDEX_FILE = "analysis.idx";
+    private static final int INDEX_RECORD_SIZE = 20;
+
+    /** Not worth caching, or not cacheable at all */
+    public static final int UNCACHEABLE = -1;
+    private static final int TIME_CLASS = 1_000;
+    private static final int NODES_CLASS = 2_000;
+
+    private static AnalysisCache shared;
+
+    private final Map<Key, SearchResult> recent;
+    private final Map<Key, Long> index = new HashMap<>();
+    private final RandomAccessFile log;
+    private final DataOutputStream indexOut;
+    private long hits;
+    private long misses;
+
+    /**
+     * Position and limit class
+     */
+    private static final class Key {
+        private final long position;
+        private final int limitClass;
+
+        Key(long position, int limitClass) {
+            this.position = position;
+            this.limitClass = limitClass;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return position == other.position && limitClass == other.limitClass;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(position, limitClass);
+        }
+    }
+
+    /**
+     * A cache that persists to the given directory, creating it if needed, or only keeps
+     * results in memory when the directory is null
+     */
+    public AnalysisCache(Path directory, int capacity) throws IOException {
+        this.recent = new LinkedHashMap<Key, SearchResult>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, SearchResult> eldest) {
+                return size() > capacity;
+            }
+        };
+        if (directory == null) {
+            this.log = null;
+            this.indexOut = null;
+            return;
+        }
+        Files.createDirectories(directory);
+        this.log = new RandomAccessFile(directory.resolve(LOG_FILE).toFile(), "rw");
+        Path indexFile = directory.resolve(INDEX_FILE);
+        long validRecords = loadIndex(indexFile);
+        if (Files.exists(indexFile) && Files.size(indexFile) != validRecords * INDEX_RECORD_SIZE) {
+            // Drop a torn record so appends stay aligned
+            try (RandomAccessFile file = new RandomAccessFile(indexFile.toFile(), "rw")) {
+                file.setLength(validRecords * INDEX_RECORD_SIZE);
+            }
+        }
+        this.indexOut = new DataOutputStream(Files.newOutputStream(indexFile,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+        logger.info("Analysis cache opened with " + index.size() + " stored results");
+    }
+
+    /**
+     * A cache that keeps results in memory only
+     */
+    public static AnalysisCache inMemory(int capacity) {
+        try {
+            return new AnalysisCache(null, capacity);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The application-wide cache; memory-only if its directory cannot be used
+     */
+    public static synchronized AnalysisCache getShared() {
+        if (shared == null) {
+            Path directory = Paths.get(System.getProperty(DIRECTORY_PROPERTY, DEFAULT_DIRECTORY));
+            try {
+                shared = new AnalysisCache(directory, DEFAULT_CAPACITY);
+            } catch (IOException e) {
+                logger.warn("Analysis cache not persisted: " + e.getMessage());
+                shared = inMemory(DEFAULT_CAPACITY);
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Read index records up to the first one that is torn or points past the end of the log
+     */
+    private long loadIndex(Path indexFile) throws IOException {
+        if (!Files.exists(indexFile)) {
+            return 0;
+        }
+        long logLength = log.length();
+        long records = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            long count = Files.size(indexFile) / INDEX_RECORD_SIZE;
+            for (; records < count; records++) {
+                long position = in.readLong();
+                int limitClass = in.readInt();
+                long offset = in.readLong();
+                if (offset < 0 || offset >= logLength) {
+                    break;
+                }
+                index.put(new Key(position, limitClass), offset);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Class of effort for the limits, or {@link #UNCACHEABLE}
+     */
+    public static int limitClass(SearchLimits limits, SearchBoard position) {
+        if (limits.isPonder() || limits.getSkillLevel() < SearchLimits.MAX_SKILL_LEVEL) {
+            return UNCACHEABLE;
+        }
+        if (limits.getNodes() > 0) {
+            return NODES_CLASS + 64 - Long.numberOfLeadingZeros(limits.getNodes());
+        }
+        if (limits.getMoveTimeMs() > 0 || limits.isClockControlled()) {
+            long budget = TimeManager.forSearch(limits, position).getHardLimitMs();
+            return TIME_CLASS + 64 - Long.numberOfLeadingZeros(Math.max(1, budget));
+        }
+        return limits.getDepth() > 0 ? limits.getDepth() : UNCACHEABLE;
+    }
+
+    public SearchResult get(Board board, SearchLimits limits) {
+        return get(SearchBoard.fromBoard(board), limits);
+    }
+
+    /**
+     * A stored result for the position searched under comparable limits, with at least
+     * as many lines as the limits ask for, or null
+     */
+    public synchronized SearchResult get(SearchBoard position, SearchLimits limits) {
+        int limitClass = limitClass(limits, position);
+        if (limitClass == UNCACHEABLE) {
+            return null;
+        }
+        Key key = new Key(position.getKey(), limitClass);
+        SearchResult result = recent.get(key);
+        if (result == null) {
+            result = readStored(key);
+        }
+        if (result == null || result.getLines().size() < Math.max(1, limits.getMultiPv())) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return result;
+    }
+
+    /**
+     * The best move of a stored result as a board move, or null; never waits for an engine
+     */
+    public Move getMove(Board board, SearchLimits limits) {
+        SearchBoard position = SearchBoard.fromBoard(board);
+        SearchResult result = get(position, limits);
+        int move = result != null ? position.parseUciMove(result.getBestMove()) : SearchBoard.NO_MOVE;
+        return move == SearchBoard.NO_MOVE ? null : SearchBoard.toModelMove(move, board);
+    }
+
+    public void put(Board board, SearchLimits limits, SearchResult result) {
+        put(SearchBoard.fromBoard(board), limits, result);
+    }
+
+    /**
+     * Store a finished search; results without a move or score are not kept
+     */
+    public synchronized void put(SearchBoard position, SearchLimits limits, SearchResult result) {
+        int limitClass = limitClass(limits, position);
+        if (limitClass == UNCACHEABLE || result == null || result.getBestMove() == null
+                || result.getInfo() == null || !result.getInfo().hasScore()) {
+            return;
+        }
+        Key key = new Key(position.getKey(), limitClass);
+        recent.put(key, result);
+        if (log != null) {
+            try {
+                long offset = log.length();
+                byte[] record = encode(result);
+                log.seek(offset);
+                log.writeInt(record.length);
+                log.write(record);
+                indexOut.writeLong(key.position);
+                indexOut.writeInt(key.limitClass);
+                indexOut.writeLong(offset);
+                indexOut.flush();
+                index.put(key, offset);
+            } catch (IOException e) {
+                logger.error("Failed to store analysis: " + e.getMessage());
+            }
+        }
+    }
+
+    private SearchResult readStored(Key key) {
+        Long offset = index.get(key);
+        if (offset == null) {
+            return null;
+        }
+        try {
+            log.seek(offset);
+            byte[] record = new byte[log.readInt()];
+            log.readFully(record);
+            SearchResult result = decode(record);
+            recent.put(key, result);
+            return result;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Dropping unreadable analysis record: " + e.getMessage());
+            index.remove(key);
+            return null;
+        }
+    }
+
+    /**
+     * Best move, ponder move and one info line per PV, as newline-separated UCI text
+     */
+    private static byte[] encode(SearchResult result) {
+        StringBuilder text = new StringBuilder();
+        text.append(result.getBestMove()).append('\n');
+        text.append(result.getPonderMove() != null ? result.getPonderMove() : "-");
+        for (SearchInfo line : result.getLines()) {
+            text.append('\n').append(line.toUciString());
+        }
+        return text.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static SearchResult decode(byte[] record) {
+        String[] parts = new String(record, StandardCharsets.US_ASCII).split("\n");
+        List<SearchInfo> lines = new ArrayList<>();
+        for (int i = 2; i < parts.length; i++) {
+            SearchInfo info = SearchInfo.parse(parts[i]);
+            if (info == null) {
+                throw new IllegalArgumentException("bad info line");
+            }
+            lines.add(info);
+        }
+        return new SearchResult(parts[0], parts[1].equals("-") ? null : parts[1], lines);
+    }
+
+    public synchronized int size() {
+        return Math.max(recent.size(), index.size());
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            if (log != null) {
+                log.close();
+                indexOut.close();
+            }
+        } catch (IOException e) {
+            logger.error("Error closing analysis cache: " + e.getMessage());
+        }
+    }
+}
@@ -3,57 +3,236 @@ package com.chess.engine;
 import com.chess.model.Board;
 import com.chess.model.Move;
 import com.chess.model.Position;
+import com.chess.engine.uci.SearchInfo;
+import com.chess.engine.uci.SearchResult;
+import com.chess.engine.uci.UciClient;
+import com.chess.engine.uci.UciListener;
+import com.chess.engine.uci.UciProcess;
 import com.chess.utils.Logger;
 import com.chess.utils.FENUtils;
 
 import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * Chess engine using Stockfish
+ * Chess engine using Stockfish.
+ *
+ * Every Stockfish request has a deadline: a search is stopped shortly after its own
+ * time budget, and one that still does not answer, or a process that dies, takes the
+ * engine out of service. A watchdog thread then restarts the process in the background,
+ * and pings it with "isready" in between to catch stalls. Until it is back, requests
+ * are answered by the native engine, so a stuck Stockfish never freezes a game.
  */
 public class ChessEngine {
     private static final Logger logger = Logger.getLogger(ChessEngine.class);
-    private Process stockfishProcess;
-    private BufferedReader reader;
-    private PrintWriter writer;
+    private static final long READY_TIMEOUT_MS = 10_000;
+    /** Extra time a search gets past its own hard limit before it is stopped */
+    private static final long REQUEST_GRACE_MS = 500;
+    /** Deadline for searches without a time limit, e.g. fixed depth */
+    private static final long MAX_REQUEST_MS = 60_000;
+    /** How long a stopped search may take to report its move */
+    private static final long STOP_GRACE_MS = 500;
+    private static final long HEALTH_CHECK_INTERVAL_MS = 5_000;
+    private static final long PING_TIMEOUT_MS = 2_000;
+    private static final long RESTART_BACKOFF_MS = 500;
+    private static final int MAX_RESTART_ATTEMPTS = 5;
+    /** Think time for the native move played when Stockfish fails a request */
+    private static final long FALLBACK_MOVE_MS = 200;
+    /** Moves of the native principal variation reported in "info" lines */
+    private static final int PV_LENGTH = 12;
+    
+    private final UciProcess.Launcher launcher;
+    private volatile UciProcess stockfishProcess;
+    private volatile UciClient uci;
+    private NativeEngine nativeEngine;
+    private final List<UciListener> listeners = new CopyOnWriteArrayList<>();
+    private final EngineMetrics metrics = new EngineMetrics();
+    private final AtomicBoolean restarting = new AtomicBoolean();
+    private volatile boolean closed;
+    private ScheduledExecutorService watchdog;
+    
+    // Pondering: the reply the last search expected, and the key of the position being pondered
+    private String expectedReply;
+    private boolean ponderActive;
+    private long ponderKey;
+    private CompletableFuture<SearchResult> ponderSearch;
+    
+    // Game session: the root position and the moves played since, sent as "position ... moves ..."
+    // so Stockfish sees the game's history. Later positions must follow within MAX_SESSION_GAP plies.
+    private static final int MAX_SESSION_GAP = 2;
+    private String sessionRoot;
+    private final List<String> sessionMoves = new ArrayList<>();
+    private String sessionFen;
+    private boolean newGamePending;
+    // "Skill Level" last sent to Stockfish, so the option is only resent when it changes
+    private int skillLevel = SearchLimits.MAX_SKILL_LEVEL;
+    private int multiPv = 1;
+    // Options for the current use, and the Threads/Hash values Stockfish has now
+    private EngineOptions options;
+    private EngineOptions sentOptions;
+    // Stockfish results are stored here and served again for the same position and limits
+    private volatile AnalysisCache cache = AnalysisCache.getShared();
+    // Set when the running search is cut short, so its partial result is not cached
+    private volatile boolean searchInterrupted;
     
     public ChessEngine() {
-        initializeStockfish();
+        this(EngineOptions.forHost(EngineOptions.Profile.PLAY, 1));
+    }
+    
+    public ChessEngine(EngineOptions options) {
+        this(options, ChessEngine::launchStockfish);
+    }
+    
+    /**
+     * Drive the engine the launcher starts, e.g. a fake one in tests; it is relaunched after a failure
+     */
+    public ChessEngine(EngineOptions options, UciProcess.Launcher launcher) {
+        this.options = options;
+        this.launcher = launcher;
+        if (startEngine()) {
+            logger.info("Stockfish initialized successfully (" + options + ")");
+            startWatchdog();
+        }
+    }
+    
+    private static UciProcess launchStockfish() throws IOException {
+        // Try to find Stockfish executable
+        String stockfishPath = findStockfishExecutable();
+        if (stockfishPath == null) {
+            logger.error("Stockfish executable not found");
+            return null;
+        }
+        return UciProcess.start(stockfishPath);
+    }
+    
+    /**
+     * Launch an engine, complete the handshake and put it in service. Runs without the
+     * engine lock, so requests fall back to the native engine meanwhile instead of waiting.
+     */
+    private boolean startEngine() {
+        UciProcess process;
+        try {
+            process = launcher.launch();
+        } catch (IOException e) {
+            logger.error("Failed to initialize Stockfish: " + e.getMessage());
+            return false;
+        }
+        if (process == null) {
+            return false;
+        }
+        UciClient client = new UciClient(process.getOutput(), process.getInput());
+        EngineOptions current;
+        synchronized (this) {
+            current = options;
+        }
+        
+        // Initialize Stockfish
+        client.send("uci");
+        sendOptions(client, current, null);
+        if (!awaitReady(client)) {
+            client.close();
+            process.destroy();
+            return false;
+        }
+        listeners.forEach(client::addListener);
+        synchronized (this) {
+            stockfishProcess = process;
+            uci = client;
+            sentOptions = current;
+            skillLevel = SearchLimits.MAX_SKILL_LEVEL;
+            multiPv = 1;
+            expectedReply = null;
+            ponderActive = false;
+            ponderSearch = null;
+            newGamePending = false;
+            resetSession();
+            restarting.set(false);
+        }
+        return true;
+    }
+    
+    private void startWatchdog() {
+        watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "engine-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        watchdog.scheduleWithFixedDelay(this::checkHealth, HEALTH_CHECK_INTERVAL_MS, HEALTH_CHECK_INTERVAL_MS,
+                TimeUnit.MILLISECONDS);
     }
     
-    private void initializeStockfish() {
+    /**
+     * Ping the engine; a dead process or a missed "readyok" sends it for a restart.
+     * Stockfish answers "isready" even mid-search, so this needs no engine lock.
+     */
+    private void checkHealth() {
+        UciClient client = uci;
+        UciProcess process = stockfishProcess;
+        if (closed || restarting.get() || client == null) {
+            return;
+        }
+        if (!process.isAlive()) {
+            scheduleRestart("process exited");
+            return;
+        }
+        long start = System.currentTimeMillis();
         try {
-            // Try to find Stockfish executable
-            String stockfishPath = findStockfishExecutable();
-            if (stockfishPath == null) {
-                logger.error("Stockfish executable not found");
+            client.isReady().get(PING_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            metrics.recordPing(System.currentTimeMillis() - start);
+        } catch (ExecutionException | TimeoutException e) {
+            scheduleRestart("no reply to isready");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Take Stockfish out of service and relaunch it on the watchdog thread
+     */
+    private void scheduleRestart(String reason) {
+        if (closed || watchdog == null || !restarting.compareAndSet(false, true)) {
+            return;
+        }
+        logger.warn("Restarting Stockfish: " + reason);
+        UciClient client = uci;
+        UciProcess process = stockfishProcess;
+        if (client != null) {
+            client.close();
+        }
+        if (process != null) {
+            process.destroy();
+        }
+        watchdog.execute(this::restart);
+    }
+    
+    private void restart() {
+        long backoff = RESTART_BACKOFF_MS;
+        for (int attempt = 1; attempt <= MAX_RESTART_ATTEMPTS && !closed; attempt++) {
+            if (startEngine()) {
+                metrics.recordRestart();
+                logger.info("Stockfish restarted");
                 return;
             }
-            
-            ProcessBuilder pb = new ProcessBuilder(stockfishPath);
-            stockfishProcess = pb.start();
-            reader = new BufferedReader(new InputStreamReader(stockfishProcess.getInputStream()));
-            writer = new PrintWriter(stockfishProcess.getOutputStream(), true);
-            
-            // Initialize Stockfish
-            writer.println("uci");
-            writer.println("isready");
-            
-            // Wait for ready
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.equals("readyok")) {
-                    break;
-                }
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                return;
             }
-            
-            logger.info("Stockfish initialized successfully");
-        } catch (IOException e) {
-            logger.error("Failed to initialize Stockfish: " + e.getMessage());
+            backoff *= 2;
         }
+        logger.error("Stockfish could not be restarted; using the native engine");
     }
     
-    private String findStockfishExecutable() {
+    private static String findStockfishExecutable() {
         // Check common locations
         String[] paths = {
             "stockfish-windows-x86-64-avx2/stockfish/stockfish-windows-x86-64-avx2.exe",
@@ -78,58 +257,504 @@ public class ChessEngine {
     }
     
     public Move getBestMove(Board board, int timeMs) {
-        if (stockfishProcess == null || !stockfishProcess.isAlive()) {
-            logger.error("Stockfish not available");
-            return null;
+        return getBestMove(board, SearchLimits.moveTime(timeMs));
+    }
+
+    /**
+     * Get the best move under the given limits; with clock limits the engine budgets its own time
+     */
+    public synchronized Move getBestMove(Board board, SearchLimits limits) {
+        if (ponderActive) {
+            Move ponderMove = resolvePonder(board, limits);
+            if (ponderMove != null) {
+                return ponderMove;
+            }
         }
         
-        try {
-            // Set up position
-            String fen = FENUtils.toFEN(board);
-            writer.println("position fen " + fen);
-            
-            // Get best move
-            writer.println("go movetime " + timeMs);
-            
-            String bestMove = null;
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.startsWith("bestmove")) {
-                    bestMove = line.split(" ")[1];
-                    break;
-                }
+        if (!isEngineAvailable()) {
+            logger.info("Stockfish not available, using native engine");
+            return getNativeEngine().getBestMove(board, limits);
+        }
+        
+        SearchResult result = cachedSearch(board, limits);
+        if (result == null && !isEngineAvailable()) {
+            // The request's budget is spent: answer quickly while Stockfish restarts
+            logger.warn("Stockfish failed, using a quick native move");
+            return getNativeEngine().getBestMove(board, SearchLimits.moveTime(FALLBACK_MOVE_MS));
+        }
+        return toMove(result, board);
+    }
+    
+    /**
+     * A cached result for the position and limits, or a new Stockfish search that is then cached
+     */
+    private SearchResult cachedSearch(Board board, SearchLimits limits) {
+        AnalysisCache analysisCache = cache;
+        SearchResult result = analysisCache != null ? analysisCache.get(board, limits) : null;
+        if (result != null) {
+            logger.info("Cached analysis: " + result);
+            return result;
+        }
+        searchInterrupted = false;
+        result = awaitResult(searchAsync(board, limits, null), requestTimeout(board, limits));
+        // A search stopped early is only as deep as it got, not what the limits asked for
+        if (analysisCache != null && isEngineAvailable() && !searchInterrupted) {
+            analysisCache.put(board, limits, result);
+        }
+        return result;
+    }
+    
+    /**
+     * Cache for Stockfish results, or null to always search
+     */
+    public void setAnalysisCache(AnalysisCache cache) {
+        this.cache = cache;
+    }
+    
+    /**
+     * Start a search and return at once. The listener, if any, receives this search's
+     * "info" events and its result. Without Stockfish the native engine searches on a
+     * pool thread and reports a single final info event.
+     *
+     * @throws IllegalStateException if a Stockfish search is already running
+     */
+    public synchronized CompletableFuture<SearchResult> searchAsync(Board board, SearchLimits limits,
+                                                                    UciListener listener) {
+        SearchLimits effective = limits;
+        if (limits.getMultiPv() == 0) {
+            // Resolve the default on a copy; the caller's limits may be reused or cached
+            effective = limits.copy();
+            effective.setMultiPv(options.getMultiPv());
+        }
+        if (!isEngineAvailable()) {
+            SearchBoard position = SearchBoard.fromBoard(board);
+            NativeEngine engine = getNativeEngine();
+            SearchLimits nativeLimits = effective;
+            return CompletableFuture.supplyAsync(() -> nativeResult(engine, position, nativeLimits, listener));
+        }
+        prepareSearch(effective);
+        return uci.search(positionCommand(board), effective, listener);
+    }
+    
+    /**
+     * Run a native search and describe it the way a UCI engine would
+     */
+    private static SearchResult nativeResult(NativeEngine engine, SearchBoard position, SearchLimits limits,
+                                             UciListener listener) {
+        int[] moves;
+        int[] scores;
+        int[] line = new int[PV_LENGTH];
+        int lineLength;
+        int count;
+        int best;
+        synchronized (engine) {
+            best = engine.search(position, limits);
+            moves = new int[limits.getMultiPv()];
+            scores = new int[moves.length];
+            count = limits.getMultiPv() > 1 ? engine.getRootScores(moves, scores) : 0;
+            if (count == 0 && best != SearchBoard.NO_MOVE) {
+                moves[0] = best;
+                scores[0] = engine.getBestScore();
+                count = 1;
             }
-            
-            if (bestMove == null || bestMove.equals("(none)")) {
-                logger.warn("No best move found");
-                return null;
+            lineLength = engine.getPrincipalVariation(position, line);
+        }
+        List<SearchInfo> lines = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int score = scores[i];
+            // The table holds the continuation of the best line only
+            StringBuilder pv = new StringBuilder(SearchBoard.toUci(moves[i]));
+            for (int j = 1; i == 0 && j < lineLength && line[0] == moves[0]; j++) {
+                pv.append(' ').append(SearchBoard.toUci(line[j]));
             }
-            
-            // Parse move
+            String scoreText = Math.abs(score) >= NativeEngine.MATE_BOUND
+                    ? "mate " + Integer.signum(score) * ((NativeEngine.MATE - Math.abs(score) + 1) / 2)
+                    : "cp " + score;
+            lines.add(SearchInfo.parse("info depth " + engine.getCompletedDepth() + " multipv " + (i + 1)
+                    + " score " + scoreText + " nodes " + engine.getNodes() + " pv " + pv));
+        }
+        String bestMove = best == SearchBoard.NO_MOVE ? null : SearchBoard.toUci(best);
+        SearchResult result = new SearchResult(bestMove, null, lines);
+        if (listener != null) {
+            lines.forEach(listener::onInfo);
+            listener.onBestMove(result);
+        }
+        return result;
+    }
+    
+    /**
+     * Search and wait for the full result, including every line when limits ask for MultiPV
+     */
+    public synchronized SearchResult analyze(Board board, SearchLimits limits) {
+        stopPondering();
+        if (isEngineAvailable()) {
+            SearchResult result = cachedSearch(board, limits);
+            if (result != null || isEngineAvailable()) {
+                return result;
+            }
+        }
+        return awaitNative(searchAsync(board, limits, null));
+    }
+    
+    /**
+     * Receive "info" events and results from every Stockfish search; no-op without Stockfish
+     */
+    public void addListener(UciListener listener) {
+        listeners.add(listener);
+        UciClient client = uci;
+        if (client != null) {
+            client.addListener(listener);
+        }
+    }
+    
+    public void removeListener(UciListener listener) {
+        listeners.remove(listener);
+        UciClient client = uci;
+        if (client != null) {
+            client.removeListener(listener);
+        }
+    }
+    
+    /**
+     * Switch to other options, e.g. when a pooled engine moves from play to analysis.
+     * Only changed values are sent; a new hash size makes Stockfish reallocate, so that
+     * waits for "readyok".
+     */
+    public synchronized void configure(EngineOptions options) {
+        this.options = options;
+        if (isEngineAvailable()) {
+            boolean resized = sendOptions(uci, options, sentOptions);
+            sentOptions = options;
+            if (resized && !awaitReady(uci)) {
+                scheduleRestart("no reply to isready");
+            }
+        }
+    }
+    
+    public synchronized EngineOptions getOptions() {
+        return options;
+    }
+    
+    /**
+     * Send Threads and Hash where they differ from what Stockfish has, returning whether the hash changed
+     */
+    private static boolean sendOptions(UciClient client, EngineOptions options, EngineOptions sent) {
+        if (sent == null || sent.getThreads() != options.getThreads()) {
+            client.send("setoption name Threads value " + options.getThreads());
+        }
+        boolean resized = sent == null || sent.getHashMb() != options.getHashMb();
+        if (resized) {
+            client.send("setoption name Hash value " + options.getHashMb());
+        }
+        return resized;
+    }
+    
+    /**
+     * Send a pending "ucinewgame" and any changed options ahead of "position" and "go".
+     * The engine handles commands in order, so no "isready" round trip is needed.
+     */
+    private void prepareSearch(SearchLimits limits) {
+        if (newGamePending) {
+            uci.send("ucinewgame");
+            newGamePending = false;
+        }
+        applyOptions(limits);
+    }
+    
+    /**
+     * The "position" command for a board. A board that follows the previous one within a
+     * couple of plies extends the session's move list; anything else starts a new root.
+     */
+    String positionCommand(Board board) {
+        SearchBoard target = SearchBoard.fromBoard(board);
+        List<String> path = sessionFen != null
+                ? findPath(new SearchBoard(sessionFen), target.getKey(), MAX_SESSION_GAP) : null;
+        if (path != null) {
+            sessionMoves.addAll(path);
+        } else {
+            boolean start = target.getKey() == new SearchBoard(SearchBoard.START_FEN).getKey();
+            sessionRoot = start ? "startpos" : "fen " + FENUtils.toFEN(board);
+            sessionMoves.clear();
+        }
+        sessionFen = target.toFEN();
+        return "position " + sessionRoot + (sessionMoves.isEmpty() ? "" : " moves " + String.join(" ", sessionMoves));
+    }
+    
+    /**
+     * Moves leading from a position to the one with the given key in at most maxPlies, or null
+     */
+    private static List<String> findPath(SearchBoard from, long targetKey, int maxPlies) {
+        if (from.getKey() == targetKey) {
+            return new ArrayList<>();
+        }
+        if (maxPlies == 0) {
+            return null;
+        }
+        int[] moves = new int[SearchBoard.MAX_MOVES];
+        int count = from.generateMoves(moves, false);
+        for (int i = 0; i < count; i++) {
+            if (!from.makeMove(moves[i])) {
+                continue;
+            }
+            List<String> rest = findPath(from, targetKey, maxPlies - 1);
+            from.unmakeMove();
+            if (rest != null) {
+                rest.add(0, SearchBoard.toUci(moves[i]));
+                return rest;
+            }
+        }
+        return null;
+    }
+    
+    private void resetSession() {
+        sessionRoot = null;
+        sessionMoves.clear();
+        sessionFen = null;
+    }
+    
+    /**
+     * Send the limits that UCI treats as options, when they differ from what the engine has
+     */
+    private void applyOptions(SearchLimits limits) {
+        if (limits.getSkillLevel() != skillLevel) {
+            skillLevel = limits.getSkillLevel();
+            uci.send("setoption name Skill Level value " + skillLevel);
+        }
+        int lines = limits.getMultiPv() > 0 ? limits.getMultiPv() : options.getMultiPv();
+        if (lines != multiPv) {
+            multiPv = lines;
+            uci.send("setoption name MultiPV value " + multiPv);
+        }
+    }
+    
+    /**
+     * Wait for a search, returning null if it failed
+     */
+    private SearchResult awaitResult(CompletableFuture<SearchResult> search, long timeoutMs) {
+        long start = System.currentTimeMillis();
+        try {
+            SearchResult result;
             try {
-                Position from = new Position(bestMove.substring(0, 2));
-                Position to = new Position(bestMove.substring(2, 4));
-                // Find the piece on the board
-                com.chess.model.Piece piece = board.getPiece(from);
-                com.chess.model.Piece captured = board.getPiece(to);
-                Move move = new Move(from, to, piece, captured);
-                logger.info("Best move: " + move);
-                return move;
-            } catch (Exception e) {
-                logger.error("Error parsing Stockfish move: " + bestMove, e);
-                return null;
+                result = search.get(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                metrics.recordTimeout();
+                logger.warn("Stockfish missed its " + timeoutMs + " ms deadline, stopping the search");
+                searchInterrupted = true;
+                UciClient client = uci;
+                if (client != null) {
+                    client.stop();
+                }
+                result = search.get(STOP_GRACE_MS, TimeUnit.MILLISECONDS);
             }
-        } catch (IOException e) {
-            logger.error("Error communicating with Stockfish: " + e.getMessage());
+            metrics.recordRequest(System.currentTimeMillis() - start);
+            return result;
+        } catch (TimeoutException e) {
+            metrics.recordFailure();
+            scheduleRestart("search did not stop");
+        } catch (ExecutionException e) {
+            metrics.recordFailure();
+            logger.error("Error communicating with Stockfish: " + e.getCause().getMessage());
+            scheduleRestart(e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stopSearch();
+        }
+        return null;
+    }
+    
+    /**
+     * Wait for a native search run by {@link #searchAsync(Board, SearchLimits, UciListener)}
+     */
+    private SearchResult awaitNative(CompletableFuture<SearchResult> search) {
+        try {
+            return search.get();
+        } catch (ExecutionException e) {
+            logger.error("Native search failed: " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            getNativeEngine().stop();
+        }
+        return null;
+    }
+    
+    /**
+     * Deadline for a search: its own hard time limit plus a little grace
+     */
+    private static long requestTimeout(Board board, SearchLimits limits) {
+        long hardLimit = TimeManager.forSearch(limits, SearchBoard.fromBoard(board)).getHardLimitMs();
+        return Math.min(MAX_REQUEST_MS, hardLimit) + REQUEST_GRACE_MS;
+    }
+    
+    /**
+     * Wait for "readyok", e.g. after start-up or a hash resize
+     */
+    private static boolean awaitReady(UciClient client) {
+        try {
+            client.isReady().get(READY_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (ExecutionException | TimeoutException e) {
+            logger.error("Stockfish did not answer isready: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+    
+    /**
+     * Convert a search result to a board move, remembering the expected reply for pondering
+     */
+    private Move toMove(SearchResult result, Board board) {
+        if (result == null) {
+            return null;
+        }
+        expectedReply = result.getPonderMove();
+        String bestMove = result.getBestMove();
+        
+        if (bestMove == null) {
+            logger.warn("No best move found");
+            return null;
+        }
+        
+        // Parse move
+        try {
+            Position from = new Position(bestMove.substring(0, 2));
+            Position to = new Position(bestMove.substring(2, 4));
+            // Find the piece on the board
+            com.chess.model.Piece piece = board.getPiece(from);
+            com.chess.model.Piece captured = board.getPiece(to);
+            Move move = new Move(from, to, piece, captured);
+            logger.info("Best move: " + move);
+            return move;
+        } catch (Exception e) {
+            logger.error("Error parsing Stockfish move: " + bestMove, e);
             return null;
         }
     }
-
+    
+    /**
+     * Start thinking on the opponent's time, assuming they play the reply the last search expected.
+     * Call right after the engine's own move has been made on the board.
+     *
+     * @return true if a search was started
+     */
+    public synchronized boolean startPondering(Board board, SearchLimits limits) {
+        stopPondering();
+        SearchBoard position = SearchBoard.fromBoard(board);
+        boolean stockfish = isEngineAvailable();
+        int reply = stockfish && expectedReply != null ? position.parseUciMove(expectedReply)
+                : stockfish ? SearchBoard.NO_MOVE : getNativeEngine().predictReply(position);
+        if (reply == SearchBoard.NO_MOVE || !position.makeMove(reply)) {
+            return false;
+        }
+        ponderKey = position.getKey();
+        ponderActive = true;
+        
+        if (stockfish) {
+            prepareSearch(limits);
+            limits.setPonder(true);
+            String command = positionCommand(board);
+            command += (sessionMoves.isEmpty() ? " moves " : " ") + SearchBoard.toUci(reply);
+            ponderSearch = uci.search(command, limits, null);
+        } else {
+            getNativeEngine().startPonder(position);
+        }
+        logger.info("Pondering on expected reply " + SearchBoard.toUci(reply));
+        return true;
+    }
+    
+    /**
+     * Abort pondering, e.g. when the game ends or another position needs the engine
+     */
+    public synchronized void stopPondering() {
+        if (!ponderActive) {
+            return;
+        }
+        ponderActive = false;
+        if (ponderSearch != null) {
+            uci.stop();
+            awaitResult(ponderSearch, STOP_GRACE_MS);
+            ponderSearch = null;
+        } else if (nativeEngine != null) {
+            nativeEngine.stopPonder();
+        }
+    }
+    
+    /**
+     * On a ponder hit, let the running search finish under the real limits and return its move.
+     * On a miss, abort it (the native transposition table keeps its results) and return null.
+     */
+    private Move resolvePonder(Board board, SearchLimits limits) {
+        SearchBoard current = SearchBoard.fromBoard(board);
+        if (current.getKey() != ponderKey) {
+            logger.info("Ponder miss");
+            stopPondering();
+            return null;
+        }
+        
+        logger.info("Ponder hit");
+        ponderActive = false;
+        if (ponderSearch != null) {
+            uci.ponderHit();
+            Move move = toMove(awaitResult(ponderSearch, requestTimeout(board, limits)), board);
+            ponderSearch = null;
+            return move;
+        }
+        nativeEngine.ponderHit(limits, current);
+        int best = nativeEngine.awaitPonder();
+        return best == SearchBoard.NO_MOVE ? null : SearchBoard.toModelMove(best, board);
+    }
+    
+    /**
+     * Forget everything learned about the current game: "ucinewgame" for Stockfish, sent with
+     * the next search so repeated resets cost nothing, or a cleared hash table for the native engine
+     */
+    public synchronized void newGame() {
+        stopPondering();
+        expectedReply = null;
+        resetSession();
+        if (isEngineAvailable()) {
+            newGamePending = true;
+        } else if (nativeEngine != null) {
+            nativeEngine.clearHash();
+        }
+    }
+    
+    /**
+     * Ask a running UCI search to finish now. Unlike the other methods this does not wait
+     * for the engine lock, so it can interrupt a blocked {@link #getBestMove(Board, SearchLimits)},
+     * which then returns the engine's best move so far without caching it.
+     */
+    public void stopSearch() {
+        searchInterrupted = true;
+        UciClient client = uci;
+        if (client != null) {
+            client.stop();
+        }
+    }
+    
     /**
      * Check if Stockfish engine is available
      */
     public boolean isEngineAvailable() {
-        return stockfishProcess != null && stockfishProcess.isAlive();
+        UciProcess process = stockfishProcess;
+        return !restarting.get() && uci != null && process != null && process.isAlive();
+    }
+    
+    /**
+     * Request latencies, timeouts and restarts of the Stockfish process
+     */
+    public EngineMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * Built-in alpha-beta engine used when Stockfish is not available
+     */
+    public synchronized NativeEngine getNativeEngine() {
+        if (nativeEngine == null) {
+            nativeEngine = new NativeEngine();
+        }
+        return nativeEngine;
     }
     
     /**
@@ -156,10 +781,16 @@ public class ChessEngine {
     }
 
     public void close() throws IOException {
-        if (stockfishProcess != null && stockfishProcess.isAlive()) {
-            writer.println("quit");
-            stockfishProcess.destroy();
-            logger.info("Stockfish engine closed");
+        closed = true;
+        if (watchdog != null) {
+            watchdog.shutdownNow();
+        }
+        stopPondering();
+        UciProcess process = stockfishProcess;
+        if (process != null && process.isAlive()) {
+            uci.close();
+            process.destroy();
+            logger.info("Stockfish engine closed (" + metrics + ")");
         }
     }
 
@@ -0,0 +1,80 @@
+package com.chess.engine;
+
+/**
+ * AI strength levels defined by search effort rather than wall-clock time.
+ *
+ * Each level caps the nodes and depth searched, so it plays the same way on fast
+ * and slow machines, and has a hard latency ceiling so a loaded machine only ever
+ * makes it weaker, never slower. Below full strength the engine also picks among
+ * near-best moves at random (UCI "Skill Level" for Stockfish).
+ */
+public enum Difficulty {
+    BEGINNER("Beginner", 0, 2_000, 3, 300),
+    CASUAL("Casual", 6, 15_000, 5, 600),
+    INTERMEDIATE("Intermediate", 12, 80_000, 8, 1_000),
+    ADVANCED("Advanced", 17, 400_000, 12, 2_000),
+    MAXIMUM("Maximum", SearchLimits.MAX_SKILL_LEVEL, 0, 0, 5_000);
+
+    private final String displayName;
+    private final int skillLevel;
+    private final long nodes;
+    private final int maxDepth;
+    private final long latencyCeilingMs;
+
+    Difficulty(String displayName, int skillLevel, long nodes, int maxDepth, long latencyCeilingMs) {
+        this.displayName = displayName;
+        this.skillLevel = skillLevel;
+        this.nodes = nodes;
+        this.maxDepth = maxDepth;
+        this.latencyCeilingMs = latencyCeilingMs;
+    }
+
+    /**
+     * Restrict the given limits (typically clock limits) to this level and return them
+     */
+    public SearchLimits applyTo(SearchLimits limits) {
+        if (nodes > 0) {
+            limits.setNodes(nodes);
+        }
+        if (maxDepth > 0 && (limits.getDepth() == 0 || limits.getDepth() > maxDepth)) {
+            limits.setDepth(maxDepth);
+        }
+        if (limits.getMoveTimeMs() == 0 || limits.getMoveTimeMs() > latencyCeilingMs) {
+            limits.setMoveTimeMs(latencyCeilingMs);
+        }
+        limits.setSkillLevel(skillLevel);
+        return limits;
+    }
+
+    /**
+     * Whether the level plays at full strength; weaker levels should not ponder, which would make them stronger
+     */
+    public boolean isFullStrength() {
+        return skillLevel >= SearchLimits.MAX_SKILL_LEVEL && nodes == 0;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public int getSkillLevel() {
+        return skillLevel;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getLatencyCeilingMs() {
+        return latencyCeilingMs;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -0,0 +1,319 @@
+package com.chess.engine;
+
+import com.chess.engine.uci.FakeUciEngine;
+import com.chess.engine.uci.UciProcess;
+import com.chess.model.Board;
+import com.chess.model.Move;
+import com.chess.utils.FENUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Load test for the engine integration: a number of clients request moves at once
+ * through an {@link EnginePool} of {@link ChessEngine}s driving {@link FakeUciEngine}s,
+ * so it needs no Stockfish binary.
+ *
+ * Each request is timed from pool checkout to the returned move; the report gives
+ * throughput and latency percentiles along with the engines' timeouts and restarts
+ * and the analysis cache's hits. Varying the pool size, cache, think time and
+ * injected failures shows what each costs or saves under contention.
+ *
+ * Run with: java -cp target/classes com.chess.engine.EngineBenchmark --clients 8 --engines 2
+ */
+public class EngineBenchmark {
+    private int engines = 2;
+    private int clients = 4;
+    private int requests = 200;
+    private int positions = 50;
+    private long moveTimeMs = 100;
+    private long checkoutTimeoutMs = EnginePool.DEFAULT_TIMEOUT_MS;
+    private boolean cached;
+    private boolean subprocess;
+    private final FakeUciEngine engine = new FakeUciEngine();
+
+    /**
+     * What a run measured
+     */
+    public static final class Report {
+        private final long[] latenciesMs;
+        private final int rejected;
+        private final long elapsedMs;
+        private final long timeouts;
+        private final long failures;
+        private final long restarts;
+        private final long cacheHits;
+
+        Report(long[] latenciesMs, int rejected, long elapsedMs, long timeouts, long failures, long restarts,
+               long cacheHits) {
+            this.latenciesMs = latenciesMs.clone();
+            Arrays.sort(this.latenciesMs);
+            this.rejected = rejected;
+            this.elapsedMs = elapsedMs;
+            this.timeouts = timeouts;
+            this.failures = failures;
+            this.restarts = restarts;
+            this.cacheHits = cacheHits;
+        }
+
+        /** Requests that got a move */
+        public int getCompleted() {
+            return latenciesMs.length;
+        }
+
+        /** Requests that found no free engine within the checkout timeout */
+        public int getRejected() {
+            return rejected;
+        }
+
+        public long getElapsedMs() {
+            return elapsedMs;
+        }
+
+        /** Completed requests per second */
+        public double getThroughput() {
+            return elapsedMs == 0 ? 0 : latenciesMs.length * 1000.0 / elapsedMs;
+        }
+
+        /**
+         * Latency below which the given fraction of completed requests finished (nearest rank)
+         */
+        public long getPercentileMs(double fraction) {
+            if (latenciesMs.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(fraction * latenciesMs.length);
+            return latenciesMs[Math.max(0, Math.min(latenciesMs.length, rank) - 1)];
+        }
+
+        public long getMaxLatencyMs() {
+            return latenciesMs.length == 0 ? 0 : latenciesMs[latenciesMs.length - 1];
+        }
+
+        public long getTimeouts() {
+            return timeouts;
+        }
+
+        public long getFailures() {
+            return failures;
+        }
+
+        public long getRestarts() {
+            return restarts;
+        }
+
+        public long getCacheHits() {
+            return cacheHits;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d requests in %d ms (%.1f/s), %d rejected; latency p50 %d, p95 %d, p99 %d, "
+                            + "max %d ms; %d timeouts, %d failures, %d restarts, %d cache hits",
+                    latenciesMs.length + rejected, elapsedMs, getThroughput(), rejected, getPercentileMs(0.50),
+                    getPercentileMs(0.95), getPercentileMs(0.99), getMaxLatencyMs(), timeouts, failures, restarts,
+                    cacheHits);
+        }
+    }
+
+    /** Engines in the pool */
+    public void setEngines(int engines) {
+        this.engines = Math.max(1, engines);
+    }
+
+    /** Threads requesting moves at once */
+    public void setClients(int clients) {
+        this.clients = Math.max(1, clients);
+    }
+
+    /** Requests over the whole run, shared out between the clients */
+    public void setRequests(int requests) {
+        this.requests = Math.max(1, requests);
+    }
+
+    /** Distinct positions requested in turn; fewer positions mean more cache hits */
+    public void setPositions(int positions) {
+        this.positions = Math.max(1, positions);
+    }
+
+    public void setMoveTimeMs(long moveTimeMs) {
+        this.moveTimeMs = Math.max(1, moveTimeMs);
+    }
+
+    public void setCheckoutTimeoutMs(long checkoutTimeoutMs) {
+        this.checkoutTimeoutMs = Math.max(0, checkoutTimeoutMs);
+    }
+
+    /** Share one in-memory analysis cache between the engines */
+    public void setCached(boolean cached) {
+        this.cached = cached;
+    }
+
+    /** Run each fake engine as a child JVM instead of in this one */
+    public void setSubprocess(boolean subprocess) {
+        this.subprocess = subprocess;
+    }
+
+    /**
+     * The fake engine's think time, info lines and failures
+     */
+    public FakeUciEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Start the pool, run every request and shut the pool down again
+     */
+    public Report run() throws InterruptedException {
+        AnalysisCache cache = cached ? AnalysisCache.inMemory(AnalysisCache.DEFAULT_CAPACITY) : null;
+        UciProcess.Launcher launcher = subprocess ? engine.subprocess() : engine::launch;
+        List<ChessEngine> started = Collections.synchronizedList(new ArrayList<>());
+        EnginePool pool = new EnginePool(engines, () -> {
+            ChessEngine chessEngine = new ChessEngine(new EngineOptions(1, EngineOptions.MIN_HASH_MB, 1), launcher);
+            chessEngine.setAnalysisCache(cache);
+            started.add(chessEngine);
+            return chessEngine;
+        });
+
+        List<String> fens = generatePositions(positions);
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        List<Future<long[]>> results = new ArrayList<>();
+        long start = System.currentTimeMillis();
+        for (int client = 0; client < clients; client++) {
+            int count = requests / clients + (client < requests % clients ? 1 : 0);
+            int first = client;
+            results.add(executor.submit(() -> runClient(pool, fens, first, count)));
+        }
+
+        List<Long> latencies = new ArrayList<>();
+        int rejected = 0;
+        for (Future<long[]> result : results) {
+            try {
+                for (long latency : result.get()) {
+                    if (latency < 0) {
+                        rejected++;
+                    } else {
+                        latencies.add(latency);
+                    }
+                }
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Benchmark client failed", e.getCause());
+            }
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        executor.shutdown();
+
+        long timeouts = 0;
+        long failures = 0;
+        long restarts = 0;
+        for (ChessEngine chessEngine : started) {
+            timeouts += chessEngine.getMetrics().getTimeouts();
+            failures += chessEngine.getMetrics().getFailures();
+            restarts += chessEngine.getMetrics().getRestarts();
+        }
+        pool.close();
+        long[] completed = new long[latencies.size()];
+        for (int i = 0; i < completed.length; i++) {
+            completed[i] = latencies.get(i);
+        }
+        return new Report(completed, rejected, elapsed, timeouts, failures, restarts,
+                cache != null ? cache.getHits() : 0);
+    }
+
+    /**
+     * One client's requests, in order; a negative latency marks a rejected checkout
+     */
+    private long[] runClient(EnginePool pool, List<String> fens, int first, int count)
+            throws InterruptedException {
+        long[] latencies = new long[count];
+        for (int i = 0; i < count; i++) {
+            String fen = fens.get((first + i * clients) % fens.size());
+            Board board = FENUtils.fromFEN(fen);
+            long requestStart = System.nanoTime();
+            try (EnginePool.Lease lease = pool.acquire(checkoutTimeoutMs)) {
+                Move move = lease.getEngine().getBestMove(board, SearchLimits.moveTime(moveTimeMs));
+                if (move == null) {
+                    throw new IllegalStateException("No move for " + fen);
+                }
+                latencies[i] = (System.nanoTime() - requestStart) / 1_000_000;
+            } catch (TimeoutException e) {
+                latencies[i] = -1;
+            }
+        }
+        return latencies;
+    }
+
+    /**
+     * Positions from short pseudo-random games, the same for every run
+     */
+    static List<String> generatePositions(int count) {
+        Random random = new Random(count);
+        List<String> fens = new ArrayList<>();
+        int[] moves = new int[SearchBoard.MAX_MOVES];
+        while (fens.size() < count) {
+            SearchBoard board = new SearchBoard();
+            int plies = 4 + random.nextInt(30);
+            for (int ply = 0; ply < plies && board.hasLegalMove(); ply++) {
+                int moveCount = board.generateMoves(moves, false);
+                while (!board.makeMove(moves[random.nextInt(moveCount)])) {
+                    // Try another until a legal one turns up
+                }
+            }
+            if (board.hasLegalMove()) {
+                fens.add(board.toFEN());
+            }
+        }
+        return fens;
+    }
+
+    /**
+     * Options: --engines n, --clients n, --requests n, --positions n, --movetime ms,
+     * --checkout-timeout ms, --cache, --subprocess, and the fake engine's --think ms,
+     * --info n, --ready-delay ms, --failure mode, --every n.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        EngineBenchmark benchmark = new EngineBenchmark();
+        FakeUciEngine fake = benchmark.getEngine();
+        FakeUciEngine.Failure failure = FakeUciEngine.Failure.NONE;
+        int every = 1;
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (option.equals("--cache")) {
+                benchmark.setCached(true);
+                continue;
+            }
+            if (option.equals("--subprocess")) {
+                benchmark.setSubprocess(true);
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--engines": benchmark.setEngines(Integer.parseInt(value)); break;
+                case "--clients": benchmark.setClients(Integer.parseInt(value)); break;
+                case "--requests": benchmark.setRequests(Integer.parseInt(value)); break;
+                case "--positions": benchmark.setPositions(Integer.parseInt(value)); break;
+                case "--movetime": benchmark.setMoveTimeMs(Long.parseLong(value)); break;
+                case "--checkout-timeout": benchmark.setCheckoutTimeoutMs(Long.parseLong(value)); break;
+                case "--think": fake.setThinkTimeMs(Long.parseLong(value)); break;
+                case "--info": fake.setInfoLines(Integer.parseInt(value)); break;
+                case "--ready-delay": fake.setReadyDelayMs(Long.parseLong(value)); break;
+                case "--failure": failure = FakeUciEngine.Failure.valueOf(value.toUpperCase()); break;
+                case "--every": every = Integer.parseInt(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + option);
+            }
+        }
+        fake.setFailure(failure, every);
+        System.out.println(benchmark.run());
+    }
+}
@@ -0,0 +1,80 @@
+package com.chess.engine;
+
+/**
+ * Health figures for one UCI engine: how its requests went and how often it had to be restarted
+ */
+public class EngineMetrics {
+    private long requests;
+    private long timeouts;
+    private long failures;
+    private long restarts;
+    private long totalLatencyMs;
+    private long maxLatencyMs;
+    private long lastLatencyMs = -1;
+    private long lastPingMs = -1;
+
+    synchronized void recordRequest(long latencyMs) {
+        requests++;
+        totalLatencyMs += latencyMs;
+        maxLatencyMs = Math.max(maxLatencyMs, latencyMs);
+        lastLatencyMs = latencyMs;
+    }
+
+    /** A search that had to be stopped at its deadline */
+    synchronized void recordTimeout() {
+        timeouts++;
+    }
+
+    /** A request that got no answer at all */
+    synchronized void recordFailure() {
+        failures++;
+    }
+
+    synchronized void recordRestart() {
+        restarts++;
+    }
+
+    synchronized void recordPing(long latencyMs) {
+        lastPingMs = latencyMs;
+    }
+
+    public synchronized long getRequests() {
+        return requests;
+    }
+
+    public synchronized long getTimeouts() {
+        return timeouts;
+    }
+
+    public synchronized long getFailures() {
+        return failures;
+    }
+
+    public synchronized long getRestarts() {
+        return restarts;
+    }
+
+    public synchronized long getAverageLatencyMs() {
+        return requests == 0 ? 0 : totalLatencyMs / requests;
+    }
+
+    public synchronized long getMaxLatencyMs() {
+        return maxLatencyMs;
+    }
+
+    /** Latency of the most recent request, or -1 */
+    public synchronized long getLastLatencyMs() {
+        return lastLatencyMs;
+    }
+
+    /** Round trip of the last "isready" health check, or -1 */
+    public synchronized long getLastPingMs() {
+        return lastPingMs;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return requests + " requests, avg " + getAverageLatencyMs() + " ms, max " + maxLatencyMs + " ms, "
+                + timeouts + " timeouts, " + failures + " failures, " + restarts + " restarts";
+    }
+}
@@ -0,0 +1,118 @@
+package com.chess.engine;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+
+/**
+ * Stockfish "Threads", "Hash" and default "MultiPV" settings, sized from the host.
+ *
+ * The cores (less one kept for the GUI) are split evenly between the engines
+ * running at once, and each engine gets a power-of-two share of a sixteenth of
+ * physical memory, capped per {@link Profile}. Stockfish otherwise starts with
+ * one thread and a 16 MB hash however large the machine is.
+ */
+public final class EngineOptions {
+    /** Smallest hash worth setting; also Stockfish's default */
+    public static final int MIN_HASH_MB = 16;
+    private static final int MEMORY_SHARE = 16;
+
+    /**
+     * What an engine is being used for
+     */
+    public enum Profile {
+        /** Move replies during play: quick searches, one line */
+        PLAY(1, 256, 1.0),
+        /** Teacher analysis: deep searches comparing a few lines */
+        ANALYSIS(3, 1024, 1.0),
+        /** Batch review in the background: half the cores, so the GUI stays responsive */
+        REVIEW(1, 512, 0.5);
+
+        private final int multiPv;
+        private final int maxHashMb;
+        private final double coreShare;
+
+        Profile(int multiPv, int maxHashMb, double coreShare) {
+            this.multiPv = multiPv;
+            this.maxHashMb = maxHashMb;
+            this.coreShare = coreShare;
+        }
+    }
+
+    private final int threads;
+    private final int hashMb;
+    private final int multiPv;
+
+    public EngineOptions(int threads, int hashMb, int multiPv) {
+        this.threads = Math.max(1, threads);
+        this.hashMb = Math.max(1, hashMb);
+        this.multiPv = Math.max(1, multiPv);
+    }
+
+    /**
+     * Options for one of the given number of engines sharing this machine
+     */
+    public static EngineOptions forHost(Profile profile, int engines) {
+        return forHost(profile, engines, Runtime.getRuntime().availableProcessors(), physicalMemoryBytes());
+    }
+
+    static EngineOptions forHost(Profile profile, int engines, int processors, long memoryBytes) {
+        engines = Math.max(1, engines);
+        int usable = processors > 2 ? processors - 1 : processors;
+        int threads = (int) (Math.max(1, usable / engines) * profile.coreShare);
+
+        int hash = MIN_HASH_MB;
+        long budgetMb = memoryBytes / MEMORY_SHARE / engines / (1024 * 1024);
+        while (hash * 2L <= Math.min(budgetMb, profile.maxHashMb)) {
+            hash *= 2;
+        }
+        return new EngineOptions(threads, hash, profile.multiPv);
+    }
+
+    /**
+     * Options for a pooled engine checked out for the given use. Every profile gets the
+     * largest hash any of them would, so a change of profile between checkouts only
+     * changes threads and lines, and Stockfish never reallocates and clears its hash.
+     */
+    public static EngineOptions forPool(Profile profile, int engines) {
+        return forPool(profile, engines, Runtime.getRuntime().availableProcessors(), physicalMemoryBytes());
+    }
+
+    static EngineOptions forPool(Profile profile, int engines, int processors, long memoryBytes) {
+        int hash = MIN_HASH_MB;
+        for (Profile any : Profile.values()) {
+            hash = Math.max(hash, forHost(any, engines, processors, memoryBytes).getHashMb());
+        }
+        EngineOptions options = forHost(profile, engines, processors, memoryBytes);
+        return new EngineOptions(options.getThreads(), hash, options.getMultiPv());
+    }
+
+    /**
+     * Total physical memory, or 0 when the platform does not report it
+     */
+    @SuppressWarnings("deprecation")
+    private static long physicalMemoryBytes() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) os).getTotalPhysicalMemorySize();
+        }
+        return 0;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getHashMb() {
+        return hashMb;
+    }
+
+    /** Lines to report when a search does not ask for a number itself */
+    public int getMultiPv() {
+        return multiPv;
+    }
+
+    @Override
+    public String toString() {
+        return "Threads " + threads + ", Hash " + hashMb + " MB, MultiPV " + multiPv;
+    }
+}
@@ -0,0 +1,208 @@
+package com.chess.engine;
+
+import com.chess.utils.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A fixed set of engines (Stockfish processes, or native engines when Stockfish is
+ * missing) handed out for exclusive use.
+ *
+ * Engines are started in parallel when the pool is created, so the first request
+ * does not pay for process start-up. A caller checks one out with
+ * {@link #acquire(long)}, waiting up to a timeout when all are busy, and returns it
+ * by closing the {@link Lease}. Returned engines have pondering stopped and get
+ * "ucinewgame", so no search state leaks from one user to the next. Each checkout
+ * names an {@link EngineOptions.Profile}, sized for this pool so the engines
+ * split the machine's cores between them; the hash is the same for every profile
+ * (see {@link EngineOptions#forPool}), so switching profiles never clears it.
+ */
+public class EnginePool implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(EnginePool.class);
+
+    /** System property overriding the size of the shared pool */
+    public static final String SIZE_PROPERTY = "chess.engine.pool.size";
+    public static final int DEFAULT_SIZE = 2;
+    public static final long DEFAULT_TIMEOUT_MS = 10_000;
+
+    private static CompletableFuture<EnginePool> shared;
+
+    private final List<ChessEngine> engines;
+    private final BlockingQueue<ChessEngine> idle;
+    private final Function<EngineOptions.Profile, EngineOptions> sizing;
+    private volatile boolean closed;
+
+    /**
+     * Exclusive use of one engine until closed
+     */
+    public final class Lease implements AutoCloseable {
+        private ChessEngine engine;
+
+        private Lease(ChessEngine engine) {
+            this.engine = engine;
+        }
+
+        public ChessEngine getEngine() {
+            if (engine == null) {
+                throw new IllegalStateException("Engine lease already returned");
+            }
+            return engine;
+        }
+
+        @Override
+        public void close() {
+            if (engine != null) {
+                release(engine);
+                engine = null;
+            }
+        }
+    }
+
+    public EnginePool(int size) {
+        this(size, () -> new ChessEngine(EngineOptions.forPool(EngineOptions.Profile.PLAY, size)));
+    }
+
+    public EnginePool(int size, Supplier<ChessEngine> factory) {
+        this(size, factory, profile -> EngineOptions.forPool(profile, size));
+    }
+
+    /**
+     * A pool whose checkouts configure their engine with the options sizing gives for the profile
+     */
+    EnginePool(int size, Supplier<ChessEngine> factory, Function<EngineOptions.Profile, EngineOptions> sizing) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Engine pool size must be at least 1: " + size);
+        }
+        List<CompletableFuture<ChessEngine>> starting = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            starting.add(CompletableFuture.supplyAsync(factory));
+        }
+        List<ChessEngine> started = new ArrayList<>();
+        for (CompletableFuture<ChessEngine> engine : starting) {
+            started.add(engine.join());
+        }
+        this.engines = Collections.unmodifiableList(started);
+        this.idle = new LinkedBlockingQueue<>(started);
+        this.sizing = sizing;
+        logger.info("Engine pool started with " + size + " engine(s)");
+    }
+
+    /**
+     * The application-wide pool, waiting for it to start if needed
+     */
+    public static EnginePool getShared() {
+        return getSharedAsync().join();
+    }
+
+    /**
+     * The application-wide pool, started on a background thread the first time it is
+     * asked for, so callers on the event thread need not wait for the engine handshakes
+     */
+    public static synchronized CompletableFuture<EnginePool> getSharedAsync() {
+        if (shared == null || shared.isCompletedExceptionally()) {
+            CompletableFuture<EnginePool> starting = new CompletableFuture<>();
+            Thread thread = new Thread(() -> {
+                try {
+                    starting.complete(new EnginePool(Math.max(1, Integer.getInteger(SIZE_PROPERTY, DEFAULT_SIZE))));
+                } catch (RuntimeException e) {
+                    logger.error("Failed to start engine pool: " + e.getMessage());
+                    starting.completeExceptionally(e);
+                }
+            }, "engine-pool-start");
+            thread.setDaemon(true);
+            thread.start();
+            shared = starting;
+        }
+        return shared;
+    }
+
+    /**
+     * Close the application-wide pool, or have it closed as soon as it has started
+     */
+    public static synchronized void closeShared() {
+        if (shared != null) {
+            shared.thenAccept(EnginePool::close);
+            shared = null;
+        }
+    }
+
+    /**
+     * Check out an engine for play, waiting up to timeoutMs for one to become free
+     */
+    public Lease acquire(long timeoutMs) throws TimeoutException, InterruptedException {
+        return acquire(timeoutMs, EngineOptions.Profile.PLAY);
+    }
+
+    /**
+     * Check out an engine configured for the given use
+     */
+    public Lease acquire(long timeoutMs, EngineOptions.Profile profile) throws TimeoutException, InterruptedException {
+        if (closed) {
+            throw new IllegalStateException("Engine pool is closed");
+        }
+        ChessEngine engine = idle.poll(timeoutMs, TimeUnit.MILLISECONDS);
+        if (engine == null) {
+            throw new TimeoutException("No engine free within " + timeoutMs + " ms");
+        }
+        engine.configure(sizing.apply(profile));
+        return new Lease(engine);
+    }
+
+    /**
+     * Run a task with an engine checked out for its duration
+     */
+    public <T> T withEngine(long timeoutMs, Function<ChessEngine, T> task) throws TimeoutException, InterruptedException {
+        return withEngine(timeoutMs, EngineOptions.Profile.PLAY, task);
+    }
+
+    public <T> T withEngine(long timeoutMs, EngineOptions.Profile profile, Function<ChessEngine, T> task)
+            throws TimeoutException, InterruptedException {
+        try (Lease lease = acquire(timeoutMs, profile)) {
+            return task.apply(lease.getEngine());
+        }
+    }
+
+    private void release(ChessEngine engine) {
+        if (closed) {
+            return;
+        }
+        try {
+            engine.stopPondering();
+            engine.newGame();
+        } catch (RuntimeException e) {
+            logger.warn("Engine reset failed on return to pool: " + e.getMessage());
+        }
+        idle.offer(engine);
+    }
+
+    public int size() {
+        return engines.size();
+    }
+
+    public int available() {
+        return idle.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        idle.clear();
+        for (ChessEngine engine : engines) {
+            try {
+                engine.close();
+            } catch (IOException e) {
+                logger.error("Error closing pooled engine: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.chess.engine;
+
+import com.chess.model.Board;
+import com.chess.model.Move;
+import com.chess.utils.Logger;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asks the UCI engine and a native engine for the same move at the same time,
+ * so a slow or stalled Stockfish cannot hold up the game.
+ *
+ * The UCI move is preferred whenever it arrives before the deadline. Otherwise both
+ * searches are told to stop; the UCI engine's best move so far is played if it comes
+ * back promptly, and the native engine's if not. The losing search is cancelled in
+ * the background. Both searches work on a copy
+ * of the board, so the caller may play the returned move at once. A stopped UCI
+ * search is given a moment to return, so normally the {@link ChessEngine} is free
+ * again when a move comes back; one that ignores the stop (a hung process) is left
+ * running, and until it returns only the native engine is asked.
+ * Without Stockfish there is nothing to hedge, and the request goes straight to
+ * {@link ChessEngine}, whose native fallback keeps its own time and ponder state.
+ */
+public class HedgedMoveService implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(HedgedMoveService.class);
+
+    /** Allowed on top of the search's own hard time limit before falling back */
+    public static final long DEFAULT_GRACE_MS = 300;
+    /** Deadline for searches without a time limit, e.g. fixed depth */
+    public static final long DEFAULT_MAX_DEADLINE_MS = 10_000;
+    /** How long a stopped search may take to return its move */
+    private static final long STOP_WAIT_MS = 1_000;
+
+    private final ChessEngine uciEngine;
+    private final NativeEngine nativeEngine;
+    private final ExecutorService executor;
+    private volatile long graceMs = DEFAULT_GRACE_MS;
+    private volatile long maxDeadlineMs = DEFAULT_MAX_DEADLINE_MS;
+    private CompletableFuture<Move> pendingUci;
+
+    /**
+     * Hedge with the engine's own native fallback, which is otherwise idle while Stockfish runs
+     */
+    public HedgedMoveService(ChessEngine uciEngine) {
+        this(uciEngine, uciEngine.getNativeEngine());
+    }
+
+    public HedgedMoveService(ChessEngine uciEngine, NativeEngine nativeEngine) {
+        this.uciEngine = uciEngine;
+        this.nativeEngine = nativeEngine;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "hedged-move-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Best move under the given limits, due shortly after the search's own hard limit
+     */
+    public Move getBestMove(Board board, SearchLimits limits) {
+        TimeManager time = TimeManager.forSearch(limits, SearchBoard.fromBoard(board));
+        long deadlineMs = time.isTimeLimited() ? time.getHardLimitMs() + graceMs : maxDeadlineMs;
+        return getBestMove(board, limits, deadlineMs);
+    }
+
+    /**
+     * Best move under the given limits, returned within roughly deadlineMs
+     */
+    public synchronized Move getBestMove(Board board, SearchLimits limits, long deadlineMs) {
+        boolean uciBusy = pendingUci != null && !pendingUci.isDone();
+        if (!uciBusy && !uciEngine.isEngineAvailable()) {
+            return uciEngine.getBestMove(board, limits);
+        }
+
+        long deadline = System.currentTimeMillis() + deadlineMs;
+        // The caller plays the move on its board, possibly while a stopped search is still reading
+        Board snapshot = board.clone();
+        SearchBoard position = SearchBoard.fromBoard(snapshot);
+        CompletableFuture<Integer> nativeSearch = CompletableFuture.supplyAsync(
+                () -> nativeEngine.search(position, limits), executor);
+
+        CompletableFuture<Move> uciSearch = null;
+        if (uciBusy) {
+            logger.warn("UCI engine still busy with an abandoned request; using the native engine only");
+        } else {
+            uciSearch = CompletableFuture.supplyAsync(() -> uciEngine.getBestMove(snapshot, limits), executor);
+            pendingUci = uciSearch;
+        }
+
+        if (uciSearch != null) {
+            try {
+                Move move = uciSearch.get(deadlineMs, TimeUnit.MILLISECONDS);
+                if (move != null) {
+                    cancelNative(nativeSearch);
+                    return move;
+                }
+                logger.warn("UCI engine returned no move; using the native engine");
+            } catch (TimeoutException e) {
+                logger.warn("UCI engine missed the " + deadlineMs + " ms deadline; stopping it");
+                uciEngine.stopSearch();
+            } catch (ExecutionException e) {
+                logger.error("UCI engine failed: " + e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                uciEngine.stopSearch();
+                cancelNative(nativeSearch);
+                return null;
+            }
+        }
+
+        int best = awaitNative(nativeSearch, deadline);
+        if (uciSearch != null) {
+            // Stopped, Stockfish answers with its best move so far, which beats the native one
+            Move stopped = awaitStopped(uciSearch);
+            if (stopped != null) {
+                return stopped;
+            }
+            logger.warn("Stopped UCI search gave no move; using the native engine");
+        }
+        return best == SearchBoard.NO_MOVE ? null : SearchBoard.toModelMove(best, board);
+    }
+
+    /**
+     * The native result, stopping the search if it is still running at the deadline
+     */
+    private int awaitNative(CompletableFuture<Integer> search, long deadline) {
+        try {
+            long remaining = Math.max(0, deadline - System.currentTimeMillis());
+            return search.get(remaining, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            nativeEngine.stop();
+        } catch (ExecutionException e) {
+            logger.error("Native engine failed: " + e.getCause());
+            return SearchBoard.NO_MOVE;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            nativeEngine.stop();
+            return SearchBoard.NO_MOVE;
+        }
+        try {
+            return stopUntilDone(search, STOP_WAIT_MS);
+        } catch (TimeoutException | ExecutionException e) {
+            logger.error("Native engine did not stop: " + e);
+            return SearchBoard.NO_MOVE;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return SearchBoard.NO_MOVE;
+        }
+    }
+
+    /**
+     * Give a stopped UCI search a moment to return its move and release the engine;
+     * null if it returns none in time
+     */
+    private Move awaitStopped(CompletableFuture<Move> search) {
+        try {
+            return search.get(STOP_WAIT_MS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            logger.warn("UCI engine did not stop within " + STOP_WAIT_MS + " ms; it stays busy");
+        } catch (ExecutionException e) {
+            // Already reported, or the search ended in failure after being stopped
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    /**
+     * Stop the native search without waiting for it, so it frees the engine for the next request
+     */
+    private void cancelNative(CompletableFuture<Integer> search) {
+        executor.execute(() -> {
+            try {
+                stopUntilDone(search, STOP_WAIT_MS);
+            } catch (TimeoutException | ExecutionException e) {
+                logger.warn("Cancelled native search did not finish cleanly: " + e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    /**
+     * Keep requesting a stop until the search returns; a single stop can be missed
+     * if it lands before the search has started and reset its flags
+     */
+    private int stopUntilDone(CompletableFuture<Integer> search, long timeoutMs)
+            throws TimeoutException, ExecutionException, InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (true) {
+            nativeEngine.stop();
+            try {
+                return search.get(10, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (System.currentTimeMillis() >= deadline) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    public long getGraceMs() {
+        return graceMs;
+    }
+
+    public void setGraceMs(long graceMs) {
+        this.graceMs = graceMs;
+    }
+
+    public long getMaxDeadlineMs() {
+        return maxDeadlineMs;
+    }
+
+    public void setMaxDeadlineMs(long maxDeadlineMs) {
+        this.maxDeadlineMs = maxDeadlineMs;
+    }
+
+    public NativeEngine getNativeEngine() {
+        return nativeEngine;
+    }
+
+    @Override
+    public void close() {
+        nativeEngine.stop();
+        executor.shutdownNow();
+    }
+}
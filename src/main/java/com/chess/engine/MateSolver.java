@@ -0,0 +1,364 @@
+package com.chess.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Forced-mate solver using depth-first proof-number search (df-pn).
+ *
+ * Instead of scoring positions it counts how many leaves still need to be proved
+ * (proof number) or disproved (disproof number) for the side to move to mate, and
+ * always expands the most promising node. Narrow forcing lines, the usual shape of a
+ * mate, are settled in a fraction of the nodes alpha-beta would need, and the answer is
+ * a proof either way rather than a score.
+ *
+ * A search is bounded by a number of moves for the attacker; positions are stored in the
+ * solver's own table under their key and the plies left, so the same position with a
+ * different horizon is a different node. Mates are tried one move deeper at a time, so
+ * the line found is the shortest.
+ */
+public class MateSolver {
+    public static final long DEFAULT_MAX_NODES = 5_000_000;
+
+    /** Proof or disproof number of a settled node */
+    private static final int INFINITE = 1 << 28;
+
+    public enum Status {
+        /** The attacker mates by force within the given number of moves */
+        MATE,
+        /** No mate within the given number of moves, whatever the attacker plays */
+        NO_MATE,
+        /** The node budget ran out before either was proved */
+        UNKNOWN
+    }
+
+    /**
+     * The outcome of a search, with the mating line if one was found
+     */
+    public static final class Result {
+        private final Status status;
+        private final int[] line;
+        private final long nodes;
+
+        Result(Status status, int[] line, long nodes) {
+            this.status = status;
+            this.line = line;
+            this.nodes = nodes;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * The mating line, attacker's moves and the longest defences alternating, ending in mate;
+         * empty unless {@link Status#MATE}
+         */
+        public int[] getLine() {
+            return line.clone();
+        }
+
+        /** Moves the attacker needs to mate, or 0 if there is no mate */
+        public int getMateIn() {
+            return (line.length + 1) / 2;
+        }
+
+        public long getNodes() {
+            return nodes;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder(status.toString());
+            for (int move : line) {
+                text.append(' ').append(SearchBoard.toUci(move));
+            }
+            return text.toString();
+        }
+    }
+
+    private final long[] keys;
+    private final int[] proofs;
+    private final int[] disproofs;
+    private final int mask;
+    private final int[] scratch = new int[SearchBoard.MAX_MOVES];
+
+    private SearchBoard board;
+    private int attacker;
+    private long nodes;
+    private long maxNodes;
+    private boolean aborted;
+
+    public MateSolver() {
+        this(16);
+    }
+
+    public MateSolver(int hashSizeMb) {
+        int entries = Integer.highestOneBit(Math.max(1, hashSizeMb) * 1024 * 1024 / 16);
+        this.keys = new long[entries];
+        this.proofs = new int[entries];
+        this.disproofs = new int[entries];
+        this.mask = entries - 1;
+    }
+
+    /**
+     * Look for a mate by the side to move in at most the given number of its moves
+     */
+    public synchronized Result solve(SearchBoard position, int maxMoves, long maxNodes) {
+        board = position.copy();
+        attacker = board.getSideToMove();
+        nodes = 0;
+        this.maxNodes = maxNodes;
+        aborted = false;
+        try {
+            for (int moves = 1; moves <= maxMoves; moves++) {
+                int plies = 2 * moves - 1;
+                search(plies, INFINITE, INFINITE);
+                if (aborted) {
+                    return new Result(Status.UNKNOWN, new int[0], nodes);
+                }
+                int root = probe(keyOf(plies));
+                if (root >= 0 && proofs[root] == 0) {
+                    long searched = nodes;
+                    // The line is read back from proved nodes, however many that takes
+                    this.maxNodes = Long.MAX_VALUE;
+                    return new Result(Status.MATE, extractLine(plies), searched);
+                }
+            }
+            return new Result(Status.NO_MATE, new int[0], nodes);
+        } finally {
+            board = null;
+        }
+    }
+
+    /**
+     * Expand the node until its proof or disproof number reaches its threshold (Nagai's MID)
+     */
+    private void search(int plies, int proofThreshold, int disproofThreshold) {
+        if (++nodes > maxNodes) {
+            aborted = true;
+            return;
+        }
+        long key = keyOf(plies);
+        int known = probe(key);
+        if (known >= 0 && (proofs[known] >= proofThreshold || disproofs[known] >= disproofThreshold)) {
+            return;
+        }
+        int[] moves = new int[SearchBoard.MAX_MOVES];
+        int count = legalMoves(moves);
+        if (count == 0 || plies == 0) {
+            int[] terminal = evaluate(count, plies);
+            store(key, terminal[0], terminal[1]);
+            return;
+        }
+
+        boolean attacking = board.getSideToMove() == attacker;
+        long[] childKeys = new long[count];
+        int[] childProofs = new int[count];
+        int[] childDisproofs = new int[count];
+        for (int i = 0; i < count; i++) {
+            board.makeMove(moves[i]);
+            childKeys[i] = keyOf(plies - 1);
+            int index = probe(childKeys[i]);
+            if (index >= 0) {
+                childProofs[i] = proofs[index];
+                childDisproofs[i] = disproofs[index];
+            } else {
+                int[] initial = evaluate(plies - 1);
+                childProofs[i] = initial[0];
+                childDisproofs[i] = initial[1];
+                store(childKeys[i], initial[0], initial[1]);
+            }
+            board.unmakeMove();
+        }
+
+        while (true) {
+            int best = -1;
+            int second = INFINITE;
+            int proof = attacking ? INFINITE : 0;
+            int disproof = attacking ? 0 : INFINITE;
+            for (int i = 0; i < count; i++) {
+                int index = probe(childKeys[i]);
+                if (index >= 0) {
+                    childProofs[i] = proofs[index];
+                    childDisproofs[i] = disproofs[index];
+                }
+                // The attacker needs one move that mates; the defender must be mated after every move
+                int deciding = attacking ? childProofs[i] : childDisproofs[i];
+                if (best < 0 || deciding < (attacking ? childProofs[best] : childDisproofs[best])) {
+                    if (best >= 0) {
+                        second = attacking ? childProofs[best] : childDisproofs[best];
+                    }
+                    best = i;
+                } else if (deciding < second) {
+                    second = deciding;
+                }
+                if (attacking) {
+                    proof = Math.min(proof, childProofs[i]);
+                    disproof = Math.min(INFINITE, disproof + childDisproofs[i]);
+                } else {
+                    proof = Math.min(INFINITE, proof + childProofs[i]);
+                    disproof = Math.min(disproof, childDisproofs[i]);
+                }
+            }
+            store(key, proof, disproof);
+            if (proof >= proofThreshold || disproof >= disproofThreshold || aborted) {
+                return;
+            }
+            int childProofThreshold;
+            int childDisproofThreshold;
+            if (attacking) {
+                childProofThreshold = Math.min(proofThreshold, second + 1);
+                childDisproofThreshold = disproofThreshold - disproof + childDisproofs[best];
+            } else {
+                childProofThreshold = proofThreshold - proof + childProofs[best];
+                childDisproofThreshold = Math.min(disproofThreshold, second + 1);
+            }
+            board.makeMove(moves[best]);
+            search(plies - 1, childProofThreshold, childDisproofThreshold);
+            board.unmakeMove();
+        }
+    }
+
+    /**
+     * Proof and disproof numbers of a node not yet expanded, from its number of legal moves
+     */
+    private int[] evaluate(int plies) {
+        // At the horizon only mate counts, and without check there is no need to look for moves
+        if (plies == 0) {
+            boolean mated = board.isInCheck() && !board.hasLegalMove();
+            return mated ? new int[]{0, INFINITE} : new int[]{INFINITE, 0};
+        }
+        return evaluate(legalMoves(scratch), plies);
+    }
+
+    private int[] evaluate(int legalMoves, int plies) {
+        boolean attacking = board.getSideToMove() == attacker;
+        if (legalMoves == 0) {
+            boolean mated = !attacking && board.isInCheck();
+            return mated ? new int[]{0, INFINITE} : new int[]{INFINITE, 0};
+        }
+        if (plies == 0) {
+            return new int[]{INFINITE, 0};
+        }
+        // Few replies make a node cheap to prove for the defender and cheap to disprove for the attacker
+        return attacking ? new int[]{1, legalMoves} : new int[]{legalMoves, 1};
+    }
+
+    private int legalMoves(int[] moves) {
+        int count = board.generateMoves(moves, false);
+        int legal = 0;
+        for (int i = 0; i < count; i++) {
+            if (board.makeMove(moves[i])) {
+                board.unmakeMove();
+                moves[legal++] = moves[i];
+            }
+        }
+        return legal;
+    }
+
+    /**
+     * The shortest mate from a proved node, against the defence that holds out longest
+     */
+    private int[] extractLine(int plies) {
+        List<Integer> line = new ArrayList<>();
+        int[] moves = new int[SearchBoard.MAX_MOVES];
+        while (plies > 0) {
+            int count = legalMoves(moves);
+            // Mate at once if possible, else the move the search proved, else prove one now
+            int mate = provedMove(moves, count, 0, true);
+            if (mate != SearchBoard.NO_MOVE) {
+                plies = 1;
+            } else {
+                mate = provedMove(moves, count, plies - 1, false);
+            }
+            if (mate == SearchBoard.NO_MOVE) {
+                mate = provedMove(moves, count, plies - 1, true);
+            }
+            if (mate == SearchBoard.NO_MOVE) {
+                break;
+            }
+            board.makeMove(mate);
+            line.add(mate);
+            plies--;
+            count = legalMoves(moves);
+            if (count == 0 || plies == 0) {
+                break;
+            }
+            int defence = moves[0];
+            for (int i = 0; i < count; i++) {
+                board.makeMove(moves[i]);
+                boolean quicker = plies >= 4 && isProved(plies - 3);
+                board.unmakeMove();
+                if (!quicker) {
+                    defence = moves[i];
+                    break;
+                }
+            }
+            board.makeMove(defence);
+            line.add(defence);
+            plies--;
+        }
+        for (int i = 0; i < line.size(); i++) {
+            board.unmakeMove();
+        }
+        int[] result = new int[line.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = line.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * The first move after which the defender is proved to be mated within the given plies
+     */
+    private int provedMove(int[] moves, int count, int plies, boolean search) {
+        for (int i = 0; i < count; i++) {
+            board.makeMove(moves[i]);
+            boolean proved = search ? isProved(plies) : isProvedInTable(plies);
+            board.unmakeMove();
+            if (proved) {
+                return moves[i];
+            }
+        }
+        return SearchBoard.NO_MOVE;
+    }
+
+    private boolean isProvedInTable(int plies) {
+        int index = probe(keyOf(plies));
+        return index >= 0 && proofs[index] == 0;
+    }
+
+    private boolean isProved(int plies) {
+        int index = probe(keyOf(plies));
+        if (index < 0 || (proofs[index] != 0 && disproofs[index] != 0)) {
+            search(plies, INFINITE, INFINITE);
+            index = probe(keyOf(plies));
+        }
+        return index >= 0 && proofs[index] == 0;
+    }
+
+    /**
+     * The position's key mixed with the plies left, so each horizon is its own node
+     */
+    private long keyOf(int plies) {
+        return board.getKey() ^ (plies + 1) * 0x9E3779B97F4A7C15L;
+    }
+
+    private int probe(long key) {
+        int index = (int) key & mask;
+        return keys[index] == key ? index : -1;
+    }
+
+    private void store(long key, int proof, int disproof) {
+        int index = (int) key & mask;
+        keys[index] = key;
+        proofs[index] = proof;
+        disproofs[index] = disproof;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+    }
+}
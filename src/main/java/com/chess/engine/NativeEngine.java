@@ -0,0 +1,760 @@
+package com.chess.engine;
+
+import com.chess.engine.endgame.EndgameOracle;
+import com.chess.engine.eval.Evaluator;
+import com.chess.engine.eval.TaperedEvaluator;
+import com.chess.engine.eval.nnue.NnueEvaluator;
+import com.chess.engine.eval.nnue.NnueNetwork;
+import com.chess.model.Board;
+import com.chess.model.Move;
+import com.chess.utils.Logger;
+
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * In-process alpha-beta engine used when Stockfish is not available.
+ *
+ * Searches a {@link SearchBoard} with iterative deepening, principal variation
+ * search, a transposition table and a capture-only quiescence search. Selective
+ * {@link Feature}s prune or reduce moves that are unlikely to matter and can be
+ * switched off one at a time to measure their effect. The evaluator is attached to the board,
+ * so it is updated incrementally by make/unmake instead of rescanning each node.
+ * Positions with few enough pieces are answered by the {@link EndgameOracle}.
+ */
+public class NativeEngine {
+    private static final Logger logger = Logger.getLogger(NativeEngine.class);
+
+    public static final int MATE = 32000;
+    public static final int MATE_BOUND = MATE - 1000;
+    public static final int INFINITY = 32500;
+    public static final int MAX_PLY = 128;
+    /** Score of a bitbase win, below any mate score so real mates are still preferred */
+    public static final int KNOWN_WIN = 20000;
+
+    private static final int[] PIECE_VALUE = {0, 100, 320, 330, 500, 900, 20000};
+
+    private static final int NULL_MOVE_MIN_DEPTH = 3;
+    private static final int NULL_MOVE_REDUCTION = 3;
+    private static final int NULL_MOVE_VERIFY_DEPTH = 10;
+    private static final int FUTILITY_MAX_DEPTH = 6;
+    private static final int FUTILITY_MARGIN = 120;
+    private static final int LMR_MIN_DEPTH = 3;
+    private static final int LMR_MIN_MOVES = 3;
+    private static final int HISTORY_MAX = 16384;
+    /** Score range, per skill level below the maximum, within which a weakened engine picks at random */
+    private static final int SKILL_MARGIN_PER_LEVEL = 15;
+    private static final int[][] LMR_REDUCTIONS = new int[64][64];
+
+    static {
+        for (int depth = 1; depth < 64; depth++) {
+            for (int moves = 1; moves < 64; moves++) {
+                LMR_REDUCTIONS[depth][moves] = (int) (0.75 + Math.log(depth) * Math.log(moves) / 2.25);
+            }
+        }
+    }
+
+    /**
+     * Selective search techniques, all enabled by default
+     */
+    public enum Feature {
+        /** Skip a turn; if the reduced search still fails high, so will a real move. Off without pieces. */
+        NULL_MOVE,
+        /** Search late quiet moves with less depth, less for moves with a good history */
+        LATE_MOVE_REDUCTIONS,
+        /** Cut shallow nodes whose static evaluation is far above beta */
+        REVERSE_FUTILITY,
+        /** Search one ply deeper when in check */
+        CHECK_EXTENSIONS
+    }
+
+    private final Evaluator evaluator;
+    private final TranspositionTable table;
+    private final int[][] moveBuffers = new int[MAX_PLY + 1][SearchBoard.MAX_MOVES];
+    private final int[][] scoreBuffers = new int[MAX_PLY + 1][SearchBoard.MAX_MOVES];
+    private final int[][] quietBuffers = new int[MAX_PLY + 1][SearchBoard.MAX_MOVES];
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    // Quiet-move success by side, from and to square
+    private final int[][][] history = new int[2][64][64];
+    private final EnumSet<Feature> features = EnumSet.allOf(Feature.class);
+    private EndgameOracle oracle = EndgameOracle.getInstance();
+
+    private SearchBoard board;
+    private volatile boolean stopRequested;
+    private volatile boolean pondering;
+    private volatile TimeManager timeManager;
+    private volatile Thread ponderThread;
+    private volatile int ponderResult;
+    private volatile long deadline;
+    private long nodes;
+    private volatile long nodeLimit = Long.MAX_VALUE;
+    private volatile int skillMargin;
+    private volatile int multiPv = 1;
+    // Exact scores of every root move when playing below full strength or reporting several lines,
+    // for the running and last completed iteration
+    private final int[] rootMoves = new int[SearchBoard.MAX_MOVES];
+    private final int[] rootScores = new int[SearchBoard.MAX_MOVES];
+    private final int[] completedRootMoves = new int[SearchBoard.MAX_MOVES];
+    private final int[] completedRootScores = new int[SearchBoard.MAX_MOVES];
+    private int rootCount;
+    private int completedRootCount;
+    private int completedDepth;
+    private int bestScore;
+    private int rootBestMove;
+
+    public NativeEngine() {
+        this(defaultEvaluator(), 16);
+    }
+
+    public NativeEngine(Evaluator evaluator, int hashSizeMb) {
+        this.evaluator = evaluator;
+        this.table = new TranspositionTable(hashSizeMb);
+    }
+
+    /**
+     * The NNUE evaluation when a network file is available, otherwise the handcrafted one
+     */
+    private static Evaluator defaultEvaluator() {
+        NnueNetwork network = NnueNetwork.getDefault();
+        return network != null ? new NnueEvaluator(network) : new TaperedEvaluator();
+    }
+
+    /**
+     * Same contract as {@link ChessEngine#getBestMove(Board, int)}
+     */
+    public synchronized Move getBestMove(Board board, int timeMs) {
+        return getBestMove(board, SearchLimits.moveTime(timeMs));
+    }
+
+    /**
+     * Same contract as {@link ChessEngine#getBestMove(Board, SearchLimits)}
+     */
+    public synchronized Move getBestMove(Board board, SearchLimits limits) {
+        SearchBoard position = SearchBoard.fromBoard(board);
+        int best = search(position, limits);
+        if (best == SearchBoard.NO_MOVE) {
+            logger.warn("Native engine found no legal move");
+            return null;
+        }
+        Move move = SearchBoard.toModelMove(best, board);
+        logger.info("Native engine move: " + move + " (depth " + completedDepth + ", score " + bestScore
+                + ", nodes " + nodes + ")");
+        return move;
+    }
+
+    /**
+     * Iteratively deepen from the given position until the time or depth limit is reached
+     */
+    public synchronized int search(SearchBoard position, long timeMs, int maxDepth) {
+        SearchLimits limits = SearchLimits.moveTime(Math.max(1, timeMs));
+        limits.setDepth(maxDepth);
+        return search(position, limits);
+    }
+
+    /**
+     * Iteratively deepen under the given limits, letting a {@link TimeManager} decide when to stop
+     */
+    public synchronized int search(SearchBoard position, SearchLimits limits) {
+        stopRequested = false;
+        pondering = false;
+        timeManager = TimeManager.forSearch(limits, position);
+        deadline = timeManager.getHardDeadline();
+        applyEffortLimits(limits, 0);
+        int maxDepth = limits.getDepth() > 0 ? Math.min(limits.getDepth(), MAX_PLY) : MAX_PLY;
+        return iterate(position, maxDepth);
+    }
+
+    /**
+     * Start searching the given position on the opponent's time, in a background thread.
+     * It runs without a deadline until {@link #stopPonder()} or {@link #ponderHit(SearchLimits, SearchBoard)}.
+     */
+    public synchronized void startPonder(SearchBoard position) {
+        // Set up before the thread starts, so an early stop or ponder hit cannot be overwritten
+        stopRequested = false;
+        pondering = true;
+        timeManager = TimeManager.forSearch(SearchLimits.depth(MAX_PLY), position);
+        deadline = timeManager.getHardDeadline();
+        applyEffortLimits(SearchLimits.depth(MAX_PLY), 0);
+        ponderResult = SearchBoard.NO_MOVE;
+        ponderThread = new Thread(() -> {
+            synchronized (this) {
+                ponderResult = iterate(position, MAX_PLY);
+            }
+        }, "native-ponder");
+        ponderThread.setDaemon(true);
+        ponderThread.start();
+    }
+
+    /**
+     * The predicted move was played: keep the running ponder search and give it a normal time budget.
+     * The position is only used to size the budget and must not be the one being searched.
+     */
+    public void ponderHit(SearchLimits limits, SearchBoard position) {
+        TimeManager manager = TimeManager.forSearch(limits, position);
+        timeManager = manager;
+        deadline = manager.getHardDeadline();
+        // The node budget counts from the hit, like the time budget
+        applyEffortLimits(limits, nodes);
+        pondering = false;
+    }
+
+    private void applyEffortLimits(SearchLimits limits, long nodesSoFar) {
+        nodeLimit = limits.getNodes() > 0 ? nodesSoFar + limits.getNodes() : Long.MAX_VALUE;
+        skillMargin = (SearchLimits.MAX_SKILL_LEVEL - limits.getSkillLevel()) * SKILL_MARGIN_PER_LEVEL;
+        multiPv = limits.getMultiPv();
+    }
+
+    /**
+     * Wait for the ponder search to finish and return its best move
+     */
+    public int awaitPonder() {
+        Thread thread = ponderThread;
+        if (thread == null) {
+            return SearchBoard.NO_MOVE;
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            stop();
+            Thread.currentThread().interrupt();
+        }
+        ponderThread = null;
+        return ponderResult;
+    }
+
+    /**
+     * Abort pondering after a miss; the transposition table keeps what was searched
+     */
+    public void stopPonder() {
+        if (ponderThread != null) {
+            stop();
+            awaitPonder();
+        }
+    }
+
+    public boolean isPondering() {
+        return pondering;
+    }
+
+    private int iterate(SearchBoard position, int maxDepth) {
+        this.board = position;
+        board.setEvaluator(evaluator);
+        nodes = 0;
+        completedDepth = 0;
+        completedRootCount = 0;
+        for (int[] killer : killers) {
+            killer[0] = SearchBoard.NO_MOVE;
+            killer[1] = SearchBoard.NO_MOVE;
+        }
+        // Keep some history from the previous search, which was usually a move or two ago
+        for (int[][] side : history) {
+            for (int[] from : side) {
+                for (int to = 0; to < 64; to++) {
+                    from[to] /= 2;
+                }
+            }
+        }
+
+        int bestMove = SearchBoard.NO_MOVE;
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            int score = negamax(depth, -INFINITY, INFINITY, 0, false);
+            if (stopRequested) {
+                // The previous best move is searched first, so a partial iteration's choice is still sound
+                if (rootBestMove != SearchBoard.NO_MOVE && depth > 1) {
+                    bestMove = rootBestMove;
+                }
+                break;
+            }
+            bestMove = rootBestMove;
+            bestScore = score;
+            completedDepth = depth;
+            completedRootCount = rootCount;
+            System.arraycopy(rootMoves, 0, completedRootMoves, 0, rootCount);
+            System.arraycopy(rootScores, 0, completedRootScores, 0, rootCount);
+            if (Math.abs(score) >= MATE_BOUND) {
+                break;
+            }
+            TimeManager manager = timeManager;
+            manager.iterationCompleted(depth, bestMove, score);
+            if (!pondering && manager.shouldStop()) {
+                break;
+            }
+        }
+        if (skillMargin > 0 && completedRootCount > 0) {
+            bestMove = pickWeakerMove(bestMove);
+        }
+        if (bestMove == SearchBoard.NO_MOVE) {
+            bestMove = firstLegalMove();
+        }
+        board.setEvaluator(null);
+        pondering = false;
+        return bestMove;
+    }
+
+    /**
+     * Below full strength, play a random move among those scoring within the skill margin of the best.
+     * Adding noise to each score favours better moves while never choosing a clear blunder over a sound move.
+     */
+    private int pickWeakerMove(int bestMove) {
+        int best = bestMove;
+        int bestNoisy = -INFINITY;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < completedRootCount; i++) {
+            int noisy = completedRootScores[i] + random.nextInt(skillMargin + 1);
+            if (Math.abs(completedRootScores[i]) < MATE_BOUND && noisy > bestNoisy) {
+                bestNoisy = noisy;
+                best = completedRootMoves[i];
+            }
+        }
+        // A forced mate either way is never thrown away
+        return Math.abs(bestScore) >= MATE_BOUND ? bestMove : best;
+    }
+
+    /**
+     * The reply the last search expects after the given move, from the transposition table
+     */
+    public synchronized int predictReply(SearchBoard positionAfterMove) {
+        long entry = table.probe(positionAfterMove.getKey());
+        int move = TranspositionTable.moveOf(entry);
+        if (entry == 0L || move == SearchBoard.NO_MOVE) {
+            return SearchBoard.NO_MOVE;
+        }
+        // Guard against key collisions: the move must be legal here
+        int[] moves = new int[SearchBoard.MAX_MOVES];
+        int count = positionAfterMove.generateMoves(moves, false);
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == move && positionAfterMove.makeMove(move)) {
+                positionAfterMove.unmakeMove();
+                return move;
+            }
+        }
+        return SearchBoard.NO_MOVE;
+    }
+
+    /**
+     * The line the last search expects from the given position, read back from the
+     * transposition table; stops at the first gap, collision or repetition
+     *
+     * @return the number of moves copied
+     */
+    public synchronized int getPrincipalVariation(SearchBoard position, int[] line) {
+        SearchBoard board = position.copy();
+        Set<Long> seen = new HashSet<>();
+        int length = 0;
+        while (length < line.length && seen.add(board.getKey())) {
+            int move = predictReply(board);
+            if (move == SearchBoard.NO_MOVE) {
+                break;
+            }
+            board.makeMove(move);
+            line[length++] = move;
+        }
+        return length;
+    }
+
+    public void stop() {
+        stopRequested = true;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    /**
+     * Score of the last completed iteration, in centipawns for the side to move
+     */
+    public int getBestScore() {
+        return bestScore;
+    }
+
+    /**
+     * Root moves of the last search with their exact scores, best first, from the last completed
+     * iteration. Only filled when the search ran with MultiPV or below full strength.
+     *
+     * @return the number of moves copied
+     */
+    public synchronized int getRootScores(int[] moves, int[] scores) {
+        int count = Math.min(completedRootCount, Math.min(moves.length, scores.length));
+        int[] order = new int[completedRootCount];
+        for (int i = 0; i < completedRootCount; i++) {
+            order[i] = i;
+        }
+        for (int i = 0; i < count; i++) {
+            int best = i;
+            for (int j = i + 1; j < completedRootCount; j++) {
+                if (completedRootScores[order[j]] > completedRootScores[order[best]]) {
+                    best = j;
+                }
+            }
+            int swap = order[i];
+            order[i] = order[best];
+            order[best] = swap;
+            moves[i] = completedRootMoves[order[i]];
+            scores[i] = completedRootScores[order[i]];
+        }
+        return count;
+    }
+
+    public void setFeatureEnabled(Feature feature, boolean enabled) {
+        if (enabled) {
+            features.add(feature);
+        } else {
+            features.remove(feature);
+        }
+    }
+
+    public boolean isFeatureEnabled(Feature feature) {
+        return features.contains(feature);
+    }
+
+    /**
+     * Set the bitbases probed during search, or null to search endgames normally
+     */
+    public void setEndgameOracle(EndgameOracle oracle) {
+        this.oracle = oracle;
+    }
+
+    public void clearHash() {
+        table.clear();
+    }
+
+    private int negamax(int depth, int alpha, int beta, int ply, boolean allowNull) {
+        if (++nodes >= nodeLimit || ((nodes & 2047) == 0 && System.currentTimeMillis() >= deadline)) {
+            stopRequested = true;
+        }
+        if (stopRequested) {
+            return 0;
+        }
+        if (ply > 0 && (board.getHalfMoveClock() >= 100 || board.isRepetition())) {
+            return 0;
+        }
+        boolean inCheck = board.isInCheck();
+        // A side in check may be mated, which the search scores above any bitbase win, so look at its moves
+        if (ply > 0 && !inCheck && oracle != null && Long.bitCount(board.getOccupied()) <= EndgameOracle.MAX_PIECES) {
+            EndgameOracle.Result result = oracle.probe(board);
+            if (result != EndgameOracle.Result.UNKNOWN) {
+                return knownScore(result, ply);
+            }
+        }
+
+        long entry = table.probe(board.getKey());
+        int ttMove = SearchBoard.NO_MOVE;
+        if (entry != 0L) {
+            ttMove = TranspositionTable.moveOf(entry);
+            if (ply > 0 && TranspositionTable.depthOf(entry) >= depth) {
+                int ttScore = fromTable(TranspositionTable.scoreOf(entry), ply);
+                int bound = TranspositionTable.boundOf(entry);
+                if (bound == TranspositionTable.BOUND_EXACT
+                        || (bound == TranspositionTable.BOUND_LOWER && ttScore >= beta)
+                        || (bound == TranspositionTable.BOUND_UPPER && ttScore <= alpha)) {
+                    return ttScore;
+                }
+            }
+        }
+
+        if (inCheck && features.contains(Feature.CHECK_EXTENSIONS)) {
+            depth++;
+        }
+        if (depth <= 0 || ply >= MAX_PLY) {
+            return quiesce(alpha, beta, ply);
+        }
+
+        boolean pvNode = beta - alpha > 1;
+        if (!pvNode && !inCheck && ply > 0) {
+            int pruned = prune(depth, beta, ply, allowNull);
+            if (stopRequested) {
+                return 0;
+            }
+            if (pruned != -INFINITY) {
+                return pruned;
+            }
+        }
+
+        int us = board.getSideToMove();
+        int[] moves = moveBuffers[ply];
+        int[] scores = scoreBuffers[ply];
+        int[] quiets = quietBuffers[ply];
+        int count = board.generateMoves(moves, false);
+        scoreMoves(moves, scores, count, ttMove, ply);
+
+        // Below full strength or with MultiPV every root move gets an exact score, so near-best ones can be used
+        boolean scoreAllRoot = ply == 0 && (skillMargin > 0 || multiPv > 1);
+        if (ply == 0) {
+            rootCount = 0;
+        }
+        int originalAlpha = alpha;
+        int bestMove = SearchBoard.NO_MOVE;
+        int best = -INFINITY;
+        int legal = 0;
+        int quietCount = 0;
+        for (int i = 0; i < count; i++) {
+            int move = pickNext(moves, scores, i, count);
+            boolean tactical = isTactical(move);
+            if (!board.makeMove(move)) {
+                continue;
+            }
+            legal++;
+            int score;
+            if (scoreAllRoot) {
+                score = -negamax(depth - 1, -INFINITY, INFINITY, ply + 1, true);
+                rootMoves[rootCount] = move;
+                rootScores[rootCount++] = score;
+            } else if (legal == 1) {
+                score = -negamax(depth - 1, -beta, -alpha, ply + 1, true);
+            } else {
+                int reduction = 0;
+                if (features.contains(Feature.LATE_MOVE_REDUCTIONS) && depth >= LMR_MIN_DEPTH
+                        && legal > LMR_MIN_MOVES && !tactical && !inCheck && !board.isInCheck()) {
+                    reduction = lateMoveReduction(depth, legal, move, us, ply, pvNode);
+                }
+                // Zero-window search first; only a move that might beat alpha gets the full window
+                score = -negamax(depth - 1 - reduction, -alpha - 1, -alpha, ply + 1, true);
+                if (score > alpha && reduction > 0) {
+                    score = -negamax(depth - 1, -alpha - 1, -alpha, ply + 1, true);
+                }
+                if (score > alpha && score < beta) {
+                    score = -negamax(depth - 1, -beta, -alpha, ply + 1, true);
+                }
+            }
+            board.unmakeMove();
+            if (stopRequested) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (ply == 0) {
+                    rootBestMove = move;
+                }
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+            if (alpha >= beta) {
+                if (!tactical) {
+                    storeKiller(move, ply);
+                    updateHistory(us, move, quiets, quietCount, depth);
+                }
+                break;
+            }
+            if (!tactical) {
+                quiets[quietCount++] = move;
+            }
+        }
+
+        if (legal == 0) {
+            return inCheck ? -MATE + ply : 0;
+        }
+
+        int bound = best >= beta ? TranspositionTable.BOUND_LOWER
+                : best > originalAlpha ? TranspositionTable.BOUND_EXACT : TranspositionTable.BOUND_UPPER;
+        table.store(board.getKey(), bestMove, toTable(best, ply), depth, bound);
+        return best;
+    }
+
+    /**
+     * Reverse futility and null-move pruning for a zero-window node not in check.
+     * Returns the score to cut with, or -INFINITY to search the node normally.
+     */
+    private int prune(int depth, int beta, int ply, boolean allowNull) {
+        if (Math.abs(beta) >= KNOWN_WIN - 1000) {
+            return -INFINITY;
+        }
+        int staticEval = evaluator.evaluate(board);
+        if (features.contains(Feature.REVERSE_FUTILITY) && depth <= FUTILITY_MAX_DEPTH
+                && staticEval - FUTILITY_MARGIN * depth >= beta) {
+            return staticEval;
+        }
+
+        int us = board.getSideToMove();
+        int pieces = Long.bitCount(board.getPieces(us) & ~board.getPieces(us, SearchBoard.PAWN)
+                & ~board.getPieces(us, SearchBoard.KING));
+        // Without pieces, passing is often better than any move (zugzwang), so the null move proves nothing
+        if (!features.contains(Feature.NULL_MOVE) || !allowNull || depth < NULL_MOVE_MIN_DEPTH
+                || staticEval < beta || pieces == 0) {
+            return -INFINITY;
+        }
+        int reduction = NULL_MOVE_REDUCTION + depth / 6 + Math.min(2, (staticEval - beta) / 200);
+        board.makeNullMove();
+        int score = -negamax(depth - 1 - reduction, -beta, -beta + 1, ply + 1, false);
+        board.unmakeNullMove();
+        if (stopRequested || score < beta) {
+            return -INFINITY;
+        }
+        if (score >= MATE_BOUND) {
+            score = beta;
+        }
+        // A lone minor piece or a deep node is zugzwang-prone or costly to get wrong: verify with a real search
+        boolean lowMaterial = pieces == 1 && (board.getPieces(us, SearchBoard.ROOK)
+                | board.getPieces(us, SearchBoard.QUEEN)) == 0;
+        if (!lowMaterial && depth < NULL_MOVE_VERIFY_DEPTH) {
+            return score;
+        }
+        int verified = negamax(depth - 1 - reduction, beta - 1, beta, ply, false);
+        return verified >= beta ? score : -INFINITY;
+    }
+
+    private int lateMoveReduction(int depth, int moveNumber, int move, int us, int ply, boolean pvNode) {
+        int reduction = LMR_REDUCTIONS[Math.min(depth, 63)][Math.min(moveNumber, 63)];
+        if (pvNode) {
+            reduction--;
+        }
+        if (move == killers[ply][0] || move == killers[ply][1]) {
+            reduction--;
+        }
+        reduction -= history[us][SearchBoard.from(move)][SearchBoard.to(move)] / (HISTORY_MAX / 2);
+        return Math.max(0, Math.min(reduction, depth - 2));
+    }
+
+    /**
+     * Reward the quiet move that caused a cutoff and penalize the quiet moves tried before it
+     */
+    private void updateHistory(int us, int move, int[] quiets, int quietCount, int depth) {
+        int bonus = Math.min(depth * depth, 400);
+        addHistory(us, move, bonus);
+        for (int i = 0; i < quietCount; i++) {
+            addHistory(us, quiets[i], -bonus);
+        }
+    }
+
+    private void addHistory(int us, int move, int bonus) {
+        int[] row = history[us][SearchBoard.from(move)];
+        int to = SearchBoard.to(move);
+        // Scaled so entries saturate at +/-HISTORY_MAX instead of growing without bound
+        row[to] += bonus * 32 - row[to] * Math.abs(bonus * 32) / HISTORY_MAX;
+    }
+
+    /**
+     * Score for a bitbase result. Wins also count the evaluation, so the search
+     * still makes progress towards mate instead of shuffling between won positions.
+     */
+    private int knownScore(EndgameOracle.Result result, int ply) {
+        if (result == EndgameOracle.Result.DRAW) {
+            return 0;
+        }
+        int progress = Math.max(-1000, Math.min(1000, evaluator.evaluate(board)));
+        if (result == EndgameOracle.Result.WIN) {
+            return KNOWN_WIN + progress - ply;
+        }
+        return -KNOWN_WIN + progress + ply;
+    }
+
+    private int quiesce(int alpha, int beta, int ply) {
+        if (++nodes >= nodeLimit || ((nodes & 2047) == 0 && System.currentTimeMillis() >= deadline)) {
+            stopRequested = true;
+        }
+        if (stopRequested) {
+            return 0;
+        }
+
+        int standPat = evaluator.evaluate(board);
+        if (standPat >= beta || ply >= MAX_PLY) {
+            return standPat;
+        }
+        if (standPat > alpha) {
+            alpha = standPat;
+        }
+
+        int[] moves = moveBuffers[ply];
+        int[] scores = scoreBuffers[ply];
+        int count = board.generateMoves(moves, true);
+        scoreMoves(moves, scores, count, SearchBoard.NO_MOVE, ply);
+        for (int i = 0; i < count; i++) {
+            int move = pickNext(moves, scores, i, count);
+            if (!board.makeMove(move)) {
+                continue;
+            }
+            int score = -quiesce(-beta, -alpha, ply + 1);
+            board.unmakeMove();
+            if (stopRequested) {
+                return 0;
+            }
+            if (score > alpha) {
+                alpha = score;
+                if (alpha >= beta) {
+                    break;
+                }
+            }
+        }
+        return alpha;
+    }
+
+    private void scoreMoves(int[] moves, int[] scores, int count, int ttMove, int ply) {
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            if (move == ttMove) {
+                scores[i] = 2_000_000;
+            } else if (isTactical(move)) {
+                int victim = SearchBoard.typeOf(board.getPiece(SearchBoard.to(move)));
+                int attacker = SearchBoard.typeOf(board.getPiece(SearchBoard.from(move)));
+                scores[i] = 1_000_000 + PIECE_VALUE[victim] * 10 - attacker
+                        + PIECE_VALUE[SearchBoard.promotion(move)];
+            } else if (move == killers[ply][0]) {
+                scores[i] = 900_000;
+            } else if (move == killers[ply][1]) {
+                scores[i] = 800_000;
+            } else {
+                scores[i] = history[board.getSideToMove()][SearchBoard.from(move)][SearchBoard.to(move)];
+            }
+        }
+    }
+
+    /**
+     * Selection sort step: swap the best remaining move into slot i
+     */
+    private static int pickNext(int[] moves, int[] scores, int i, int count) {
+        int bestIndex = i;
+        for (int j = i + 1; j < count; j++) {
+            if (scores[j] > scores[bestIndex]) {
+                bestIndex = j;
+            }
+        }
+        int move = moves[bestIndex];
+        moves[bestIndex] = moves[i];
+        moves[i] = move;
+        int score = scores[bestIndex];
+        scores[bestIndex] = scores[i];
+        scores[i] = score;
+        return move;
+    }
+
+    private boolean isTactical(int move) {
+        return board.getPiece(SearchBoard.to(move)) != SearchBoard.EMPTY
+                || SearchBoard.flag(move) == SearchBoard.FLAG_EN_PASSANT
+                || SearchBoard.promotion(move) != SearchBoard.EMPTY;
+    }
+
+    private void storeKiller(int move, int ply) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+    }
+
+    private int firstLegalMove() {
+        int[] moves = new int[SearchBoard.MAX_MOVES];
+        int count = board.generateMoves(moves, false);
+        for (int i = 0; i < count; i++) {
+            if (board.makeMove(moves[i])) {
+                board.unmakeMove();
+                return moves[i];
+            }
+        }
+        return SearchBoard.NO_MOVE;
+    }
+
+    // Mate scores are stored relative to the node so they stay valid at other plies
+    private static int toTable(int score, int ply) {
+        return score >= MATE_BOUND ? score + ply : score <= -MATE_BOUND ? score - ply : score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        return score >= MATE_BOUND ? score - ply : score <= -MATE_BOUND ? score + ply : score;
+    }
+}
@@ -0,0 +1,1033 @@
+package com.chess.engine;
+
+import com.chess.engine.eval.Evaluator;
+import com.chess.model.Board;
+import com.chess.model.Move;
+import com.chess.model.Piece;
+import com.chess.model.Position;
+
+import java.util.Random;
+
+/**
+ * Compact, mutable board used by the native search.
+ *
+ * Squares are numbered from 0 (a1) to 63 (h8). Pieces are encoded as
+ * {@code colour * 8 + type}, so white pieces are 1-6 and black pieces 9-14.
+ * Moves are packed into an int (see {@link #move(int, int, int, int)}) and
+ * applied with {@link #makeMove(int)} / {@link #unmakeMove()} so the search
+ * never allocates while walking the tree.
+ */
+public class SearchBoard {
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    public static final int EMPTY = 0;
+    public static final int PAWN = 1;
+    public static final int KNIGHT = 2;
+    public static final int BISHOP = 3;
+    public static final int ROOK = 4;
+    public static final int QUEEN = 5;
+    public static final int KING = 6;
+
+    public static final int CASTLE_WK = 1;
+    public static final int CASTLE_WQ = 2;
+    public static final int CASTLE_BK = 4;
+    public static final int CASTLE_BQ = 8;
+
+    public static final int FLAG_NONE = 0;
+    public static final int FLAG_CASTLE = 1;
+    public static final int FLAG_EN_PASSANT = 2;
+    public static final int FLAG_DOUBLE_PUSH = 3;
+
+    public static final int NO_MOVE = 0;
+    public static final int MAX_MOVES = 256;
+    public static final int MAX_HISTORY = 1024;
+
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    // Piece values for exchange evaluation, by type; the king outweighs everything
+    private static final int[] EXCHANGE_VALUE = {0, 100, 320, 330, 500, 900, 20000};
+
+    static final long[] KNIGHT_ATTACKS = new long[64];
+    static final long[] KING_ATTACKS = new long[64];
+    static final long[][] PAWN_ATTACKS = new long[2][64];
+
+    // Ray squares for each of the 8 directions; 0-3 are orthogonal, 4-7 diagonal
+    private static final int[][][] RAYS = new int[8][64][];
+    private static final int[] CASTLE_MASK = new int[64];
+
+    static final long[][] PIECE_KEYS = new long[16][64];
+    static final long[] CASTLE_KEYS = new long[16];
+    static final long[] EP_KEYS = new long[8];
+    static final long SIDE_KEY;
+
+    static {
+        int[][] knightSteps = {{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}};
+        int[][] kingSteps = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+        for (int sq = 0; sq < 64; sq++) {
+            int file = sq & 7;
+            int rank = sq >> 3;
+            for (int[] step : knightSteps) {
+                KNIGHT_ATTACKS[sq] |= bitAt(file + step[0], rank + step[1]);
+            }
+            for (int[] step : kingSteps) {
+                KING_ATTACKS[sq] |= bitAt(file + step[0], rank + step[1]);
+            }
+            PAWN_ATTACKS[WHITE][sq] = bitAt(file - 1, rank + 1) | bitAt(file + 1, rank + 1);
+            PAWN_ATTACKS[BLACK][sq] = bitAt(file - 1, rank - 1) | bitAt(file + 1, rank - 1);
+
+            for (int dir = 0; dir < 8; dir++) {
+                int[] buffer = new int[7];
+                int count = 0;
+                int f = file + kingSteps[dir][0];
+                int r = rank + kingSteps[dir][1];
+                while (f >= 0 && f < 8 && r >= 0 && r < 8) {
+                    buffer[count++] = r * 8 + f;
+                    f += kingSteps[dir][0];
+                    r += kingSteps[dir][1];
+                }
+                int[] ray = new int[count];
+                System.arraycopy(buffer, 0, ray, 0, count);
+                RAYS[dir][sq] = ray;
+            }
+            CASTLE_MASK[sq] = 15;
+        }
+        CASTLE_MASK[4] = 15 & ~(CASTLE_WK | CASTLE_WQ);
+        CASTLE_MASK[7] = 15 & ~CASTLE_WK;
+        CASTLE_MASK[0] = 15 & ~CASTLE_WQ;
+        CASTLE_MASK[60] = 15 & ~(CASTLE_BK | CASTLE_BQ);
+        CASTLE_MASK[63] = 15 & ~CASTLE_BK;
+        CASTLE_MASK[56] = 15 & ~CASTLE_BQ;
+
+        // Fixed seed so keys are stable across runs (they are persisted by caches)
+        Random random = new Random(0x5EA4C8B0A4DL);
+        for (int piece = 0; piece < 16; piece++) {
+            for (int sq = 0; sq < 64; sq++) {
+                PIECE_KEYS[piece][sq] = random.nextLong();
+            }
+        }
+        for (int i = 0; i < 16; i++) {
+            CASTLE_KEYS[i] = random.nextLong();
+        }
+        for (int i = 0; i < 8; i++) {
+            EP_KEYS[i] = random.nextLong();
+        }
+        SIDE_KEY = random.nextLong();
+    }
+
+    private final int[] squares = new int[64];
+    private final long[] pieceBitboards = new long[16];
+    private final long[] colorBitboards = new long[2];
+    private final int[] kingSquare = new int[2];
+    private int sideToMove;
+    private int castlingRights;
+    private int epSquare = -1;
+    private int halfMoveClock;
+    private int fullMoveNumber = 1;
+    private long key;
+    private long pawnKey;
+
+    // Undo stack, indexed by the number of moves made on this board
+    private int historyLength;
+    private final int[] undoMove = new int[MAX_HISTORY];
+    private final int[] undoCaptured = new int[MAX_HISTORY];
+    private final int[] undoCastling = new int[MAX_HISTORY];
+    private final int[] undoEpSquare = new int[MAX_HISTORY];
+    private final int[] undoHalfMoveClock = new int[MAX_HISTORY];
+    private final long[] undoKey = new long[MAX_HISTORY];
+    private final long[] undoPawnKey = new long[MAX_HISTORY];
+
+    private Evaluator evaluator;
+
+    public SearchBoard() {
+        setFEN(START_FEN);
+    }
+
+    public SearchBoard(String fen) {
+        setFEN(fen);
+    }
+
+    /**
+     * Build a search board from the GUI/model board
+     */
+    public static SearchBoard fromBoard(Board board) {
+        SearchBoard position = new SearchBoard();
+        position.clearState();
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                Piece piece = board.getPiece(new Position(row, col));
+                if (piece != null) {
+                    int color = piece.getColor().equals("White") ? WHITE : BLACK;
+                    position.place(toSquare(row, col), makePiece(color, typeOf(piece.getType())));
+                }
+            }
+        }
+        position.sideToMove = board.getCurrentTurn().equals("White") ? WHITE : BLACK;
+        int rights = 0;
+        if (board.canCastleKingside("White")) rights |= CASTLE_WK;
+        if (board.canCastleQueenside("White")) rights |= CASTLE_WQ;
+        if (board.canCastleKingside("Black")) rights |= CASTLE_BK;
+        if (board.canCastleQueenside("Black")) rights |= CASTLE_BQ;
+        position.castlingRights = position.sanitizeCastling(rights);
+        Position ep = board.getEnPassantTarget();
+        position.epSquare = ep != null ? toSquare(ep.getRow(), ep.getCol()) : -1;
+        position.halfMoveClock = board.getHalfMoveClock();
+        position.fullMoveNumber = board.getFullMoveNumber();
+        position.key = position.computeKey();
+        position.pawnKey = position.computePawnKey();
+        return position;
+    }
+
+    /**
+     * Load a position from FEN, discarding the move history
+     */
+    public void setFEN(String fen) {
+        clearState();
+        String[] parts = fen.trim().split("\\s+");
+        int rank = 7;
+        int file = 0;
+        for (char c : parts[0].toCharArray()) {
+            if (c == '/') {
+                rank--;
+                file = 0;
+            } else if (Character.isDigit(c)) {
+                file += c - '0';
+            } else {
+                int color = Character.isUpperCase(c) ? WHITE : BLACK;
+                int type = "pnbrqk".indexOf(Character.toLowerCase(c)) + 1;
+                if (type == 0) {
+                    throw new IllegalArgumentException("Unknown FEN character: " + c);
+                }
+                place(rank * 8 + file, makePiece(color, type));
+                file++;
+            }
+        }
+        sideToMove = parts.length > 1 && parts[1].equals("b") ? BLACK : WHITE;
+        int rights = 0;
+        if (parts.length > 2) {
+            if (parts[2].indexOf('K') >= 0) rights |= CASTLE_WK;
+            if (parts[2].indexOf('Q') >= 0) rights |= CASTLE_WQ;
+            if (parts[2].indexOf('k') >= 0) rights |= CASTLE_BK;
+            if (parts[2].indexOf('q') >= 0) rights |= CASTLE_BQ;
+        }
+        castlingRights = sanitizeCastling(rights);
+        epSquare = parts.length > 3 && !parts[3].equals("-") ? parseSquare(parts[3]) : -1;
+        halfMoveClock = parts.length > 4 ? Integer.parseInt(parts[4]) : 0;
+        fullMoveNumber = parts.length > 5 ? Integer.parseInt(parts[5]) : 1;
+        key = computeKey();
+        pawnKey = computePawnKey();
+        if (evaluator != null) {
+            evaluator.refresh(this);
+        }
+    }
+
+    public String toFEN() {
+        StringBuilder fen = new StringBuilder();
+        for (int rank = 7; rank >= 0; rank--) {
+            int empty = 0;
+            for (int file = 0; file < 8; file++) {
+                int piece = squares[rank * 8 + file];
+                if (piece == EMPTY) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append(empty);
+                    empty = 0;
+                }
+                char c = "?pnbrqk".charAt(typeOf(piece));
+                fen.append(colorOf(piece) == WHITE ? Character.toUpperCase(c) : c);
+            }
+            if (empty > 0) fen.append(empty);
+            if (rank > 0) fen.append('/');
+        }
+        fen.append(sideToMove == WHITE ? " w " : " b ");
+        StringBuilder castling = new StringBuilder();
+        if ((castlingRights & CASTLE_WK) != 0) castling.append('K');
+        if ((castlingRights & CASTLE_WQ) != 0) castling.append('Q');
+        if ((castlingRights & CASTLE_BK) != 0) castling.append('k');
+        if ((castlingRights & CASTLE_BQ) != 0) castling.append('q');
+        fen.append(castling.length() > 0 ? castling : "-");
+        fen.append(' ').append(epSquare >= 0 ? squareName(epSquare) : "-");
+        fen.append(' ').append(halfMoveClock).append(' ').append(fullMoveNumber);
+        return fen.toString();
+    }
+
+    /**
+     * Attach an incrementally updated evaluator; its state is rebuilt from this position
+     */
+    public void setEvaluator(Evaluator evaluator) {
+        this.evaluator = evaluator;
+        if (evaluator != null) {
+            evaluator.refresh(this);
+        }
+    }
+
+    public Evaluator getEvaluator() {
+        return evaluator;
+    }
+
+    // ---------------------------------------------------------------------
+    // Encoding helpers
+    // ---------------------------------------------------------------------
+
+    public static int makePiece(int color, int type) {
+        return (color << 3) | type;
+    }
+
+    public static int colorOf(int piece) {
+        return piece >> 3;
+    }
+
+    public static int typeOf(int piece) {
+        return piece & 7;
+    }
+
+    public static int move(int from, int to, int promotion, int flag) {
+        return from | (to << 6) | (promotion << 12) | (flag << 15);
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    public static int promotion(int move) {
+        return (move >>> 12) & 7;
+    }
+
+    public static int flag(int move) {
+        return (move >>> 15) & 3;
+    }
+
+    public static int toSquare(int row, int col) {
+        return (7 - row) * 8 + col;
+    }
+
+    public static Position toPosition(int square) {
+        return new Position(7 - (square >> 3), square & 7);
+    }
+
+    public static String squareName(int square) {
+        return "" + (char) ('a' + (square & 7)) + (char) ('1' + (square >> 3));
+    }
+
+    public static int parseSquare(String name) {
+        return (name.charAt(1) - '1') * 8 + (name.charAt(0) - 'a');
+    }
+
+    public static String toUci(int move) {
+        if (move == NO_MOVE) {
+            return "0000";
+        }
+        String uci = squareName(from(move)) + squareName(to(move));
+        int promotion = promotion(move);
+        return promotion != EMPTY ? uci + "?pnbrqk".charAt(promotion) : uci;
+    }
+
+    private static int typeOf(String modelType) {
+        switch (modelType) {
+            case "Pawn": return PAWN;
+            case "Knight": return KNIGHT;
+            case "Bishop": return BISHOP;
+            case "Rook": return ROOK;
+            case "Queen": return QUEEN;
+            case "King": return KING;
+            default: throw new IllegalArgumentException("Unknown piece type: " + modelType);
+        }
+    }
+
+    private static String modelTypeName(int type) {
+        switch (type) {
+            case KNIGHT: return "Knight";
+            case BISHOP: return "Bishop";
+            case ROOK: return "Rook";
+            default: return "Queen";
+        }
+    }
+
+    private static long bitAt(int file, int rank) {
+        return file >= 0 && file < 8 && rank >= 0 && rank < 8 ? 1L << (rank * 8 + file) : 0L;
+    }
+
+    // ---------------------------------------------------------------------
+    // Accessors
+    // ---------------------------------------------------------------------
+
+    public int getPiece(int square) {
+        return squares[square];
+    }
+
+    public long getPieces(int color, int type) {
+        return pieceBitboards[makePiece(color, type)];
+    }
+
+    public long getPieces(int color) {
+        return colorBitboards[color];
+    }
+
+    public long getOccupied() {
+        return colorBitboards[WHITE] | colorBitboards[BLACK];
+    }
+
+    public int getKingSquare(int color) {
+        return kingSquare[color];
+    }
+
+    public int getSideToMove() {
+        return sideToMove;
+    }
+
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    public int getEpSquare() {
+        return epSquare;
+    }
+
+    public int getHalfMoveClock() {
+        return halfMoveClock;
+    }
+
+    public int getFullMoveNumber() {
+        return fullMoveNumber;
+    }
+
+    public long getKey() {
+        return key;
+    }
+
+    /**
+     * Zobrist key of the pawns alone, used to cache pawn-structure evaluation
+     */
+    public long getPawnKey() {
+        return pawnKey;
+    }
+
+    public int getHistoryLength() {
+        return historyLength;
+    }
+
+    public int getLastMove() {
+        return historyLength > 0 ? undoMove[historyLength - 1] : NO_MOVE;
+    }
+
+    /**
+     * Piece captured by the last move made, or EMPTY
+     */
+    public int getLastCaptured() {
+        return historyLength > 0 ? undoCaptured[historyLength - 1] : EMPTY;
+    }
+
+    public boolean isInCheck() {
+        return isSquareAttacked(kingSquare[sideToMove], sideToMove ^ 1);
+    }
+
+    /**
+     * True when the current position already occurred since the last irreversible move
+     */
+    public boolean isRepetition() {
+        int limit = Math.max(0, historyLength - halfMoveClock);
+        for (int i = historyLength - 2; i >= limit; i -= 2) {
+            if (undoKey[i] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ---------------------------------------------------------------------
+    // Make / unmake
+    // ---------------------------------------------------------------------
+
+    /**
+     * Apply a pseudo-legal move. Returns false (and leaves the board unchanged)
+     * if the move would leave the mover's king in check.
+     */
+    public boolean makeMove(int move) {
+        int from = from(move);
+        int to = to(move);
+        int flag = flag(move);
+        int promotion = promotion(move);
+        int us = sideToMove;
+        int them = us ^ 1;
+        int piece = squares[from];
+        int captureSquare = flag == FLAG_EN_PASSANT ? (us == WHITE ? to - 8 : to + 8) : to;
+        int captured = squares[captureSquare];
+
+        int ply = historyLength;
+        undoMove[ply] = move;
+        undoCaptured[ply] = captured;
+        undoCastling[ply] = castlingRights;
+        undoEpSquare[ply] = epSquare;
+        undoHalfMoveClock[ply] = halfMoveClock;
+        undoKey[ply] = key;
+        undoPawnKey[ply] = pawnKey;
+        historyLength++;
+
+        if (evaluator != null) {
+            evaluator.push();
+        }
+
+        if (epSquare >= 0) {
+            key ^= EP_KEYS[epSquare & 7];
+        }
+        key ^= CASTLE_KEYS[castlingRights];
+
+        if (captured != EMPTY) {
+            removePiece(captureSquare);
+        }
+        removePiece(from);
+        addPiece(to, promotion != EMPTY ? makePiece(us, promotion) : piece);
+
+        if (flag == FLAG_CASTLE) {
+            int rookFrom = to > from ? to + 1 : to - 2;
+            int rookTo = to > from ? to - 1 : to + 1;
+            int rook = squares[rookFrom];
+            removePiece(rookFrom);
+            addPiece(rookTo, rook);
+        }
+
+        castlingRights &= CASTLE_MASK[from] & CASTLE_MASK[to];
+        epSquare = flag == FLAG_DOUBLE_PUSH ? (from + to) >> 1 : -1;
+        halfMoveClock = (typeOf(piece) == PAWN || captured != EMPTY) ? 0 : halfMoveClock + 1;
+        if (us == BLACK) {
+            fullMoveNumber++;
+        }
+        sideToMove = them;
+
+        key ^= SIDE_KEY ^ CASTLE_KEYS[castlingRights];
+        if (epSquare >= 0) {
+            key ^= EP_KEYS[epSquare & 7];
+        }
+
+        if (isSquareAttacked(kingSquare[us], them)) {
+            unmakeMove();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Revert the last move made with {@link #makeMove(int)}
+     */
+    public void unmakeMove() {
+        int ply = --historyLength;
+        int move = undoMove[ply];
+        int from = from(move);
+        int to = to(move);
+        int flag = flag(move);
+        int us = sideToMove ^ 1;
+        sideToMove = us;
+
+        int moved = squares[to];
+        clear(to);
+        place(from, promotion(move) != EMPTY ? makePiece(us, PAWN) : moved);
+
+        int captured = undoCaptured[ply];
+        if (captured != EMPTY) {
+            place(flag == FLAG_EN_PASSANT ? (us == WHITE ? to - 8 : to + 8) : to, captured);
+        }
+        if (flag == FLAG_CASTLE) {
+            int rookFrom = to > from ? to + 1 : to - 2;
+            int rookTo = to > from ? to - 1 : to + 1;
+            int rook = squares[rookTo];
+            clear(rookTo);
+            place(rookFrom, rook);
+        }
+
+        castlingRights = undoCastling[ply];
+        epSquare = undoEpSquare[ply];
+        halfMoveClock = undoHalfMoveClock[ply];
+        key = undoKey[ply];
+        pawnKey = undoPawnKey[ply];
+        if (us == BLACK) {
+            fullMoveNumber--;
+        }
+
+        if (evaluator != null) {
+            evaluator.pop();
+        }
+    }
+
+    /**
+     * Pass the turn without moving, for null-move pruning. Not legal in check.
+     */
+    public void makeNullMove() {
+        int ply = historyLength;
+        undoMove[ply] = NO_MOVE;
+        undoCaptured[ply] = EMPTY;
+        undoCastling[ply] = castlingRights;
+        undoEpSquare[ply] = epSquare;
+        undoHalfMoveClock[ply] = halfMoveClock;
+        undoKey[ply] = key;
+        undoPawnKey[ply] = pawnKey;
+        historyLength++;
+
+        if (epSquare >= 0) {
+            key ^= EP_KEYS[epSquare & 7];
+            epSquare = -1;
+        }
+        // Positions before a null move must not count as repetitions after it
+        halfMoveClock = 0;
+        sideToMove ^= 1;
+        key ^= SIDE_KEY;
+    }
+
+    /**
+     * Revert a {@link #makeNullMove()}
+     */
+    public void unmakeNullMove() {
+        int ply = --historyLength;
+        sideToMove ^= 1;
+        epSquare = undoEpSquare[ply];
+        halfMoveClock = undoHalfMoveClock[ply];
+        key = undoKey[ply];
+    }
+
+    private void addPiece(int square, int piece) {
+        place(square, piece);
+        key ^= PIECE_KEYS[piece][square];
+        if (typeOf(piece) == PAWN) {
+            pawnKey ^= PIECE_KEYS[piece][square];
+        }
+        if (evaluator != null) {
+            evaluator.pieceAdded(piece, square);
+        }
+    }
+
+    private void removePiece(int square) {
+        int piece = squares[square];
+        clear(square);
+        key ^= PIECE_KEYS[piece][square];
+        if (typeOf(piece) == PAWN) {
+            pawnKey ^= PIECE_KEYS[piece][square];
+        }
+        if (evaluator != null) {
+            evaluator.pieceRemoved(piece, square);
+        }
+    }
+
+    private void place(int square, int piece) {
+        long bit = 1L << square;
+        squares[square] = piece;
+        pieceBitboards[piece] |= bit;
+        colorBitboards[colorOf(piece)] |= bit;
+        if (typeOf(piece) == KING) {
+            kingSquare[colorOf(piece)] = square;
+        }
+    }
+
+    private void clear(int square) {
+        int piece = squares[square];
+        long bit = ~(1L << square);
+        squares[square] = EMPTY;
+        pieceBitboards[piece] &= bit;
+        colorBitboards[colorOf(piece)] &= bit;
+    }
+
+    private void clearState() {
+        java.util.Arrays.fill(squares, EMPTY);
+        java.util.Arrays.fill(pieceBitboards, 0L);
+        colorBitboards[WHITE] = 0L;
+        colorBitboards[BLACK] = 0L;
+        kingSquare[WHITE] = -1;
+        kingSquare[BLACK] = -1;
+        sideToMove = WHITE;
+        castlingRights = 0;
+        epSquare = -1;
+        halfMoveClock = 0;
+        fullMoveNumber = 1;
+        historyLength = 0;
+    }
+
+    private int sanitizeCastling(int rights) {
+        if (squares[4] != makePiece(WHITE, KING)) rights &= ~(CASTLE_WK | CASTLE_WQ);
+        if (squares[7] != makePiece(WHITE, ROOK)) rights &= ~CASTLE_WK;
+        if (squares[0] != makePiece(WHITE, ROOK)) rights &= ~CASTLE_WQ;
+        if (squares[60] != makePiece(BLACK, KING)) rights &= ~(CASTLE_BK | CASTLE_BQ);
+        if (squares[63] != makePiece(BLACK, ROOK)) rights &= ~CASTLE_BK;
+        if (squares[56] != makePiece(BLACK, ROOK)) rights &= ~CASTLE_BQ;
+        return rights;
+    }
+
+    private long computeKey() {
+        long k = 0L;
+        for (int sq = 0; sq < 64; sq++) {
+            if (squares[sq] != EMPTY) {
+                k ^= PIECE_KEYS[squares[sq]][sq];
+            }
+        }
+        k ^= CASTLE_KEYS[castlingRights];
+        if (epSquare >= 0) {
+            k ^= EP_KEYS[epSquare & 7];
+        }
+        if (sideToMove == BLACK) {
+            k ^= SIDE_KEY;
+        }
+        return k;
+    }
+
+    private long computePawnKey() {
+        long k = 0L;
+        for (int color = WHITE; color <= BLACK; color++) {
+            int pawn = makePiece(color, PAWN);
+            long pawns = pieceBitboards[pawn];
+            while (pawns != 0) {
+                int sq = Long.numberOfTrailingZeros(pawns);
+                pawns &= pawns - 1;
+                k ^= PIECE_KEYS[pawn][sq];
+            }
+        }
+        return k;
+    }
+
+    // ---------------------------------------------------------------------
+    // Attacks
+    // ---------------------------------------------------------------------
+
+    public static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    public static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    public static long pawnAttacks(int color, int square) {
+        return PAWN_ATTACKS[color][square];
+    }
+
+    public static long rookAttacks(int square, long occupied) {
+        return slidingAttacks(square, occupied, 0);
+    }
+
+    public static long bishopAttacks(int square, long occupied) {
+        return slidingAttacks(square, occupied, 4);
+    }
+
+    private static long slidingAttacks(int square, long occupied, int firstDirection) {
+        long attacks = 0L;
+        for (int dir = firstDirection; dir < firstDirection + 4; dir++) {
+            for (int target : RAYS[dir][square]) {
+                attacks |= 1L << target;
+                if ((occupied & (1L << target)) != 0) {
+                    break;
+                }
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * Attack set of a piece of the given type standing on a square
+     */
+    public static long attacksOf(int piece, int square, long occupied) {
+        switch (typeOf(piece)) {
+            case PAWN: return PAWN_ATTACKS[colorOf(piece)][square];
+            case KNIGHT: return KNIGHT_ATTACKS[square];
+            case BISHOP: return bishopAttacks(square, occupied);
+            case ROOK: return rookAttacks(square, occupied);
+            case QUEEN: return bishopAttacks(square, occupied) | rookAttacks(square, occupied);
+            case KING: return KING_ATTACKS[square];
+            default: return 0L;
+        }
+    }
+
+    /**
+     * All pieces of either colour attacking a square, given an occupancy
+     */
+    public long attackersTo(int square, long occupied) {
+        long diagonal = pieceBitboards[makePiece(WHITE, BISHOP)] | pieceBitboards[makePiece(BLACK, BISHOP)]
+                | pieceBitboards[makePiece(WHITE, QUEEN)] | pieceBitboards[makePiece(BLACK, QUEEN)];
+        long straight = pieceBitboards[makePiece(WHITE, ROOK)] | pieceBitboards[makePiece(BLACK, ROOK)]
+                | pieceBitboards[makePiece(WHITE, QUEEN)] | pieceBitboards[makePiece(BLACK, QUEEN)];
+        return (PAWN_ATTACKS[BLACK][square] & pieceBitboards[makePiece(WHITE, PAWN)])
+                | (PAWN_ATTACKS[WHITE][square] & pieceBitboards[makePiece(BLACK, PAWN)])
+                | (KNIGHT_ATTACKS[square] & (pieceBitboards[makePiece(WHITE, KNIGHT)] | pieceBitboards[makePiece(BLACK, KNIGHT)]))
+                | (KING_ATTACKS[square] & (pieceBitboards[makePiece(WHITE, KING)] | pieceBitboards[makePiece(BLACK, KING)]))
+                | (bishopAttacks(square, occupied) & diagonal)
+                | (rookAttacks(square, occupied) & straight);
+    }
+
+    public boolean isSquareAttacked(int square, int byColor) {
+        if ((PAWN_ATTACKS[byColor ^ 1][square] & pieceBitboards[makePiece(byColor, PAWN)]) != 0) return true;
+        if ((KNIGHT_ATTACKS[square] & pieceBitboards[makePiece(byColor, KNIGHT)]) != 0) return true;
+        if ((KING_ATTACKS[square] & pieceBitboards[makePiece(byColor, KING)]) != 0) return true;
+        long occupied = getOccupied();
+        long queens = pieceBitboards[makePiece(byColor, QUEEN)];
+        long diagonal = pieceBitboards[makePiece(byColor, BISHOP)] | queens;
+        if (diagonal != 0 && (bishopAttacks(square, occupied) & diagonal) != 0) return true;
+        long straight = pieceBitboards[makePiece(byColor, ROOK)] | queens;
+        return straight != 0 && (rookAttacks(square, occupied) & straight) != 0;
+    }
+
+    /**
+     * Material value of a piece type for exchange evaluation, in centipawns
+     */
+    public static int exchangeValue(int type) {
+        return EXCHANGE_VALUE[type];
+    }
+
+    /**
+     * Static exchange evaluation: the material the mover comes out with after the move and
+     * every profitable recapture on its target square, each side taking with its least
+     * valuable piece. Works for either side, whoever is to move; pins are not considered.
+     */
+    public int see(int move) {
+        int from = from(move);
+        int to = to(move);
+        int side = colorOf(squares[from]);
+        int attackerType = promotion(move) != EMPTY ? promotion(move) : typeOf(squares[from]);
+        long occupied = getOccupied();
+        int[] gain = new int[32];
+        if (flag(move) == FLAG_EN_PASSANT) {
+            gain[0] = EXCHANGE_VALUE[PAWN];
+            occupied ^= 1L << (to + (side == WHITE ? -8 : 8));
+        } else {
+            gain[0] = EXCHANGE_VALUE[typeOf(squares[to])];
+        }
+        if (promotion(move) != EMPTY) {
+            gain[0] += EXCHANGE_VALUE[promotion(move)] - EXCHANGE_VALUE[PAWN];
+        }
+        long fromBit = 1L << from;
+        int depth = 0;
+        while (fromBit != 0 && depth < gain.length - 1) {
+            depth++;
+            // What the side now standing on the square gains if it is taken next
+            gain[depth] = EXCHANGE_VALUE[attackerType] - gain[depth - 1];
+            occupied ^= fromBit;
+            side ^= 1;
+            // Recomputed on the thinned board, so pieces behind the last capturer join in
+            long attackers = attackersTo(to, occupied) & occupied & colorBitboards[side];
+            fromBit = 0;
+            for (int type = PAWN; type <= KING && attackers != 0; type++) {
+                long ofType = attackers & pieceBitboards[makePiece(side, type)];
+                if (ofType != 0) {
+                    fromBit = Long.lowestOneBit(ofType);
+                    attackerType = type;
+                    break;
+                }
+            }
+        }
+        // Each side may stop capturing whenever going on would cost it
+        while (--depth > 0) {
+            gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+        }
+        return gain[0];
+    }
+
+    // ---------------------------------------------------------------------
+    // Move generation
+    // ---------------------------------------------------------------------
+
+    /**
+     * Generate pseudo-legal moves into the buffer and return how many were written.
+     * With capturesOnly set, only captures and queen promotions are produced.
+     */
+    public int generateMoves(int[] moves, boolean capturesOnly) {
+        int count = 0;
+        int us = sideToMove;
+        int them = us ^ 1;
+        long own = colorBitboards[us];
+        long enemy = colorBitboards[them];
+        long occupied = own | enemy;
+        long targets = capturesOnly ? enemy : ~own;
+
+        count = generatePawnMoves(moves, count, capturesOnly, enemy, occupied);
+
+        for (int type = KNIGHT; type <= KING; type++) {
+            long pieces = pieceBitboards[makePiece(us, type)];
+            while (pieces != 0) {
+                int from = Long.numberOfTrailingZeros(pieces);
+                pieces &= pieces - 1;
+                long attacks = attacksOf(type, from, occupied) & targets;
+                while (attacks != 0) {
+                    int to = Long.numberOfTrailingZeros(attacks);
+                    attacks &= attacks - 1;
+                    moves[count++] = move(from, to, EMPTY, FLAG_NONE);
+                }
+            }
+        }
+
+        if (!capturesOnly) {
+            count = generateCastling(moves, count, occupied);
+        }
+        return count;
+    }
+
+    private int generatePawnMoves(int[] moves, int count, boolean capturesOnly, long enemy, long occupied) {
+        int us = sideToMove;
+        int forward = us == WHITE ? 8 : -8;
+        int startRank = us == WHITE ? 1 : 6;
+        int promotionRank = us == WHITE ? 7 : 0;
+        long pawns = pieceBitboards[makePiece(us, PAWN)];
+        while (pawns != 0) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+            int push = from + forward;
+            if ((occupied & (1L << push)) == 0) {
+                if ((push >> 3) == promotionRank) {
+                    count = addPromotions(moves, count, from, push, capturesOnly);
+                } else if (!capturesOnly) {
+                    moves[count++] = move(from, push, EMPTY, FLAG_NONE);
+                    int doublePush = push + forward;
+                    if ((from >> 3) == startRank && (occupied & (1L << doublePush)) == 0) {
+                        moves[count++] = move(from, doublePush, EMPTY, FLAG_DOUBLE_PUSH);
+                    }
+                }
+            }
+            long captures = PAWN_ATTACKS[us][from] & enemy;
+            while (captures != 0) {
+                int to = Long.numberOfTrailingZeros(captures);
+                captures &= captures - 1;
+                if ((to >> 3) == promotionRank) {
+                    count = addPromotions(moves, count, from, to, false);
+                } else {
+                    moves[count++] = move(from, to, EMPTY, FLAG_NONE);
+                }
+            }
+            if (epSquare >= 0 && (PAWN_ATTACKS[us][from] & (1L << epSquare)) != 0) {
+                moves[count++] = move(from, epSquare, EMPTY, FLAG_EN_PASSANT);
+            }
+        }
+        return count;
+    }
+
+    private int addPromotions(int[] moves, int count, int from, int to, boolean queenOnly) {
+        moves[count++] = move(from, to, QUEEN, FLAG_NONE);
+        if (!queenOnly) {
+            moves[count++] = move(from, to, KNIGHT, FLAG_NONE);
+            moves[count++] = move(from, to, ROOK, FLAG_NONE);
+            moves[count++] = move(from, to, BISHOP, FLAG_NONE);
+        }
+        return count;
+    }
+
+    private int generateCastling(int[] moves, int count, long occupied) {
+        int us = sideToMove;
+        int them = us ^ 1;
+        int kingSide = us == WHITE ? CASTLE_WK : CASTLE_BK;
+        int queenSide = us == WHITE ? CASTLE_WQ : CASTLE_BQ;
+        int base = us == WHITE ? 0 : 56;
+        if ((castlingRights & (kingSide | queenSide)) == 0 || isSquareAttacked(base + 4, them)) {
+            return count;
+        }
+        if ((castlingRights & kingSide) != 0
+                && (occupied & (3L << (base + 5))) == 0
+                && !isSquareAttacked(base + 5, them)) {
+            moves[count++] = move(base + 4, base + 6, EMPTY, FLAG_CASTLE);
+        }
+        if ((castlingRights & queenSide) != 0
+                && (occupied & (7L << (base + 1))) == 0
+                && !isSquareAttacked(base + 3, them)) {
+            moves[count++] = move(base + 4, base + 2, EMPTY, FLAG_CASTLE);
+        }
+        return count;
+    }
+
+    /**
+     * True if the side to move has at least one legal move
+     */
+    public boolean hasLegalMove() {
+        int[] moves = new int[MAX_MOVES];
+        int count = generateMoves(moves, false);
+        for (int i = 0; i < count; i++) {
+            if (makeMove(moves[i])) {
+                unmakeMove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Find the legal move matching a UCI string such as "e2e4" or "e7e8q"
+     */
+    public int parseUciMove(String uci) {
+        if (uci == null || uci.length() < 4) {
+            return NO_MOVE;
+        }
+        int[] moves = new int[MAX_MOVES];
+        int count = generateMoves(moves, false);
+        for (int i = 0; i < count; i++) {
+            String candidate = toUci(moves[i]);
+            if (candidate.equals(uci) || (uci.length() == 4 && promotion(moves[i]) == QUEEN
+                    && candidate.startsWith(uci))) {
+                if (makeMove(moves[i])) {
+                    unmakeMove();
+                    return moves[i];
+                }
+            }
+        }
+        return NO_MOVE;
+    }
+
+    /**
+     * Convert a packed move into a model move for the given GUI board
+     */
+    public static Move toModelMove(int move, Board board) {
+        Position from = toPosition(from(move));
+        Position to = toPosition(to(move));
+        Piece piece = board.getPiece(from);
+        Piece captured = board.getPiece(to);
+        Move.MoveType type = Move.MoveType.NORMAL;
+        String promotionPiece = null;
+        if (flag(move) == FLAG_CASTLE) {
+            type = to.getCol() > from.getCol() ? Move.MoveType.CASTLE_KINGSIDE : Move.MoveType.CASTLE_QUEENSIDE;
+        } else if (flag(move) == FLAG_EN_PASSANT) {
+            type = Move.MoveType.EN_PASSANT;
+        } else if (promotion(move) != EMPTY) {
+            type = Move.MoveType.PAWN_PROMOTION;
+            promotionPiece = modelTypeName(promotion(move));
+        }
+        return new Move(from, to, piece, captured, type, promotionPiece, false, false);
+    }
+
+    /**
+     * Convert a model move played on this position into a packed move, or NO_MOVE if it is not legal
+     */
+    public int fromModelMove(Move move) {
+        String uci = squareName(toSquare(move.getFrom().getRow(), move.getFrom().getCol()))
+                + squareName(toSquare(move.getTo().getRow(), move.getTo().getCol()));
+        if (move.getPromotionPiece() != null) {
+            uci += "?pnbrqk".charAt(typeOf(move.getPromotionPiece()));
+        }
+        return parseUciMove(uci);
+    }
+
+    /**
+     * Count leaf nodes of the legal move tree (move generator self-check)
+     */
+    public long perft(int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        int[] moves = new int[MAX_MOVES];
+        int count = generateMoves(moves, false);
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            if (makeMove(moves[i])) {
+                nodes += perft(depth - 1);
+                unmakeMove();
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * Independent copy of the current position (without move history or evaluator)
+     */
+    public SearchBoard copy() {
+        return new SearchBoard(toFEN());
+    }
+
+    @Override
+    public String toString() {
+        return toFEN();
+    }
+}
@@ -0,0 +1,190 @@
+package com.chess.engine;
+
+import com.chess.model.ChessClock;
+
+/**
+ * Limits for a single engine search, mirroring the parameters of the UCI "go" command
+ */
+public class SearchLimits {
+    /** Highest UCI "Skill Level", i.e. full strength */
+    public static final int MAX_SKILL_LEVEL = 20;
+
+    private long moveTimeMs;
+    private long whiteTimeMs;
+    private long blackTimeMs;
+    private long whiteIncrementMs;
+    private long blackIncrementMs;
+    private int movesToGo;
+    private int depth;
+    private long nodes;
+    private boolean ponder;
+    private int skillLevel = MAX_SKILL_LEVEL;
+    private int multiPv;
+
+    /**
+     * Search for exactly this long
+     */
+    public static SearchLimits moveTime(long ms) {
+        SearchLimits limits = new SearchLimits();
+        limits.moveTimeMs = ms;
+        return limits;
+    }
+
+    /**
+     * Search to a fixed depth with no time limit
+     */
+    public static SearchLimits depth(int depth) {
+        SearchLimits limits = new SearchLimits();
+        limits.depth = depth;
+        return limits;
+    }
+
+    /**
+     * Let the engine budget its own time from the remaining clocks
+     */
+    public static SearchLimits clock(long whiteTimeMs, long blackTimeMs, long whiteIncrementMs,
+                                     long blackIncrementMs, int movesToGo) {
+        SearchLimits limits = new SearchLimits();
+        limits.whiteTimeMs = whiteTimeMs;
+        limits.blackTimeMs = blackTimeMs;
+        limits.whiteIncrementMs = whiteIncrementMs;
+        limits.blackIncrementMs = blackIncrementMs;
+        limits.movesToGo = movesToGo;
+        return limits;
+    }
+
+    public static SearchLimits clock(ChessClock clock) {
+        return clock(clock.getRemainingMs("White"), clock.getRemainingMs("Black"),
+                clock.getIncrementMs(), clock.getIncrementMs(), 0);
+    }
+
+    public boolean isClockControlled() {
+        return whiteTimeMs > 0 || blackTimeMs > 0;
+    }
+
+    public long getMoveTimeMs() {
+        return moveTimeMs;
+    }
+
+    /**
+     * Limit the search to this long; together with a clock it is a ceiling on the clock budget
+     */
+    public void setMoveTimeMs(long moveTimeMs) {
+        this.moveTimeMs = moveTimeMs;
+    }
+
+    public long getTimeMs(int color) {
+        return color == SearchBoard.WHITE ? whiteTimeMs : blackTimeMs;
+    }
+
+    public long getIncrementMs(int color) {
+        return color == SearchBoard.WHITE ? whiteIncrementMs : blackIncrementMs;
+    }
+
+    public int getMovesToGo() {
+        return movesToGo;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public void setNodes(long nodes) {
+        this.nodes = nodes;
+    }
+
+    public boolean isPonder() {
+        return ponder;
+    }
+
+    /**
+     * Search on the opponent's time until "ponderhit" or "stop"
+     */
+    public void setPonder(boolean ponder) {
+        this.ponder = ponder;
+    }
+
+    public int getSkillLevel() {
+        return skillLevel;
+    }
+
+    /**
+     * Playing strength from 0 to {@link #MAX_SKILL_LEVEL}. Not part of "go": UCI engines
+     * take it as the "Skill Level" option before the search starts.
+     */
+    public void setSkillLevel(int skillLevel) {
+        this.skillLevel = Math.max(0, Math.min(MAX_SKILL_LEVEL, skillLevel));
+    }
+
+    public int getMultiPv() {
+        return multiPv;
+    }
+
+    /**
+     * Number of best lines to report, or 0 for the engine's default. Also an option
+     * rather than part of "go" ("MultiPV").
+     */
+    public void setMultiPv(int multiPv) {
+        this.multiPv = Math.max(0, multiPv);
+    }
+
+    /**
+     * An independent copy, to adjust without changing the caller's limits
+     */
+    public SearchLimits copy() {
+        SearchLimits copy = new SearchLimits();
+        copy.moveTimeMs = moveTimeMs;
+        copy.whiteTimeMs = whiteTimeMs;
+        copy.blackTimeMs = blackTimeMs;
+        copy.whiteIncrementMs = whiteIncrementMs;
+        copy.blackIncrementMs = blackIncrementMs;
+        copy.movesToGo = movesToGo;
+        copy.depth = depth;
+        copy.nodes = nodes;
+        copy.ponder = ponder;
+        copy.skillLevel = skillLevel;
+        copy.multiPv = multiPv;
+        return copy;
+    }
+
+    /**
+     * The UCI "go" command for these limits
+     */
+    public String toUciCommand() {
+        StringBuilder command = new StringBuilder(ponder ? "go ponder" : "go");
+        int prefixLength = command.length();
+        if (isClockControlled()) {
+            command.append(" wtime ").append(whiteTimeMs).append(" btime ").append(blackTimeMs)
+                   .append(" winc ").append(whiteIncrementMs).append(" binc ").append(blackIncrementMs);
+            if (movesToGo > 0) {
+                command.append(" movestogo ").append(movesToGo);
+            }
+        }
+        if (moveTimeMs > 0) {
+            command.append(" movetime ").append(moveTimeMs);
+        }
+        if (depth > 0) {
+            command.append(" depth ").append(depth);
+        }
+        if (nodes > 0) {
+            command.append(" nodes ").append(nodes);
+        }
+        if (command.length() == prefixLength) {
+            command.append(" infinite");
+        }
+        return command.toString();
+    }
+
+    @Override
+    public String toString() {
+        return toUciCommand();
+    }
+}
@@ -0,0 +1,171 @@
+package com.chess.engine;
+
+/**
+ * Decides how long a single search may run.
+ *
+ * Under a clock the budget is a soft limit, checked between iterations, and a hard
+ * limit, checked inside the search. The soft limit scales with the position's
+ * complexity, shrinks while the best move stays the same across iterations and
+ * grows (up to the hard limit) when the score drops. A fixed move time or depth
+ * limit is honoured exactly, as UCI expects; a move time given with a clock caps
+ * the clock budget.
+ */
+public class TimeManager {
+    /** Assumed moves left in the game when the time control does not say */
+    private static final int DEFAULT_MOVES_TO_GO = 30;
+    /** Kept back from every budget for GUI and process latency */
+    private static final long OVERHEAD_MS = 50;
+    private static final long MIN_BUDGET_MS = 10;
+    private static final int SCORE_DROP_MARGIN = 30;
+
+    private final long softLimitMs;
+    private final long hardLimitMs;
+    private final boolean adaptive;
+    private final long startTime;
+
+    private int lastBestMove = SearchBoard.NO_MOVE;
+    private int lastScore;
+    private int stableIterations;
+    private double dropFactor = 1.0;
+
+    private TimeManager(long softLimitMs, long hardLimitMs, boolean adaptive) {
+        this.softLimitMs = softLimitMs;
+        this.hardLimitMs = hardLimitMs;
+        this.adaptive = adaptive;
+        this.startTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Budget for the side to move in the given position under the given limits
+     */
+    public static TimeManager forSearch(SearchLimits limits, SearchBoard board) {
+        if (!limits.isClockControlled()) {
+            long time = limits.getMoveTimeMs() > 0 ? limits.getMoveTimeMs() : Long.MAX_VALUE / 4;
+            return new TimeManager(time, time, false);
+        }
+
+        int color = board.getSideToMove();
+        long remaining = Math.max(0, limits.getTimeMs(color) - OVERHEAD_MS);
+        long increment = limits.getIncrementMs(color);
+        int movesToGo = limits.getMovesToGo() > 0 ? limits.getMovesToGo() : DEFAULT_MOVES_TO_GO;
+
+        double complexity = estimateComplexity(board);
+        long base = remaining / movesToGo + increment * 3 / 4;
+        long hard = Math.min(base * 4, remaining / 3 + increment);
+        hard = Math.max(MIN_BUDGET_MS, Math.min(hard, remaining));
+        if (limits.getMoveTimeMs() > 0) {
+            // A move time alongside the clock is a latency ceiling
+            hard = Math.min(hard, Math.max(MIN_BUDGET_MS, limits.getMoveTimeMs()));
+        }
+        long soft = Math.max(MIN_BUDGET_MS, Math.min((long) (base * complexity), hard));
+        if (complexity == 0.0) {
+            soft = MIN_BUDGET_MS;
+            hard = MIN_BUDGET_MS;
+        }
+        return new TimeManager(soft, hard, true);
+    }
+
+    /**
+     * Relative effort a position deserves: 0 with a single legal reply, otherwise
+     * around 1.0, more for positions with many options or tactics pending
+     */
+    public static double estimateComplexity(SearchBoard board) {
+        int[] moves = new int[SearchBoard.MAX_MOVES];
+        int count = board.generateMoves(moves, false);
+        int legal = 0;
+        int captures = 0;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            boolean capture = board.getPiece(SearchBoard.to(move)) != SearchBoard.EMPTY;
+            if (board.makeMove(move)) {
+                board.unmakeMove();
+                legal++;
+                if (capture) {
+                    captures++;
+                }
+            }
+        }
+        if (legal <= 1) {
+            return 0.0;
+        }
+        double complexity = 0.7 + Math.min(legal, 40) / 80.0;
+        complexity += Math.min(captures, 6) * 0.05;
+        if (board.isInCheck()) {
+            // Check evasions are usually forced and resolve quickly
+            complexity *= 0.8;
+        }
+        return complexity;
+    }
+
+    /**
+     * Record the result of a finished iteration
+     */
+    public void iterationCompleted(int depth, int bestMove, int score) {
+        if (bestMove == lastBestMove) {
+            stableIterations++;
+        } else {
+            stableIterations = 0;
+        }
+        if (depth > 1 && score < lastScore - SCORE_DROP_MARGIN) {
+            dropFactor = Math.min(2.0, 1.0 + (lastScore - score) / 100.0);
+        } else {
+            dropFactor = Math.max(1.0, dropFactor * 0.9);
+        }
+        lastBestMove = bestMove;
+        lastScore = score;
+    }
+
+    /**
+     * Whether to stop before starting another iteration
+     */
+    public boolean shouldStop() {
+        if (!adaptive) {
+            return elapsed() >= hardLimitMs;
+        }
+        return elapsed() >= getAdjustedSoftLimitMs();
+    }
+
+    /**
+     * Whether the search must abort immediately
+     */
+    public boolean hardLimitReached() {
+        return elapsed() >= hardLimitMs;
+    }
+
+    /**
+     * Soft limit after stability and score-drop adjustments
+     */
+    public long getAdjustedSoftLimitMs() {
+        double stability = Math.max(0.4, 1.2 - 0.15 * stableIterations);
+        long adjusted = (long) (softLimitMs * stability * dropFactor);
+        // An iteration usually costs more than all previous ones, so stop early rather than overrun
+        return Math.min(hardLimitMs, adjusted) / 2;
+    }
+
+    public long getHardDeadline() {
+        return isTimeLimited() ? startTime + hardLimitMs : Long.MAX_VALUE;
+    }
+
+    /**
+     * False for searches bounded only by depth or nodes, or not at all
+     */
+    public boolean isTimeLimited() {
+        return hardLimitMs < Long.MAX_VALUE / 4;
+    }
+
+    public long elapsed() {
+        return System.currentTimeMillis() - startTime;
+    }
+
+    public long getSoftLimitMs() {
+        return softLimitMs;
+    }
+
+    public long getHardLimitMs() {
+        return hardLimitMs;
+    }
+
+    public int getStableIterations() {
+        return stableIterations;
+    }
+}
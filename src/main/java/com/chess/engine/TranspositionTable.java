@@ -0,0 +1,81 @@
+package com.chess.engine;
+
+/**
+ * Fixed-size, always-replace transposition table for the native search.
+ *
+ * Entries live in two parallel long arrays (key and packed data) so the table
+ * is a couple of flat allocations rather than millions of objects.
+ */
+public class TranspositionTable {
+    public static final int BOUND_NONE = 0;
+    public static final int BOUND_EXACT = 1;
+    public static final int BOUND_LOWER = 2;
+    public static final int BOUND_UPPER = 3;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int mask;
+
+    public TranspositionTable(int sizeMb) {
+        int entries = Integer.highestOneBit(Math.max(1, sizeMb) * 1024 * 1024 / 16);
+        this.keys = new long[entries];
+        this.data = new long[entries];
+        this.mask = entries - 1;
+    }
+
+    /**
+     * Returns the packed entry for a key, or 0 if absent
+     */
+    public long probe(long key) {
+        int index = (int) key & mask;
+        return keys[index] == key ? data[index] : 0L;
+    }
+
+    public void store(long key, int move, int score, int depth, int bound) {
+        int index = (int) key & mask;
+        // Keep the old move when storing a bound without one for the same position
+        if (move == SearchBoard.NO_MOVE && keys[index] == key) {
+            move = moveOf(data[index]);
+        }
+        keys[index] = key;
+        data[index] = (move & 0x3FFFFL)
+                | ((long) (score + 32768) & 0xFFFFL) << 18
+                | ((long) Math.max(0, depth) & 0xFFL) << 34
+                | ((long) bound & 0x3L) << 42;
+    }
+
+    public static int moveOf(long entry) {
+        return (int) (entry & 0x3FFFFL);
+    }
+
+    public static int scoreOf(long entry) {
+        return (int) ((entry >>> 18) & 0xFFFFL) - 32768;
+    }
+
+    public static int depthOf(long entry) {
+        return (int) ((entry >>> 34) & 0xFFL);
+    }
+
+    public static int boundOf(long entry) {
+        return (int) ((entry >>> 42) & 0x3L);
+    }
+
+    public void clear() {
+        java.util.Arrays.fill(keys, 0L);
+        java.util.Arrays.fill(data, 0L);
+    }
+
+    /**
+     * Approximate fill rate in permille, sampled from the first thousand slots
+     */
+    public int hashfull() {
+        int sample = Math.min(1000, keys.length);
+        int used = 0;
+        for (int i = 0; i < sample; i++) {
+            if (keys[i] != 0L) {
+                used++;
+            }
+        }
+        return used * 1000 / sample;
+    }
+}
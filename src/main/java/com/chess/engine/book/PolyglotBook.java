@@ -0,0 +1,223 @@
+package com.chess.engine.book;
+
+import com.chess.engine.SearchBoard;
+import com.chess.model.Board;
+import com.chess.model.Move;
+import com.chess.utils.Logger;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Read-only Polyglot (.bin) opening book.
+ *
+ * The file is memory-mapped rather than loaded, so opening a book costs nothing
+ * up front and a lookup is a binary search over 16-byte big-endian entries
+ * (key, move, weight, learn) sorted by key. Reads use absolute offsets on the
+ * shared buffer, so one book can be probed from several threads.
+ */
+public class PolyglotBook {
+    private static final Logger logger = Logger.getLogger(PolyglotBook.class);
+
+    private static final int ENTRY_SIZE = 16;
+    private static final String[] DEFAULT_PATHS = {
+        "books/book.bin",
+        "book.bin",
+        "books/performance.bin"
+    };
+
+    private static PolyglotBook defaultBook;
+    private static boolean defaultLoaded;
+
+    private final MappedByteBuffer buffer;
+    private final int entryCount;
+    private final PolyglotKey keys;
+
+    /**
+     * A book move and its relative weight
+     */
+    public static class Entry {
+        private final int move;
+        private final int weight;
+
+        Entry(int move, int weight) {
+            this.move = move;
+            this.weight = weight;
+        }
+
+        /** Get the move, encoded as a {@link SearchBoard} move */
+        public int getMove() {
+            return move;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+    }
+
+    private PolyglotBook(MappedByteBuffer buffer, PolyglotKey keys) {
+        this.buffer = buffer;
+        this.entryCount = buffer.capacity() / ENTRY_SIZE;
+        this.keys = keys;
+    }
+
+    /**
+     * Map a book file into memory
+     */
+    public static PolyglotBook open(Path file, PolyglotKey keys) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size % ENTRY_SIZE != 0) {
+                throw new IOException("Not a Polyglot book (size " + size + " is not a multiple of 16): " + file);
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Polyglot book too large to map: " + file);
+            }
+            // The mapping stays valid after the channel is closed
+            return new PolyglotBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), keys);
+        }
+    }
+
+    /**
+     * The book found in the default locations, or null if there is none (or no Polyglot table)
+     */
+    public static synchronized PolyglotBook getDefault() {
+        if (!defaultLoaded) {
+            defaultLoaded = true;
+            for (String path : DEFAULT_PATHS) {
+                Path file = Paths.get(path);
+                if (!Files.isRegularFile(file)) {
+                    continue;
+                }
+                PolyglotKey keys = PolyglotKey.standard();
+                if (keys == null) {
+                    break;
+                }
+                try {
+                    defaultBook = open(file, keys);
+                    logger.info("Opening book loaded: " + file + " (" + defaultBook.getEntryCount() + " entries)");
+                } catch (IOException e) {
+                    logger.error("Failed to open opening book " + file + ": " + e.getMessage());
+                }
+                break;
+            }
+        }
+        return defaultBook;
+    }
+
+    /**
+     * Weighted book move for a position from the default book, or null when out of book
+     */
+    public static Move lookup(Board board) {
+        PolyglotBook book = getDefault();
+        return book != null ? book.pickMove(board) : null;
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * All legal book moves for a position, in file order
+     */
+    public List<Entry> getEntries(SearchBoard board) {
+        List<Entry> entries = new ArrayList<>();
+        long key = keys.compute(board);
+        for (int i = lowerBound(key); i < entryCount && keyAt(i) == key; i++) {
+            int offset = i * ENTRY_SIZE;
+            int move = decodeMove(board, buffer.getShort(offset + 8) & 0xFFFF);
+            int weight = buffer.getShort(offset + 10) & 0xFFFF;
+            if (move != SearchBoard.NO_MOVE) {
+                entries.add(new Entry(move, weight));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Pick a book move at random in proportion to its weight, or NO_MOVE when out of book
+     */
+    public int pickMove(SearchBoard board) {
+        List<Entry> entries = getEntries(board);
+        long total = 0;
+        for (Entry entry : entries) {
+            total += entry.getWeight();
+        }
+        if (total == 0) {
+            // Zero weights mean "never play", unless nothing else is listed
+            return entries.isEmpty() ? SearchBoard.NO_MOVE : entries.get(0).getMove();
+        }
+        long pick = ThreadLocalRandom.current().nextLong(total);
+        for (Entry entry : entries) {
+            pick -= entry.getWeight();
+            if (pick < 0) {
+                return entry.getMove();
+            }
+        }
+        return SearchBoard.NO_MOVE;
+    }
+
+    public Move pickMove(Board board) {
+        int move = pickMove(SearchBoard.fromBoard(board));
+        if (move == SearchBoard.NO_MOVE) {
+            return null;
+        }
+        Move bookMove = SearchBoard.toModelMove(move, board);
+        logger.info("Book move: " + bookMove);
+        return bookMove;
+    }
+
+    private long keyAt(int index) {
+        return buffer.getLong(index * ENTRY_SIZE);
+    }
+
+    /**
+     * First entry whose key is not less than the given key (keys compare unsigned)
+     */
+    private int lowerBound(long key) {
+        int low = 0;
+        int high = entryCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Long.compareUnsigned(keyAt(mid), key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Convert a Polyglot move to a legal board move; castling is stored as the king taking its rook
+     */
+    private static int decodeMove(SearchBoard board, int encoded) {
+        int toFile = encoded & 7;
+        int toRow = (encoded >> 3) & 7;
+        int fromFile = (encoded >> 6) & 7;
+        int fromRow = (encoded >> 9) & 7;
+        int promotion = (encoded >> 12) & 7;
+
+        int from = fromRow * 8 + fromFile;
+        int to = toRow * 8 + toFile;
+        if (SearchBoard.typeOf(board.getPiece(from)) == SearchBoard.KING && (from == 4 || from == 60)) {
+            if (to == from + 3) {
+                to = from + 2;
+            } else if (to == from - 4) {
+                to = from - 2;
+            }
+        }
+
+        String uci = SearchBoard.squareName(from) + SearchBoard.squareName(to)
+                + (promotion == 0 ? "" : String.valueOf(" nbrq".charAt(promotion)));
+        return board.parseUciMove(uci);
+    }
+}
@@ -0,0 +1,151 @@
+package com.chess.engine.book;
+
+import com.chess.engine.SearchBoard;
+import com.chess.utils.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Polyglot position hashing.
+ *
+ * Polyglot books are keyed by a Zobrist hash built from a fixed table of 781
+ * random numbers: 768 piece-square entries, 4 castling rights, 8 en-passant files
+ * and one side-to-move entry. The standard table is read from
+ * {@code polyglot-random64.txt} (hex values separated by whitespace or commas,
+ * in the order of the Polyglot specification), either on the classpath next to
+ * this class or in the {@code books} directory.
+ */
+public class PolyglotKey {
+    private static final Logger logger = Logger.getLogger(PolyglotKey.class);
+
+    public static final int TABLE_SIZE = 781;
+    public static final String TABLE_FILE = "polyglot-random64.txt";
+
+    private static final int CASTLE_OFFSET = 768;
+    private static final int EP_OFFSET = 772;
+    private static final int TURN_OFFSET = 780;
+
+    private static PolyglotKey standard;
+    private static boolean standardLoaded;
+
+    private final long[] randoms;
+
+    public PolyglotKey(long[] randoms) {
+        if (randoms.length != TABLE_SIZE) {
+            throw new IllegalArgumentException("Polyglot table needs " + TABLE_SIZE + " values, got " + randoms.length);
+        }
+        this.randoms = randoms.clone();
+    }
+
+    /**
+     * The standard Polyglot table, or null if it cannot be found
+     */
+    public static synchronized PolyglotKey standard() {
+        if (!standardLoaded) {
+            standardLoaded = true;
+            try {
+                long[] table = loadTable();
+                standard = table != null ? new PolyglotKey(table) : null;
+                if (standard == null) {
+                    logger.warn("Polyglot random table " + TABLE_FILE + " not found, opening book disabled");
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                logger.error("Failed to load Polyglot random table: " + e.getMessage());
+            }
+        }
+        return standard;
+    }
+
+    private static long[] loadTable() throws IOException {
+        InputStream in = PolyglotKey.class.getResourceAsStream(TABLE_FILE);
+        Path file = Paths.get("books", TABLE_FILE);
+        if (in == null && Files.isRegularFile(file)) {
+            in = Files.newInputStream(file);
+        }
+        if (in == null) {
+            return null;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.US_ASCII))) {
+            return parseTable(reader);
+        }
+    }
+
+    static long[] parseTable(BufferedReader reader) throws IOException {
+        long[] table = new long[TABLE_SIZE];
+        int count = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            for (String token : line.split("[\\s,]+")) {
+                token = token.trim();
+                if (token.isEmpty()) {
+                    continue;
+                }
+                if (token.startsWith("0x") || token.startsWith("0X")) {
+                    token = token.substring(2);
+                }
+                if (token.endsWith("ULL") || token.endsWith("ull")) {
+                    token = token.substring(0, token.length() - 3);
+                }
+                if (count == TABLE_SIZE) {
+                    throw new IllegalArgumentException("Polyglot table has more than " + TABLE_SIZE + " values");
+                }
+                table[count++] = Long.parseUnsignedLong(token, 16);
+            }
+        }
+        if (count != TABLE_SIZE) {
+            throw new IllegalArgumentException("Polyglot table has " + count + " values, expected " + TABLE_SIZE);
+        }
+        return table;
+    }
+
+    /**
+     * Polyglot hash of a position
+     */
+    public long compute(SearchBoard board) {
+        long key = 0L;
+        for (int sq = 0; sq < 64; sq++) {
+            int piece = board.getPiece(sq);
+            if (piece != SearchBoard.EMPTY) {
+                // Polyglot orders kinds as black pawn, white pawn, black knight, ... white king
+                int kind = 2 * (SearchBoard.typeOf(piece) - 1) + (SearchBoard.colorOf(piece) == SearchBoard.WHITE ? 1 : 0);
+                key ^= randoms[64 * kind + sq];
+            }
+        }
+
+        int castling = board.getCastlingRights();
+        if ((castling & SearchBoard.CASTLE_WK) != 0) {
+            key ^= randoms[CASTLE_OFFSET];
+        }
+        if ((castling & SearchBoard.CASTLE_WQ) != 0) {
+            key ^= randoms[CASTLE_OFFSET + 1];
+        }
+        if ((castling & SearchBoard.CASTLE_BK) != 0) {
+            key ^= randoms[CASTLE_OFFSET + 2];
+        }
+        if ((castling & SearchBoard.CASTLE_BQ) != 0) {
+            key ^= randoms[CASTLE_OFFSET + 3];
+        }
+
+        // The en-passant file only counts when a pawn of the side to move could take
+        int ep = board.getEpSquare();
+        if (ep >= 0) {
+            int side = board.getSideToMove();
+            long capturers = SearchBoard.pawnAttacks(side ^ 1, ep) & board.getPieces(side, SearchBoard.PAWN);
+            if (capturers != 0L) {
+                key ^= randoms[EP_OFFSET + (ep & 7)];
+            }
+        }
+
+        if (board.getSideToMove() == SearchBoard.WHITE) {
+            key ^= randoms[TURN_OFFSET];
+        }
+        return key;
+    }
+}
@@ -0,0 +1,111 @@
+package com.chess.engine.endgame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Win/draw/loss table for one material signature, packed at two bits per position.
+ *
+ * A position is indexed by the side to move and the squares of its pieces in
+ * signature order ({@code stm * 64^n + sq0 * 64^(n-1) + ... + sq(n-1)}), and the
+ * stored value is the result for the side to move. Castling and en passant are
+ * not represented. Saved tables are a four-byte header followed by the packed
+ * values, and are memory-mapped when loaded.
+ */
+public class Bitbase {
+    public static final int DRAW = 0;
+    public static final int WIN = 1;
+    public static final int LOSS = 2;
+    /** Stored for unreachable positions (overlapping pieces, side not to move in check) */
+    public static final int INVALID = 3;
+    /** Returned by probes when no table covers the position */
+    public static final int UNKNOWN = -1;
+
+    public static final String FILE_EXTENSION = ".bb";
+    private static final int MAGIC = 0x42420001;
+    private static final int HEADER_SIZE = 4;
+
+    private final String signature;
+    private final ByteBuffer data;
+    private final long positions;
+
+    Bitbase(String signature, ByteBuffer data) {
+        this.signature = signature;
+        this.data = data;
+        this.positions = positionCount(signature.length());
+    }
+
+    /**
+     * Pack generator results (one byte per position) into a table
+     */
+    static Bitbase pack(String signature, byte[] values) {
+        ByteBuffer data = ByteBuffer.allocate((values.length + 3) / 4);
+        for (int i = 0; i < values.length; i++) {
+            int b = i >>> 2;
+            data.put(b, (byte) (data.get(b) | (values[i] & 3) << ((i & 3) * 2)));
+        }
+        return new Bitbase(signature, data);
+    }
+
+    /**
+     * Map a saved table into memory
+     */
+    public static Bitbase load(Path file, String signature) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long expected = HEADER_SIZE + (positionCount(signature.length()) + 3) / 4;
+            if (channel.size() != expected) {
+                throw new IOException("Bitbase " + file + " has size " + channel.size() + ", expected " + expected);
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("Not a bitbase file: " + file);
+            }
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, expected - HEADER_SIZE);
+            return new Bitbase(signature, data);
+        }
+    }
+
+    public void save(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(0, MAGIC);
+            channel.write(header);
+            ByteBuffer body = data.duplicate();
+            body.clear();
+            while (body.hasRemaining()) {
+                channel.write(body);
+            }
+        }
+    }
+
+    /**
+     * Stored value for an index (DRAW, WIN, LOSS or INVALID)
+     */
+    public int get(long index) {
+        return (data.get((int) (index >>> 2)) >>> ((int) (index & 3) * 2)) & 3;
+    }
+
+    public String getSignature() {
+        return signature;
+    }
+
+    public long getPositionCount() {
+        return positions;
+    }
+
+    static long positionCount(int pieces) {
+        return 2L << (6 * pieces);
+    }
+
+    static long index(int[] squares, int count, int sideToMove) {
+        long index = sideToMove;
+        for (int i = 0; i < count; i++) {
+            index = (index << 6) | squares[i];
+        }
+        return index;
+    }
+}
@@ -0,0 +1,464 @@
+package com.chess.engine.endgame;
+
+import com.chess.engine.SearchBoard;
+import com.chess.utils.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds win/draw/loss bitbases by retrograde analysis.
+ *
+ * A first sweep resolves mates, stalemates and positions decided by a capture or
+ * promotion (answered from smaller tables, which are generated first), and counts
+ * every other position's moves. Results then propagate backwards one ply per
+ * pass by un-moving pieces from the newly resolved positions: a predecessor of a
+ * lost position is won, and a position whose every move reaches a won position
+ * is lost. Whatever is never resolved is a draw.
+ *
+ * Run {@link #main(String[])} to write tables to the bitbase directory.
+ */
+public class BitbaseGenerator implements Material.TableSource {
+    private static final Logger logger = Logger.getLogger(BitbaseGenerator.class);
+
+    /** Tables written by {@link #main(String[])} when no signatures are given */
+    public static final String[] DEFAULT_SIGNATURES = {
+        "KPK", "KRK", "KQK", "KBNK", "KBBK", "KRKP", "KQKP", "KQKR", "KRKB", "KRKN", "KRKR", "KQKQ"
+    };
+
+    private static final byte UNRESOLVED = 4;
+    // Marks positions resolved in the current or next pass, which still have to be propagated
+    private static final byte[] FRESH = {8, 16};
+    private static final int RESULT_MASK = 3;
+    // Counter bit set when some move leaves the table without reaching a win for the opponent
+    private static final int ESCAPE = 0x80;
+    private static final int[] PROMOTIONS = {SearchBoard.QUEEN, SearchBoard.ROOK, SearchBoard.BISHOP, SearchBoard.KNIGHT};
+
+    private final Material.TableSource source;
+    private final Map<String, Bitbase> generated = new ConcurrentHashMap<>();
+
+    /**
+     * @param source tables that already exist (may be null); anything else needed is generated
+     */
+    public BitbaseGenerator(Material.TableSource source) {
+        this.source = source;
+    }
+
+    public BitbaseGenerator() {
+        this(null);
+    }
+
+    @Override
+    public Bitbase table(String signature) {
+        Bitbase table = source != null ? source.table(signature) : null;
+        if (table == null) {
+            table = generated.get(signature);
+        }
+        if (table == null) {
+            table = generate(signature);
+        }
+        return table;
+    }
+
+    /**
+     * Generate the table for a canonical signature such as "KRKP"
+     */
+    public synchronized Bitbase generate(String signature) {
+        if (!Material.isValidSignature(signature) || signature.length() > EndgameOracle.MAX_PIECES) {
+            throw new IllegalArgumentException("Unsupported bitbase signature: " + signature);
+        }
+        Bitbase existing = generated.get(signature);
+        if (existing != null) {
+            return existing;
+        }
+        // Tables reached by captures and promotions must be complete before this one is solved
+        for (String dependency : dependencies(signature)) {
+            table(dependency);
+        }
+        long start = System.currentTimeMillis();
+        Solver solver = new Solver(signature);
+        Bitbase table = Bitbase.pack(signature, solver.solve());
+        generated.put(signature, table);
+        logger.info("Generated " + signature + " bitbase in " + (System.currentTimeMillis() - start) + " ms ("
+                + solver.passes + " passes)");
+        return table;
+    }
+
+    /**
+     * Signatures reachable in one capture or promotion, excluding trivial draws
+     */
+    static Set<String> dependencies(String signature) {
+        int[] types = Material.indexTypes(signature);
+        int[] colors = Material.indexColors(signature);
+        int count = types.length;
+        Set<String> dependencies = new LinkedHashSet<>();
+        int[] nextTypes = new int[count];
+        int[] nextColors = new int[count];
+        for (int removed = 2; removed < count; removed++) {
+            int n = 0;
+            for (int i = 0; i < count; i++) {
+                if (i != removed) {
+                    nextTypes[n] = types[i];
+                    nextColors[n] = colors[i];
+                    n++;
+                }
+            }
+            addSignature(dependencies, nextColors, nextTypes, n);
+        }
+        for (int pawn = 2; pawn < count; pawn++) {
+            if (types[pawn] != SearchBoard.PAWN) {
+                continue;
+            }
+            for (int promotion : PROMOTIONS) {
+                int[] promoted = types.clone();
+                promoted[pawn] = promotion;
+                addSignature(dependencies, colors, promoted, count);
+            }
+        }
+        return dependencies;
+    }
+
+    private static void addSignature(Set<String> signatures, int[] colors, int[] types, int count) {
+        if (!Material.isTrivialDraw(colors, types, count)) {
+            String white = Material.sideSignature(colors, types, count, SearchBoard.WHITE);
+            String black = Material.sideSignature(colors, types, count, SearchBoard.BLACK);
+            signatures.add(Material.isStronger(white, black) ? white + black : black + white);
+        }
+    }
+
+    /**
+     * Every table this generator has built, including ones generated as dependencies
+     */
+    public synchronized Collection<Bitbase> getGeneratedTables() {
+        return new ArrayList<>(generated.values());
+    }
+
+    /**
+     * Generate bitbases and save them, e.g. {@code BitbaseGenerator bitbases KPK KRKP}
+     */
+    public static void main(String[] args) throws IOException {
+        Path directory = Paths.get(args.length > 0 ? args[0] : EndgameOracle.DEFAULT_DIRECTORY);
+        String[] signatures = DEFAULT_SIGNATURES;
+        if (args.length > 1) {
+            signatures = new String[args.length - 1];
+            System.arraycopy(args, 1, signatures, 0, signatures.length);
+        }
+        Files.createDirectories(directory);
+        BitbaseGenerator generator = new BitbaseGenerator();
+        for (String signature : signatures) {
+            Path file = directory.resolve(signature + Bitbase.FILE_EXTENSION);
+            generator.table(signature).save(file);
+            logger.info("Saved " + file);
+        }
+    }
+
+    /**
+     * Working state for one signature
+     */
+    private final class Solver {
+        private final String signature;
+        private final int count;
+        private final int[] types;
+        private final int[] colors;
+        private final int[] pieces;
+        // Result for the side to move, or UNRESOLVED, plus a FRESH mark
+        private final byte[] values;
+        // In-table moves not yet known to reach a win for the opponent, plus the ESCAPE bit
+        private final byte[] counters;
+        private int passes;
+
+        // Scratch arrays for positions that leave the signature
+        private final int[] nextColors;
+        private final int[] nextTypes;
+        private final int[] nextSquares;
+
+        Solver(String signature) {
+            this.signature = signature;
+            this.count = signature.length();
+            this.types = Material.indexTypes(signature);
+            this.colors = Material.indexColors(signature);
+            this.pieces = new int[count];
+            for (int i = 0; i < count; i++) {
+                pieces[i] = SearchBoard.makePiece(colors[i], types[i]);
+            }
+            int positions = (int) Bitbase.positionCount(count);
+            this.values = new byte[positions];
+            this.counters = new byte[positions];
+            this.nextColors = new int[count];
+            this.nextTypes = new int[count];
+            this.nextSquares = new int[count];
+        }
+
+        byte[] solve() {
+            int[] squares = new int[count];
+            for (int index = 0; index < values.length; index++) {
+                int stm = decode(index, squares);
+                values[index] = isValid(squares, stm) ? initialize(index, squares, stm) : Bitbase.INVALID;
+            }
+
+            boolean fresh = true;
+            while (fresh) {
+                fresh = false;
+                passes++;
+                byte current = FRESH[passes & 1];
+                byte next = FRESH[(passes + 1) & 1];
+                for (int index = 0; index < values.length; index++) {
+                    if ((values[index] & current) != 0) {
+                        values[index] &= ~current;
+                        fresh |= propagate(index, squares, next);
+                    }
+                }
+            }
+
+            for (int i = 0; i < values.length; i++) {
+                values[i] = values[i] == UNRESOLVED ? Bitbase.DRAW : (byte) (values[i] & RESULT_MASK);
+            }
+            return values;
+        }
+
+        private int decode(int index, int[] squares) {
+            for (int i = count - 1; i >= 0; i--) {
+                squares[i] = index & 63;
+                index >>>= 6;
+            }
+            return index;
+        }
+
+        private boolean isValid(int[] squares, int stm) {
+            long occupied = 0L;
+            for (int i = 0; i < count; i++) {
+                long bit = 1L << squares[i];
+                if ((occupied & bit) != 0) {
+                    return false;
+                }
+                occupied |= bit;
+                int rank = squares[i] >> 3;
+                if (types[i] == SearchBoard.PAWN && (rank == 0 || rank == 7)) {
+                    return false;
+                }
+            }
+            // The side that just moved cannot be left in check
+            return !isAttacked(squares, kingIndex(stm ^ 1), stm, occupied, -1);
+        }
+
+        private int kingIndex(int color) {
+            return colors[0] == color ? 0 : 1;
+        }
+
+        /**
+         * Whether the piece at index target is attacked by the given colour, ignoring a captured piece
+         */
+        private boolean isAttacked(int[] squares, int target, int byColor, long occupied, int captured) {
+            long bit = 1L << squares[target];
+            for (int i = 0; i < count; i++) {
+                if (i != captured && colors[i] == byColor
+                        && (SearchBoard.attacksOf(pieces[i], squares[i], occupied) & bit) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private long occupancy(int[] squares) {
+            long occupied = 0L;
+            for (int i = 0; i < count; i++) {
+                occupied |= 1L << squares[i];
+            }
+            return occupied;
+        }
+
+        /**
+         * Count the moves of a valid position and resolve it if its moves already decide it
+         */
+        private byte initialize(int index, int[] squares, int stm) {
+            long occupied = occupancy(squares);
+            long own = 0L;
+            for (int i = 0; i < count; i++) {
+                if (colors[i] == stm) {
+                    own |= 1L << squares[i];
+                }
+            }
+
+            int inTable = 0;
+            boolean escape = false;
+            boolean anyMove = false;
+            for (int i = 0; i < count; i++) {
+                if (colors[i] != stm) {
+                    continue;
+                }
+                long targets = targets(i, squares[i], occupied, own);
+                while (targets != 0) {
+                    int to = Long.numberOfTrailingZeros(targets);
+                    targets &= targets - 1;
+                    int captured = pieceAt(squares, to);
+                    boolean promotes = types[i] == SearchBoard.PAWN && (to >> 3 == 0 || to >> 3 == 7);
+                    for (int p = 0; p < (promotes ? PROMOTIONS.length : 1); p++) {
+                        int result = afterMove(squares, stm, i, to, captured, promotes ? PROMOTIONS[p] : 0);
+                        if (result == Bitbase.INVALID) {
+                            continue;
+                        }
+                        anyMove = true;
+                        if (result == Bitbase.LOSS) {
+                            return (byte) (Bitbase.WIN | FRESH[1]);
+                        }
+                        if (result == UNRESOLVED) {
+                            inTable++;
+                        } else if (result != Bitbase.WIN) {
+                            escape = true;
+                        }
+                    }
+                }
+            }
+
+            if (!anyMove) {
+                boolean inCheck = isAttacked(squares, kingIndex(stm), stm ^ 1, occupied, -1);
+                return inCheck ? (byte) (Bitbase.LOSS | FRESH[1]) : Bitbase.DRAW;
+            }
+            if (inTable == 0) {
+                return escape ? Bitbase.DRAW : (byte) (Bitbase.LOSS | FRESH[1]);
+            }
+            counters[index] = (byte) (inTable | (escape ? ESCAPE : 0));
+            return UNRESOLVED;
+        }
+
+        /**
+         * Pass a newly resolved result to the positions that lead to it; returns whether any was resolved
+         */
+        private boolean propagate(int index, int[] squares, byte fresh) {
+            int result = values[index] & RESULT_MASK;
+            if (result != Bitbase.WIN && result != Bitbase.LOSS) {
+                return false;
+            }
+            int stm = decode(index, squares);
+            int mover = stm ^ 1;
+            long occupied = occupancy(squares);
+            boolean resolved = false;
+            for (int i = 0; i < count; i++) {
+                if (colors[i] != mover) {
+                    continue;
+                }
+                int to = squares[i];
+                long origins = origins(i, to, occupied);
+                while (origins != 0) {
+                    squares[i] = Long.numberOfTrailingZeros(origins);
+                    origins &= origins - 1;
+                    int previous = (int) Bitbase.index(squares, count, mover);
+                    if (values[previous] != UNRESOLVED) {
+                        continue;
+                    }
+                    if (result == Bitbase.LOSS) {
+                        values[previous] = (byte) (Bitbase.WIN | fresh);
+                        resolved = true;
+                    } else {
+                        int counter = (counters[previous] & 0xFF) - 1;
+                        counters[previous] = (byte) counter;
+                        if (counter == 0) {
+                            values[previous] = (byte) (Bitbase.LOSS | fresh);
+                            resolved = true;
+                        }
+                    }
+                }
+                squares[i] = to;
+            }
+            return resolved;
+        }
+
+        /**
+         * Squares a piece could have come from with a non-capturing, non-promoting move
+         */
+        private long origins(int i, int square, long occupied) {
+            if (types[i] != SearchBoard.PAWN) {
+                return SearchBoard.attacksOf(pieces[i], square, occupied) & ~occupied;
+            }
+            int step = colors[i] == SearchBoard.WHITE ? 8 : -8;
+            int single = square - step;
+            int rank = single >> 3;
+            if (rank < 1 || rank > 6 || (occupied & (1L << single)) != 0) {
+                return 0L;
+            }
+            long origins = 1L << single;
+            int doubleRank = colors[i] == SearchBoard.WHITE ? 3 : 4;
+            int dbl = single - step;
+            if (square >> 3 == doubleRank && (occupied & (1L << dbl)) == 0) {
+                origins |= 1L << dbl;
+            }
+            return origins;
+        }
+
+        private long targets(int i, int from, long occupied, long own) {
+            if (types[i] != SearchBoard.PAWN) {
+                return SearchBoard.attacksOf(pieces[i], from, occupied) & ~own;
+            }
+            long enemies = occupied & ~own;
+            long targets = SearchBoard.pawnAttacks(colors[i], from) & enemies;
+            int step = colors[i] == SearchBoard.WHITE ? 8 : -8;
+            int single = from + step;
+            if ((occupied & (1L << single)) == 0) {
+                targets |= 1L << single;
+                int startRank = colors[i] == SearchBoard.WHITE ? 1 : 6;
+                int dbl = single + step;
+                if (from >> 3 == startRank && (occupied & (1L << dbl)) == 0) {
+                    targets |= 1L << dbl;
+                }
+            }
+            return targets;
+        }
+
+        private int pieceAt(int[] squares, int square) {
+            for (int i = 0; i < count; i++) {
+                if (squares[i] == square) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Result for the opponent after a move: INVALID if the move is illegal, UNRESOLVED if it stays in this table
+         */
+        private int afterMove(int[] squares, int stm, int mover, int to, int captured, int promotion) {
+            int from = squares[mover];
+            squares[mover] = to;
+            long occupied = 0L;
+            for (int i = 0; i < count; i++) {
+                if (i != captured) {
+                    occupied |= 1L << squares[i];
+                }
+            }
+            try {
+                if (isAttacked(squares, kingIndex(stm), stm ^ 1, occupied, captured)) {
+                    return Bitbase.INVALID;
+                }
+                if (captured < 0 && promotion == 0) {
+                    return UNRESOLVED;
+                }
+                // Leaves this signature: look the result up in the smaller or converted table
+                int n = 0;
+                for (int i = 0; i < count; i++) {
+                    if (i != captured) {
+                        nextColors[n] = colors[i];
+                        nextTypes[n] = i == mover && promotion != 0 ? promotion : types[i];
+                        nextSquares[n] = squares[i];
+                        n++;
+                    }
+                }
+                int result = Material.probe(BitbaseGenerator.this, nextColors, nextTypes, nextSquares, n, stm ^ 1);
+                if (result == Bitbase.UNKNOWN) {
+                    throw new IllegalStateException("No table for a successor of " + signature);
+                }
+                return result;
+            } finally {
+                squares[mover] = from;
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.chess.engine.endgame;
+
+import com.chess.engine.SearchBoard;
+import com.chess.model.Board;
+import com.chess.utils.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Perfect win/draw/loss answers for positions with few pieces.
+ *
+ * Bitbase files are memory-mapped from the bitbase directory the first time a
+ * signature is probed. Missing three-piece tables are generated in the
+ * background (a second or two each) and saved for next time; larger
+ * tables must be produced beforehand with {@link BitbaseGenerator#main(String[])}.
+ * Until a table is available, probes answer {@link Result#UNKNOWN}.
+ */
+public class EndgameOracle implements Material.TableSource {
+    private static final Logger logger = Logger.getLogger(EndgameOracle.class);
+
+    public static final int MAX_PIECES = 4;
+    public static final String DEFAULT_DIRECTORY = "bitbases";
+    private static final int MAX_GENERATED_PIECES = 3;
+
+    private static EndgameOracle instance;
+
+    /**
+     * Result for the side to move
+     */
+    public enum Result {
+        WIN, DRAW, LOSS, UNKNOWN
+    }
+
+    private final Path directory;
+    private final boolean generateMissing;
+    private final Map<String, Bitbase> tables = new ConcurrentHashMap<>();
+    private final Set<String> unavailable = ConcurrentHashMap.newKeySet();
+    /** Piece lists for probes, one set per thread, so probing from the search allocates nothing */
+    private final ThreadLocal<int[][]> scratch = ThreadLocal.withInitial(() -> new int[3][MAX_PIECES]);
+    private ExecutorService generatorThread;
+
+    public EndgameOracle(Path directory, boolean generateMissing) {
+        this.directory = directory;
+        this.generateMissing = generateMissing;
+    }
+
+    public static synchronized EndgameOracle getInstance() {
+        if (instance == null) {
+            instance = new EndgameOracle(Paths.get(DEFAULT_DIRECTORY), true);
+        }
+        return instance;
+    }
+
+    public Result probe(Board board) {
+        return probe(SearchBoard.fromBoard(board));
+    }
+
+    /**
+     * Probe a search position; castling rights or an en-passant square make it unknown
+     */
+    public Result probe(SearchBoard board) {
+        long occupied = board.getOccupied();
+        int count = Long.bitCount(occupied);
+        if (count > MAX_PIECES || board.getCastlingRights() != 0 || board.getEpSquare() >= 0) {
+            return Result.UNKNOWN;
+        }
+        int[][] pieces = scratch.get();
+        int[] colors = pieces[0];
+        int[] types = pieces[1];
+        int[] squares = pieces[2];
+        int n = 0;
+        while (occupied != 0) {
+            int sq = Long.numberOfTrailingZeros(occupied);
+            occupied &= occupied - 1;
+            int piece = board.getPiece(sq);
+            colors[n] = SearchBoard.colorOf(piece);
+            types[n] = SearchBoard.typeOf(piece);
+            squares[n] = sq;
+            n++;
+        }
+        switch (Material.probe(this, colors, types, squares, count, board.getSideToMove())) {
+            case Bitbase.WIN: return Result.WIN;
+            case Bitbase.LOSS: return Result.LOSS;
+            case Bitbase.DRAW: return Result.DRAW;
+            default: return Result.UNKNOWN;
+        }
+    }
+
+    /**
+     * Whether a table for the signature is loaded or can be loaded now
+     */
+    public boolean isAvailable(String signature) {
+        return table(signature) != null;
+    }
+
+    @Override
+    public Bitbase table(String signature) {
+        Bitbase table = tables.get(signature);
+        if (table != null || unavailable.contains(signature)) {
+            return table;
+        }
+        return loadOrSchedule(signature);
+    }
+
+    private synchronized Bitbase loadOrSchedule(String signature) {
+        Bitbase table = tables.get(signature);
+        if (table != null || unavailable.contains(signature)) {
+            return table;
+        }
+        Path file = directory.resolve(signature + Bitbase.FILE_EXTENSION);
+        if (Files.isRegularFile(file)) {
+            try {
+                table = Bitbase.load(file, signature);
+                tables.put(signature, table);
+                logger.info("Loaded bitbase " + file);
+                return table;
+            } catch (IOException e) {
+                logger.error("Failed to load bitbase " + file + ": " + e.getMessage());
+            }
+        }
+        unavailable.add(signature);
+        if (generateMissing && signature.length() <= MAX_GENERATED_PIECES) {
+            scheduleGeneration(signature);
+        } else {
+            logger.info("No bitbase for " + signature + "; run BitbaseGenerator to create it");
+        }
+        return null;
+    }
+
+    private void scheduleGeneration(String signature) {
+        if (generatorThread == null) {
+            generatorThread = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "bitbase-generator");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+        }
+        generatorThread.submit(() -> {
+            try {
+                BitbaseGenerator generator = new BitbaseGenerator(this::loadedTable);
+                generator.table(signature);
+                for (Bitbase table : generator.getGeneratedTables()) {
+                    addTable(table);
+                    save(table);
+                }
+            } catch (RuntimeException e) {
+                logger.error("Failed to generate bitbase " + signature + ": " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Tables already in memory, so generation reuses them instead of regenerating
+     */
+    private Bitbase loadedTable(String signature) {
+        return tables.get(signature);
+    }
+
+    private void save(Bitbase table) {
+        try {
+            Files.createDirectories(directory);
+            table.save(directory.resolve(table.getSignature() + Bitbase.FILE_EXTENSION));
+        } catch (IOException e) {
+            logger.warn("Could not save bitbase " + table.getSignature() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Make a table available directly, e.g. one just generated
+     */
+    public void addTable(Bitbase table) {
+        tables.put(table.getSignature(), table);
+        unavailable.remove(table.getSignature());
+    }
+}
@@ -0,0 +1,291 @@
+package com.chess.engine.endgame;
+
+import com.chess.engine.SearchBoard;
+
+/**
+ * Maps a small set of pieces onto its bitbase.
+ *
+ * Bitbases are stored for one orientation only: the stronger side plays White, and
+ * its pieces come first in the signature (for example "KRKP" is king and rook
+ * against king and pawn). A position with the stronger side on Black is mirrored
+ * vertically and its colours swapped before it is indexed.
+ */
+final class Material {
+    /** Order of non-king pieces within a signature, strongest first */
+    static final String PIECE_ORDER = "QRBNP";
+    private static final int[] ORDER_TYPES = {
+        SearchBoard.QUEEN, SearchBoard.ROOK, SearchBoard.BISHOP, SearchBoard.KNIGHT, SearchBoard.PAWN
+    };
+    private static final int[] VALUE = {0, 1, 3, 3, 5, 9, 0};
+    private static final int PIECE_CODES = 2 * ORDER_TYPES.length + 1;
+
+    /**
+     * Canonical signature of every set of at most two pieces besides the kings, by
+     * {@link #materialCode}, and whether its stronger side is Black; worked out once so a
+     * probe never builds strings
+     */
+    private static final String[] SIGNATURES = new String[PIECE_CODES * PIECE_CODES];
+    private static final boolean[] FLIPPED = new boolean[PIECE_CODES * PIECE_CODES];
+
+    static {
+        int[] colors = new int[4];
+        int[] types = new int[4];
+        types[0] = SearchBoard.KING;
+        types[1] = SearchBoard.KING;
+        colors[1] = SearchBoard.BLACK;
+        for (int low = 0; low < PIECE_CODES; low++) {
+            for (int high = low == 0 ? 0 : low; high < PIECE_CODES; high++) {
+                int count = 2;
+                for (int piece : new int[]{low, high}) {
+                    if (piece != 0) {
+                        colors[count] = (piece - 1) / ORDER_TYPES.length;
+                        types[count] = ORDER_TYPES[(piece - 1) % ORDER_TYPES.length];
+                        count++;
+                    }
+                }
+                String white = sideSignature(colors, types, count, SearchBoard.WHITE);
+                String black = sideSignature(colors, types, count, SearchBoard.BLACK);
+                boolean flip = !isStronger(white, black);
+                SIGNATURES[low * PIECE_CODES + high] = flip ? black + white : white + black;
+                FLIPPED[low * PIECE_CODES + high] = flip;
+            }
+        }
+    }
+
+    /** Source of tables during a probe */
+    interface TableSource {
+        /** The bitbase for a signature, or null if it is not available */
+        Bitbase table(String signature);
+    }
+
+    private Material() {
+    }
+
+    /**
+     * Result for the side to move of the given pieces, or {@link Bitbase#UNKNOWN}.
+     * Allocates nothing for up to two pieces besides the kings, so the search can probe freely.
+     */
+    static int probe(TableSource source, int[] colors, int[] types, int[] squares, int count, int sideToMove) {
+        if (isTrivialDraw(colors, types, count)) {
+            return Bitbase.DRAW;
+        }
+
+        String signature;
+        boolean flip;
+        int material = materialCode(colors, types, count);
+        if (material >= 0) {
+            signature = SIGNATURES[material];
+            flip = FLIPPED[material];
+        } else {
+            String white = sideSignature(colors, types, count, SearchBoard.WHITE);
+            String black = sideSignature(colors, types, count, SearchBoard.BLACK);
+            flip = !isStronger(white, black);
+            signature = flip ? black + white : white + black;
+        }
+        Bitbase table = source.table(signature);
+        if (table == null) {
+            return Bitbase.UNKNOWN;
+        }
+
+        int strong = flip ? SearchBoard.BLACK : SearchBoard.WHITE;
+        long index = flip ? sideToMove ^ 1 : sideToMove;
+        index = appendSquares(index, colors, types, squares, count, strong, SearchBoard.KING, flip);
+        index = appendSquares(index, colors, types, squares, count, strong ^ 1, SearchBoard.KING, flip);
+        for (int side = 0; side < 2; side++) {
+            int color = side == 0 ? strong : strong ^ 1;
+            for (int type : ORDER_TYPES) {
+                index = appendSquares(index, colors, types, squares, count, color, type, flip);
+            }
+        }
+        int result = table.get(index);
+        return result == Bitbase.INVALID ? Bitbase.UNKNOWN : result;
+    }
+
+    /**
+     * Squares of one kind of piece appended to the index, ascending, so identical pieces always
+     * index the same way (see {@link Bitbase#index})
+     */
+    private static long appendSquares(long index, int[] colors, int[] types, int[] squares, int count,
+                                      int color, int type, boolean flip) {
+        int last = -1;
+        while (true) {
+            int next = 64;
+            for (int i = 0; i < count; i++) {
+                if (colors[i] == color && types[i] == type) {
+                    int sq = flip ? squares[i] ^ 56 : squares[i];
+                    if (sq > last && sq < next) {
+                        next = sq;
+                    }
+                }
+            }
+            if (next == 64) {
+                return index;
+            }
+            index = (index << 6) | next;
+            last = next;
+        }
+    }
+
+    /**
+     * Index into {@link #SIGNATURES} for the pieces besides the kings, or -1 if there are more than two
+     */
+    static int materialCode(int[] colors, int[] types, int count) {
+        int low = 0;
+        int high = 0;
+        for (int i = 0; i < count; i++) {
+            if (types[i] == SearchBoard.KING) {
+                continue;
+            }
+            int piece = pieceCode(colors[i], types[i]);
+            if (high == 0) {
+                high = piece;
+            } else if (low == 0) {
+                low = Math.min(high, piece);
+                high = Math.max(high, piece);
+            } else {
+                return -1;
+            }
+        }
+        return low * PIECE_CODES + high;
+    }
+
+    /**
+     * 1 to 10 for a non-king piece, so 0 can stand for no piece
+     */
+    private static int pieceCode(int color, int type) {
+        int k = 0;
+        while (ORDER_TYPES[k] != type) {
+            k++;
+        }
+        return 1 + color * ORDER_TYPES.length + k;
+    }
+
+    /**
+     * Lone kings, or a single minor piece against a bare king: mate is impossible
+     */
+    static boolean isTrivialDraw(int[] colors, int[] types, int count) {
+        if (count == 2) {
+            return true;
+        }
+        if (count == 3) {
+            for (int i = 0; i < count; i++) {
+                if (types[i] == SearchBoard.KNIGHT || types[i] == SearchBoard.BISHOP) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Signature of one side, such as "KRP"
+     */
+    static String sideSignature(int[] colors, int[] types, int count, int color) {
+        StringBuilder signature = new StringBuilder("K");
+        for (int k = 0; k < ORDER_TYPES.length; k++) {
+            for (int i = 0; i < count; i++) {
+                if (colors[i] == color && types[i] == ORDER_TYPES[k]) {
+                    signature.append(PIECE_ORDER.charAt(k));
+                }
+            }
+        }
+        return signature.toString();
+    }
+
+    /**
+     * Whether the first side counts as the stronger one; ties keep the given order
+     */
+    static boolean isStronger(String first, String second) {
+        int difference = value(first) - value(second);
+        if (difference != 0) {
+            return difference > 0;
+        }
+        if (first.length() != second.length()) {
+            return first.length() > second.length();
+        }
+        for (int i = 1; i < first.length(); i++) {
+            int a = PIECE_ORDER.indexOf(first.charAt(i));
+            int b = PIECE_ORDER.indexOf(second.charAt(i));
+            if (a != b) {
+                return a < b;
+            }
+        }
+        return true;
+    }
+
+    private static int value(String side) {
+        int total = 0;
+        for (int i = 1; i < side.length(); i++) {
+            total += VALUE[typeOf(side.charAt(i))];
+        }
+        return total;
+    }
+
+    static int typeOf(char letter) {
+        int k = PIECE_ORDER.indexOf(letter);
+        return k >= 0 ? ORDER_TYPES[k] : SearchBoard.KING;
+    }
+
+    /**
+     * Piece types of a signature in index order: both kings, then the strong side's pieces, then the weak side's
+     */
+    static int[] indexTypes(String signature) {
+        int split = signature.indexOf('K', 1);
+        int[] types = new int[signature.length()];
+        types[0] = SearchBoard.KING;
+        types[1] = SearchBoard.KING;
+        int slot = 2;
+        for (int i = 1; i < signature.length(); i++) {
+            if (i != split) {
+                types[slot++] = typeOf(signature.charAt(i));
+            }
+        }
+        return types;
+    }
+
+    /**
+     * Piece colours of a signature in index order (the strong side is White)
+     */
+    static int[] indexColors(String signature) {
+        int split = signature.indexOf('K', 1);
+        int[] colors = new int[signature.length()];
+        colors[1] = SearchBoard.BLACK;
+        int slot = 2;
+        for (int i = 1; i < signature.length(); i++) {
+            if (i != split) {
+                colors[slot++] = i < split ? SearchBoard.WHITE : SearchBoard.BLACK;
+            }
+        }
+        return colors;
+    }
+
+    /**
+     * Whether a signature is well formed and canonical, e.g. "KRKP" but not "KPKR"
+     */
+    static boolean isValidSignature(String signature) {
+        if (signature == null || !signature.startsWith("K") || signature.length() < 3) {
+            return false;
+        }
+        int split = signature.indexOf('K', 1);
+        if (split < 0 || signature.indexOf('K', split + 1) >= 0) {
+            return false;
+        }
+        for (int i = 1; i < signature.length(); i++) {
+            if (i != split && PIECE_ORDER.indexOf(signature.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        String strong = signature.substring(0, split);
+        String weak = signature.substring(split);
+        return isSorted(strong) && isSorted(weak) && isStronger(strong, weak);
+    }
+
+    private static boolean isSorted(String side) {
+        for (int i = 2; i < side.length(); i++) {
+            if (PIECE_ORDER.indexOf(side.charAt(i - 1)) > PIECE_ORDER.indexOf(side.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
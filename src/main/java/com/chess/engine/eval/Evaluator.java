@@ -0,0 +1,49 @@
+package com.chess.engine.eval;
+
+import com.chess.engine.SearchBoard;
+import com.chess.model.Board;
+
+/**
+ * Static evaluation used by the native search, the teacher and the GUI.
+ *
+ * Evaluators keep incremental state for the {@link SearchBoard} they are attached
+ * to: the board calls {@link #push()} before a move is applied, reports every piece
+ * that appears or disappears, and calls {@link #pop()} when the move is taken back.
+ * An instance therefore belongs to one board (and one thread) at a time.
+ */
+public interface Evaluator {
+
+    /**
+     * Rebuild all incremental state from scratch for the given position
+     */
+    void refresh(SearchBoard board);
+
+    /**
+     * Save the current state before a move is made
+     */
+    void push();
+
+    /**
+     * Restore the state saved by the matching {@link #push()}
+     */
+    void pop();
+
+    void pieceAdded(int piece, int square);
+
+    void pieceRemoved(int piece, int square);
+
+    /**
+     * Score in centipawns from the point of view of the side to move
+     */
+    int evaluate(SearchBoard board);
+
+    /**
+     * Score in centipawns from White's point of view for a GUI/model board
+     */
+    default int evaluate(Board board) {
+        SearchBoard position = SearchBoard.fromBoard(board);
+        position.setEvaluator(this);
+        int score = evaluate(position);
+        return position.getSideToMove() == SearchBoard.WHITE ? score : -score;
+    }
+}
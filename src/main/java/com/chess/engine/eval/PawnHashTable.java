@@ -0,0 +1,126 @@
+package com.chess.engine.eval;
+
+import com.chess.engine.SearchBoard;
+
+import static com.chess.engine.SearchBoard.BLACK;
+import static com.chess.engine.SearchBoard.WHITE;
+
+/**
+ * Small fixed-size cache of pawn-structure evaluation keyed by the pawn-only Zobrist key.
+ *
+ * Pawn structure changes on few moves, so most probes hit. Each slot stores the
+ * combined pawn score (White minus Black), the passed-pawn masks of both sides, and
+ * the king shelter of each side together with the king square it was computed for.
+ * Slots are addressed by index so a probe never allocates.
+ */
+public class PawnHashTable {
+    public static final int DEFAULT_ENTRIES = 1 << 14;
+
+    private final long[] keys;
+    private final int[] mgScores;
+    private final int[] egScores;
+    private final long[][] passedPawns = new long[2][];
+    private final int[][] shelterKingSquare = new int[2][];
+    private final int[][] shelterScores = new int[2][];
+    private final int mask;
+
+    private final int[] scratchScore = new int[2];
+    private final long[] scratchPassed = new long[2];
+
+    private long probes;
+    private long hits;
+
+    public PawnHashTable() {
+        this(DEFAULT_ENTRIES);
+    }
+
+    public PawnHashTable(int entries) {
+        int size = Integer.highestOneBit(Math.max(1, entries));
+        this.keys = new long[size];
+        this.mgScores = new int[size];
+        this.egScores = new int[size];
+        for (int color = WHITE; color <= BLACK; color++) {
+            passedPawns[color] = new long[size];
+            shelterKingSquare[color] = new int[size];
+            shelterScores[color] = new int[size];
+            java.util.Arrays.fill(shelterKingSquare[color], -1);
+        }
+        this.mask = size - 1;
+        // Key 0 is a real pawn key (no pawns on the board), so empty slots are marked with -1
+        java.util.Arrays.fill(keys, -1L);
+    }
+
+    /**
+     * Return the slot holding the pawn evaluation for this board, computing it on a miss
+     */
+    public int probe(SearchBoard board) {
+        long pawnKey = board.getPawnKey();
+        int index = (int) pawnKey & mask;
+        probes++;
+        if (keys[index] == pawnKey) {
+            hits++;
+            return index;
+        }
+        PawnStructure.evaluate(board, WHITE, scratchScore, scratchPassed);
+        int mg = scratchScore[0];
+        int eg = scratchScore[1];
+        PawnStructure.evaluate(board, BLACK, scratchScore, scratchPassed);
+        keys[index] = pawnKey;
+        mgScores[index] = mg - scratchScore[0];
+        egScores[index] = eg - scratchScore[1];
+        passedPawns[WHITE][index] = scratchPassed[WHITE];
+        passedPawns[BLACK][index] = scratchPassed[BLACK];
+        shelterKingSquare[WHITE][index] = -1;
+        shelterKingSquare[BLACK][index] = -1;
+        return index;
+    }
+
+    public int getMiddlegameScore(int index) {
+        return mgScores[index];
+    }
+
+    public int getEndgameScore(int index) {
+        return egScores[index];
+    }
+
+    public long getPassedPawns(int index, int color) {
+        return passedPawns[color][index];
+    }
+
+    /**
+     * King shelter for one side, cached per slot until that king moves
+     */
+    public int getKingShelter(int index, SearchBoard board, int color) {
+        int kingSquare = board.getKingSquare(color);
+        if (shelterKingSquare[color][index] != kingSquare) {
+            shelterKingSquare[color][index] = kingSquare;
+            shelterScores[color][index] = kingSquare >= 0 ? PawnStructure.kingShelter(board, color, kingSquare) : 0;
+        }
+        return shelterScores[color][index];
+    }
+
+    public long getProbes() {
+        return probes;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Fraction of probes answered from the table, 0.0 when nothing was probed yet
+     */
+    public double getHitRate() {
+        return probes == 0 ? 0.0 : (double) hits / probes;
+    }
+
+    public void resetStatistics() {
+        probes = 0;
+        hits = 0;
+    }
+
+    public void clear() {
+        java.util.Arrays.fill(keys, -1L);
+        resetStatistics();
+    }
+}
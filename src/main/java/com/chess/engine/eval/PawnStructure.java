@@ -0,0 +1,124 @@
+package com.chess.engine.eval;
+
+import com.chess.engine.SearchBoard;
+
+import static com.chess.engine.SearchBoard.BLACK;
+import static com.chess.engine.SearchBoard.PAWN;
+import static com.chess.engine.SearchBoard.WHITE;
+
+/**
+ * Pawn-structure terms: passed, doubled, isolated and backward pawns, plus king shelter.
+ *
+ * Everything here depends only on pawn placement (and the king square for shelter),
+ * which is why the results are cached in a {@link PawnHashTable}.
+ */
+public final class PawnStructure {
+    static final int DOUBLED_MG = -10;
+    static final int DOUBLED_EG = -20;
+    static final int ISOLATED_MG = -10;
+    static final int ISOLATED_EG = -15;
+    static final int BACKWARD_MG = -8;
+    static final int BACKWARD_EG = -10;
+    static final int[] PASSED_MG = {0, 5, 10, 15, 25, 40, 60, 0};
+    static final int[] PASSED_EG = {0, 10, 15, 25, 45, 75, 110, 0};
+    static final int FREE_PASSER_EG = 15;
+
+    // Shelter penalty by distance of the closest own pawn in front of the king, per file
+    private static final int[] SHELTER_PENALTY = {-25, 0, -10, -20, -25, -25, -25, -25};
+
+    static final long[] FILE_MASK = new long[8];
+    static final long[] ADJACENT_FILES = new long[8];
+    /** Squares in front of a pawn on its own and adjacent files */
+    static final long[][] PASSED_MASK = new long[2][64];
+    /** Squares on the same file in front of a pawn */
+    static final long[][] FORWARD_FILE = new long[2][64];
+    /** Squares on adjacent files level with or behind a pawn */
+    static final long[][] SUPPORT_MASK = new long[2][64];
+
+    static {
+        for (int file = 0; file < 8; file++) {
+            FILE_MASK[file] = 0x0101010101010101L << file;
+        }
+        for (int file = 0; file < 8; file++) {
+            ADJACENT_FILES[file] = (file > 0 ? FILE_MASK[file - 1] : 0L) | (file < 7 ? FILE_MASK[file + 1] : 0L);
+        }
+        for (int sq = 0; sq < 64; sq++) {
+            int file = sq & 7;
+            int rank = sq >> 3;
+            long aheadWhite = rank < 7 ? -1L << ((rank + 1) * 8) : 0L;
+            long aheadBlack = rank > 0 ? -1L >>> ((8 - rank) * 8) : 0L;
+            FORWARD_FILE[WHITE][sq] = aheadWhite & FILE_MASK[file];
+            FORWARD_FILE[BLACK][sq] = aheadBlack & FILE_MASK[file];
+            PASSED_MASK[WHITE][sq] = aheadWhite & (FILE_MASK[file] | ADJACENT_FILES[file]);
+            PASSED_MASK[BLACK][sq] = aheadBlack & (FILE_MASK[file] | ADJACENT_FILES[file]);
+            SUPPORT_MASK[WHITE][sq] = ~aheadWhite & ADJACENT_FILES[file];
+            SUPPORT_MASK[BLACK][sq] = ~aheadBlack & ADJACENT_FILES[file];
+        }
+    }
+
+    private PawnStructure() {
+    }
+
+    /**
+     * Evaluate one side's pawn structure; returns {mg, eg} and fills passed[color]
+     */
+    static void evaluate(SearchBoard board, int color, int[] score, long[] passed) {
+        long own = board.getPieces(color, PAWN);
+        long enemy = board.getPieces(color ^ 1, PAWN);
+        int mg = 0;
+        int eg = 0;
+        long passers = 0L;
+
+        long pawns = own;
+        while (pawns != 0) {
+            int sq = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+            int file = sq & 7;
+            int relativeRank = color == WHITE ? sq >> 3 : 7 - (sq >> 3);
+
+            if ((FORWARD_FILE[color][sq] & own) != 0) {
+                mg += DOUBLED_MG;
+                eg += DOUBLED_EG;
+            }
+            if ((ADJACENT_FILES[file] & own) == 0) {
+                mg += ISOLATED_MG;
+                eg += ISOLATED_EG;
+            } else if ((SUPPORT_MASK[color][sq] & own) == 0) {
+                int stop = color == WHITE ? sq + 8 : sq - 8;
+                if ((SearchBoard.pawnAttacks(color, stop) & enemy) != 0) {
+                    mg += BACKWARD_MG;
+                    eg += BACKWARD_EG;
+                }
+            }
+            // Only the front pawn of a doubled pair counts as passed
+            if ((PASSED_MASK[color][sq] & enemy) == 0 && (FORWARD_FILE[color][sq] & own) == 0) {
+                passers |= 1L << sq;
+                mg += PASSED_MG[relativeRank];
+                eg += PASSED_EG[relativeRank];
+            }
+        }
+        score[0] = mg;
+        score[1] = eg;
+        passed[color] = passers;
+    }
+
+    /**
+     * Middlegame shelter score for a king, from pawns on its own and adjacent files
+     */
+    static int kingShelter(SearchBoard board, int color, int kingSquare) {
+        long own = board.getPieces(color, PAWN);
+        int kingFile = kingSquare & 7;
+        int kingRank = kingSquare >> 3;
+        int score = 0;
+        for (int file = Math.max(0, kingFile - 1); file <= Math.min(7, kingFile + 1); file++) {
+            long inFront = own & FILE_MASK[file] & FORWARD_FILE[color][kingRank * 8 + file];
+            if (inFront == 0) {
+                score += SHELTER_PENALTY[0];
+                continue;
+            }
+            int closest = color == WHITE ? Long.numberOfTrailingZeros(inFront) : 63 - Long.numberOfLeadingZeros(inFront);
+            score += SHELTER_PENALTY[Math.abs((closest >> 3) - kingRank)];
+        }
+        return score;
+    }
+}
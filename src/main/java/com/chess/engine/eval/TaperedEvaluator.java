@@ -0,0 +1,129 @@
+package com.chess.engine.eval;
+
+import com.chess.engine.SearchBoard;
+
+import static com.chess.engine.eval.PieceSquareTables.EG;
+import static com.chess.engine.eval.PieceSquareTables.MAX_PHASE;
+import static com.chess.engine.eval.PieceSquareTables.MG;
+import static com.chess.engine.eval.PieceSquareTables.PHASE_WEIGHT;
+
+/**
+ * Handcrafted evaluation: material plus middlegame/endgame piece-square tables,
+ * blended by game phase, plus pawn-structure and king-shelter terms.
+ *
+ * The middlegame score, endgame score and phase are kept up to date as pieces are
+ * added and removed, and pawn terms come from a {@link PawnHashTable}, so
+ * {@link #evaluate(SearchBoard)} is a table probe and a handful of arithmetic
+ * operations instead of a scan of the board.
+ */
+public class TaperedEvaluator implements Evaluator {
+    private static final int TEMPO_BONUS = 10;
+
+    private int mgScore;
+    private int egScore;
+    private int phase;
+
+    private final int[] mgStack = new int[SearchBoard.MAX_HISTORY];
+    private final int[] egStack = new int[SearchBoard.MAX_HISTORY];
+    private final int[] phaseStack = new int[SearchBoard.MAX_HISTORY];
+    private int depth;
+
+    private final PawnHashTable pawnTable;
+
+    public TaperedEvaluator() {
+        this(new PawnHashTable());
+    }
+
+    public TaperedEvaluator(PawnHashTable pawnTable) {
+        this.pawnTable = pawnTable;
+    }
+
+    @Override
+    public void refresh(SearchBoard board) {
+        mgScore = 0;
+        egScore = 0;
+        phase = 0;
+        depth = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            int piece = board.getPiece(sq);
+            if (piece != SearchBoard.EMPTY) {
+                pieceAdded(piece, sq);
+            }
+        }
+    }
+
+    @Override
+    public void push() {
+        mgStack[depth] = mgScore;
+        egStack[depth] = egScore;
+        phaseStack[depth] = phase;
+        depth++;
+    }
+
+    @Override
+    public void pop() {
+        depth--;
+        mgScore = mgStack[depth];
+        egScore = egStack[depth];
+        phase = phaseStack[depth];
+    }
+
+    @Override
+    public void pieceAdded(int piece, int square) {
+        mgScore += MG[piece][square];
+        egScore += EG[piece][square];
+        phase += PHASE_WEIGHT[SearchBoard.typeOf(piece)];
+    }
+
+    @Override
+    public void pieceRemoved(int piece, int square) {
+        mgScore -= MG[piece][square];
+        egScore -= EG[piece][square];
+        phase -= PHASE_WEIGHT[SearchBoard.typeOf(piece)];
+    }
+
+    @Override
+    public int evaluate(SearchBoard board) {
+        int slot = pawnTable.probe(board);
+        int mg = mgScore + pawnTable.getMiddlegameScore(slot)
+                + pawnTable.getKingShelter(slot, board, SearchBoard.WHITE)
+                - pawnTable.getKingShelter(slot, board, SearchBoard.BLACK);
+        int eg = egScore + pawnTable.getEndgameScore(slot)
+                + freePassers(board, pawnTable.getPassedPawns(slot, SearchBoard.WHITE), SearchBoard.WHITE)
+                - freePassers(board, pawnTable.getPassedPawns(slot, SearchBoard.BLACK), SearchBoard.BLACK);
+        int score = taper(mg, eg);
+        return (board.getSideToMove() == SearchBoard.WHITE ? score : -score) + TEMPO_BONUS;
+    }
+
+    /**
+     * Bonus for cached passed pawns whose stop square is currently empty
+     */
+    private static int freePassers(SearchBoard board, long passed, int color) {
+        long stops = color == SearchBoard.WHITE ? passed << 8 : passed >>> 8;
+        return Long.bitCount(stops & ~board.getOccupied()) * PawnStructure.FREE_PASSER_EG;
+    }
+
+    public PawnHashTable getPawnTable() {
+        return pawnTable;
+    }
+
+    /**
+     * Blend a middlegame and endgame score by the current phase (promotions can push it past 24)
+     */
+    protected int taper(int mg, int eg) {
+        int mgPhase = Math.min(phase, MAX_PHASE);
+        return (mg * mgPhase + eg * (MAX_PHASE - mgPhase)) / MAX_PHASE;
+    }
+
+    public int getPhase() {
+        return Math.min(phase, MAX_PHASE);
+    }
+
+    public int getMiddlegameScore() {
+        return mgScore;
+    }
+
+    public int getEndgameScore() {
+        return egScore;
+    }
+}
@@ -0,0 +1,181 @@
+package com.chess.engine.eval.nnue;
+
+import com.chess.engine.SearchBoard;
+import com.chess.engine.eval.Evaluator;
+import com.chess.utils.Logger;
+
+/**
+ * Neural-network evaluation with incrementally updated accumulators.
+ *
+ * Each side's int16 hidden layer (its accumulator) is kept up to date as pieces
+ * appear and disappear: a quiet move costs two weight rows per side instead of a
+ * full pass over the input layer. A king move changes every input of that side,
+ * so its accumulator is only marked stale and rebuilt when the position is next
+ * evaluated. Accumulators are copied on {@link #push()}, so {@link #pop()} is free.
+ */
+public class NnueEvaluator implements Evaluator {
+    private static final Logger logger = Logger.getLogger(NnueEvaluator.class);
+
+    /** Set to true (with --add-modules jdk.incubator.vector) to use the Vector API kernels */
+    public static final String VECTOR_PROPERTY = "chess.nnue.vector";
+    private static final String VECTOR_KERNELS = "com.chess.engine.eval.nnue.VectorKernels";
+
+    private final NnueNetwork network;
+    private final NnueKernels kernels;
+
+    // Indexed by stack level * 2 + perspective
+    private final short[][] accumulators;
+    private final boolean[] stale;
+    private final int[] kingSquares;
+    private int top;
+
+    private final int[] input;
+    private final int[] hidden1;
+    private final int[] hidden2;
+
+    public NnueEvaluator(NnueNetwork network) {
+        this(network, defaultKernels());
+    }
+
+    NnueEvaluator(NnueNetwork network, NnueKernels kernels) {
+        this.network = network;
+        this.kernels = kernels;
+        int levels = SearchBoard.MAX_HISTORY + 1;
+        this.accumulators = new short[levels * 2][network.hiddenSize];
+        this.stale = new boolean[levels * 2];
+        this.kingSquares = new int[levels * 2];
+        this.input = new int[2 * network.hiddenSize];
+        this.hidden1 = new int[network.l2Size];
+        this.hidden2 = new int[network.l3Size];
+    }
+
+    /**
+     * Scalar kernels unless the Vector API ones were requested and are present in this build
+     */
+    private static NnueKernels defaultKernels() {
+        if (Boolean.getBoolean(VECTOR_PROPERTY)) {
+            try {
+                NnueKernels kernels = (NnueKernels) Class.forName(VECTOR_KERNELS).getDeclaredConstructor().newInstance();
+                logger.info("NNUE using Vector API kernels");
+                return kernels;
+            } catch (ReflectiveOperationException | LinkageError e) {
+                logger.warn("Vector API kernels unavailable, using scalar kernels: " + e);
+            }
+        }
+        return new ScalarKernels();
+    }
+
+    @Override
+    public void refresh(SearchBoard board) {
+        top = 0;
+        rebuild(board, SearchBoard.WHITE);
+        rebuild(board, SearchBoard.BLACK);
+    }
+
+    @Override
+    public void push() {
+        for (int side = 0; side < 2; side++) {
+            int from = top * 2 + side;
+            int to = from + 2;
+            System.arraycopy(accumulators[from], 0, accumulators[to], 0, network.hiddenSize);
+            stale[to] = stale[from];
+            kingSquares[to] = kingSquares[from];
+        }
+        top++;
+    }
+
+    @Override
+    public void pop() {
+        top--;
+    }
+
+    @Override
+    public void pieceAdded(int piece, int square) {
+        if (SearchBoard.typeOf(piece) == SearchBoard.KING) {
+            int slot = top * 2 + SearchBoard.colorOf(piece);
+            kingSquares[slot] = square;
+            stale[slot] = true;
+            return;
+        }
+        for (int side = 0; side < 2; side++) {
+            int slot = top * 2 + side;
+            if (!stale[slot]) {
+                kernels.addRow(accumulators[slot], network.featureWeights, rowOffset(side, slot, piece, square));
+            }
+        }
+    }
+
+    @Override
+    public void pieceRemoved(int piece, int square) {
+        if (SearchBoard.typeOf(piece) == SearchBoard.KING) {
+            stale[top * 2 + SearchBoard.colorOf(piece)] = true;
+            return;
+        }
+        for (int side = 0; side < 2; side++) {
+            int slot = top * 2 + side;
+            if (!stale[slot]) {
+                kernels.subtractRow(accumulators[slot], network.featureWeights, rowOffset(side, slot, piece, square));
+            }
+        }
+    }
+
+    @Override
+    public int evaluate(SearchBoard board) {
+        int us = board.getSideToMove();
+        int them = us ^ 1;
+        if (stale[top * 2 + us]) {
+            rebuild(board, us);
+        }
+        if (stale[top * 2 + them]) {
+            rebuild(board, them);
+        }
+
+        int hidden = network.hiddenSize;
+        kernels.activate(accumulators[top * 2 + us], input, 0);
+        kernels.activate(accumulators[top * 2 + them], input, hidden);
+        layer(input, 2 * hidden, network.l1Weights, network.l1Bias, hidden1);
+        layer(hidden1, network.l2Size, network.l2Weights, network.l2Bias, hidden2);
+        int output = network.outputBias + kernels.dot(hidden2, network.outputWeights, 0, network.l3Size);
+        return output / NnueNetwork.OUTPUT_SCALE;
+    }
+
+    /**
+     * Accumulator of one side at the current level, rebuilding it first if stale; for tests
+     */
+    short[] accumulator(SearchBoard board, int side) {
+        if (stale[top * 2 + side]) {
+            rebuild(board, side);
+        }
+        return accumulators[top * 2 + side];
+    }
+
+    private void layer(int[] in, int inSize, int[] weights, int[] bias, int[] out) {
+        for (int j = 0; j < out.length; j++) {
+            int sum = bias[j] + kernels.dot(in, weights, j * inSize, inSize);
+            out[j] = Math.min(NnueNetwork.ACTIVATION_MAX, Math.max(0, sum >> NnueNetwork.WEIGHT_SHIFT));
+        }
+    }
+
+    private int rowOffset(int side, int slot, int piece, int square) {
+        return NnueNetwork.featureIndex(side, kingSquares[slot], piece, square) * network.hiddenSize;
+    }
+
+    /**
+     * Recompute one side's accumulator from the board
+     */
+    private void rebuild(SearchBoard board, int side) {
+        int slot = top * 2 + side;
+        short[] accumulator = accumulators[slot];
+        System.arraycopy(network.featureBias, 0, accumulator, 0, network.hiddenSize);
+        kingSquares[slot] = board.getKingSquare(side);
+        long pieces = board.getOccupied()
+                & ~board.getPieces(SearchBoard.WHITE, SearchBoard.KING)
+                & ~board.getPieces(SearchBoard.BLACK, SearchBoard.KING);
+        while (pieces != 0) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            kernels.addRow(accumulator, network.featureWeights, rowOffset(side, slot, board.getPiece(square), square));
+        }
+        stale[slot] = false;
+    }
+}
@@ -0,0 +1,21 @@
+package com.chess.engine.eval.nnue;
+
+/**
+ * Inner loops of the network. The scalar implementation is written as plain
+ * counted loops over arrays so the JIT can vectorize them; an explicit Vector
+ * API implementation can be swapped in at runtime.
+ */
+interface NnueKernels {
+
+    /** accumulator[i] += weights[offset + i] */
+    void addRow(short[] accumulator, short[] weights, int offset);
+
+    /** accumulator[i] -= weights[offset + i] */
+    void subtractRow(short[] accumulator, short[] weights, int offset);
+
+    /** output[outputOffset + i] = clamp(accumulator[i], 0, 127) */
+    void activate(short[] accumulator, int[] output, int outputOffset);
+
+    /** Sum of input[i] * weights[offset + i] for i below length */
+    int dot(int[] input, int[] weights, int offset, int length);
+}
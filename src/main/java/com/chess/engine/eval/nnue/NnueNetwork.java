@@ -0,0 +1,229 @@
+package com.chess.engine.eval.nnue;
+
+import com.chess.engine.SearchBoard;
+import com.chess.utils.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * Quantized weights of an NNUE-style network with HalfKP-like inputs.
+ *
+ * Each side sees the board from its own king: an input is (own king square,
+ * non-king piece, square), mirrored vertically for Black, giving 64 x 640 inputs
+ * per perspective. They feed an int16 hidden layer per perspective, followed by
+ * two small int8 dense layers and a single output.
+ *
+ * File layout (little-endian): magic, version, hidden size, layer 2 size, layer 3
+ * size as int32; then feature weights and biases as int16; then, for each dense
+ * layer, int8 weights (row per output) and int32 biases.
+ */
+public final class NnueNetwork {
+    private static final Logger logger = Logger.getLogger(NnueNetwork.class);
+
+    public static final int MAGIC = 0x4555_4E4E;
+    public static final int VERSION = 1;
+    public static final int PIECE_FEATURES = 10 * 64;
+    public static final int INPUTS = 64 * PIECE_FEATURES;
+    public static final String DEFAULT_FILE = "nets/default.nnue";
+    /** System property naming a network file to use instead of the default */
+    public static final String FILE_PROPERTY = "chess.nnue.file";
+
+    /** Clipped-ReLU ceiling; activations are kept in [0, 127] */
+    static final int ACTIVATION_MAX = 127;
+    /** Dense layer sums are scaled down by 2^6 before clipping */
+    static final int WEIGHT_SHIFT = 6;
+    /** Output units per centipawn */
+    static final int OUTPUT_SCALE = 16;
+
+    private static final int HEADER_INTS = 5;
+
+    private static NnueNetwork defaultNetwork;
+    private static boolean defaultLoaded;
+
+    final int hiddenSize;
+    final int l2Size;
+    final int l3Size;
+    final short[] featureWeights;
+    final short[] featureBias;
+    final int[] l1Weights;
+    final int[] l1Bias;
+    final int[] l2Weights;
+    final int[] l2Bias;
+    final int[] outputWeights;
+    final int outputBias;
+
+    NnueNetwork(int hiddenSize, int l2Size, int l3Size, short[] featureWeights, short[] featureBias,
+                int[] l1Weights, int[] l1Bias, int[] l2Weights, int[] l2Bias,
+                int[] outputWeights, int outputBias) {
+        this.hiddenSize = hiddenSize;
+        this.l2Size = l2Size;
+        this.l3Size = l3Size;
+        this.featureWeights = featureWeights;
+        this.featureBias = featureBias;
+        this.l1Weights = l1Weights;
+        this.l1Bias = l1Bias;
+        this.l2Weights = l2Weights;
+        this.l2Bias = l2Bias;
+        this.outputWeights = outputWeights;
+        this.outputBias = outputBias;
+    }
+
+    /**
+     * Input index of a non-king piece as seen from one side's king
+     */
+    static int featureIndex(int perspective, int kingSquare, int piece, int square) {
+        int flip = perspective == SearchBoard.WHITE ? 0 : 56;
+        int relative = SearchBoard.colorOf(piece) == perspective ? 0 : 1;
+        int kind = (SearchBoard.typeOf(piece) - 1) * 2 + relative;
+        return (kingSquare ^ flip) * PIECE_FEATURES + kind * 64 + (square ^ flip);
+    }
+
+    /**
+     * The network named by {@link #FILE_PROPERTY} or found at {@link #DEFAULT_FILE}, or null if there is none
+     */
+    public static synchronized NnueNetwork getDefault() {
+        if (!defaultLoaded) {
+            defaultLoaded = true;
+            Path file = Paths.get(System.getProperty(FILE_PROPERTY, DEFAULT_FILE));
+            if (Files.isRegularFile(file)) {
+                try {
+                    defaultNetwork = load(file);
+                    logger.info("NNUE network loaded: " + file + " (hidden size " + defaultNetwork.hiddenSize + ")");
+                } catch (IOException e) {
+                    logger.error("Failed to load NNUE network " + file + ": " + e.getMessage());
+                }
+            }
+        }
+        return defaultNetwork;
+    }
+
+    public static NnueNetwork load(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < HEADER_INTS * 4 || buffer.getInt() != MAGIC) {
+            throw new IOException("Not an NNUE network: " + file);
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported NNUE network version " + version + ": " + file);
+        }
+        int hidden = buffer.getInt();
+        int l2 = buffer.getInt();
+        int l3 = buffer.getInt();
+        if (hidden <= 0 || l2 <= 0 || l3 <= 0 || buffer.remaining() != payloadSize(hidden, l2, l3)) {
+            throw new IOException("Corrupt NNUE network (layer sizes " + hidden + "/" + l2 + "/" + l3 + "): " + file);
+        }
+
+        short[] featureWeights = new short[INPUTS * hidden];
+        buffer.asShortBuffer().get(featureWeights);
+        buffer.position(buffer.position() + featureWeights.length * 2);
+        short[] featureBias = new short[hidden];
+        buffer.asShortBuffer().get(featureBias);
+        buffer.position(buffer.position() + hidden * 2);
+        int[] l1Weights = readBytes(buffer, l2 * 2 * hidden);
+        int[] l1Bias = readInts(buffer, l2);
+        int[] l2Weights = readBytes(buffer, l3 * l2);
+        int[] l2Bias = readInts(buffer, l3);
+        int[] outputWeights = readBytes(buffer, l3);
+        int outputBias = buffer.getInt();
+        return new NnueNetwork(hidden, l2, l3, featureWeights, featureBias,
+                l1Weights, l1Bias, l2Weights, l2Bias, outputWeights, outputBias);
+    }
+
+    public void save(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_INTS * 4 + payloadSize(hiddenSize, l2Size, l3Size))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(hiddenSize).putInt(l2Size).putInt(l3Size);
+        for (short weight : featureWeights) {
+            buffer.putShort(weight);
+        }
+        for (short bias : featureBias) {
+            buffer.putShort(bias);
+        }
+        writeBytes(buffer, l1Weights);
+        writeInts(buffer, l1Bias);
+        writeBytes(buffer, l2Weights);
+        writeInts(buffer, l2Bias);
+        writeBytes(buffer, outputWeights);
+        buffer.putInt(outputBias);
+        Files.write(file, buffer.array());
+    }
+
+    /**
+     * An untrained network with small random weights, for tests and benchmarks
+     */
+    public static NnueNetwork random(int hiddenSize, long seed) {
+        Random random = new Random(seed);
+        int l2 = 32;
+        int l3 = 32;
+        short[] featureWeights = new short[INPUTS * hiddenSize];
+        for (int i = 0; i < featureWeights.length; i++) {
+            featureWeights[i] = (short) (random.nextInt(33) - 16);
+        }
+        short[] featureBias = new short[hiddenSize];
+        for (int i = 0; i < hiddenSize; i++) {
+            featureBias[i] = (short) random.nextInt(64);
+        }
+        return new NnueNetwork(hiddenSize, l2, l3, featureWeights, featureBias,
+                randomBytes(random, l2 * 2 * hiddenSize), randomInts(random, l2, 1000),
+                randomBytes(random, l3 * l2), randomInts(random, l3, 1000),
+                randomBytes(random, l3), random.nextInt(2000) - 1000);
+    }
+
+    public int getHiddenSize() {
+        return hiddenSize;
+    }
+
+    private static int payloadSize(int hidden, int l2, int l3) {
+        return (INPUTS * hidden + hidden) * 2 + l2 * 2 * hidden + l2 * 4 + l3 * l2 + l3 * 4 + l3 + 4;
+    }
+
+    private static int[] readBytes(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = buffer.get();
+        }
+        return values;
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = buffer.getInt();
+        }
+        return values;
+    }
+
+    private static void writeBytes(ByteBuffer buffer, int[] values) {
+        for (int value : values) {
+            buffer.put((byte) value);
+        }
+    }
+
+    private static void writeInts(ByteBuffer buffer, int[] values) {
+        for (int value : values) {
+            buffer.putInt(value);
+        }
+    }
+
+    private static int[] randomBytes(Random random, int count) {
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = random.nextInt(33) - 16;
+        }
+        return values;
+    }
+
+    private static int[] randomInts(Random random, int count, int bound) {
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = random.nextInt(2 * bound) - bound;
+        }
+        return values;
+    }
+}
@@ -0,0 +1,37 @@
+package com.chess.engine.eval.nnue;
+
+/**
+ * Portable kernels; simple enough for C2's superword optimization to vectorize
+ */
+final class ScalarKernels implements NnueKernels {
+
+    @Override
+    public void addRow(short[] accumulator, short[] weights, int offset) {
+        for (int i = 0; i < accumulator.length; i++) {
+            accumulator[i] += weights[offset + i];
+        }
+    }
+
+    @Override
+    public void subtractRow(short[] accumulator, short[] weights, int offset) {
+        for (int i = 0; i < accumulator.length; i++) {
+            accumulator[i] -= weights[offset + i];
+        }
+    }
+
+    @Override
+    public void activate(short[] accumulator, int[] output, int outputOffset) {
+        for (int i = 0; i < accumulator.length; i++) {
+            output[outputOffset + i] = Math.min(NnueNetwork.ACTIVATION_MAX, Math.max(0, accumulator[i]));
+        }
+    }
+
+    @Override
+    public int dot(int[] input, int[] weights, int offset, int length) {
+        int sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += input[i] * weights[offset + i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,545 @@
+package com.chess.engine.uci;
+
+import com.chess.engine.SearchBoard;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A stand-in UCI engine for tests and benchmarks on machines without Stockfish.
+ *
+ * It answers the handshake, "isready", "position", "go", "stop" and "ponderhit"
+ * like a real engine, but instead of searching it waits out a think time while
+ * reporting a set number of info iterations, then plays a legal move picked from a
+ * hash of the position (so a position always gets the same answer). Every nth search
+ * can be made to fail: hang, crash, ignore "stop" or answer an illegal move.
+ *
+ * The same engine runs inside the JVM over in-memory streams ({@link #launch()}) or
+ * as a separate process ({@link #subprocess()}, or {@link #main(String[])} directly).
+ */
+public class FakeUciEngine {
+    public static final String NAME = "FakeUciEngine";
+
+    /**
+     * Ways a search can go wrong
+     */
+    public enum Failure {
+        NONE,
+        /** Stop answering anything, "isready" included, without exiting */
+        HANG,
+        /** Exit without a "bestmove" */
+        CRASH,
+        /** Think for the full time whatever "stop" says */
+        IGNORE_STOP,
+        /** Answer a move that is not legal in the position */
+        ILLEGAL_MOVE
+    }
+
+    private volatile long thinkTimeMs = 10;
+    private volatile int infoLines = 5;
+    private volatile long readyDelayMs;
+    private volatile Failure failure = Failure.NONE;
+    private volatile int failureInterval = 1;
+    private final AtomicLong searches = new AtomicLong();
+    private final AtomicInteger launches = new AtomicInteger();
+    private final AtomicInteger hashChanges = new AtomicInteger();
+
+    /**
+     * Time each search takes, capped by the "go" command's own move time or clock
+     */
+    public void setThinkTimeMs(long thinkTimeMs) {
+        this.thinkTimeMs = Math.max(0, thinkTimeMs);
+    }
+
+    /** Info iterations reported per search, each with one line per MultiPV line */
+    public void setInfoLines(int infoLines) {
+        this.infoLines = Math.max(0, infoLines);
+    }
+
+    /** Delay before each "readyok" */
+    public void setReadyDelayMs(long readyDelayMs) {
+        this.readyDelayMs = Math.max(0, readyDelayMs);
+    }
+
+    /**
+     * Fail every interval-th search, counted across all engines launched from here
+     */
+    public void setFailure(Failure failure, int interval) {
+        this.failure = failure;
+        this.failureInterval = Math.max(1, interval);
+    }
+
+    public long getThinkTimeMs() {
+        return thinkTimeMs;
+    }
+
+    public int getInfoLines() {
+        return infoLines;
+    }
+
+    /** Searches started by all engines launched from here */
+    public long getSearches() {
+        return searches.get();
+    }
+
+    public int getLaunches() {
+        return launches.get();
+    }
+
+    /** "setoption name Hash" commands received by all engines launched from here */
+    public int getHashChanges() {
+        return hashChanges.get();
+    }
+
+    /**
+     * Start an engine in this JVM, talking over in-memory streams
+     */
+    public UciProcess launch() {
+        launches.incrementAndGet();
+        Pipe commands = new Pipe();
+        Pipe output = new Pipe();
+        Session session = new Session(commands.in, output.out);
+        Thread thread = new Thread(() -> {
+            session.run();
+            output.closeWriter();
+        }, "fake-uci-engine");
+        thread.setDaemon(true);
+        thread.start();
+        return new UciProcess() {
+            @Override
+            public InputStream getOutput() {
+                return output.in;
+            }
+
+            @Override
+            public OutputStream getInput() {
+                return commands.out;
+            }
+
+            @Override
+            public boolean isAlive() {
+                return thread.isAlive();
+            }
+
+            @Override
+            public void destroy() {
+                commands.closeWriter();
+                output.closeWriter();
+            }
+        };
+    }
+
+    /**
+     * Launches the engine as a child JVM with this JVM's class path and the current settings
+     */
+    public UciProcess.Launcher subprocess() {
+        return () -> {
+            launches.incrementAndGet();
+            String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+            List<String> command = new ArrayList<>(Arrays.asList(java,
+                    "-cp", System.getProperty("java.class.path"), FakeUciEngine.class.getName()));
+            command.addAll(Arrays.asList(toArguments()));
+            return UciProcess.start(command.toArray(new String[0]));
+        };
+    }
+
+    /**
+     * Settings as command-line options for {@link #main(String[])}. The failure
+     * count starts over in a child process.
+     */
+    public String[] toArguments() {
+        return new String[] {
+                "--think", String.valueOf(thinkTimeMs),
+                "--info", String.valueOf(infoLines),
+                "--ready-delay", String.valueOf(readyDelayMs),
+                "--failure", failure.name().toLowerCase(),
+                "--every", String.valueOf(failureInterval)
+        };
+    }
+
+    /**
+     * Run as a UCI engine on standard input and output. Options: --think ms, --info n,
+     * --ready-delay ms, --failure none|hang|crash|ignore_stop|illegal_move, --every n.
+     */
+    public static void main(String[] args) {
+        FakeUciEngine engine = new FakeUciEngine();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--think": engine.setThinkTimeMs(Long.parseLong(value)); break;
+                case "--info": engine.setInfoLines(Integer.parseInt(value)); break;
+                case "--ready-delay": engine.setReadyDelayMs(Long.parseLong(value)); break;
+                case "--failure": engine.setFailure(Failure.valueOf(value.toUpperCase()), engine.failureInterval); break;
+                case "--every": engine.setFailure(engine.failure, Integer.parseInt(value)); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        Session session = engine.new Session(System.in, System.out);
+        session.run();
+        System.exit(session.crashed ? 1 : 0);
+    }
+
+    /**
+     * One running engine: commands are read on the caller's thread, searches wait on their own
+     */
+    private final class Session {
+        private final BufferedReader in;
+        private final PrintWriter out;
+        private SearchBoard position = new SearchBoard();
+        private int multiPv = 1;
+        private Thread searchThread;
+        private boolean stopRequested;
+        private boolean pondering;
+        private boolean hung;
+        private volatile boolean crashed;
+
+        Session(InputStream commands, OutputStream output) {
+            this.in = new BufferedReader(new InputStreamReader(commands, StandardCharsets.US_ASCII));
+            this.out = new PrintWriter(new OutputStreamWriter(output, StandardCharsets.US_ASCII), true);
+        }
+
+        void run() {
+            try {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (hung) {
+                        continue;
+                    }
+                    line = line.trim();
+                    if (line.equals("quit")) {
+                        stop();
+                        return;
+                    }
+                    if (!handle(line)) {
+                        crashed = true;
+                        return;
+                    }
+                }
+            } catch (IOException e) {
+                // Input closed under us, as when the process is killed
+            }
+            stop();
+        }
+
+        /**
+         * Answer one command; false when the engine crashes on it
+         */
+        private boolean handle(String line) {
+            if (line.equals("uci")) {
+                out.println("id name " + NAME);
+                out.println("id author chess");
+                out.println("option name Threads type spin default 1 min 1 max 512");
+                out.println("option name Hash type spin default 16 min 1 max 33554432");
+                out.println("option name MultiPV type spin default 1 min 1 max 500");
+                out.println("option name Skill Level type spin default 20 min 0 max 20");
+                out.println("option name Ponder type check default false");
+                out.println("uciok");
+            } else if (line.equals("isready")) {
+                sleep(readyDelayMs);
+                out.println("readyok");
+            } else if (line.startsWith("setoption name Hash value ")) {
+                hashChanges.incrementAndGet();
+            } else if (line.startsWith("setoption name MultiPV value ")) {
+                multiPv = Math.max(1, Integer.parseInt(line.substring("setoption name MultiPV value ".length()).trim()));
+            } else if (line.startsWith("position ")) {
+                setPosition(line.split("\\s+"));
+            } else if (line.startsWith("go")) {
+                return go(line.split("\\s+"));
+            } else if (line.equals("stop")) {
+                stop();
+            } else if (line.equals("ponderhit")) {
+                synchronized (this) {
+                    pondering = false;
+                    notifyAll();
+                }
+            }
+            return true;
+        }
+
+        private void setPosition(String[] tokens) {
+            int i = 1;
+            try {
+                if (tokens.length > 1 && tokens[1].equals("fen")) {
+                    StringBuilder fen = new StringBuilder();
+                    for (i = 2; i < tokens.length && !tokens[i].equals("moves"); i++) {
+                        fen.append(tokens[i]).append(' ');
+                    }
+                    position = new SearchBoard(fen.toString().trim());
+                } else {
+                    position = new SearchBoard();
+                    i = 2;
+                }
+                for (i++; i < tokens.length; i++) {
+                    int move = position.parseUciMove(tokens[i]);
+                    if (move == SearchBoard.NO_MOVE || !position.makeMove(move)) {
+                        break;
+                    }
+                }
+            } catch (RuntimeException e) {
+                position = new SearchBoard();
+            }
+        }
+
+        private boolean go(String[] tokens) {
+            boolean failing = searches.incrementAndGet() % failureInterval == 0 && failure != Failure.NONE;
+            if (failing && failure == Failure.CRASH) {
+                return false;
+            }
+            if (failing && failure == Failure.HANG) {
+                hung = true;
+                return true;
+            }
+
+            long budget = thinkTimeMs;
+            boolean infinite = false;
+            boolean ponder = false;
+            String clock = position.getSideToMove() == SearchBoard.WHITE ? "wtime" : "btime";
+            for (int i = 1; i < tokens.length; i++) {
+                String token = tokens[i];
+                if (token.equals("infinite")) {
+                    infinite = true;
+                } else if (token.equals("ponder")) {
+                    ponder = true;
+                } else if (i + 1 < tokens.length && token.equals("movetime")) {
+                    budget = Math.min(budget, Long.parseLong(tokens[++i]));
+                } else if (i + 1 < tokens.length && token.equals(clock)) {
+                    budget = Math.min(budget, Long.parseLong(tokens[++i]) / 20);
+                }
+            }
+
+            stop();
+            synchronized (this) {
+                stopRequested = false;
+                pondering = ponder;
+            }
+            SearchBoard searched = position.copy();
+            long time = budget;
+            boolean untilStopped = infinite;
+            boolean ignoreStop = failing && failure == Failure.IGNORE_STOP;
+            boolean illegal = failing && failure == Failure.ILLEGAL_MOVE;
+            searchThread = new Thread(() -> search(searched, time, untilStopped, ignoreStop, illegal),
+                    "fake-uci-search");
+            searchThread.setDaemon(true);
+            searchThread.start();
+            return true;
+        }
+
+        /**
+         * Stop the running search, if any, and wait for its "bestmove"
+         */
+        private void stop() {
+            synchronized (this) {
+                stopRequested = true;
+                pondering = false;
+                notifyAll();
+            }
+            Thread thread = searchThread;
+            if (thread != null) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                searchThread = null;
+            }
+        }
+
+        private void search(SearchBoard board, long budgetMs, boolean infinite, boolean ignoreStop, boolean illegal) {
+            int[] moves = rankedMoves(board);
+            int lines = Math.min(multiPv, moves.length);
+            long start = System.currentTimeMillis();
+            synchronized (this) {
+                // A ponder search's clock starts at "ponderhit"
+                while (pondering && !stopRequested) {
+                    waitQuietly(0);
+                }
+            }
+            long thinkStart = System.currentTimeMillis();
+            for (int depth = 1; depth <= infoLines; depth++) {
+                if (!waitUntil(thinkStart + budgetMs * depth / (infoLines + 1), ignoreStop)) {
+                    break;
+                }
+                long elapsed = Math.max(1, System.currentTimeMillis() - start);
+                for (int line = 0; line < lines; line++) {
+                    out.println("info depth " + depth + " seldepth " + (depth + 2) + " multipv " + (line + 1)
+                            + " score cp " + score(board, line) + " nodes " + elapsed * 1000
+                            + " nps 1000000 time " + elapsed + " pv " + SearchBoard.toUci(moves[line]));
+                }
+            }
+            waitUntil(infinite && !ignoreStop ? Long.MAX_VALUE : thinkStart + budgetMs, ignoreStop);
+
+            if (illegal) {
+                out.println("bestmove a1a1");
+            } else if (moves.length == 0) {
+                out.println("info depth 0 score " + (board.isInCheck() ? "mate 0" : "cp 0"));
+                out.println("bestmove (none)");
+            } else {
+                board.makeMove(moves[0]);
+                int[] replies = rankedMoves(board);
+                out.println("bestmove " + SearchBoard.toUci(moves[0])
+                        + (replies.length > 0 ? " ponder " + SearchBoard.toUci(replies[0]) : ""));
+            }
+        }
+
+        /**
+         * Wait until the time or a "stop"; false if stopped early
+         */
+        private synchronized boolean waitUntil(long deadline, boolean ignoreStop) {
+            long now;
+            while ((now = System.currentTimeMillis()) < deadline && (ignoreStop || !stopRequested)) {
+                waitQuietly(deadline == Long.MAX_VALUE ? 0 : deadline - now);
+            }
+            return !stopRequested || ignoreStop;
+        }
+
+        private void waitQuietly(long ms) {
+            try {
+                wait(ms);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stopRequested = true;
+            }
+        }
+    }
+
+    /**
+     * Legal moves in a fixed order that depends only on the position
+     */
+    private static int[] rankedMoves(SearchBoard board) {
+        int[] moves = new int[SearchBoard.MAX_MOVES];
+        int count = board.generateMoves(moves, false);
+        long[] keyed = new long[count];
+        int legal = 0;
+        for (int i = 0; i < count; i++) {
+            if (board.makeMove(moves[i])) {
+                board.unmakeMove();
+                // Hash in the high bits, move in the low 32 so sorting orders by hash
+                keyed[legal++] = (mix(board.getKey() ^ moves[i]) & 0xFFFFFFFF00000000L) | (moves[i] & 0xFFFFFFFFL);
+            }
+        }
+        Arrays.sort(keyed, 0, legal);
+        int[] ranked = new int[legal];
+        for (int i = 0; i < legal; i++) {
+            ranked[i] = (int) keyed[i];
+        }
+        return ranked;
+    }
+
+    private static int score(SearchBoard board, int line) {
+        return (int) ((mix(board.getKey()) >>> 1) % 61) - 30 - 15 * line;
+    }
+
+    private static long mix(long x) {
+        x = (x ^ (x >>> 33)) * 0xFF51AFD7ED558CCDL;
+        x = (x ^ (x >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return x ^ (x >>> 33);
+    }
+
+    private static void sleep(long ms) {
+        if (ms > 0) {
+            try {
+                Thread.sleep(ms);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * An in-memory byte stream that, unlike a piped stream, does not care which
+     * threads write to it or whether they are still alive
+     */
+    private static final class Pipe {
+        private static final byte[] EOF = new byte[0];
+        private final BlockingQueue<byte[]> chunks = new LinkedBlockingQueue<>();
+        private volatile boolean closed;
+
+        final InputStream in = new InputStream() {
+            private byte[] chunk = new byte[0];
+            private int position;
+
+            @Override
+            public int read() throws IOException {
+                byte[] one = new byte[1];
+                return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                if (length == 0) {
+                    return 0;
+                }
+                while (position == chunk.length) {
+                    if (chunk == EOF) {
+                        return -1;
+                    }
+                    try {
+                        chunk = chunks.take();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException();
+                    }
+                    position = 0;
+                }
+                int count = Math.min(length, chunk.length - position);
+                System.arraycopy(chunk, position, buffer, offset, count);
+                position += count;
+                return count;
+            }
+
+            @Override
+            public int available() {
+                return chunk.length - position;
+            }
+
+            @Override
+            public void close() {
+                closeWriter();
+            }
+        };
+
+        final OutputStream out = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] buffer, int offset, int length) throws IOException {
+                if (closed) {
+                    throw new IOException("Pipe closed");
+                }
+                if (length > 0) {
+                    chunks.add(Arrays.copyOfRange(buffer, offset, offset + length));
+                }
+            }
+
+            @Override
+            public void close() {
+                closeWriter();
+            }
+        };
+
+        void closeWriter() {
+            if (!closed) {
+                closed = true;
+                chunks.add(EOF);
+            }
+        }
+    }
+}
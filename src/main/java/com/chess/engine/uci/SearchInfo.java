@@ -0,0 +1,263 @@
+package com.chess.engine.uci;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One "info" line from a UCI engine.
+ *
+ * Lines are parsed in place from the reader's character buffer: numbers are read
+ * digit by digit and keywords are compared without creating strings, so the only
+ * allocations are the event itself and, when present, the principal variation.
+ * Fields the engine did not send are -1 (the score is {@link #hasScore()}).
+ */
+public final class SearchInfo {
+    /** Whether a score is exact or only a bound, as sent with "lowerbound"/"upperbound" */
+    public enum Bound {
+        EXACT, LOWER, UPPER
+    }
+
+    private int depth = -1;
+    private int selDepth = -1;
+    private int multiPv = 1;
+    private boolean hasScore;
+    private boolean mate;
+    private int score;
+    private Bound bound = Bound.EXACT;
+    private long nodes = -1;
+    private long nps = -1;
+    private long timeMs = -1;
+    private int hashFull = -1;
+    private String pv;
+
+    private SearchInfo() {
+    }
+
+    /**
+     * Parse a complete "info ..." line, or return null if it is not one
+     */
+    public static SearchInfo parse(String line) {
+        return parse(line.toCharArray(), line.length());
+    }
+
+    static SearchInfo parse(char[] line, int length) {
+        int pos = skipSpaces(line, 0, length);
+        int end = tokenEnd(line, pos, length);
+        if (!matches(line, pos, end, "info")) {
+            return null;
+        }
+        SearchInfo info = new SearchInfo();
+        pos = end;
+        while (true) {
+            pos = skipSpaces(line, pos, length);
+            if (pos >= length) {
+                break;
+            }
+            end = tokenEnd(line, pos, length);
+            int valueStart = skipSpaces(line, end, length);
+            int valueEnd = tokenEnd(line, valueStart, length);
+            if (matches(line, pos, end, "depth")) {
+                info.depth = (int) number(line, valueStart, valueEnd);
+            } else if (matches(line, pos, end, "seldepth")) {
+                info.selDepth = (int) number(line, valueStart, valueEnd);
+            } else if (matches(line, pos, end, "multipv")) {
+                info.multiPv = (int) number(line, valueStart, valueEnd);
+            } else if (matches(line, pos, end, "nodes")) {
+                info.nodes = number(line, valueStart, valueEnd);
+            } else if (matches(line, pos, end, "nps")) {
+                info.nps = number(line, valueStart, valueEnd);
+            } else if (matches(line, pos, end, "time")) {
+                info.timeMs = number(line, valueStart, valueEnd);
+            } else if (matches(line, pos, end, "hashfull")) {
+                info.hashFull = (int) number(line, valueStart, valueEnd);
+            } else if (matches(line, pos, end, "score")) {
+                // "score cp 35" or "score mate -3", optionally followed by a bound
+                int numberStart = skipSpaces(line, valueEnd, length);
+                int numberEnd = tokenEnd(line, numberStart, length);
+                info.hasScore = true;
+                info.mate = matches(line, valueStart, valueEnd, "mate");
+                info.score = (int) number(line, numberStart, numberEnd);
+                int boundStart = skipSpaces(line, numberEnd, length);
+                int boundEnd = tokenEnd(line, boundStart, length);
+                if (matches(line, boundStart, boundEnd, "lowerbound")) {
+                    info.bound = Bound.LOWER;
+                    numberEnd = boundEnd;
+                } else if (matches(line, boundStart, boundEnd, "upperbound")) {
+                    info.bound = Bound.UPPER;
+                    numberEnd = boundEnd;
+                }
+                pos = numberEnd;
+                continue;
+            } else if (matches(line, pos, end, "pv")) {
+                int pvEnd = length;
+                while (pvEnd > valueStart && line[pvEnd - 1] <= ' ') {
+                    pvEnd--;
+                }
+                info.pv = valueStart < pvEnd ? new String(line, valueStart, pvEnd - valueStart) : null;
+                break;
+            } else if (matches(line, pos, end, "string")) {
+                // Free text to the end of the line
+                break;
+            } else {
+                // Unknown keys (currmove, tbhits, ...) are skipped one token at a time
+                pos = end;
+                continue;
+            }
+            pos = valueEnd;
+        }
+        return info;
+    }
+
+    private static int skipSpaces(char[] line, int pos, int length) {
+        while (pos < length && line[pos] <= ' ') {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static int tokenEnd(char[] line, int pos, int length) {
+        while (pos < length && line[pos] > ' ') {
+            pos++;
+        }
+        return pos;
+    }
+
+    static boolean matches(char[] line, int start, int end, String keyword) {
+        if (end - start != keyword.length()) {
+            return false;
+        }
+        for (int i = 0; i < keyword.length(); i++) {
+            if (line[start + i] != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long number(char[] line, int start, int end) {
+        boolean negative = start < end && line[start] == '-';
+        long value = 0;
+        for (int i = negative ? start + 1 : start; i < end; i++) {
+            char c = line[i];
+            if (c < '0' || c > '9') {
+                break;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getSelDepth() {
+        return selDepth;
+    }
+
+    /** Which line this is when the engine reports several (1 is the best) */
+    public int getMultiPv() {
+        return multiPv;
+    }
+
+    public boolean hasScore() {
+        return hasScore;
+    }
+
+    /** Whether {@link #getScore()} is moves to mate rather than centipawns */
+    public boolean isMate() {
+        return mate;
+    }
+
+    /** Centipawns, or moves to mate (negative when being mated), from the side to move's view */
+    public int getScore() {
+        return score;
+    }
+
+    public Bound getBound() {
+        return bound;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getNps() {
+        return nps;
+    }
+
+    public long getTimeMs() {
+        return timeMs;
+    }
+
+    /** Hash table use in permille */
+    public int getHashFull() {
+        return hashFull;
+    }
+
+    public boolean hasPv() {
+        return pv != null;
+    }
+
+    /** Principal variation as space-separated UCI moves, or null */
+    public String getPvString() {
+        return pv;
+    }
+
+    public List<String> getPv() {
+        return pv == null ? Collections.emptyList() : Arrays.asList(pv.split(" +"));
+    }
+
+    /** First move of the principal variation, or null */
+    public String getFirstMove() {
+        if (pv == null) {
+            return null;
+        }
+        int space = pv.indexOf(' ');
+        return space < 0 ? pv : pv.substring(0, space);
+    }
+
+    /**
+     * The info line this event was parsed from, less any fields it does not keep
+     */
+    public String toUciString() {
+        StringBuilder line = new StringBuilder("info");
+        if (depth >= 0) {
+            line.append(" depth ").append(depth);
+        }
+        if (selDepth >= 0) {
+            line.append(" seldepth ").append(selDepth);
+        }
+        line.append(" multipv ").append(multiPv);
+        if (hasScore) {
+            line.append(mate ? " score mate " : " score cp ").append(score);
+            if (bound != Bound.EXACT) {
+                line.append(bound == Bound.LOWER ? " lowerbound" : " upperbound");
+            }
+        }
+        if (nodes >= 0) {
+            line.append(" nodes ").append(nodes);
+        }
+        if (nps >= 0) {
+            line.append(" nps ").append(nps);
+        }
+        if (timeMs >= 0) {
+            line.append(" time ").append(timeMs);
+        }
+        if (hashFull >= 0) {
+            line.append(" hashfull ").append(hashFull);
+        }
+        if (pv != null) {
+            line.append(" pv ").append(pv);
+        }
+        return line.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "depth " + depth + " multipv " + multiPv
+                + (hasScore ? (mate ? " mate " : " cp ") + score : "")
+                + " nodes " + nodes + (pv != null ? " pv " + pv : "");
+    }
+}
@@ -0,0 +1,45 @@
+package com.chess.engine.uci;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of one UCI search: the "bestmove" line plus the last complete
+ * info line reported for each principal variation
+ */
+public final class SearchResult {
+    private final String bestMove;
+    private final String ponderMove;
+    private final List<SearchInfo> lines;
+
+    public SearchResult(String bestMove, String ponderMove, List<SearchInfo> lines) {
+        this.bestMove = bestMove;
+        this.ponderMove = ponderMove;
+        this.lines = Collections.unmodifiableList(lines);
+    }
+
+    /** Best move in UCI notation, or null when the position has no legal move */
+    public String getBestMove() {
+        return bestMove;
+    }
+
+    /** The reply the engine expects, or null */
+    public String getPonderMove() {
+        return ponderMove;
+    }
+
+    /** Final info for each principal variation, best first; empty if the engine sent none */
+    public List<SearchInfo> getLines() {
+        return lines;
+    }
+
+    /** Final info for the best line, or null */
+    public SearchInfo getInfo() {
+        return lines.isEmpty() ? null : lines.get(0);
+    }
+
+    @Override
+    public String toString() {
+        return "bestmove " + bestMove + (ponderMove != null ? " ponder " + ponderMove : "");
+    }
+}
@@ -0,0 +1,285 @@
+package com.chess.engine.uci;
+
+import com.chess.engine.SearchLimits;
+import com.chess.utils.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Event-driven client for a UCI engine process.
+ *
+ * A daemon reader thread consumes the engine's output as it arrives: "info" lines
+ * become {@link SearchInfo} events for listeners, "bestmove" completes the running
+ * search's future and "readyok" completes the oldest {@link #isReady()} request.
+ * Commands are written from the caller's thread, so {@link #stop()} and
+ * {@link #ponderHit()} take effect while a search is running. One search may run at
+ * a time; the engine answers every "go" with exactly one "bestmove", which keeps
+ * results matched to their requests.
+ */
+public class UciClient implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(UciClient.class);
+    private static final int MAX_MULTI_PV = 256;
+
+    private final InputStream input;
+    private final PrintWriter writer;
+    private final Thread readerThread;
+    private final List<UciListener> listeners = new CopyOnWriteArrayList<>();
+    private final Queue<CompletableFuture<Void>> readyRequests = new ConcurrentLinkedQueue<>();
+
+    // Guarded by this: the running search, its own listener and the latest info per line
+    private CompletableFuture<SearchResult> search;
+    private UciListener searchListener;
+    private final List<SearchInfo> lines = new ArrayList<>();
+    private volatile boolean closed;
+
+    public UciClient(InputStream engineOutput, OutputStream engineInput) {
+        this.input = engineOutput;
+        this.writer = new PrintWriter(new OutputStreamWriter(engineInput, StandardCharsets.US_ASCII), true);
+        this.readerThread = new Thread(this::readLoop, "uci-reader");
+        readerThread.setDaemon(true);
+        readerThread.start();
+    }
+
+    public void addListener(UciListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(UciListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Send a raw command, e.g. "uci" or "setoption name Hash value 64"
+     */
+    public void send(String command) {
+        writer.println(command);
+    }
+
+    /**
+     * Send "isready"; the future completes when the engine answers "readyok"
+     */
+    public CompletableFuture<Void> isReady() {
+        CompletableFuture<Void> ready = new CompletableFuture<>();
+        if (closed) {
+            ready.completeExceptionally(new IOException("UCI engine closed"));
+            return ready;
+        }
+        readyRequests.add(ready);
+        send("isready");
+        return ready;
+    }
+
+    public CompletableFuture<SearchResult> search(String positionCommand, SearchLimits limits) {
+        return search(positionCommand, limits, null);
+    }
+
+    /**
+     * Start a search from a "position ..." command; the listener, if any, hears only this search
+     *
+     * @throws IllegalStateException if a search is already running
+     */
+    public synchronized CompletableFuture<SearchResult> search(String positionCommand, SearchLimits limits,
+                                                               UciListener listener) {
+        if (search != null && !search.isDone()) {
+            throw new IllegalStateException("A UCI search is already running");
+        }
+        CompletableFuture<SearchResult> result = new CompletableFuture<>();
+        if (closed) {
+            result.completeExceptionally(new IOException("UCI engine closed"));
+            return result;
+        }
+        search = result;
+        searchListener = listener;
+        lines.clear();
+        send(positionCommand);
+        send(limits.toUciCommand());
+        return result;
+    }
+
+    public synchronized boolean isSearching() {
+        return search != null && !search.isDone();
+    }
+
+    /**
+     * Ask the running search to finish now; its future completes with the best move so far
+     */
+    public synchronized void stop() {
+        if (isSearching()) {
+            send("stop");
+        }
+    }
+
+    /**
+     * Tell a "go ponder" search that the expected move was played; it continues under its limits
+     */
+    public synchronized void ponderHit() {
+        if (isSearching()) {
+            send("ponderhit");
+        }
+    }
+
+    private void readLoop() {
+        byte[] chunk = new byte[8192];
+        char[] line = new char[256];
+        int length = 0;
+        try {
+            int read;
+            while ((read = input.read(chunk)) >= 0) {
+                for (int i = 0; i < read; i++) {
+                    char c = (char) (chunk[i] & 0xFF);
+                    if (c == '\n') {
+                        handleLine(line, length);
+                        length = 0;
+                    } else if (c != '\r') {
+                        if (length == line.length) {
+                            char[] larger = new char[line.length * 2];
+                            System.arraycopy(line, 0, larger, 0, length);
+                            line = larger;
+                        }
+                        line[length++] = c;
+                    }
+                }
+            }
+            if (length > 0) {
+                handleLine(line, length);
+            }
+        } catch (IOException e) {
+            if (!closed) {
+                logger.error("Error reading from UCI engine: " + e.getMessage());
+            }
+        }
+        failPending(new IOException("UCI engine output closed"));
+    }
+
+    private void handleLine(char[] line, int length) {
+        int end = 0;
+        while (end < length && line[end] > ' ') {
+            end++;
+        }
+        if (SearchInfo.matches(line, 0, end, "info")) {
+            handleInfo(SearchInfo.parse(line, length));
+        } else if (SearchInfo.matches(line, 0, end, "bestmove")) {
+            handleBestMove(new String(line, 0, length));
+        } else if (SearchInfo.matches(line, 0, end, "readyok")) {
+            CompletableFuture<Void> ready = readyRequests.poll();
+            if (ready != null) {
+                ready.complete(null);
+            }
+        }
+    }
+
+    private void handleInfo(SearchInfo info) {
+        UciListener own;
+        synchronized (this) {
+            own = searchListener;
+            if (info.hasPv() && info.getMultiPv() >= 1 && info.getMultiPv() <= MAX_MULTI_PV) {
+                int index = info.getMultiPv() - 1;
+                while (lines.size() <= index) {
+                    lines.add(null);
+                }
+                lines.set(index, info);
+            }
+        }
+        notifyInfo(own, info);
+    }
+
+    private void handleBestMove(String line) {
+        String[] parts = line.trim().split(" +");
+        String best = parts.length > 1 && !parts[1].equals("(none)") ? parts[1] : null;
+        String ponder = parts.length >= 4 && parts[2].equals("ponder") ? parts[3] : null;
+        CompletableFuture<SearchResult> finished;
+        UciListener own;
+        SearchResult result;
+        synchronized (this) {
+            List<SearchInfo> reported = new ArrayList<>();
+            for (SearchInfo info : lines) {
+                if (info != null) {
+                    reported.add(info);
+                }
+            }
+            result = new SearchResult(best, ponder, reported);
+            finished = search;
+            own = searchListener;
+            search = null;
+            searchListener = null;
+        }
+        if (finished == null) {
+            logger.warn("Unexpected UCI output: " + line);
+            return;
+        }
+        notifyBestMove(own, result);
+        finished.complete(result);
+    }
+
+    private void notifyInfo(UciListener own, SearchInfo info) {
+        try {
+            if (own != null) {
+                own.onInfo(info);
+            }
+            for (UciListener listener : listeners) {
+                listener.onInfo(info);
+            }
+        } catch (RuntimeException e) {
+            logger.error("UCI listener failed: " + e.getMessage());
+        }
+    }
+
+    private void notifyBestMove(UciListener own, SearchResult result) {
+        try {
+            if (own != null) {
+                own.onBestMove(result);
+            }
+            for (UciListener listener : listeners) {
+                listener.onBestMove(result);
+            }
+        } catch (RuntimeException e) {
+            logger.error("UCI listener failed: " + e.getMessage());
+        }
+    }
+
+    private void failPending(IOException cause) {
+        CompletableFuture<SearchResult> running;
+        synchronized (this) {
+            running = search;
+            search = null;
+            searchListener = null;
+        }
+        if (running != null) {
+            running.completeExceptionally(cause);
+        }
+        CompletableFuture<Void> ready;
+        while ((ready = readyRequests.poll()) != null) {
+            ready.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * Send "quit" and stop reading; anything still pending fails
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        send("quit");
+        writer.close();
+        try {
+            input.close();
+        } catch (IOException e) {
+            logger.debug("Error closing UCI engine output: " + e.getMessage());
+        }
+        failPending(new IOException("UCI engine closed"));
+    }
+}
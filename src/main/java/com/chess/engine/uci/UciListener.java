@@ -0,0 +1,14 @@
+package com.chess.engine.uci;
+
+/**
+ * Receives search progress from a {@link UciClient}.
+ *
+ * Callbacks run on the client's reader thread, so they must return quickly and
+ * hand any real work (such as Swing updates) to another thread.
+ */
+public interface UciListener {
+    void onInfo(SearchInfo info);
+
+    default void onBestMove(SearchResult result) {
+    }
+}
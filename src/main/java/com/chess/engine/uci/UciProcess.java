@@ -0,0 +1,58 @@
+package com.chess.engine.uci;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A running UCI engine: usually an operating-system process, but anything with
+ * a command input and an output stream will do
+ */
+public interface UciProcess {
+    /**
+     * Starts an engine, or returns null when there is none to start
+     */
+    @FunctionalInterface
+    interface Launcher {
+        UciProcess launch() throws IOException;
+    }
+
+    /** Where the engine's output is read */
+    InputStream getOutput();
+
+    /** Where commands to the engine are written */
+    OutputStream getInput();
+
+    boolean isAlive();
+
+    /** Kill the engine without waiting for it to quit */
+    void destroy();
+
+    /**
+     * Start an executable with the given command line
+     */
+    static UciProcess start(String... command) throws IOException {
+        Process process = new ProcessBuilder(command).start();
+        return new UciProcess() {
+            @Override
+            public InputStream getOutput() {
+                return process.getInputStream();
+            }
+
+            @Override
+            public OutputStream getInput() {
+                return process.getOutputStream();
+            }
+
+            @Override
+            public boolean isAlive() {
+                return process.isAlive();
+            }
+
+            @Override
+            public void destroy() {
+                process.destroyForcibly();
+            }
+        };
+    }
+}
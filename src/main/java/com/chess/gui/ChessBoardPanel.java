@@ -12,8 +12,11 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionAdapter;
 import java.awt.image.BufferedImage;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import javax.swing.Timer;
 import java.awt.event.ActionListener;
 import java.awt.event.ActionEvent;
@@ -29,6 +32,7 @@ public class ChessBoardPanel extends JPanel {
     private ChessGUI parent;
     private Map<Position, Color> highlights;
     private Map<String, BufferedImage> pieceImages;
+    private static CompletableFuture<Map<String, BufferedImage>> sharedPieceImages;
     
     // Drag and drop variables
     private Position selectedPosition;
@@ -67,7 +71,7 @@ public class ChessBoardPanel extends JPanel {
         this.board = board;
         this.parent = parent;
         this.highlights = new HashMap<>();
-        this.pieceImages = new HashMap<>();
+        this.pieceImages = Collections.emptyMap();
         
         setPreferredSize(new Dimension(BOARD_SIZE, BOARD_SIZE));
         setMinimumSize(new Dimension(BOARD_SIZE, BOARD_SIZE));
@@ -83,17 +87,43 @@ public class ChessBoardPanel extends JPanel {
         setupAnimationTimer();
     }
     
+    /**
+     * Piece sprites, rendered once on a background thread and shared by every board
+     */
+    public static synchronized CompletableFuture<Map<String, BufferedImage>> preloadPieceImages() {
+        if (sharedPieceImages == null) {
+            sharedPieceImages = CompletableFuture.supplyAsync(ChessBoardPanel::renderPieceImages);
+        }
+        return sharedPieceImages;
+    }
+    
     private void loadPieceImages() {
+        CompletableFuture<Map<String, BufferedImage>> images = preloadPieceImages();
+        if (images.isDone() && !images.isCompletedExceptionally()) {
+            pieceImages = images.join();
+            return;
+        }
+        // Draw the empty board now and the pieces once their sprites are ready
+        images.whenComplete((rendered, error) -> SwingUtilities.invokeLater(() -> {
+            pieceImages = rendered != null ? rendered : renderPieceImages();
+            bufferNeedsUpdate = true;
+            repaint();
+        }));
+    }
+    
+    private static Map<String, BufferedImage> renderPieceImages() {
         // Create simple colored pieces for now
         // In a real implementation, you'd load actual piece images
         String[] pieces = {"WhitePawn", "WhiteRook", "WhiteKnight", "WhiteBishop", "WhiteQueen", "WhiteKing",
                           "BlackPawn", "BlackRook", "BlackKnight", "BlackBishop", "BlackQueen", "BlackKing"};
         
+        Map<String, BufferedImage> images = new HashMap<>();
         for (String piece : pieces) {
-            pieceImages.put(piece, createPieceImage(piece));
+            images.put(piece, createPieceImage(piece));
         }
+        return Collections.unmodifiableMap(images);
     }
-      private BufferedImage createPieceImage(String pieceName) {
+      private static BufferedImage createPieceImage(String pieceName) {
         BufferedImage image = new BufferedImage(SQUARE_SIZE, SQUARE_SIZE, BufferedImage.TYPE_INT_ARGB);
         Graphics2D g2d = image.createGraphics();
         
@@ -522,6 +552,18 @@ public class ChessBoardPanel extends JPanel {
         highlightSquare(move.getTo(), new Color(0, 200, 255, 125)); // Lighter blue for "to"
     }
 
+    /**
+     * Mark a tactical threat: the threatening piece in orange, what it hits in red.
+     * Adds to the current highlights; clear them first to show threats alone.
+     */
+    public void highlightThreat(Position from, List<Position> targets) {
+        highlights.put(from, new Color(255, 165, 0, 140));
+        for (Position target : targets) {
+            highlights.put(target, new Color(255, 60, 60, 140));
+        }
+        repaint();
+    }
+
     public void updateBoard() {
         // If user is currently dragging, defer the update to avoid interrupting the drag
         if (isDragging) {
@@ -587,7 +629,7 @@ public class ChessBoardPanel extends JPanel {
     /**
      * Get Unicode chess symbol for a piece
      */
-    private String getUnicodeSymbol(String pieceName) {
+    private static String getUnicodeSymbol(String pieceName) {
         switch (pieceName) {
             case "WhiteKing": return "\u2654";
             case "WhiteQueen": return "\u2655";
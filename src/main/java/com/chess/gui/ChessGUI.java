@@ -2,7 +2,20 @@ package com.chess.gui;
 
 import com.chess.model.*;
 import com.chess.engine.ChessEngine;
+import com.chess.engine.Difficulty;
+import com.chess.engine.EnginePool;
+import com.chess.engine.HedgedMoveService;
+import com.chess.engine.SearchBoard;
+import com.chess.engine.SearchLimits;
+import com.chess.engine.book.PolyglotBook;
+import com.chess.engine.endgame.EndgameOracle;
+import com.chess.engine.eval.Evaluator;
+import com.chess.engine.eval.TaperedEvaluator;
 import com.chess.network.Client;
+import com.chess.teacher.BlunderGuard;
+import com.chess.teacher.HintService;
+import com.chess.teacher.LiveAnalysis;
+import com.chess.teacher.ThreatDetector;
 import com.chess.utils.Logger;
 import com.chess.utils.GameStateManager;
 import com.chess.Main;
@@ -13,6 +26,15 @@ import java.awt.*;
 import java.awt.event.*;
 import java.io.IOException;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Main GUI for the chess game
@@ -24,7 +46,21 @@ public class ChessGUI extends JFrame {
     private ChessBoardPanel boardPanel;
     private GameStatusPanel statusPanel;
     private ChatPanel chatPanel;
-    private ChessEngine aiEngine;
+    private volatile ChessEngine aiEngine;
+    private volatile EnginePool.Lease aiLease; // aiEngine is checked out of the shared pool for as long as the window needs it
+    private volatile HedgedMoveService moveService; // Races aiEngine against the native engine for AI moves
+    private CompletableFuture<Void> aiEngineReady = CompletableFuture.completedFuture(null); // Completes once aiEngine is leased
+    private final Object engineLock = new Object();
+    // Every call into aiEngine runs here, in order, so a busy engine never blocks the event thread
+    private final ExecutorService engineExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ai-engine");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Evaluator evaluator = new TaperedEvaluator();
+    private LiveAnalysis liveAnalysis; // Feeds the eval bar in local and AI games
+    private HintService hints; // Works out the hint for each human turn before it is asked for
+    private BlunderGuard blunderGuard; // Set while the player wants to be warned before a blunder
     private Client networkClient;
     
     private GameMode gameMode;
@@ -34,6 +70,20 @@ public class ChessGUI extends JFrame {
     private SwingWorker<Move, Void> aiMoveWorker;
     private int hintsRemaining = 3;
     private String playerColor; // "White" or "Black"
+    private ChessClock clock; // Only set for timed AI games
+    private javax.swing.Timer clockTimer;
+    private Difficulty difficulty = Difficulty.MAXIMUM;
+    
+    // Time controls offered for AI games: {initial, increment} in milliseconds
+    private static final String[] TIME_CONTROL_NAMES = {"Blitz 3+2", "Rapid 10+5", "Classical 30+20"};
+    private static final long[][] TIME_CONTROLS = {{180_000, 2_000}, {600_000, 5_000}, {1_800_000, 20_000}};
+    // Notional clock for untimed searches, so they still budget adaptively (about 2s per move)
+    private static final long UNTIMED_BANK_MS = 60_000;
+    private static final int UNTIMED_MOVES_TO_GO = 30;
+    // Longest a move or hint waits for the engines to finish starting
+    private static final long ENGINE_WAIT_MS = 30_000;
+    // Threats pointed out at once, so the board does not light up everywhere
+    private static final int MAX_THREATS_SHOWN = 3;
     
     public enum GameMode {
         LOCAL, AI, HOST, CLIENT, MULTIPLAYER_HOST, MULTIPLAYER_CLIENT
@@ -73,17 +123,9 @@ public class ChessGUI extends JFrame {
         
         // Don't create chat panel by default - it will be created only for multiplayer modes
         
-        // Initialize AI engine
+        // Initialize AI engine in the background; the window does not wait for the engine handshake
         logger.info("Initializing AI engine...");
-        try {
-            aiEngine = new ChessEngine();
-            logger.info("AI engine initialized successfully");
-        } catch (Exception e) {
-            logger.error("Failed to initialize AI engine: " + e.getMessage());
-            JOptionPane.showMessageDialog(this, 
-                "Failed to initialize AI engine. AI features will be disabled.", 
-                "Warning", JOptionPane.WARNING_MESSAGE);
-        }
+        leaseAiEngine("Failed to initialize AI engine. AI features will be disabled.");
         
         updateStatus();
         
@@ -108,6 +150,7 @@ public class ChessGUI extends JFrame {
     
     public void startLocalGame() {
         gameMode = GameMode.LOCAL;
+        stopClock();
         setTitle("Chess Game - Local (2 Players)");
         pack();
         setVisible(true);
@@ -130,23 +173,42 @@ public class ChessGUI extends JFrame {
             return;
         }
         
+        int timeControl = JOptionPane.showOptionDialog(null,
+            "Choose a time control:",
+            "AI Game Setup",
+            JOptionPane.DEFAULT_OPTION,
+            JOptionPane.QUESTION_MESSAGE,
+            null,
+            TIME_CONTROL_NAMES,
+            TIME_CONTROL_NAMES[1]);
+        
+        if (timeControl == -1) {
+            return;
+        }
+        
+        Difficulty[] levels = Difficulty.values();
+        int level = JOptionPane.showOptionDialog(null,
+            "Choose the AI strength:",
+            "AI Game Setup",
+            JOptionPane.DEFAULT_OPTION,
+            JOptionPane.QUESTION_MESSAGE,
+            null,
+            levels,
+            Difficulty.INTERMEDIATE);
+        
+        if (level == -1) {
+            return;
+        }
+        difficulty = levels[level];
+        
         gameMode = GameMode.AI;
         playerColor = (choice == 0) ? "White" : "Black";
         
         // Reset the board for a new game
         board = new Board();
         
-        // Initialize AI engine
-        try {
-            aiEngine = new ChessEngine();
-            logger.info("AI engine initialized for AI game mode");
-        } catch (Exception e) {
-            logger.error("Failed to initialize AI engine: " + e.getMessage());
-            JOptionPane.showMessageDialog(this, 
-                "Failed to initialize AI engine. Please check Stockfish installation.", 
-                "AI Engine Error", JOptionPane.ERROR_MESSAGE);
-            return;
-        }
+        // Initialize AI engine; a fresh lease also resets the engine for the new game
+        leaseAiEngine("Failed to initialize AI engine. Please check Stockfish installation.");
         
         // Initialize GUI components
         getContentPane().removeAll();
@@ -161,13 +223,14 @@ public class ChessGUI extends JFrame {
         add(boardPanel, BorderLayout.CENTER);
         add(statusPanel, BorderLayout.SOUTH);
         
-        setTitle("Chess Game - vs AI (You: " + playerColor + ")");
+        setTitle("Chess Game - vs AI (You: " + playerColor + ", AI: " + difficulty + ")");
         
         // Set board orientation based on player color
         if (boardPanel != null) {
             boardPanel.setPlayerColor(playerColor);
         }
         
+        startClock(TIME_CONTROLS[timeControl][0], TIME_CONTROLS[timeControl][1]);
         updateStatus();
         
         // If player chose Black, AI (White) makes the first move
@@ -182,7 +245,8 @@ public class ChessGUI extends JFrame {
         revalidate();
         repaint();
         
-        logger.info("AI game started - Player: " + playerColor + ", AI: " + (playerColor.equals("White") ? "Black" : "White"));
+        logger.info("AI game started - Player: " + playerColor + ", AI: " + (playerColor.equals("White") ? "Black" : "White")
+            + ", difficulty: " + difficulty);
     }
     
     public void startHostGame(String serverAddress, int port) {
@@ -349,6 +413,10 @@ public class ChessGUI extends JFrame {
         } else {
             // For local/AI games, validate locally first
             if (board.isValidMove(move)) {
+                if (!confirmNoBlunder(move)) {
+                    clearSelection();
+                    return;
+                }
                 this.pendingMove = move;
                 boardPanel.animateMove(move);
             } else {
@@ -370,6 +438,34 @@ public class ChessGUI extends JFrame {
         }
     }
 
+    /**
+     * With the blunder guard on, warn about a move that throws the game away and let the player
+     * take it back. A check that runs out of time lets the move through unwarned.
+     */
+    private boolean confirmNoBlunder(Move move) {
+        if (blunderGuard == null) {
+            return true;
+        }
+        BlunderGuard.Warning warning = blunderGuard.check(board, move);
+        if (warning == null) {
+            return true;
+        }
+        logger.info("Blunder guard: " + move.getAlgebraicNotation() + " - " + warning.getMessage());
+        int choice = JOptionPane.showConfirmDialog(this,
+                warning.getMessage() + "\n\nPlay " + move.getAlgebraicNotation() + " anyway?",
+                "Game Teacher", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
+        return choice == JOptionPane.YES_OPTION;
+    }
+    
+    private void setBlunderGuardEnabled(boolean enabled) {
+        if (enabled && blunderGuard == null) {
+            blunderGuard = new BlunderGuard();
+        } else if (!enabled && blunderGuard != null) {
+            blunderGuard.close();
+            blunderGuard = null;
+        }
+    }
+
     /**
      * Handles a user clicking on a square (for click-to-move).
      */
@@ -472,6 +568,22 @@ public class ChessGUI extends JFrame {
         });
     }
     
+    /**
+     * The bitbase result for the side to move in an AI game, as a note for the status line.
+     * A proven draw can still be lost by a mistake, so it never ends the game.
+     */
+    private String endgameVerdict() {
+        if (gameMode != GameMode.AI) {
+            return "";
+        }
+        switch (EndgameOracle.getInstance().probe(board)) {
+            case WIN: return " (winning with best play)";
+            case LOSS: return " (losing with best play)";
+            case DRAW: return " (drawn with best play)";
+            default: return "";
+        }
+    }
+
     private void updateStatus() {
         logger.info("updateStatus called. Current turn: " + board.getCurrentTurn());
         logger.info("White in check: " + board.isInCheck("White"));
@@ -490,12 +602,13 @@ public class ChessGUI extends JFrame {
             showEndGameScreen("Stalemate! It's a draw.");
             return; // Stop further updates
         } else if (board.isInCheck(board.getCurrentTurn())) {
-            statusPanel.setStatus(board.getCurrentTurn() + " is in Check!");
+            statusPanel.setStatus(board.getCurrentTurn() + " is in Check!" + endgameVerdict());
         } else {
-            statusPanel.setStatus(board.getCurrentTurn() + "'s turn");
+            statusPanel.setStatus(board.getCurrentTurn() + "'s turn" + endgameVerdict());
         }
           statusPanel.setMoveCount(board.getMoveHistory().size());
         statusPanel.updateCapturedPieces(board.getWhiteCapturedPieces(), board.getBlackCapturedPieces());
+        statusPanel.setEvaluation(evaluator.evaluate(board));
         
         // Show last move if available
         if (!board.getMoveHistory().isEmpty()) {
@@ -510,6 +623,73 @@ public class ChessGUI extends JFrame {
                 handleAiMove();
             }
         }
+        showThreats();
+        updateLiveAnalysis();
+    }
+    
+    /**
+     * Point out what the side that just moved now threatens, for the player about to reply
+     */
+    private void showThreats() {
+        if ((gameMode != GameMode.LOCAL && gameMode != GameMode.AI) || isAITurn) {
+            return;
+        }
+        boolean byWhite = !"White".equals(board.getCurrentTurn());
+        List<ThreatDetector.Threat> threats = ThreatDetector.scan(board, byWhite);
+        List<String> warnings = new ArrayList<>();
+        boardPanel.clearHighlights();
+        for (ThreatDetector.Threat threat : threats.subList(0, Math.min(MAX_THREATS_SHOWN, threats.size()))) {
+            boardPanel.highlightThreat(threat.getFrom(), threat.getTargets());
+            warnings.add(threat.getDescription());
+        }
+        statusPanel.setThreats(warnings);
+    }
+    
+    /**
+     * Restart the background work on the current position: on a human's turn the hint is
+     * searched first, so the button finds it ready, and live analysis follows. Both stay
+     * paused while the AI searches its own move and are never run in network games.
+     */
+    private void updateLiveAnalysis() {
+        if (gameMode != GameMode.LOCAL && gameMode != GameMode.AI) {
+            return;
+        }
+        if (liveAnalysis == null) {
+            liveAnalysis = new LiveAnalysis(update -> SwingUtilities.invokeLater(() -> {
+                statusPanel.setEvaluation(update.getCentipawns());
+                statusPanel.setAnalysis(update.getDepth(), update.getPv());
+            }));
+        }
+        statusPanel.clearAnalysis();
+        liveAnalysis.pause();
+        if (isAITurn) {
+            getHints().cancel();
+            return;
+        }
+        long key = SearchBoard.fromBoard(board).getKey();
+        getHints().getHint(board, getSearchLimits()).whenComplete((move, error) -> SwingUtilities.invokeLater(() -> {
+            if (liveAnalysis != null && !isAITurn && SearchBoard.fromBoard(board).getKey() == key) {
+                liveAnalysis.analyze(board);
+            }
+        }));
+    }
+    
+    private HintService getHints() {
+        if (hints == null) {
+            hints = new HintService();
+        }
+        return hints;
+    }
+    
+    private void stopLiveAnalysis() {
+        if (liveAnalysis != null) {
+            liveAnalysis.close();
+            liveAnalysis = null;
+        }
+        if (hints != null) {
+            hints.close();
+            hints = null;
+        }
     }
     
     public void sendChatMessage(String message) {
@@ -525,6 +705,12 @@ public class ChessGUI extends JFrame {
         }
         
         isAITurn = true;
+        if (liveAnalysis != null) {
+            liveAnalysis.pause(); // The AI's search gets the CPU to itself
+        }
+        if (hints != null) {
+            hints.cancel();
+        }
         String aiColor = playerColor.equals("White") ? "Black" : "White";
         statusPanel.setStatus("AI (" + aiColor + ") is thinking...");
         logger.info("AI (" + aiColor + ") is calculating move...");
@@ -532,12 +718,21 @@ public class ChessGUI extends JFrame {
         aiMoveWorker = new SwingWorker<Move, Void>() {
             @Override
             protected Move doInBackground() throws Exception {
-                // Add a small delay for a more natural feel
-                Thread.sleep(500);
+                // Play from the opening book while the position is in it
+                Move bookMove = PolyglotBook.lookup(board);
+                if (bookMove != null) {
+                    logger.info("AI played book move: " + bookMove);
+                    return bookMove;
+                }
                 
-                // Get best move from Stockfish with 2 second time limit
-                Move bestMove = aiEngine.getBestMove(board, 2000);
-                logger.info("Stockfish returned move: " + (bestMove != null ? bestMove.toString() : "null"));
+                // The engine budgets its own time from the clock; a stalled Stockfish falls back to the native engine
+                awaitAiEngine();
+                HedgedMoveService service = moveService;
+                if (service == null) {
+                    throw new IllegalStateException("No AI engine available");
+                }
+                Move bestMove = service.getBestMove(board, difficulty.applyTo(getSearchLimits()));
+                logger.info("Engine returned move: " + (bestMove != null ? bestMove.toString() : "null"));
                 return bestMove;
             }
 
@@ -576,7 +771,7 @@ public class ChessGUI extends JFrame {
                 }
             }
         };
-        aiMoveWorker.execute();
+        engineExecutor.execute(aiMoveWorker);
     }
     
     private void makeMove(Move move) {
@@ -601,6 +796,9 @@ public class ChessGUI extends JFrame {
             // Wait for the server's BOARD:FEN response instead
             if (gameMode != GameMode.MULTIPLAYER_HOST && gameMode != GameMode.MULTIPLAYER_CLIENT) {
                 board.makeMove(pendingMove);
+                if (clock != null) {
+                    clock.switchTurn();
+                }
                 
                 // Check for game ending conditions after the move
                 String gameResult = board.checkGameEndingConditions();
@@ -626,6 +824,14 @@ public class ChessGUI extends JFrame {
             // If an AI move was just made, unlock the board for the player
             if (isAITurn) {
                 isAITurn = false;
+                // Think on the player's time about the reply the engine expects; weaker levels
+                // don't, since the extra search would make them stronger than their budget
+                ChessEngine engine = aiEngine;
+                if (gameMode == GameMode.AI && engine != null && difficulty.isFullStrength()) {
+                    Board position = board.clone();
+                    SearchLimits limits = getSearchLimits();
+                    engineExecutor.execute(() -> engine.startPondering(position, limits));
+                }
             }
 
             // Only repaint if user is not currently dragging a piece
@@ -660,6 +866,14 @@ public class ChessGUI extends JFrame {
     }
     
     public void showEndGameScreen(String message) {
+        stopClock();
+        ChessEngine engine = aiEngine;
+        if (engine != null) {
+            engineExecutor.execute(engine::stopPondering);
+        }
+        stopLiveAnalysis();
+        engineExecutor.execute(detachAiEngine()); // The game review gets every engine in the pool
+        
         // Build the summary message
         StringBuilder summary = new StringBuilder();
         summary.append(message).append("\n\n");
@@ -677,25 +891,14 @@ public class ChessGUI extends JFrame {
         }
         summary.append("\n");
 
-        // Use JTextArea for better formatting in JOptionPane
-        JTextArea textArea = new JTextArea(summary.toString());
-        textArea.setEditable(false);
-        textArea.setBackground(null);
-        textArea.setFont(new Font("Arial", Font.PLAIN, 14));
-
-        // Show the dialog on the EDT to be safe
+        // Show the dialog on the EDT to be safe; it reviews the game while open
+        List<Move> moves = new ArrayList<>(board.getMoveHistory());
         SwingUtilities.invokeLater(() -> {
-            Object[] options = {"Main Menu", "Exit"};
-            int choice = JOptionPane.showOptionDialog(this,
-                    textArea,
-                    "Game Over",
-                    JOptionPane.YES_NO_OPTION,
-                    JOptionPane.INFORMATION_MESSAGE,
-                    null,
-                    options,
-                    options[0]);
+            GameSummaryDialog dialog = new GameSummaryDialog(this, message, summary.toString(), moves);
+            dialog.setVisible(true);
+            int choice = dialog.getChoice();
 
-            if (choice == JOptionPane.YES_OPTION) {
+            if (choice == GameSummaryDialog.MAIN_MENU) {
                 // Main Menu - close socket if multiplayer, then restart the application
                 if (gameMode == GameMode.MULTIPLAYER_HOST || gameMode == GameMode.MULTIPLAYER_CLIENT) {
                     if (networkClient != null) {
@@ -711,7 +914,7 @@ public class ChessGUI extends JFrame {
                         System.exit(0);
                     }
                 });
-            } else if (choice == JOptionPane.NO_OPTION) {
+            } else if (choice == GameSummaryDialog.EXIT) {
                 // Exit
                 System.exit(0);
             }
@@ -743,17 +946,12 @@ public class ChessGUI extends JFrame {
         
         logger.info("Hint requested for " + board.getCurrentTurn() + " in " + gameMode + " mode");
         
+        // Usually already worked out while the player was thinking; otherwise joins or starts the search
+        CompletableFuture<Move> hint = getHints().getHint(board, getSearchLimits());
         new SwingWorker<Move, Void>() {
             @Override
             protected Move doInBackground() throws Exception {
-                if (aiEngine != null && aiEngine.isEngineAvailable()) {
-                    // Use Stockfish for a deeper analysis (reasonable search time for hints)
-                    return aiEngine.getBestMove(board, 2000); // 2 seconds for hint
-                } else {
-                    // Fallback to simple evaluation or random move
-                    logger.warn("Stockfish not available, using fallback for hint");
-                    return aiEngine != null ? aiEngine.getRandomMove(board) : null;
-                }
+                return hint.get(ENGINE_WAIT_MS, TimeUnit.MILLISECONDS);
             }
 
             @Override
@@ -804,19 +1002,141 @@ public class ChessGUI extends JFrame {
         }.execute();
     }
     
+    /**
+     * Start a fresh clock for an AI game, ticking the display and checking for flag fall
+     */
+    private void startClock(long initialMs, long incrementMs) {
+        stopClock();
+        clock = new ChessClock(initialMs, incrementMs);
+        clock.start(board.getCurrentTurn());
+        clockTimer = new javax.swing.Timer(200, e -> updateClock());
+        clockTimer.start();
+        updateClock();
+    }
+    
+    private void stopClock() {
+        if (clockTimer != null) {
+            clockTimer.stop();
+            clockTimer = null;
+        }
+        if (clock != null) {
+            clock.stop();
+            clock = null;
+        }
+    }
+    
+    private void updateClock() {
+        if (clock == null) {
+            return;
+        }
+        statusPanel.setClock(ChessClock.format(clock.getRemainingMs("White")),
+            ChessClock.format(clock.getRemainingMs("Black")), clock.getRunningColor());
+        String running = clock.getRunningColor();
+        if (running != null && clock.isFlagged(running)) {
+            if (aiMoveWorker != null && !aiMoveWorker.isDone()) {
+                aiMoveWorker.cancel(true);
+            }
+            String winner = running.equals("White") ? "Black" : "White";
+            logger.info(running + " lost on time");
+            showEndGameScreen(running + " ran out of time. " + winner + " wins.");
+        }
+    }
+    
+    /**
+     * Search limits for the side to move: its real clock in timed games, otherwise a notional one
+     */
+    private SearchLimits getSearchLimits() {
+        if (clock != null) {
+            return SearchLimits.clock(clock);
+        }
+        return SearchLimits.clock(UNTIMED_BANK_MS, UNTIMED_BANK_MS, 0, 0, UNTIMED_MOVES_TO_GO);
+    }
+    
+    /**
+     * Check an engine out of the shared pool for AI play, returning any previous one.
+     * The pool may still be starting, so the lease is taken in the background; work
+     * that needs the engine waits for it with {@link #awaitAiEngine()}.
+     */
+    private void leaseAiEngine(String failureMessage) {
+        aiEngineReady = aiEngineReady.handle((ignored, error) -> null)
+                .thenCompose(ignored -> EnginePool.getSharedAsync())
+                .thenAcceptAsync(pool -> {
+                    releaseAiEngine();
+                    try {
+                        EnginePool.Lease lease = pool.acquire(EnginePool.DEFAULT_TIMEOUT_MS);
+                        synchronized (engineLock) {
+                            aiLease = lease;
+                            aiEngine = lease.getEngine();
+                            moveService = new HedgedMoveService(aiEngine);
+                        }
+                    } catch (TimeoutException | InterruptedException e) {
+                        throw new CompletionException(e);
+                    }
+                });
+        aiEngineReady.whenComplete((ignored, error) -> {
+            if (error == null) {
+                logger.info("AI engine initialized successfully");
+                return;
+            }
+            logger.error("Failed to initialize AI engine: " + error.getMessage());
+            SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this,
+                failureMessage, "AI Engine Error", JOptionPane.WARNING_MESSAGE));
+        });
+    }
+    
+    /**
+     * Wait for the AI engine lease; null if it could not be taken. Call off the event thread.
+     */
+    private ChessEngine awaitAiEngine() {
+        try {
+            aiEngineReady.get(ENGINE_WAIT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            logger.warn("AI engine not available: " + e.getMessage());
+        }
+        return aiEngine;
+    }
+    
+    private void releaseAiEngine() {
+        detachAiEngine().run();
+    }
+    
+    /**
+     * Let go of the AI engine at once and return the work of handing it back, which waits
+     * for the engine and so belongs on {@link #engineExecutor} when called from the event thread
+     */
+    private Runnable detachAiEngine() {
+        synchronized (engineLock) {
+            HedgedMoveService service = moveService;
+            EnginePool.Lease lease = aiLease;
+            moveService = null;
+            aiLease = null;
+            aiEngine = null;
+            return () -> {
+                if (service != null) {
+                    service.close();
+                }
+                if (lease != null) {
+                    lease.close();
+                }
+            };
+        }
+    }
+    
     @Override
     public void dispose() {
+        stopClock();
         if (aiMoveWorker != null && !aiMoveWorker.isDone()) {
             aiMoveWorker.cancel(true); // Cancel the background task
         }
-        if (aiEngine != null) {
-            try {
-                aiEngine.close();
-            } catch (IOException e) {
-                logger.error("Error closing AI engine: " + e.getMessage());
-            }
-
+        stopLiveAnalysis();
+        setBlunderGuardEnabled(false);
+        if (!engineExecutor.isShutdown()) {
+            engineExecutor.execute(detachAiEngine());
+            engineExecutor.shutdown();
         }
+        EnginePool.closeShared();
         if (networkClient != null) {
             networkClient.disconnect();
         }
@@ -1004,6 +1324,12 @@ public class ChessGUI extends JFrame {
         }
         
         viewMenu.add(themeMenu);
+        
+        // Blunder guard: check each move of a local or AI game before it is played
+        viewMenu.addSeparator();
+        JCheckBoxMenuItem blunderGuardItem = new JCheckBoxMenuItem("Warn Before Blunders");
+        blunderGuardItem.addActionListener(e -> setBlunderGuardEnabled(blunderGuardItem.isSelected()));
+        viewMenu.add(blunderGuardItem);
         menuBar.add(viewMenu);
         
         setJMenuBar(menuBar);
@@ -1160,6 +1486,9 @@ public class ChessGUI extends JFrame {
                     }
                 }
                 
+                // Saved games do not record clock times, so continue untimed
+                stopClock();
+                
                 // Update the GUI
                 updateStatus();
                 if (boardPanel != null) {
@@ -1202,6 +1531,9 @@ public class ChessGUI extends JFrame {
             // Reset game state
             selectedFrom = null;
             isAITurn = false;
+            if (clock != null) {
+                startClock(clock.getInitialMs(), clock.getIncrementMs());
+            }
             
             // Update GUI
             updateStatus();
@@ -0,0 +1,69 @@
+package com.chess.gui;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Horizontal evaluation bar: the white share grows as the position favours White
+ */
+public class EvalBar extends JComponent {
+    private static final int MATE_THRESHOLD = 31000;
+
+    private int centipawns;
+    private String label = "0.00";
+
+    public EvalBar() {
+        setPreferredSize(new Dimension(200, 22));
+        setMaximumSize(new Dimension(Integer.MAX_VALUE, 22));
+        setAlignmentX(Component.LEFT_ALIGNMENT);
+        setToolTipText("Position evaluation from White's point of view");
+    }
+
+    /**
+     * Set the score in centipawns from White's point of view
+     */
+    public void setEvaluation(int centipawns) {
+        this.centipawns = centipawns;
+        if (Math.abs(centipawns) >= MATE_THRESHOLD) {
+            label = (centipawns > 0 ? "+M" : "-M") + (32000 - Math.abs(centipawns) + 1) / 2;
+        } else {
+            label = String.format("%+.2f", centipawns / 100.0);
+        }
+        repaint();
+    }
+
+    public int getEvaluation() {
+        return centipawns;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2d = (Graphics2D) g.create();
+        GuiUtils.setOptimalRenderingHints(g2d);
+        int width = getWidth();
+        int height = getHeight();
+
+        // Logistic mapping keeps small advantages visible without saturating early
+        double whiteShare = 1.0 / (1.0 + Math.exp(-centipawns / 400.0));
+        int whiteWidth = (int) Math.round(width * whiteShare);
+
+        g2d.setColor(new Color(40, 40, 40));
+        g2d.fillRect(0, 0, width, height);
+        g2d.setColor(new Color(235, 235, 235));
+        g2d.fillRect(0, 0, whiteWidth, height);
+        g2d.setColor(Color.GRAY);
+        g2d.drawRect(0, 0, width - 1, height - 1);
+
+        g2d.setFont(new Font("Segoe UI", Font.BOLD, 11));
+        FontMetrics fm = g2d.getFontMetrics();
+        int y = (height - fm.getHeight()) / 2 + fm.getAscent();
+        if (centipawns >= 0) {
+            g2d.setColor(Color.BLACK);
+            g2d.drawString(label, 4, y);
+        } else {
+            g2d.setColor(Color.WHITE);
+            g2d.drawString(label, width - fm.stringWidth(label) - 4, y);
+        }
+        g2d.dispose();
+    }
+}
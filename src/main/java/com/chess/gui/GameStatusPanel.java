@@ -1,6 +1,7 @@
 package com.chess.gui;
 
 import com.chess.model.Piece;
+import com.chess.utils.EmojiUtils;
 import javax.swing.*;
 import java.awt.*;
 import java.util.List;
@@ -16,7 +17,11 @@ public class GameStatusPanel extends JPanel {
     private JLabel blackCapturedLabel;
     private JButton hintButton;
     private JLabel hintLabel;
+    private JLabel threatLabel;
     private JLabel teacherTitle;
+    private EvalBar evalBar;
+    private JLabel analysisLabel;
+    private JLabel clockLabel;
 
     public GameStatusPanel() {
         this(null);
@@ -48,6 +53,14 @@ public class GameStatusPanel extends JPanel {
         // Add components with better spacing
         add(turnLabel);
         add(Box.createVerticalStrut(8));
+        
+        // Clock is only shown for timed (AI) games
+        if ("AI".equals(gameMode)) {
+            clockLabel = new JLabel("White 0:00 | Black 0:00");
+            clockLabel.setFont(new Font("Segoe UI", Font.BOLD, 13));
+            add(clockLabel);
+            add(Box.createVerticalStrut(5));
+        }
         add(movesLabel);
         add(Box.createVerticalStrut(5));
         add(lastMoveLabel);
@@ -67,6 +80,20 @@ public class GameStatusPanel extends JPanel {
             (gameMode.equals("MULTIPLAYER_HOST") || gameMode.equals("MULTIPLAYER_CLIENT"));
         
         if (!isMultiplayer) {
+            add(Box.createVerticalStrut(15));
+            
+            JLabel evalTitle = new JLabel("Evaluation:");
+            evalTitle.setFont(new Font("Segoe UI", Font.BOLD, 13));
+            add(evalTitle);
+            add(Box.createVerticalStrut(5));
+            evalBar = new EvalBar();
+            add(evalBar);
+            add(Box.createVerticalStrut(3));
+            analysisLabel = new JLabel(" ");
+            analysisLabel.setFont(new Font("Segoe UI", Font.PLAIN, 11));
+            analysisLabel.setToolTipText("Line the engine expects from here");
+            add(analysisLabel);
+            
             add(Box.createVerticalStrut(20));
             
             teacherTitle = new JLabel("Game Teacher:");
@@ -85,6 +112,12 @@ public class GameStatusPanel extends JPanel {
             hintLabel = new JLabel("Hints remaining: 3");
             hintLabel.setFont(new Font("Segoe UI", Font.ITALIC, 11));
             add(hintLabel);
+            
+            add(Box.createVerticalStrut(5));
+            threatLabel = new JLabel(" ");
+            threatLabel.setFont(new Font("Segoe UI", Font.PLAIN, 11));
+            threatLabel.setForeground(new Color(180, 60, 0));
+            add(threatLabel);
         }
         
         // Add some bottom padding
@@ -110,6 +143,14 @@ public class GameStatusPanel extends JPanel {
         setStatus(status);
     }
     
+    public void setClock(String whiteTime, String blackTime, String runningColor) {
+        if (clockLabel != null) {
+            String white = "White".equals(runningColor) ? "<u>White " + whiteTime + "</u>" : "White " + whiteTime;
+            String black = "Black".equals(runningColor) ? "<u>Black " + blackTime + "</u>" : "Black " + blackTime;
+            clockLabel.setText("<html>" + white + " | " + black + "</html>");
+        }
+    }
+    
     public void setMoveCount(int count) {
         movesLabel.setText("Moves: " + count);
     }
@@ -143,4 +184,39 @@ public class GameStatusPanel extends JPanel {
             hintLabel.setText("Hints remaining: " + count);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Update the evaluation bar (centipawns from White's point of view)
+     */
+    public void setEvaluation(int centipawns) {
+        if (evalBar != null) {
+            evalBar.setEvaluation(centipawns);
+        }
+    }
+
+    /**
+     * Show the engine's search depth and expected line under the evaluation bar
+     */
+    public void setAnalysis(int depth, String pv) {
+        if (analysisLabel != null) {
+            analysisLabel.setText(pv.isEmpty() ? " " : "Depth " + depth + ": " + pv);
+        }
+    }
+
+    /**
+     * Warn about the opponent's threats, one per line; none clears the warning
+     */
+    public void setThreats(List<String> threats) {
+        if (threatLabel != null) {
+            threatLabel.setText(threats.isEmpty() ? " "
+                    : "<html>" + EmojiUtils.WARNING + " " + String.join("<br>" + EmojiUtils.WARNING + " ", threats)
+                    + "</html>");
+        }
+    }
+
+    public void clearAnalysis() {
+        if (analysisLabel != null) {
+            analysisLabel.setText(" ");
+        }
+    }
+}
@@ -1,58 +1,207 @@
 package com.chess.gui;
 
+import com.chess.model.Move;
+import com.chess.teacher.GameReview;
+import com.chess.utils.Logger;
+
 import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
 
 /**
- * Simple dialog shown when a chess game ends
+ * Dialog shown when a chess game ends, with a move-by-move review of the game
+ * that fills in while the engines work through it
  */
 public class GameSummaryDialog extends JDialog {
-    
+    private static final Logger logger = Logger.getLogger(GameSummaryDialog.class);
+
+    public static final int CLOSED = -1;
+    public static final int MAIN_MENU = 0;
+    public static final int EXIT = 1;
+
+    private final JProgressBar progressBar = new JProgressBar();
+    private final DefaultTableModel reviewModel = new DefaultTableModel(
+            new Object[]{"#", "Move", "Best", "Loss", "Verdict"}, 0) {
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return false;
+        }
+    };
+    private final JLabel whiteLabel = new JLabel(" ");
+    private final JLabel blackLabel = new JLabel(" ");
+    private GameReview review;
+    private int choice = CLOSED;
+
     public GameSummaryDialog(JFrame parent, String gameResult) {
+        this(parent, gameResult, null, Collections.emptyList());
+    }
+
+    /**
+     * @param details text shown under the result, or null
+     * @param moves   the game's moves from the starting position; reviewed when not empty
+     */
+    public GameSummaryDialog(JFrame parent, String gameResult, String details, List<Move> moves) {
         super(parent, "Game Over", true);
-        
+
         setLayout(new BorderLayout(10, 10));
-        setSize(400, 200);
-        setLocationRelativeTo(parent);
         setDefaultCloseOperation(DISPOSE_ON_CLOSE);
-        setResizable(false);
-        
+
         // Create main panel
         JPanel mainPanel = new JPanel();
         mainPanel.setLayout(new BoxLayout(mainPanel, BoxLayout.Y_AXIS));
-        mainPanel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
-        
+        mainPanel.setBorder(BorderFactory.createEmptyBorder(20, 20, 10, 20));
+
         // Game result label
         JLabel resultLabel = new JLabel(gameResult);
         resultLabel.setFont(new Font("Arial", Font.BOLD, 18));
         resultLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
         resultLabel.setForeground(getResultColor(gameResult));
-        
-        // Add components to main panel
         mainPanel.add(resultLabel);
-        mainPanel.add(Box.createVerticalStrut(20));
-        
+
+        if (details != null) {
+            JTextArea detailsArea = new JTextArea(details);
+            detailsArea.setEditable(false);
+            detailsArea.setBackground(null);
+            detailsArea.setFont(new Font("Arial", Font.PLAIN, 14));
+            detailsArea.setAlignmentX(Component.CENTER_ALIGNMENT);
+            mainPanel.add(Box.createVerticalStrut(10));
+            mainPanel.add(detailsArea);
+        }
+
+        if (!moves.isEmpty()) {
+            mainPanel.add(Box.createVerticalStrut(10));
+            mainPanel.add(createReviewPanel());
+        }
+
         // Button panel
         JPanel buttonPanel = new JPanel();
         buttonPanel.setLayout(new FlowLayout(FlowLayout.CENTER));
-        
-        JButton newGameButton = new JButton("New Game");
-        JButton closeButton = new JButton("Close");
-        
-        newGameButton.addActionListener(e -> dispose());
-        closeButton.addActionListener(e -> dispose());
-        
-        buttonPanel.add(newGameButton);
-        buttonPanel.add(closeButton);
-        
+
+        JButton mainMenuButton = new JButton("Main Menu");
+        JButton exitButton = new JButton("Exit");
+
+        mainMenuButton.addActionListener(e -> close(MAIN_MENU));
+        exitButton.addActionListener(e -> close(EXIT));
+
+        buttonPanel.add(mainMenuButton);
+        buttonPanel.add(exitButton);
+
         // Add panels to dialog
         add(mainPanel, BorderLayout.CENTER);
         add(buttonPanel, BorderLayout.SOUTH);
-        
-        // Set focus to new game button
-        getRootPane().setDefaultButton(newGameButton);
+
+        // Set focus to main menu button
+        getRootPane().setDefaultButton(mainMenuButton);
+
+        // Whichever way the dialog goes, its review stops with it
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                stopReview();
+            }
+        });
+
+        pack();
+        setLocationRelativeTo(parent);
+        if (!moves.isEmpty()) {
+            startReview(moves);
+        }
+    }
+
+    private JPanel createReviewPanel() {
+        JPanel reviewPanel = new JPanel(new BorderLayout(5, 5));
+        reviewPanel.setBorder(BorderFactory.createTitledBorder("Game Review"));
+
+        progressBar.setStringPainted(true);
+        progressBar.setString("Reviewing...");
+        reviewPanel.add(progressBar, BorderLayout.NORTH);
+
+        JTable reviewTable = new JTable(reviewModel);
+        reviewTable.setFillsViewportHeight(true);
+        JScrollPane scrollPane = new JScrollPane(reviewTable);
+        scrollPane.setPreferredSize(new Dimension(420, 200));
+        reviewPanel.add(scrollPane, BorderLayout.CENTER);
+
+        JPanel totalsPanel = new JPanel(new GridLayout(2, 1));
+        totalsPanel.add(whiteLabel);
+        totalsPanel.add(blackLabel);
+        reviewPanel.add(totalsPanel, BorderLayout.SOUTH);
+        return reviewPanel;
+    }
+
+    private void startReview(List<Move> moves) {
+        review = new GameReview();
+        progressBar.setMaximum(moves.size());
+        review.review(moves, (moveReview, reviewed, total) -> SwingUtilities.invokeLater(() -> {
+            progressBar.setMaximum(total);
+            progressBar.setValue(progressBar.getValue() + 1); // Counts can arrive out of order
+            progressBar.setString("Reviewed " + progressBar.getValue() + " of " + total + " moves");
+            addReviewRow(moveReview);
+        })).whenComplete((report, error) -> SwingUtilities.invokeLater(() -> {
+            if (report != null) {
+                progressBar.setString("Review complete");
+                whiteLabel.setText(describe("White", report, true));
+                blackLabel.setText(describe("Black", report, false));
+            } else if (!(error instanceof CancellationException || error.getCause() instanceof CancellationException)) {
+                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                logger.warn("Game review failed: " + cause.getMessage());
+                progressBar.setString("Review unavailable");
+            }
+        }));
+    }
+
+    /**
+     * Rows are kept in game order even though moves are reviewed out of order
+     */
+    private void addReviewRow(GameReview.MoveReview moveReview) {
+        int row = 0;
+        while (row < reviewModel.getRowCount() && (Integer) reviewModel.getValueAt(row, 0) <= moveReview.getPly() + 1) {
+            row++;
+        }
+        Move best = moveReview.getBestMove();
+        reviewModel.insertRow(row, new Object[]{
+                moveReview.getPly() + 1,
+                (moveReview.getPly() / 2 + 1) + (moveReview.isWhite() ? ". " : "... ")
+                        + moveReview.getMove().getAlgebraicNotation(),
+                best != null ? best.getAlgebraicNotation() : "",
+                moveReview.getCentipawnLoss(),
+                moveReview.getJudgement()
+        });
     }
-    
+
+    private static String describe(String player, GameReview.Report report, boolean white) {
+        return String.format("%s: %.1f%% accuracy, %d average loss, %d inaccuracies, %d mistakes, %d blunders",
+                player, report.getAccuracy(white), report.getAverageCentipawnLoss(white),
+                report.count(white, GameReview.Judgement.INACCURACY),
+                report.count(white, GameReview.Judgement.MISTAKE),
+                report.count(white, GameReview.Judgement.BLUNDER));
+    }
+
+    private void close(int choice) {
+        this.choice = choice;
+        dispose();
+    }
+
+    private void stopReview() {
+        if (review != null) {
+            review.close();
+            review = null;
+        }
+    }
+
+    /**
+     * The button the dialog was closed with: {@link #MAIN_MENU}, {@link #EXIT} or {@link #CLOSED}
+     */
+    public int getChoice() {
+        return choice;
+    }
+
     private Color getResultColor(String gameResult) {
         if (gameResult.contains("CHECKMATE")) {
             return new Color(0, 100, 0); // Dark green
@@ -62,7 +211,7 @@ public class GameSummaryDialog extends JDialog {
             return Color.BLACK;
         }
     }
-    
+
     /**
      * Show the game summary dialog
      */
@@ -70,4 +219,4 @@ public class GameSummaryDialog extends JDialog {
         GameSummaryDialog dialog = new GameSummaryDialog(parent, gameResult);
         dialog.setVisible(true);
     }
-} 
\ No newline at end of file
+}
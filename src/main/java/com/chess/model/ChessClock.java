@@ -0,0 +1,95 @@
+package com.chess.model;
+
+/**
+ * Two-sided chess clock with a Fischer increment
+ */
+public class ChessClock {
+    private final long initialMs;
+    private final long incrementMs;
+    private long whiteRemainingMs;
+    private long blackRemainingMs;
+    private String runningColor;
+    private long turnStartedAt;
+
+    public ChessClock(long initialMs, long incrementMs) {
+        this.initialMs = initialMs;
+        this.incrementMs = incrementMs;
+        this.whiteRemainingMs = initialMs;
+        this.blackRemainingMs = initialMs;
+    }
+
+    /**
+     * Start (or restart) the clock for the given side
+     */
+    public synchronized void start(String color) {
+        runningColor = color;
+        turnStartedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Charge the running side for its move, add the increment and start the other side's clock
+     */
+    public synchronized void switchTurn() {
+        if (runningColor == null) {
+            return;
+        }
+        long elapsed = System.currentTimeMillis() - turnStartedAt;
+        if (runningColor.equals("White")) {
+            whiteRemainingMs = Math.max(0, whiteRemainingMs - elapsed) + incrementMs;
+            start("Black");
+        } else {
+            blackRemainingMs = Math.max(0, blackRemainingMs - elapsed) + incrementMs;
+            start("White");
+        }
+    }
+
+    public synchronized void stop() {
+        if (runningColor != null) {
+            long elapsed = System.currentTimeMillis() - turnStartedAt;
+            if (runningColor.equals("White")) {
+                whiteRemainingMs = Math.max(0, whiteRemainingMs - elapsed);
+            } else {
+                blackRemainingMs = Math.max(0, blackRemainingMs - elapsed);
+            }
+            runningColor = null;
+        }
+    }
+
+    /**
+     * Time left for a side, including the time already spent on a running turn
+     */
+    public synchronized long getRemainingMs(String color) {
+        long remaining = color.equals("White") ? whiteRemainingMs : blackRemainingMs;
+        if (color.equals(runningColor)) {
+            remaining -= System.currentTimeMillis() - turnStartedAt;
+        }
+        return Math.max(0, remaining);
+    }
+
+    public long getIncrementMs() {
+        return incrementMs;
+    }
+
+    public long getInitialMs() {
+        return initialMs;
+    }
+
+    public synchronized String getRunningColor() {
+        return runningColor;
+    }
+
+    public boolean isFlagged(String color) {
+        return getRemainingMs(color) <= 0;
+    }
+
+    /**
+     * Format a duration as m:ss (or s.t below ten seconds)
+     */
+    public static String format(long ms) {
+        if (ms < 10_000) {
+            return String.format("%d.%d", ms / 1000, (ms % 1000) / 100);
+        }
+        long seconds = ms / 1000;
+        return String.format("%d:%02d", seconds / 60, seconds % 60);
+    }
+}
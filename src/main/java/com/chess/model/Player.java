@@ -1,6 +1,8 @@
 package com.chess.model;
 
 import com.chess.engine.ChessEngine;
+import com.chess.engine.SearchLimits;
+import com.chess.engine.book.PolyglotBook;
 import java.io.IOException;
 
 /**
@@ -38,6 +40,10 @@ class AIPlayer extends Player {
     }
     @Override
     public Move makeMove(Board board) throws IOException {
-        return engine.getBestMove(board, depth);
+        Move bookMove = PolyglotBook.lookup(board);
+        if (bookMove != null) {
+            return bookMove;
+        }
+        return engine.getBestMove(board, SearchLimits.depth(depth));
     }
 } 
\ No newline at end of file
@@ -0,0 +1,184 @@
+package com.chess.teacher;
+
+import com.chess.engine.NativeEngine;
+import com.chess.engine.SearchBoard;
+import com.chess.engine.eval.TaperedEvaluator;
+import com.chess.model.Board;
+import com.chess.model.Move;
+import com.chess.utils.Logger;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A quick look at a move before it is played, to warn about an obvious blunder.
+ *
+ * {@link #check(Board, Move)} runs two shallow native searches, one for the best move and one
+ * for the reply to the move attempted, and warns if the attempted move is much worse. It never
+ * takes longer than its budget: a search that has not finished in time is stopped and the
+ * move goes ahead unchecked. It has its own small engine, so it never waits for the pool.
+ */
+public class BlunderGuard implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(BlunderGuard.class);
+
+    /** Longest a check may hold up a move */
+    public static final long DEFAULT_BUDGET_MS = 40;
+    /** Centipawns lost against the best move that count as a blunder */
+    public static final int BLUNDER_CENTIPAWNS = 200;
+    /** Deep enough to see a piece left hanging or a mate in one */
+    private static final int MAX_DEPTH = 6;
+    private static final int HASH_MB = 4;
+
+    /**
+     * A blunder found: the better move and what the one attempted loses
+     */
+    public static final class Warning {
+        private final Move bestMove;
+        private final int loss;
+        private final boolean allowsMate;
+
+        Warning(Move bestMove, int loss, boolean allowsMate) {
+            this.bestMove = bestMove;
+            this.loss = loss;
+            this.allowsMate = allowsMate;
+        }
+
+        public Move getBestMove() {
+            return bestMove;
+        }
+
+        /** Centipawns lost against the best move, capped for lines ending in mate */
+        public int getLoss() {
+            return loss;
+        }
+
+        public boolean allowsMate() {
+            return allowsMate;
+        }
+
+        public String getMessage() {
+            String cost = allowsMate ? "allows a forced mate"
+                    : String.format("loses about %.1f pawns", loss / 100.0);
+            return "That move " + cost + ". " + bestMove.getAlgebraicNotation() + " looks better.";
+        }
+
+        @Override
+        public String toString() {
+            return getMessage();
+        }
+    }
+
+    private final NativeEngine engine = new NativeEngine(new TaperedEvaluator(), HASH_MB);
+    private final ExecutorService searcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "blunder-guard");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final long budgetMs;
+    private long checks;
+    private long timeouts;
+
+    public BlunderGuard() {
+        this(DEFAULT_BUDGET_MS);
+    }
+
+    public BlunderGuard(long budgetMs) {
+        this.budgetMs = budgetMs;
+    }
+
+    /**
+     * A warning if the move is a clear blunder, or null if it is fine or could not be judged in time
+     */
+    public Warning check(Board board, Move move) {
+        long start = System.nanoTime();
+        checks++;
+        Board position = board.clone();
+        Future<Warning> result;
+        try {
+            result = searcher.submit(() -> judge(position, move, start));
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+        try {
+            return result.get(Math.max(0, remainingMs(start)), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Out of time: let the move through rather than keep the player waiting
+            timeouts++;
+            result.cancel(false);
+            engine.stop();
+            logger.debug("Blunder check stepped aside after " + budgetMs + " ms");
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            engine.stop();
+            return null;
+        } catch (ExecutionException e) {
+            logger.warn("Blunder check failed: " + e.getCause().getMessage());
+            return null;
+        }
+    }
+
+    private Warning judge(Board board, Move move, long start) {
+        SearchBoard position = SearchBoard.fromBoard(board);
+        int attempted = position.fromModelMove(move);
+        if (attempted == SearchBoard.NO_MOVE) {
+            return null;
+        }
+        // Queued behind a check that overran, and out of time already
+        if (remainingMs(start) <= 0) {
+            return null;
+        }
+        // Half the budget each: the best move, then the reply to the move attempted
+        long half = Math.max(1, remainingMs(start) / 2);
+        int best = engine.search(position, half, MAX_DEPTH);
+        int depth = engine.getCompletedDepth();
+        if (depth == 0 || best == attempted || best == SearchBoard.NO_MOVE) {
+            return null;
+        }
+        int bestScore = engine.getBestScore();
+
+        if (remainingMs(start) <= 0 || !position.makeMove(attempted)) {
+            return null;
+        }
+        // The attempted move is already one ply in, so one ply less keeps the horizons level
+        engine.search(position, Math.max(1, remainingMs(start)), Math.max(1, depth - 1));
+        if (engine.getCompletedDepth() == 0) {
+            return null;
+        }
+        int attemptedScore = -engine.getBestScore();
+        position.unmakeMove();
+
+        int loss = Math.min(bestScore, NativeEngine.KNOWN_WIN) - Math.max(attemptedScore, -NativeEngine.KNOWN_WIN);
+        if (loss < BLUNDER_CENTIPAWNS) {
+            return null;
+        }
+        boolean allowsMate = attemptedScore <= -NativeEngine.MATE_BOUND;
+        return new Warning(SearchBoard.toModelMove(best, board), Math.min(loss, NativeEngine.KNOWN_WIN), allowsMate);
+    }
+
+    private long remainingMs(long start) {
+        return budgetMs - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    /**
+     * Checks made, and how many of them ran out of time and let the move through
+     */
+    public long getChecks() {
+        return checks;
+    }
+
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    @Override
+    public void close() {
+        engine.stop();
+        searcher.shutdownNow();
+    }
+}
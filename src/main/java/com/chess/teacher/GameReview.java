@@ -0,0 +1,367 @@
+package com.chess.teacher;
+
+import com.chess.engine.EngineOptions;
+import com.chess.engine.EnginePool;
+import com.chess.engine.SearchBoard;
+import com.chess.engine.SearchLimits;
+import com.chess.engine.eval.TaperedEvaluator;
+import com.chess.engine.uci.SearchInfo;
+import com.chess.engine.uci.SearchResult;
+import com.chess.model.Board;
+import com.chess.model.Move;
+import com.chess.utils.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Post-game review: how much each move of a finished game gave away.
+ *
+ * Every position of the game is searched under the same fixed limits, and the
+ * searches are spread over an {@link EnginePool} (Stockfish or native engines),
+ * one per engine at a time, instead of one after another. A move is judged as
+ * soon as the positions before and after it are both known, so results stream in
+ * while the rest are still being searched. A move's loss is the engine's best
+ * score minus the score after the move, both from the mover's side; accuracy
+ * comes from the drop in winning chances, as in {@link TeacherModule}.
+ */
+public class GameReview implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(GameReview.class);
+
+    /** Depth searched in every position unless other limits are given */
+    public static final int DEFAULT_DEPTH = 10;
+    /** Scores are capped here before losses are taken, so a slower mate is not a blunder */
+    private static final int SCORE_CAP = 1000;
+    private static final int KNOWN_WIN_CENTIPAWNS = 10000;
+
+    /**
+     * How bad a move was, by centipawns lost against the best move
+     */
+    public enum Judgement {
+        BEST, GOOD, INACCURACY, MISTAKE, BLUNDER;
+
+        public static Judgement of(int centipawnLoss) {
+            if (centipawnLoss <= 0) {
+                return BEST;
+            } else if (centipawnLoss <= 50) {
+                return GOOD;
+            } else if (centipawnLoss <= 100) {
+                return INACCURACY;
+            } else if (centipawnLoss <= 300) {
+                return MISTAKE;
+            }
+            return BLUNDER;
+        }
+    }
+
+    /**
+     * Receives each move's review as soon as it is known, on a review thread
+     */
+    @FunctionalInterface
+    public interface Listener {
+        void onMoveReviewed(MoveReview review, int reviewed, int total);
+    }
+
+    /**
+     * One reviewed move
+     */
+    public static final class MoveReview {
+        private final int ply;
+        private final Move move;
+        private final Move bestMove;
+        private final int bestScore;
+        private final int playedScore;
+
+        MoveReview(int ply, Move move, Move bestMove, int bestScore, int playedScore) {
+            this.ply = ply;
+            this.move = move;
+            this.bestMove = bestMove;
+            this.bestScore = bestScore;
+            this.playedScore = playedScore;
+        }
+
+        /** Index of the move in the game, from 0 */
+        public int getPly() {
+            return ply;
+        }
+
+        public boolean isWhite() {
+            return ply % 2 == 0;
+        }
+
+        public Move getMove() {
+            return move;
+        }
+
+        /** The engine's choice, or null if the position was not searched */
+        public Move getBestMove() {
+            return bestMove;
+        }
+
+        /** Score of the best move, in centipawns for the mover */
+        public int getBestScore() {
+            return bestScore;
+        }
+
+        /** Score after the move played, in centipawns for the mover */
+        public int getPlayedScore() {
+            return playedScore;
+        }
+
+        public int getCentipawnLoss() {
+            return Math.max(0, cap(bestScore) - cap(playedScore));
+        }
+
+        /** Accuracy of the move in percent */
+        public double getAccuracy() {
+            return 100 * TeacherModule.calculateMoveQuality(cap(bestScore), cap(playedScore));
+        }
+
+        public Judgement getJudgement() {
+            return Judgement.of(getCentipawnLoss());
+        }
+
+        @Override
+        public String toString() {
+            return (ply / 2 + 1) + (isWhite() ? ". " : "... ") + move.getAlgebraicNotation() + " "
+                    + getJudgement() + " (-" + getCentipawnLoss() + " cp)";
+        }
+    }
+
+    /**
+     * Every move of the game with per-player totals
+     */
+    public static final class Report {
+        private final List<MoveReview> moves;
+
+        Report(List<MoveReview> moves) {
+            this.moves = Collections.unmodifiableList(moves);
+        }
+
+        public List<MoveReview> getMoves() {
+            return moves;
+        }
+
+        /** Mean accuracy of one side's moves in percent, or 100 with no moves */
+        public double getAccuracy(boolean white) {
+            double total = 0;
+            int count = 0;
+            for (MoveReview move : moves) {
+                if (move.isWhite() == white) {
+                    total += move.getAccuracy();
+                    count++;
+                }
+            }
+            return count == 0 ? 100 : total / count;
+        }
+
+        public int getAverageCentipawnLoss(boolean white) {
+            int total = 0;
+            int count = 0;
+            for (MoveReview move : moves) {
+                if (move.isWhite() == white) {
+                    total += move.getCentipawnLoss();
+                    count++;
+                }
+            }
+            return count == 0 ? 0 : total / count;
+        }
+
+        public int count(boolean white, Judgement judgement) {
+            int count = 0;
+            for (MoveReview move : moves) {
+                if (move.isWhite() == white && move.getJudgement() == judgement) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * A searched position: its best move and score for the side to move
+     */
+    private static final class Evaluation {
+        private final Move bestMove;
+        private final int score;
+
+        Evaluation(Move bestMove, int score) {
+            this.bestMove = bestMove;
+            this.score = score;
+        }
+    }
+
+    private final CompletableFuture<EnginePool> pool;
+    private final Supplier<SearchLimits> limits;
+    private final List<CompletableFuture<?>> searches = new ArrayList<>();
+    private ExecutorService executor;
+
+    /**
+     * A review on the shared engine pool at {@link #DEFAULT_DEPTH}
+     */
+    public GameReview() {
+        this(EnginePool.getSharedAsync(), () -> SearchLimits.depth(DEFAULT_DEPTH));
+    }
+
+    /**
+     * A review on the given pool; the supplier gives fresh limits for each position
+     */
+    public GameReview(EnginePool pool, Supplier<SearchLimits> limits) {
+        this(CompletableFuture.completedFuture(pool), limits);
+    }
+
+    private GameReview(CompletableFuture<EnginePool> pool, Supplier<SearchLimits> limits) {
+        this.pool = pool;
+        this.limits = limits;
+    }
+
+    /**
+     * Review a game played from the starting position. Moves after one that does not
+     * fit the game so far are left out.
+     */
+    public CompletableFuture<Report> review(List<Move> moves, Listener listener) {
+        List<Board> positions = replay(moves);
+        List<Move> played = new ArrayList<>();
+        for (int i = 0; i + 1 < positions.size(); i++) {
+            played.add(moves.get(i));
+        }
+        return pool.thenCompose(enginePool -> {
+            Pipeline pipeline = new Pipeline(positions, played, listener);
+            CompletableFuture<?>[] reviewSearches = new CompletableFuture<?>[positions.size()];
+            synchronized (this) {
+                ExecutorService reviewers = startExecutor(enginePool.size());
+                // Submitted in game order, so the opening is judged first
+                for (int i = 0; i < positions.size(); i++) {
+                    int index = i;
+                    reviewSearches[i] = CompletableFuture
+                            .supplyAsync(() -> evaluate(enginePool, positions.get(index)), reviewers)
+                            .thenAccept(evaluation -> pipeline.positionDone(index, evaluation));
+                    searches.add(reviewSearches[i]);
+                }
+            }
+            return CompletableFuture.allOf(reviewSearches)
+                    .thenApply(done -> new Report(Arrays.asList(pipeline.reviews)));
+        });
+    }
+
+    /**
+     * Collects position results and judges each move once both of its positions are in
+     */
+    private static final class Pipeline {
+        private final List<Move> moves;
+        private final Listener listener;
+        private final Evaluation[] evaluations;
+        private final MoveReview[] reviews;
+        private int reviewed;
+
+        Pipeline(List<Board> positions, List<Move> moves, Listener listener) {
+            this.moves = moves;
+            this.listener = listener;
+            this.evaluations = new Evaluation[positions.size()];
+            this.reviews = new MoveReview[moves.size()];
+        }
+
+        void positionDone(int index, Evaluation evaluation) {
+            List<MoveReview> ready = new ArrayList<>();
+            int first;
+            synchronized (this) {
+                evaluations[index] = evaluation;
+                for (int ply = index - 1; ply <= index; ply++) {
+                    if (ply >= 0 && ply < reviews.length && evaluations[ply] != null && evaluations[ply + 1] != null) {
+                        reviews[ply] = new MoveReview(ply, moves.get(ply), evaluations[ply].bestMove,
+                                evaluations[ply].score, -evaluations[ply + 1].score);
+                        ready.add(reviews[ply]);
+                    }
+                }
+                first = reviewed + 1;
+                reviewed += ready.size();
+            }
+            if (listener != null) {
+                for (int i = 0; i < ready.size(); i++) {
+                    listener.onMoveReviewed(ready.get(i), first + i, reviews.length);
+                }
+            }
+        }
+    }
+
+    /**
+     * The positions before each move and after the last, replayed from the start
+     */
+    static List<Board> replay(List<Move> moves) {
+        List<Board> positions = new ArrayList<>();
+        Board board = new Board();
+        positions.add(board.clone());
+        for (Move move : moves) {
+            int packed = SearchBoard.fromBoard(board).fromModelMove(move);
+            if (packed == SearchBoard.NO_MOVE || !board.makeMove(SearchBoard.toModelMove(packed, board))) {
+                logger.warn("Review stops at " + move + ", which does not fit the game");
+                break;
+            }
+            positions.add(board.clone());
+        }
+        return positions;
+    }
+
+    /**
+     * Best move and score for the side to move; the static evaluation if no engine answers
+     */
+    private Evaluation evaluate(EnginePool enginePool, Board board) {
+        SearchBoard position = SearchBoard.fromBoard(board);
+        if (!position.hasLegalMove()) {
+            return new Evaluation(null, position.isInCheck() ? -KNOWN_WIN_CENTIPAWNS : 0);
+        }
+        try {
+            SearchResult result = enginePool.withEngine(EnginePool.DEFAULT_TIMEOUT_MS, EngineOptions.Profile.REVIEW,
+                    engine -> engine.analyze(board, limits.get()));
+            SearchInfo info = result != null ? result.getInfo() : null;
+            int best = result != null ? position.parseUciMove(result.getBestMove()) : SearchBoard.NO_MOVE;
+            if (info != null && info.hasScore() && best != SearchBoard.NO_MOVE) {
+                int score = new TeacherModule.RankedMove(null, info.getScore(), info.isMate()).getCentipawns();
+                return new Evaluation(SearchBoard.toModelMove(best, board), score);
+            }
+        } catch (TimeoutException e) {
+            logger.warn("No engine free for review: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        TaperedEvaluator evaluator = new TaperedEvaluator();
+        position.setEvaluator(evaluator);
+        return new Evaluation(null, evaluator.evaluate(position));
+    }
+
+    private ExecutorService startExecutor(int threads) {
+        if (executor == null || executor.isShutdown()) {
+            executor = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "game-review");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    private static int cap(int centipawns) {
+        return Math.max(-SCORE_CAP, Math.min(SCORE_CAP, centipawns));
+    }
+
+    /**
+     * Stop searching; unfinished reviews complete with a {@link java.util.concurrent.CancellationException}
+     */
+    @Override
+    public synchronized void close() {
+        for (CompletableFuture<?> search : searches) {
+            search.cancel(true);
+        }
+        searches.clear();
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.chess.teacher;
+
+import com.chess.engine.ChessEngine;
+import com.chess.engine.EngineOptions;
+import com.chess.engine.EnginePool;
+import com.chess.engine.NativeEngine;
+import com.chess.engine.SearchBoard;
+import com.chess.engine.SearchLimits;
+import com.chess.model.Board;
+import com.chess.model.Move;
+import com.chess.utils.Logger;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Hints worked out before they are asked for.
+ *
+ * As soon as it is a human's turn, {@link #getHint(Board, SearchLimits)} starts searching
+ * for the best move on an engine from the pool. Pressing the hint button then asks again:
+ * a finished hint is remembered by position key and returned at once, and one still being
+ * searched is joined rather than started over. Asking about another position, or
+ * {@link #cancel()}, stops the search for the old one.
+ */
+public class HintService implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(HintService.class);
+
+    /** Hints remembered, for going back and forth through a game */
+    private static final int CACHE_SIZE = 64;
+
+    /**
+     * The hint search in flight and the engine it runs on, so it can be stopped
+     */
+    private static final class Search {
+        private final long key;
+        private final CompletableFuture<Move> result = new CompletableFuture<>();
+        private volatile ChessEngine engine;
+        private volatile NativeEngine nativeEngine;
+
+        Search(long key) {
+            this.key = key;
+        }
+
+        void stop() {
+            result.cancel(false);
+            ChessEngine searching = engine;
+            if (searching != null) {
+                searching.stopSearch();
+            }
+            NativeEngine searchingNative = nativeEngine;
+            if (searchingNative != null) {
+                searchingNative.stop();
+            }
+        }
+    }
+
+    private final CompletableFuture<EnginePool> pool;
+    private final Map<Long, Move> hints = new LinkedHashMap<Long, Move>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Move> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+    private final ExecutorService searcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "hint-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Search current;
+    private long hits;
+
+    /**
+     * Hints from the shared engine pool
+     */
+    public HintService() {
+        this(EnginePool.getSharedAsync());
+    }
+
+    public HintService(EnginePool pool) {
+        this(CompletableFuture.completedFuture(pool));
+    }
+
+    private HintService(CompletableFuture<EnginePool> pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * The best move for the side to move: at once if already known, otherwise from the search
+     * already under way for this position or from a new one. Completes with null if no engine
+     * could be had, and is cancelled if another position is asked about first.
+     */
+    public synchronized CompletableFuture<Move> getHint(Board board, SearchLimits limits) {
+        long key = SearchBoard.fromBoard(board).getKey();
+        Move known = hints.get(key);
+        if (known != null) {
+            hits++;
+            return CompletableFuture.completedFuture(known);
+        }
+        if (current != null && current.key == key && !current.result.isDone()) {
+            hits++;
+            return current.result;
+        }
+        cancel();
+        Search search = new Search(key);
+        current = search;
+        Board position = board.clone();
+        searcher.execute(() -> run(search, position, limits));
+        return search.result;
+    }
+
+    private void run(Search search, Board position, SearchLimits limits) {
+        if (search.result.isDone()) {
+            return;
+        }
+        try {
+            Move move = pool.join().withEngine(EnginePool.DEFAULT_TIMEOUT_MS, EngineOptions.Profile.PLAY, engine -> {
+                search.nativeEngine = engine.isEngineAvailable() ? null : engine.getNativeEngine();
+                search.engine = engine;
+                // Cancelled while waiting for the engine
+                return search.result.isDone() ? null : engine.getBestMove(position, limits);
+            });
+            search.engine = null;
+            search.nativeEngine = null;
+            finished(search, move);
+        } catch (TimeoutException e) {
+            logger.warn("No engine free for a hint: " + e.getMessage());
+            search.result.complete(null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            search.result.cancel(false);
+        } catch (CompletionException | IllegalStateException e) {
+            logger.warn("Hint search failed: " + e.getMessage());
+            search.result.complete(null);
+        }
+    }
+
+    private synchronized void finished(Search search, Move move) {
+        // A stopped search's move was cut short, so it is not kept
+        if (move != null && !search.result.isCancelled()) {
+            hints.put(search.key, move);
+        }
+        search.result.complete(move);
+        if (current == search) {
+            current = null;
+        }
+    }
+
+    /**
+     * Stop searching for the current hint, e.g. once it is no longer a human's turn
+     */
+    public synchronized void cancel() {
+        if (current != null) {
+            current.stop();
+            current = null;
+        }
+    }
+
+    /**
+     * Hints answered from a finished or running search instead of a new one
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    @Override
+    public void close() {
+        cancel();
+        searcher.shutdownNow();
+    }
+}
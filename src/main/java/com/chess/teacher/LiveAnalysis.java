@@ -0,0 +1,351 @@
+package com.chess.teacher;
+
+import com.chess.engine.ChessEngine;
+import com.chess.engine.EngineOptions;
+import com.chess.engine.EnginePool;
+import com.chess.engine.NativeEngine;
+import com.chess.engine.SearchBoard;
+import com.chess.engine.SearchLimits;
+import com.chess.engine.uci.SearchInfo;
+import com.chess.engine.uci.SearchResult;
+import com.chess.engine.uci.UciListener;
+import com.chess.model.Board;
+import com.chess.model.Move;
+import com.chess.utils.Logger;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Continuous background analysis of the position on the board, for a live evaluation bar.
+ *
+ * Each {@link #analyze(Board)} abandons the previous position and searches the new one
+ * ever deeper on an engine from the pool, until the next move or {@link #pause()}.
+ * Stockfish reports each iteration of one deep search; the native engine, which only
+ * reports when done, searches one depth at a time. Progress is coalesced: the listener
+ * gets the newest result at most once per frame, however fast the engine reports.
+ *
+ * The analysis keeps out of the way: its engine is configured for background work, its
+ * threads run at minimum priority, it waits behind other users of the pool, and it can be
+ * paused while the AI searches its own move.
+ */
+public class LiveAnalysis implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(LiveAnalysis.class);
+
+    /** Interval between updates to the listener: 10 frames a second */
+    public static final long DEFAULT_FRAME_MS = 100;
+    /** Depth at which the analysis of a position stops */
+    static final int MAX_DEPTH = 30;
+    private static final int PV_MOVES = 8;
+    /** Longest a checkout waits before checking whether the position is still wanted */
+    private static final long CHECKOUT_WAIT_MS = 500;
+    /** How often a search that should have stopped is told again */
+    private static final long STOP_CHECK_MS = 50;
+
+    /**
+     * The analysis so far of the current position
+     */
+    public static final class Update {
+        private final int depth;
+        private final int centipawns;
+        private final boolean mate;
+        private final String pv;
+
+        Update(int depth, int centipawns, boolean mate, String pv) {
+            this.depth = depth;
+            this.centipawns = centipawns;
+            this.mate = mate;
+            this.pv = pv;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        /**
+         * Score from White's point of view; a mate in n is {@link NativeEngine#MATE} less its
+         * distance in plies, as {@link com.chess.gui.EvalBar} expects
+         */
+        public int getCentipawns() {
+            return centipawns;
+        }
+
+        public boolean isMate() {
+            return mate;
+        }
+
+        /** Expected continuation in algebraic notation */
+        public String getPv() {
+            return pv;
+        }
+
+        @Override
+        public String toString() {
+            return "depth " + depth + " score " + centipawns + " pv " + pv;
+        }
+    }
+
+    /**
+     * Receives coalesced updates on the analysis' frame thread
+     */
+    @FunctionalInterface
+    public interface Listener {
+        void onUpdate(Update update);
+    }
+
+    /**
+     * An engine report not yet delivered; turned into an update only if it is still the newest
+     */
+    private static final class Report {
+        private final int id;
+        private final Board position;
+        private final SearchInfo info;
+
+        Report(int id, Board position, SearchInfo info) {
+            this.id = id;
+            this.position = position;
+            this.info = info;
+        }
+    }
+
+    private final CompletableFuture<EnginePool> pool;
+    private final Listener listener;
+    private final long frameNanos;
+    private final ExecutorService searcher = Executors.newSingleThreadExecutor(runnable -> newThread(runnable,
+            "live-analysis"));
+    private final ScheduledExecutorService frames = Executors.newSingleThreadScheduledExecutor(runnable ->
+            newThread(runnable, "live-analysis-frames"));
+    private final AtomicInteger generation = new AtomicInteger();
+    private final AtomicReference<Report> latest = new AtomicReference<>();
+    private final AtomicBoolean framePending = new AtomicBoolean();
+    private volatile long lastFrameNanos;
+    private volatile ChessEngine searching;
+    private volatile NativeEngine searchingNative;
+
+    /**
+     * Analysis on the shared engine pool at {@link #DEFAULT_FRAME_MS}
+     */
+    public LiveAnalysis(Listener listener) {
+        this(EnginePool.getSharedAsync(), listener, DEFAULT_FRAME_MS);
+    }
+
+    public LiveAnalysis(EnginePool pool, Listener listener, long frameMs) {
+        this(CompletableFuture.completedFuture(pool), listener, frameMs);
+    }
+
+    private LiveAnalysis(CompletableFuture<EnginePool> pool, Listener listener, long frameMs) {
+        this.pool = pool;
+        this.listener = listener;
+        this.frameNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, frameMs));
+        this.lastFrameNanos = System.nanoTime() - frameNanos;
+    }
+
+    private static Thread newThread(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    }
+
+    /**
+     * Start analysing the given position, dropping whatever was analysed before
+     */
+    public void analyze(Board board) {
+        Board position = board.clone();
+        int id = restart();
+        searcher.execute(() -> run(position, id));
+    }
+
+    /**
+     * Stop analysing until the next {@link #analyze(Board)}, freeing the engine
+     */
+    public void pause() {
+        restart();
+    }
+
+    private int restart() {
+        int id = generation.incrementAndGet();
+        latest.set(null);
+        stopSearch();
+        return id;
+    }
+
+    private boolean isCurrent(int id) {
+        return generation.get() == id;
+    }
+
+    private void stopSearch() {
+        ChessEngine engine = searching;
+        if (engine != null) {
+            engine.stopSearch();
+        }
+        NativeEngine nativeEngine = searchingNative;
+        if (nativeEngine != null) {
+            nativeEngine.stop();
+        }
+    }
+
+    private void run(Board position, int id) {
+        if (!isCurrent(id) || !SearchBoard.fromBoard(position).hasLegalMove()) {
+            return;
+        }
+        EnginePool enginePool;
+        try {
+            enginePool = pool.join();
+        } catch (CompletionException e) {
+            logger.warn("No engines for live analysis: " + e.getMessage());
+            return;
+        }
+        EnginePool.Lease lease = null;
+        try {
+            // Anyone else waiting for an engine gets it first
+            while (lease == null && isCurrent(id)) {
+                try {
+                    lease = enginePool.acquire(CHECKOUT_WAIT_MS, EngineOptions.Profile.REVIEW);
+                } catch (TimeoutException e) {
+                    // Still busy; check the position is still wanted and wait again
+                }
+            }
+            if (lease != null) {
+                search(lease.getEngine(), position, id);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IllegalStateException e) {
+            logger.warn("Live analysis stopped: " + e.getMessage());
+        } finally {
+            if (lease != null) {
+                lease.close();
+            }
+        }
+    }
+
+    private void search(ChessEngine engine, Board position, int id) throws InterruptedException {
+        UciListener progress = info -> offer(new Report(id, position, info));
+        boolean stockfish = engine.isEngineAvailable();
+        searchingNative = stockfish ? null : engine.getNativeEngine();
+        searching = engine;
+        try {
+            if (stockfish) {
+                // One deep search; Stockfish reports every iteration as it goes
+                await(engine.searchAsync(position, limits(MAX_DEPTH), progress), id);
+            } else {
+                for (int depth = 1; depth <= MAX_DEPTH && isCurrent(id); depth++) {
+                    await(engine.searchAsync(position, limits(depth), progress), id);
+                }
+            }
+        } finally {
+            searching = null;
+            searchingNative = null;
+        }
+    }
+
+    private static SearchLimits limits(int depth) {
+        SearchLimits limits = SearchLimits.depth(depth);
+        limits.setMultiPv(1);
+        return limits;
+    }
+
+    private void await(CompletableFuture<SearchResult> search, int id) throws InterruptedException {
+        while (true) {
+            try {
+                search.get(STOP_CHECK_MS, TimeUnit.MILLISECONDS);
+                return;
+            } catch (TimeoutException e) {
+                // A stop sent before the search began is lost, so keep sending it
+                if (!isCurrent(id)) {
+                    stopSearch();
+                }
+            } catch (ExecutionException e) {
+                logger.warn("Live analysis search failed: " + e.getCause().getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Keep the newest report and make sure a frame is due to deliver it
+     */
+    private void offer(Report report) {
+        SearchInfo info = report.info;
+        if (!isCurrent(report.id) || !info.hasScore() || !info.hasPv() || info.getMultiPv() > 1) {
+            return;
+        }
+        latest.set(report);
+        if (framePending.compareAndSet(false, true)) {
+            long wait = Math.max(0, lastFrameNanos + frameNanos - System.nanoTime());
+            frames.schedule(this::deliver, wait, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void deliver() {
+        Report report = latest.getAndSet(null);
+        try {
+            if (report != null && isCurrent(report.id)) {
+                listener.onUpdate(toUpdate(report.position, report.info));
+            }
+        } finally {
+            // The next frame counts from the end of this one
+            lastFrameNanos = System.nanoTime();
+            framePending.set(false);
+            if (latest.get() != null && framePending.compareAndSet(false, true)) {
+                frames.schedule(this::deliver, frameNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    static Update toUpdate(Board position, SearchInfo info) {
+        int score = info.getScore();
+        if (info.isMate()) {
+            // Mating in n moves takes 2n-1 plies; being mated in n takes 2n
+            int plies = score > 0 ? 2 * score - 1 : -2 * score;
+            score = score > 0 ? NativeEngine.MATE - plies : plies - NativeEngine.MATE;
+        }
+        boolean whiteToMove = SearchBoard.fromBoard(position).getSideToMove() == SearchBoard.WHITE;
+        return new Update(info.getDepth(), whiteToMove ? score : -score, info.isMate(),
+                describe(position, info.getPv()));
+    }
+
+    /**
+     * The first moves of a line of UCI moves, in algebraic notation
+     */
+    static String describe(Board position, List<String> pv) {
+        Board board = position.clone();
+        StringBuilder line = new StringBuilder();
+        for (String uci : pv.subList(0, Math.min(PV_MOVES, pv.size()))) {
+            int packed = SearchBoard.fromBoard(board).parseUciMove(uci);
+            if (packed == SearchBoard.NO_MOVE) {
+                break;
+            }
+            Move move = SearchBoard.toModelMove(packed, board);
+            if (!board.makeMove(move)) {
+                break;
+            }
+            if (line.length() > 0) {
+                line.append(' ');
+            }
+            line.append(move.getAlgebraicNotation());
+        }
+        return line.toString();
+    }
+
+    /**
+     * Stop analysing for good
+     */
+    @Override
+    public void close() {
+        restart();
+        searcher.shutdownNow();
+        frames.shutdownNow();
+    }
+}
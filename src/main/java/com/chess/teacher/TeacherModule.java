@@ -3,44 +3,93 @@ package com.chess.teacher;
 import com.chess.model.Board;
 import com.chess.model.Move;
 import com.chess.model.Position;
-import com.chess.engine.ChessEngine;
+import com.chess.engine.AnalysisCache;
+import com.chess.engine.EngineOptions;
+import com.chess.engine.EnginePool;
+import com.chess.engine.MateSolver;
+import com.chess.engine.SearchBoard;
+import com.chess.engine.SearchLimits;
+import com.chess.engine.book.PolyglotBook;
+import com.chess.engine.endgame.EndgameOracle;
+import com.chess.engine.eval.Evaluator;
+import com.chess.engine.eval.TaperedEvaluator;
+import com.chess.engine.uci.SearchInfo;
+import com.chess.engine.uci.SearchResult;
+import com.chess.utils.FENUtils;
 import com.chess.utils.Logger;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 
 /**
- * Teacher module that provides hints and move analysis using Stockfish
+ * Teacher module that provides hints and move analysis using Stockfish.
+ * Each request checks an engine out of an {@link EnginePool}, so concurrent
+ * requests run in parallel instead of queueing on one process. Analysis uses a
+ * single MultiPV search that ranks several moves with their scores at once.
  */
 public class TeacherModule {
     private static final Logger logger = Logger.getLogger(TeacherModule.class);
+    private static final int KNOWN_WIN_CENTIPAWNS = 10000;
     
-    private ChessEngine engine;
-    private boolean isEnabled;
+    private static final long CHECKOUT_TIMEOUT_MS = EnginePool.DEFAULT_TIMEOUT_MS;
+    /** Lines searched when judging a move; a move outside them costs one more search */
+    private static final int ANALYSIS_LINES = 5;
     
+    private final CompletableFuture<EnginePool> pool;
+    private final Evaluator evaluator = new TaperedEvaluator();
+    private volatile boolean isEnabled = true;
+    private MateSolver mateSolver;
+    
+    /**
+     * A teacher on the shared engine pool; requests made while it starts wait for it
+     */
     public TeacherModule() {
-        try {
-            this.engine = new ChessEngine();
-            this.isEnabled = true;
-            logger.info("Teacher module initialized successfully");
-        } catch (Exception e) {
+        this(EnginePool.getSharedAsync());
+        logger.info("Teacher module initialized; engines starting in the background");
+    }
+    
+    public TeacherModule(EnginePool pool) {
+        this(CompletableFuture.completedFuture(pool));
+    }
+    
+    private TeacherModule(CompletableFuture<EnginePool> pool) {
+        this.pool = pool;
+        pool.exceptionally(e -> {
             logger.error("Failed to initialize chess engine: " + e.getMessage());
-            this.isEnabled = false;
-        }
+            isEnabled = false;
+            return null;
+        });
+    }
+    
+    private EnginePool pool() {
+        return pool.join();
     }
     
     /**
      * Get a hint for the current position
      */
     public CompletableFuture<Move> getHint(Board board, int depth) {
+        // Book moves need no search
+        Move bookMove = PolyglotBook.lookup(board);
+        if (bookMove != null) {
+            return CompletableFuture.completedFuture(bookMove);
+        }
         if (!isEnabled) {
             return CompletableFuture.completedFuture(null);
         }
+        Move cachedMove = AnalysisCache.getShared().getMove(board, SearchLimits.depth(depth));
+        if (cachedMove != null) {
+            return CompletableFuture.completedFuture(cachedMove);
+        }
         
         return CompletableFuture.supplyAsync(() -> {
             try {
-                return engine.getBestMove(board, depth);
+                return pool().withEngine(CHECKOUT_TIMEOUT_MS, EngineOptions.Profile.ANALYSIS,
+                        engine -> engine.getBestMove(board, SearchLimits.depth(depth)));
             } catch (Exception e) {
                 logger.error("Error getting hint: " + e.getMessage());
                 return null;
@@ -58,17 +107,31 @@ public class TeacherModule {
         
         return CompletableFuture.supplyAsync(() -> {
             try {
-                // Get engine's best move
-                Move engineMove = engine.getBestMove(board, depth);
+                List<RankedMove> ranked = rankMoves(board, ANALYSIS_LINES, depth);
+                if (ranked.isEmpty()) {
+                    return null;
+                }
+                RankedMove best = ranked.get(0);
+                SearchBoard position = SearchBoard.fromBoard(board);
+                int played = position.fromModelMove(playerMove);
+                
+                Integer playedScore = null;
+                for (RankedMove candidate : ranked) {
+                    if (position.fromModelMove(candidate.getMove()) == played) {
+                        playedScore = candidate.getCentipawns();
+                    }
+                }
+                if (playedScore == null) {
+                    playedScore = scoreAfter(position, played, depth);
+                }
                 
                 // Create analysis
                 MoveAnalysis analysis = new MoveAnalysis();
                 analysis.setPlayerMove(playerMove);
-                analysis.setEngineMove(engineMove);
-                analysis.setIsBestMove(playerMove.equals(engineMove));
-                
-                // Calculate move quality (simplified)
-                analysis.setQuality(calculateMoveQuality(board, playerMove, engineMove));
+                analysis.setEngineMove(best.getMove());
+                analysis.setIsBestMove(played == position.fromModelMove(best.getMove()));
+                analysis.setCentipawnLoss(analysis.isBestMove() ? 0 : Math.max(0, best.getCentipawns() - playedScore));
+                analysis.setQuality(calculateMoveQuality(best.getCentipawns(), playedScore));
                 
                 return analysis;
             } catch (Exception e) {
@@ -85,13 +148,21 @@ public class TeacherModule {
         if (!isEnabled) {
             return CompletableFuture.completedFuture(null);
         }
+        return getRankedMoves(board, count, depth).thenApply(
+                ranked -> ranked.stream().map(RankedMove::getMove).collect(Collectors.toList()));
+    }
+    
+    /**
+     * The best moves, best first, with their scores from one MultiPV search
+     */
+    public CompletableFuture<List<RankedMove>> getRankedMoves(Board board, int count, int depth) {
+        if (!isEnabled) {
+            return CompletableFuture.completedFuture(List.of());
+        }
         
         return CompletableFuture.supplyAsync(() -> {
             try {
-                // For now, we'll just return the best move
-                // In a real implementation, you'd need to modify the engine to return multiple moves
-                Move bestMove = engine.getBestMove(board, depth);
-                return bestMove != null ? List.of(bestMove) : List.of();
+                return rankMoves(board, count, depth);
             } catch (Exception e) {
                 logger.error("Error getting top moves: " + e.getMessage());
                 return List.of();
@@ -100,7 +171,7 @@ public class TeacherModule {
     }
     
     /**
-     * Evaluate the current position
+     * Evaluate the current position, in pawns from White's point of view
      */
     public CompletableFuture<Double> evaluatePosition(Board board, int depth) {
         if (!isEnabled) {
@@ -109,13 +180,14 @@ public class TeacherModule {
         
         return CompletableFuture.supplyAsync(() -> {
             try {
-                // Get the best move and use it as a proxy for position evaluation
-                Move bestMove = engine.getBestMove(board, depth);
-                if (bestMove != null) {
-                    // This is a simplified evaluation - in reality, you'd get the actual score
-                    return calculatePositionScore(board, bestMove);
+                List<RankedMove> ranked = rankMoves(board, 1, depth);
+                if (ranked.isEmpty()) {
+                    // No legal move or no engine answer: fall back to the static evaluation
+                    return calculatePositionScore(board, null);
                 }
-                return 0.0;
+                int score = ranked.get(0).getCentipawns();
+                boolean whiteToMove = SearchBoard.fromBoard(board).getSideToMove() == SearchBoard.WHITE;
+                return (whiteToMove ? score : -score) / 100.0;
             } catch (Exception e) {
                 logger.error("Error evaluating position: " + e.getMessage());
                 return 0.0;
@@ -124,25 +196,89 @@ public class TeacherModule {
     }
     
     /**
-     * Calculate move quality (0.0 to 1.0)
+     * One MultiPV search for the given number of lines, converted to board moves
+     */
+    private List<RankedMove> rankMoves(Board board, int count, int depth) throws TimeoutException, InterruptedException {
+        SearchLimits limits = SearchLimits.depth(depth);
+        limits.setMultiPv(count);
+        // A cached answer needs no engine, so it does not wait for a free one either
+        SearchResult result = AnalysisCache.getShared().get(board, limits);
+        if (result == null) {
+            result = pool().withEngine(CHECKOUT_TIMEOUT_MS, EngineOptions.Profile.ANALYSIS,
+                    engine -> engine.analyze(board, limits));
+        }
+        List<RankedMove> ranked = new ArrayList<>();
+        if (result == null) {
+            return ranked;
+        }
+        SearchBoard position = SearchBoard.fromBoard(board);
+        for (SearchInfo line : result.getLines()) {
+            int move = line.getFirstMove() != null ? position.parseUciMove(line.getFirstMove()) : SearchBoard.NO_MOVE;
+            if (move != SearchBoard.NO_MOVE && line.hasScore()) {
+                ranked.add(new RankedMove(SearchBoard.toModelMove(move, board), line.getScore(), line.isMate()));
+            }
+        }
+        return ranked;
+    }
+    
+    /**
+     * Score of a move that was not among the ranked lines, by searching the position it leads to
+     */
+    private int scoreAfter(SearchBoard position, int move, int depth) throws TimeoutException, InterruptedException {
+        SearchBoard after = position.copy();
+        if (move == SearchBoard.NO_MOVE || !after.makeMove(move)) {
+            return -KNOWN_WIN_CENTIPAWNS;
+        }
+        List<RankedMove> replies = rankMoves(FENUtils.fromFEN(after.toFEN()), 1, Math.max(1, depth - 1));
+        if (replies.isEmpty()) {
+            // No reply: the move mated or stalemated
+            return after.isInCheck() ? KNOWN_WIN_CENTIPAWNS : 0;
+        }
+        return -replies.get(0).getCentipawns();
+    }
+    
+    /**
+     * Calculate move quality (0.0 to 1.0) from the drop in winning chances between the best
+     * move and the one played, so a 100 cp slip costs more in a level position than when
+     * already a rook up
      */
-    private double calculateMoveQuality(Board board, Move playerMove, Move engineMove) {
-        if (playerMove.equals(engineMove)) {
+    static double calculateMoveQuality(int bestCentipawns, int playedCentipawns) {
+        if (playedCentipawns >= bestCentipawns) {
             return 1.0; // Perfect move
         }
-        
-        // Simplified quality calculation
-        // In a real implementation, you'd compare the resulting positions
-        return 0.5; // Default quality
+        double drop = winChance(bestCentipawns) - winChance(playedCentipawns);
+        return Math.max(0.0, Math.min(1.0, 1.031668 * Math.exp(-0.04354 * drop) - 0.031669));
+    }
+    
+    /**
+     * Winning chances in percent for a centipawn score
+     */
+    private static double winChance(int centipawns) {
+        return 50 + 50 * (2 / (1 + Math.exp(-0.00368208 * centipawns)) - 1);
     }
     
     /**
-     * Calculate position score based on material and position
+     * Calculate position score based on material and position after the engine's move (if any),
+     * in pawns from White's point of view; endgames covered by a bitbase score as a
+     * known win or a dead draw
      */
     private double calculatePositionScore(Board board, Move move) {
-        // Simplified position evaluation
-        // In a real implementation, you'd use Stockfish's evaluation
-        return 0.0;
+        SearchBoard position = SearchBoard.fromBoard(board);
+        synchronized (evaluator) {
+            position.setEvaluator(evaluator);
+            int packed = move != null ? position.fromModelMove(move) : SearchBoard.NO_MOVE;
+            if (packed != SearchBoard.NO_MOVE) {
+                position.makeMove(packed);
+            }
+            int score;
+            switch (EndgameOracle.getInstance().probe(position)) {
+                case WIN: score = KNOWN_WIN_CENTIPAWNS; break;
+                case LOSS: score = -KNOWN_WIN_CENTIPAWNS; break;
+                case DRAW: score = 0; break;
+                default: score = evaluator.evaluate(position);
+            }
+            return (position.getSideToMove() == SearchBoard.WHITE ? score : -score) / 100.0;
+        }
     }
     
     /**
@@ -155,12 +291,47 @@ public class TeacherModule {
         
         if (analysis.isBestMove()) {
             return "Excellent move! That's the best move in this position.";
-        } else {
-            return "Good move, but the engine suggests " + 
-                   analysis.getEngineMove().getFrom().toAlgebraicNotation() + 
-                   analysis.getEngineMove().getTo().toAlgebraicNotation() + 
-                   " as the best move.";
         }
+        String suggestion = analysis.getEngineMove().getFrom().toAlgebraicNotation() + 
+                            analysis.getEngineMove().getTo().toAlgebraicNotation();
+        int loss = analysis.getCentipawnLoss();
+        if (loss <= 50) {
+            return "Good move, but the engine suggests " + suggestion + " as the best move.";
+        } else if (loss <= 100) {
+            return "Inaccuracy. " + suggestion + " was better.";
+        } else if (loss <= 300) {
+            return "Mistake. " + suggestion + " was much better.";
+        }
+        return "Blunder! " + suggestion + " was the move to play.";
+    }
+    
+    /**
+     * Prove a forced mate for the side to move in at most the given number of its moves, or prove
+     * there is none. Uses the proof-number solver rather than the engines, so it never waits for one.
+     */
+    public CompletableFuture<ForcedMate> findForcedMate(Board board, int maxMoves) {
+        Board position = board.clone();
+        return CompletableFuture.supplyAsync(() -> {
+            MateSolver.Result result = mateSolver().solve(SearchBoard.fromBoard(position), maxMoves,
+                    MateSolver.DEFAULT_MAX_NODES);
+            List<Move> line = new ArrayList<>();
+            Board replay = position.clone();
+            for (int packed : result.getLine()) {
+                // Each move keeps its own copy of the piece, which playing it on the replay would move on
+                line.add(SearchBoard.toModelMove(packed, replay.clone()));
+                replay.makeMove(SearchBoard.toModelMove(packed, replay));
+            }
+            logger.info("Forced mate search in " + maxMoves + ": " + result.getStatus() + " after "
+                    + result.getNodes() + " nodes");
+            return new ForcedMate(result.getStatus(), line);
+        });
+    }
+    
+    private synchronized MateSolver mateSolver() {
+        if (mateSolver == null) {
+            mateSolver = new MateSolver();
+        }
+        return mateSolver;
     }
     
     /**
@@ -171,16 +342,10 @@ public class TeacherModule {
     }
     
     /**
-     * Close the teacher module
+     * Close the teacher module; pooled engines stay with their pool
      */
     public void close() {
-        if (engine != null) {
-            try {
-                engine.close();
-            } catch (Exception e) {
-                logger.error("Error closing teacher module: " + e.getMessage());
-            }
-        }
+        isEnabled = false;
     }
     
     /**
@@ -191,6 +356,7 @@ public class TeacherModule {
         private Move engineMove;
         private boolean isBestMove;
         private double quality;
+        private int centipawnLoss;
         
         public Move getPlayerMove() {
             return playerMove;
@@ -223,5 +389,91 @@ public class TeacherModule {
         public void setQuality(double quality) {
             this.quality = quality;
         }
+        
+        /**
+         * Centipawns the player's move gives up compared with the engine's best move
+         */
+        public int getCentipawnLoss() {
+            return centipawnLoss;
+        }
+        
+        public void setCentipawnLoss(int centipawnLoss) {
+            this.centipawnLoss = centipawnLoss;
+        }
+    }
+    
+    /**
+     * A candidate move with its engine score, from the side to move's point of view
+     */
+    public static class RankedMove {
+        private final Move move;
+        private final int score;
+        private final boolean mate;
+        
+        public RankedMove(Move move, int score, boolean mate) {
+            this.move = move;
+            this.score = score;
+            this.mate = mate;
+        }
+        
+        public Move getMove() {
+            return move;
+        }
+        
+        /**
+         * Centipawns, or moves to mate (negative when being mated) if {@link #isMate()}
+         */
+        public int getScore() {
+            return score;
+        }
+        
+        public boolean isMate() {
+            return mate;
+        }
+        
+        /**
+         * The score in centipawns, with mates just inside a known win so faster mates rank higher
+         */
+        public int getCentipawns() {
+            if (!mate) {
+                return score;
+            }
+            return score > 0 ? KNOWN_WIN_CENTIPAWNS - score : -KNOWN_WIN_CENTIPAWNS - score;
+        }
+    }
+    
+    /**
+     * The answer to a forced-mate search: the mating line if there is one
+     */
+    public static class ForcedMate {
+        private final MateSolver.Status status;
+        private final List<Move> line;
+        
+        public ForcedMate(MateSolver.Status status, List<Move> line) {
+            this.status = status;
+            this.line = line;
+        }
+        
+        /**
+         * Whether a mate was proved, disproved, or neither before the solver's node budget ran out
+         */
+        public MateSolver.Status getStatus() {
+            return status;
+        }
+        
+        public boolean isMate() {
+            return status == MateSolver.Status.MATE;
+        }
+        
+        /**
+         * The moves of both sides from the position to mate, against the longest defence
+         */
+        public List<Move> getLine() {
+            return line;
+        }
+        
+        public int getMateIn() {
+            return (line.size() + 1) / 2;
+        }
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
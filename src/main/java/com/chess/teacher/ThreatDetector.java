@@ -0,0 +1,300 @@
+package com.chess.teacher;
+
+import com.chess.engine.SearchBoard;
+import com.chess.model.Board;
+import com.chess.model.Position;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tactical threats found from attack sets and static exchange evaluation, without a search.
+ *
+ * {@link #scan(SearchBoard, int)} lists what one side could do if it were its move: win a
+ * hanging piece, exploit a fork, pin or skewer, uncover a discovered attack, or mate at
+ * once. It works on bitboards and takes well under a millisecond, so the teacher can show
+ * threats after every move while the engines are still thinking.
+ */
+public final class ThreatDetector {
+    private static final String[] PIECE_NAMES = {"", "pawn", "knight", "bishop", "rook", "queen", "king"};
+
+    public enum Type {
+        MATE_THREAT, HANGING_PIECE, FORK, PIN, SKEWER, DISCOVERED_ATTACK
+    }
+
+    /**
+     * One threat: the piece or move that carries it out and the pieces it hits
+     */
+    public static final class Threat {
+        private final Type type;
+        private final int color;
+        private final int from;
+        private final int[] targets;
+        private final String description;
+
+        Threat(Type type, int color, int from, int[] targets, String description) {
+            this.type = type;
+            this.color = color;
+            this.from = from;
+            this.targets = targets;
+            this.description = description;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        /** Whether White is the side that threatens */
+        public boolean isByWhite() {
+            return color == SearchBoard.WHITE;
+        }
+
+        /** Square of the threatening piece */
+        public Position getFrom() {
+            return SearchBoard.toPosition(from);
+        }
+
+        /** Squares of the pieces under threat, or the mating square */
+        public List<Position> getTargets() {
+            List<Position> positions = new ArrayList<>();
+            for (int target : targets) {
+                positions.add(SearchBoard.toPosition(target));
+            }
+            return positions;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        @Override
+        public String toString() {
+            return type + ": " + description;
+        }
+    }
+
+    private ThreatDetector() {
+    }
+
+    /**
+     * Threats by one side of a model board
+     */
+    public static List<Threat> scan(Board board, boolean byWhite) {
+        return scan(SearchBoard.fromBoard(board), byWhite ? SearchBoard.WHITE : SearchBoard.BLACK);
+    }
+
+    /**
+     * Threats the given side could carry out if it were its move, mates first
+     */
+    public static List<Threat> scan(SearchBoard position, int color) {
+        List<Threat> threats = new ArrayList<>();
+        findMates(position, color, threats);
+        findHangingPieces(position, color, threats);
+        findForks(position, color, threats);
+        findLineThreats(position, color, threats);
+        return threats;
+    }
+
+    private static void findMates(SearchBoard position, int us, List<Threat> threats) {
+        SearchBoard board = position.copy();
+        boolean passed = false;
+        if (board.getSideToMove() != us) {
+            // The other side must answer a check first, so there is no threat to speak of
+            if (board.isInCheck()) {
+                return;
+            }
+            board.makeNullMove();
+            passed = true;
+        }
+        int[] moves = new int[SearchBoard.MAX_MOVES];
+        int count = board.generateMoves(moves, false);
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            if (!board.makeMove(move)) {
+                continue;
+            }
+            boolean mate = board.isInCheck() && !board.hasLegalMove();
+            board.unmakeMove();
+            if (mate) {
+                int from = SearchBoard.from(move);
+                int to = SearchBoard.to(move);
+                threats.add(new Threat(Type.MATE_THREAT, us, from, new int[]{to},
+                        capitalize(describe(board, from)) + " mates on " + SearchBoard.squareName(to)));
+            }
+        }
+        if (passed) {
+            board.unmakeNullMove();
+        }
+    }
+
+    /**
+     * Pieces that can be captured for a material gain
+     */
+    private static void findHangingPieces(SearchBoard board, int us, List<Threat> threats) {
+        long occupied = board.getOccupied();
+        long targets = board.getPieces(us ^ 1) & ~board.getPieces(us ^ 1, SearchBoard.KING);
+        while (targets != 0) {
+            int target = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            long attackers = board.attackersTo(target, occupied) & board.getPieces(us);
+            int bestGain = 0;
+            int bestFrom = -1;
+            while (attackers != 0) {
+                int from = Long.numberOfTrailingZeros(attackers);
+                attackers &= attackers - 1;
+                int gain = board.see(SearchBoard.move(from, target, SearchBoard.EMPTY, SearchBoard.FLAG_NONE));
+                if (gain > bestGain) {
+                    bestGain = gain;
+                    bestFrom = from;
+                }
+            }
+            if (bestFrom >= 0) {
+                String verdict = isDefended(board, target, occupied) ? " can be won by " : " is hanging to ";
+                threats.add(new Threat(Type.HANGING_PIECE, us, bestFrom, new int[]{target},
+                        capitalize(describe(board, target)) + verdict + describe(board, bestFrom)));
+            }
+        }
+    }
+
+    /**
+     * One piece attacking two or more that are worth more than it, undefended, or the king
+     */
+    private static void findForks(SearchBoard board, int us, List<Threat> threats) {
+        long occupied = board.getOccupied();
+        long pieces = board.getPieces(us);
+        while (pieces != 0) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            int piece = board.getPiece(from);
+            long attacked = SearchBoard.attacksOf(piece, from, occupied) & board.getPieces(us ^ 1);
+            List<Integer> forked = new ArrayList<>();
+            while (attacked != 0) {
+                int target = Long.numberOfTrailingZeros(attacked);
+                attacked &= attacked - 1;
+                if (isWorthAttacking(board, target, SearchBoard.typeOf(piece), occupied)) {
+                    forked.add(target);
+                }
+            }
+            if (forked.size() >= 2 && !canBeTakenSafely(board, from, occupied)) {
+                StringBuilder description = new StringBuilder(capitalize(describe(board, from)) + " forks ");
+                for (int i = 0; i < forked.size(); i++) {
+                    description.append(i == 0 ? "" : i == forked.size() - 1 ? " and " : ", ")
+                            .append(describe(board, forked.get(i)));
+                }
+                threats.add(new Threat(Type.FORK, us, from, toArray(forked), description.toString()));
+            }
+        }
+    }
+
+    /**
+     * Pins, skewers and discovered attacks: a slider, the first piece on its line and the one behind
+     */
+    private static void findLineThreats(SearchBoard board, int us, List<Threat> threats) {
+        long occupied = board.getOccupied();
+        long sliders = board.getPieces(us, SearchBoard.BISHOP) | board.getPieces(us, SearchBoard.ROOK)
+                | board.getPieces(us, SearchBoard.QUEEN);
+        while (sliders != 0) {
+            int from = Long.numberOfTrailingZeros(sliders);
+            sliders &= sliders - 1;
+            int type = SearchBoard.typeOf(board.getPiece(from));
+            if (type != SearchBoard.ROOK) {
+                findLineThreats(board, us, from, type, true, occupied, threats);
+            }
+            if (type != SearchBoard.BISHOP) {
+                findLineThreats(board, us, from, type, false, occupied, threats);
+            }
+        }
+    }
+
+    private static void findLineThreats(SearchBoard board, int us, int from, int sliderType, boolean diagonal,
+                                        long occupied, List<Threat> threats) {
+        long attacks = lineAttacks(from, occupied, diagonal);
+        long front = attacks & occupied;
+        while (front != 0) {
+            int first = Long.numberOfTrailingZeros(front);
+            front &= front - 1;
+            // Lifting the first piece shows what stands behind it on the same line
+            long behind = lineAttacks(from, occupied & ~(1L << first), diagonal) & ~attacks & occupied
+                    & board.getPieces(us ^ 1);
+            if (behind == 0) {
+                continue;
+            }
+            int second = Long.numberOfTrailingZeros(behind);
+            int firstType = SearchBoard.typeOf(board.getPiece(first));
+            int secondType = SearchBoard.typeOf(board.getPiece(second));
+            int[] targets = {first, second};
+            if (SearchBoard.colorOf(board.getPiece(first)) == us) {
+                if (firstType != SearchBoard.KING && isWorthAttacking(board, second, sliderType, occupied)) {
+                    threats.add(new Threat(Type.DISCOVERED_ATTACK, us, first, new int[]{second},
+                            "Moving " + describe(board, first) + " uncovers " + describe(board, from)
+                                    + (secondType == SearchBoard.KING ? " giving check"
+                                    : " against " + describe(board, second))));
+                }
+            } else if (firstType != SearchBoard.KING && (secondType == SearchBoard.KING
+                    || SearchBoard.exchangeValue(secondType) > SearchBoard.exchangeValue(firstType))) {
+                if (isWorthAttacking(board, second, sliderType, occupied)) {
+                    threats.add(new Threat(Type.PIN, us, from, targets, capitalize(describe(board, from))
+                            + " pins " + describe(board, first) + " to " + describe(board, second)));
+                }
+            } else if (firstType == SearchBoard.KING
+                    || SearchBoard.exchangeValue(firstType) > SearchBoard.exchangeValue(secondType)) {
+                if (isWorthAttacking(board, first, sliderType, occupied)) {
+                    threats.add(new Threat(Type.SKEWER, us, from, targets, capitalize(describe(board, from))
+                            + " skewers " + describe(board, first) + " and " + describe(board, second)));
+                }
+            }
+        }
+    }
+
+    private static long lineAttacks(int square, long occupied, boolean diagonal) {
+        return diagonal ? SearchBoard.bishopAttacks(square, occupied) : SearchBoard.rookAttacks(square, occupied);
+    }
+
+    /**
+     * The king, anything worth more than the attacker, or anything left undefended
+     */
+    private static boolean isWorthAttacking(SearchBoard board, int target, int attackerType, long occupied) {
+        int type = SearchBoard.typeOf(board.getPiece(target));
+        return type == SearchBoard.KING
+                || SearchBoard.exchangeValue(type) > SearchBoard.exchangeValue(attackerType)
+                || !isDefended(board, target, occupied);
+    }
+
+    private static boolean isDefended(SearchBoard board, int square, long occupied) {
+        int color = SearchBoard.colorOf(board.getPiece(square));
+        return (board.attackersTo(square, occupied) & board.getPieces(color)) != 0;
+    }
+
+    /**
+     * Whether the other side can capture the piece on the square without losing material
+     */
+    private static boolean canBeTakenSafely(SearchBoard board, int square, long occupied) {
+        int color = SearchBoard.colorOf(board.getPiece(square));
+        long attackers = board.attackersTo(square, occupied) & board.getPieces(color ^ 1);
+        while (attackers != 0) {
+            int from = Long.numberOfTrailingZeros(attackers);
+            attackers &= attackers - 1;
+            if (board.see(SearchBoard.move(from, square, SearchBoard.EMPTY, SearchBoard.FLAG_NONE)) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String describe(SearchBoard board, int square) {
+        return "the " + PIECE_NAMES[SearchBoard.typeOf(board.getPiece(square))] + " on "
+                + SearchBoard.squareName(square);
+    }
+
+    private static String capitalize(String text) {
+        return Character.toUpperCase(text.charAt(0)) + text.substring(1);
+    }
+
+    private static int[] toArray(List<Integer> squares) {
+        int[] array = new int[squares.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = squares.get(i);
+        }
+        return array;
+    }
+}
@@ -0,0 +1,42 @@
+package com.chess;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the start-up timing report
+ */
+public class StartupTest {
+
+    @Test
+    @DisplayName("The report lists each task once it finishes and the first frame")
+    public void testReport() {
+        Startup startup = new Startup();
+        CompletableFuture<String> engines = startup.track("engines", new CompletableFuture<>());
+        startup.run("look and feel", () -> { });
+        startup.track("book", CompletableFuture.completedFuture("book"));
+        assertFalse(startup.isComplete());
+        assertTrue(startup.getReport().startsWith("Start-up: first frame not shown"));
+        assertTrue(startup.getReport().contains("engines running"));
+
+        startup.firstFrameShown();
+        engines.complete("pool");
+        assertTrue(startup.isComplete());
+        String report = startup.getReport();
+        assertTrue(report.matches("Start-up: first frame \\d+ ms, engines \\d+ ms, look and feel \\d+ ms, "
+                + "book \\d+ ms"), report);
+    }
+
+    @Test
+    @DisplayName("A failed task still finishes the report")
+    public void testFailedTask() {
+        Startup startup = new Startup();
+        CompletableFuture<Void> task = startup.track("tables", new CompletableFuture<>());
+        task.completeExceptionally(new IllegalStateException("missing"));
+        assertTrue(startup.isComplete());
+    }
+}
@@ -0,0 +1,103 @@
+package com.chess.engine;
+
+import com.chess.engine.uci.SearchInfo;
+import com.chess.engine.uci.SearchResult;
+import com.chess.model.Board;
+import com.chess.model.Move;
+import com.chess.model.Position;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the position-keyed analysis cache
+ */
+public class AnalysisCacheTest {
+    @TempDir
+    Path directory;
+
+    private static SearchResult result(String move, int score) {
+        return new SearchResult(move, "e7e5",
+                List.of(SearchInfo.parse("info depth 12 multipv 1 score cp " + score + " nodes 5000 pv " + move + " e7e5")));
+    }
+
+    @Test
+    @DisplayName("Results are found by position and limit class")
+    public void testLookup() {
+        AnalysisCache cache = AnalysisCache.inMemory(10);
+        Board board = new Board();
+        cache.put(board, SearchLimits.depth(12), result("e2e4", 30));
+
+        SearchResult hit = cache.get(board, SearchLimits.depth(12));
+        assertEquals("e2e4", hit.getBestMove());
+        assertEquals(30, hit.getInfo().getScore());
+        assertNull(cache.get(board, SearchLimits.depth(8)), "a shallower class is a different search");
+        SearchLimits twoLines = SearchLimits.depth(12);
+        twoLines.setMultiPv(2);
+        assertNull(cache.get(board, twoLines), "one stored line cannot answer MultiPV 2");
+
+        Move move = cache.getMove(board, SearchLimits.depth(12));
+        assertEquals(new Position("e4"), move.getTo());
+        assertEquals(2, cache.getMisses());
+        assertEquals(2, cache.getHits());
+    }
+
+    @Test
+    @DisplayName("Similar move times share a class; ponder and reduced skill are not cached")
+    public void testLimitClasses() {
+        SearchBoard position = new SearchBoard(SearchBoard.START_FEN);
+        assertEquals(AnalysisCache.limitClass(SearchLimits.moveTime(2000), position),
+                AnalysisCache.limitClass(SearchLimits.moveTime(2040), position));
+        assertNotEquals(AnalysisCache.limitClass(SearchLimits.moveTime(2000), position),
+                AnalysisCache.limitClass(SearchLimits.moveTime(500), position));
+
+        SearchLimits ponder = SearchLimits.moveTime(2000);
+        ponder.setPonder(true);
+        assertEquals(AnalysisCache.UNCACHEABLE, AnalysisCache.limitClass(ponder, position));
+        SearchLimits weak = SearchLimits.depth(10);
+        weak.setSkillLevel(5);
+        assertEquals(AnalysisCache.UNCACHEABLE, AnalysisCache.limitClass(weak, position));
+    }
+
+    @Test
+    @DisplayName("Least recently used results leave memory but stay on disk")
+    public void testEvictionAndReload() throws Exception {
+        Board board = new Board();
+        SearchLimits limits = SearchLimits.depth(10);
+        try (AnalysisCache cache = new AnalysisCache(directory, 2)) {
+            for (int depth = 1; depth <= 5; depth++) {
+                cache.put(board, SearchLimits.depth(depth), result("d2d4", depth));
+            }
+            cache.put(board, limits, result("e2e4", 25));
+            // Evicted from the two-entry LRU, read back from the log
+            assertEquals(1, cache.get(board, SearchLimits.depth(1)).getInfo().getScore());
+        }
+
+        try (AnalysisCache reopened = new AnalysisCache(directory, 2)) {
+            assertEquals(6, reopened.size());
+            SearchResult stored = reopened.get(board, limits);
+            assertEquals("e2e4", stored.getBestMove());
+            assertEquals("e7e5", stored.getPonderMove());
+            assertEquals(List.of("e2e4", "e7e5"), stored.getInfo().getPv());
+        }
+
+        // A torn index record from a crash is ignored
+        try (RandomAccessFile index = new RandomAccessFile(directory.resolve("analysis.idx").toFile(), "rw")) {
+            index.setLength(index.length() - 7);
+        }
+        try (AnalysisCache reopened = new AnalysisCache(directory, 2)) {
+            assertNull(reopened.get(board, limits));
+            assertNotNull(reopened.get(board, SearchLimits.depth(5)));
+            reopened.put(board, limits, result("c2c4", 10));
+        }
+        try (AnalysisCache reopened = new AnalysisCache(directory, 2)) {
+            assertEquals("c2c4", reopened.get(board, limits).getBestMove());
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.chess.engine;
+
+import com.chess.model.Board;
+import com.chess.model.Move;
+import com.chess.model.Position;
+import com.chess.utils.FENUtils;
+import com.chess.engine.uci.FakeUciEngine;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the UCI position commands sent through a game, and for recovering from a failing engine
+ */
+public class ChessEngineTest {
+
+    private static void assertRecovers(boolean crash) throws Exception {
+        FakeUciEngine fake = new FakeUciEngine();
+        fake.setFailure(crash ? FakeUciEngine.Failure.CRASH : FakeUciEngine.Failure.HANG, 1);
+        ChessEngine engine = new ChessEngine(new EngineOptions(1, 16, 1), fake::launch);
+        engine.setAnalysisCache(null);
+        assertTrue(engine.isEngineAvailable());
+
+        long start = System.currentTimeMillis();
+        assertNotNull(engine.getBestMove(new Board(), SearchLimits.moveTime(100)), "native fallback move");
+        assertTrue(System.currentTimeMillis() - start < 3000, "the caller is not held past its budget");
+        assertEquals(1, engine.getMetrics().getFailures());
+
+        for (int i = 0; i < 50 && engine.getMetrics().getRestarts() == 0; i++) {
+            Thread.sleep(100);
+        }
+        assertEquals(1, engine.getMetrics().getRestarts());
+        assertEquals(2, fake.getLaunches());
+        assertTrue(engine.isEngineAvailable());
+        engine.close();
+    }
+
+    @Test
+    @DisplayName("A hung engine is stopped at its deadline and restarted")
+    public void testHungEngine() throws Exception {
+        assertRecovers(false);
+    }
+
+    @Test
+    @DisplayName("A crashed engine is restarted while the native engine answers")
+    public void testCrashedEngine() throws Exception {
+        assertRecovers(true);
+    }
+
+    @Test
+    @DisplayName("Only searches that finish on their own are cached")
+    public void testStoppedSearchNotCached() throws Exception {
+        FakeUciEngine fake = new FakeUciEngine();
+        // The first iteration reports after a second, so the stopped search has a score
+        fake.setThinkTimeMs(5000);
+        fake.setInfoLines(4);
+        ChessEngine engine = new ChessEngine(new EngineOptions(1, 16, 1), fake::launch);
+        AnalysisCache cache = AnalysisCache.inMemory(16);
+        engine.setAnalysisCache(cache);
+
+        Thread stopper = new Thread(() -> {
+            try {
+                Thread.sleep(1500);
+            } catch (InterruptedException e) {
+                return;
+            }
+            engine.stopSearch();
+        });
+        stopper.start();
+        long start = System.currentTimeMillis();
+        assertNotNull(engine.getBestMove(new Board(), SearchLimits.depth(20)));
+        assertTrue(System.currentTimeMillis() - start < 4000, "the search was stopped");
+        stopper.join();
+        assertEquals(0, cache.size(), "a stopped search is not stored");
+
+        fake.setThinkTimeMs(20);
+        assertNotNull(engine.getBestMove(new Board(), SearchLimits.depth(20)));
+        assertEquals(1, cache.size());
+        engine.close();
+    }
+
+    @Test
+    @DisplayName("The default MultiPV is applied without changing the caller's limits")
+    public void testLimitsNotModified() throws Exception {
+        ChessEngine engine = new ChessEngine(new EngineOptions(1, 16, 2), () -> {
+            throw new java.io.IOException("no engine");
+        });
+        assertFalse(engine.isEngineAvailable());
+        SearchLimits limits = SearchLimits.depth(3);
+        assertEquals(2, engine.searchAsync(new Board(), limits, null).get().getLines().size());
+        assertEquals(0, limits.getMultiPv());
+        engine.close();
+    }
+
+    private static Board play(String... uciMoves) {
+        Board board = new Board();
+        for (String move : uciMoves) {
+            Position from = new Position(move.substring(0, 2));
+            Position to = new Position(move.substring(2, 4));
+            assertTrue(board.makeMove(new Move(from, to, board.getPiece(from), board.getPiece(to))), move);
+        }
+        return board;
+    }
+
+    @Test
+    @DisplayName("Positions along a game extend one move list")
+    public void testIncrementalPositions() {
+        ChessEngine engine = new ChessEngine();
+        assertEquals("position startpos", engine.positionCommand(new Board()));
+        assertEquals("position startpos moves e2e4 e7e5", engine.positionCommand(play("e2e4", "e7e5")));
+        assertEquals("position startpos moves e2e4 e7e5 g1f3",
+                engine.positionCommand(play("e2e4", "e7e5", "g1f3")));
+        // More than two plies ahead cannot be bridged, so it starts over
+        assertTrue(engine.positionCommand(play("e2e4", "e7e5", "g1f3", "b8c6", "f1b5", "a7a6"))
+                .startsWith("position fen "));
+    }
+
+    @Test
+    @DisplayName("Unrelated positions and new games start a new root")
+    public void testNewRoot() {
+        ChessEngine engine = new ChessEngine();
+        engine.positionCommand(play("d2d4"));
+        String fen = "6k1/5ppp/8/8/8/8/5PPP/3R2K1 w - - 0 1";
+        assertEquals("position fen " + fen, engine.positionCommand(FENUtils.fromFEN(fen)));
+        assertEquals("position fen " + fen + " moves d1d8",
+                engine.positionCommand(FENUtils.fromFEN("3R2k1/5ppp/8/8/8/8/5PPP/6K1 b - - 1 1")));
+
+        engine.newGame();
+        assertTrue(engine.positionCommand(play("d2d4")).startsWith("position fen "));
+        engine.newGame();
+        assertEquals("position startpos", engine.positionCommand(new Board()));
+        assertEquals("position startpos moves d2d4", engine.positionCommand(play("d2d4")));
+    }
+}
@@ -0,0 +1,67 @@
+package com.chess.engine;
+
+import com.chess.engine.uci.FakeUciEngine;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the engine load harness against the fake engine
+ */
+public class EngineBenchmarkTest {
+
+    @Test
+    @DisplayName("Concurrent requests through a pool are all answered and measured")
+    public void testPooledRun() throws Exception {
+        EngineBenchmark benchmark = new EngineBenchmark();
+        benchmark.setEngines(2);
+        benchmark.setClients(4);
+        benchmark.setRequests(24);
+        benchmark.setMoveTimeMs(20);
+        benchmark.getEngine().setThinkTimeMs(20);
+
+        EngineBenchmark.Report report = benchmark.run();
+        assertEquals(24, report.getCompleted());
+        assertEquals(0, report.getRejected());
+        assertEquals(0, report.getTimeouts());
+        assertTrue(report.getPercentileMs(0.50) >= 15, "each search thinks for its move time");
+        assertTrue(report.getPercentileMs(0.50) <= report.getPercentileMs(0.99));
+        assertTrue(report.getPercentileMs(0.99) <= report.getMaxLatencyMs());
+        assertTrue(report.getThroughput() > 0);
+        assertEquals(24, benchmark.getEngine().getSearches());
+    }
+
+    @Test
+    @DisplayName("Repeated positions are answered from the cache")
+    public void testCachedRun() throws Exception {
+        EngineBenchmark benchmark = new EngineBenchmark();
+        benchmark.setEngines(1);
+        benchmark.setClients(1);
+        benchmark.setRequests(20);
+        benchmark.setPositions(4);
+        benchmark.setMoveTimeMs(20);
+        benchmark.setCached(true);
+
+        EngineBenchmark.Report report = benchmark.run();
+        assertEquals(20, report.getCompleted());
+        assertEquals(16, report.getCacheHits());
+        assertEquals(4, benchmark.getEngine().getSearches());
+    }
+
+    @Test
+    @DisplayName("Injected hangs show up as timeouts and restarts")
+    public void testFailingRun() throws Exception {
+        EngineBenchmark benchmark = new EngineBenchmark();
+        benchmark.setEngines(1);
+        benchmark.setClients(1);
+        benchmark.setRequests(3);
+        benchmark.setMoveTimeMs(20);
+        benchmark.getEngine().setFailure(FakeUciEngine.Failure.HANG, 2);
+
+        EngineBenchmark.Report report = benchmark.run();
+        assertEquals(3, report.getCompleted(), "the native engine answers meanwhile");
+        assertEquals(1, report.getFailures());
+        assertTrue(report.getTimeouts() >= 1);
+    }
+}
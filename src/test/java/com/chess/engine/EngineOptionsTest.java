@@ -0,0 +1,45 @@
+package com.chess.engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for sizing engine options from the host
+ */
+public class EngineOptionsTest {
+    private static final long GB = 1024L * 1024 * 1024;
+
+    @Test
+    @DisplayName("Cores are split between pooled engines, keeping one for the GUI")
+    public void testThreadPartitioning() {
+        assertEquals(7, EngineOptions.forHost(EngineOptions.Profile.PLAY, 1, 8, 16 * GB).getThreads());
+        assertEquals(3, EngineOptions.forHost(EngineOptions.Profile.PLAY, 2, 8, 16 * GB).getThreads());
+        assertEquals(1, EngineOptions.forHost(EngineOptions.Profile.REVIEW, 2, 8, 16 * GB).getThreads());
+        assertEquals(2, EngineOptions.forHost(EngineOptions.Profile.PLAY, 1, 2, 16 * GB).getThreads());
+        assertEquals(1, EngineOptions.forHost(EngineOptions.Profile.PLAY, 4, 2, 16 * GB).getThreads());
+    }
+
+    @Test
+    @DisplayName("Hash is a power of two within the memory budget and profile cap")
+    public void testHashSizing() {
+        // 16 GB / 16 = 1 GB for all engines
+        assertEquals(256, EngineOptions.forHost(EngineOptions.Profile.PLAY, 1, 8, 16 * GB).getHashMb());
+        assertEquals(1024, EngineOptions.forHost(EngineOptions.Profile.ANALYSIS, 1, 8, 16 * GB).getHashMb());
+        assertEquals(256, EngineOptions.forHost(EngineOptions.Profile.ANALYSIS, 3, 8, 16 * GB).getHashMb());
+        assertEquals(EngineOptions.MIN_HASH_MB, EngineOptions.forHost(EngineOptions.Profile.PLAY, 1, 8, 0).getHashMb());
+        assertEquals(3, EngineOptions.forHost(EngineOptions.Profile.ANALYSIS, 1, 8, 16 * GB).getMultiPv());
+    }
+
+    @Test
+    @DisplayName("Pooled engines get one hash size whatever the profile")
+    public void testPoolHash() {
+        for (EngineOptions.Profile profile : EngineOptions.Profile.values()) {
+            assertEquals(1024, EngineOptions.forPool(profile, 1, 8, 16 * GB).getHashMb());
+            assertEquals(256, EngineOptions.forPool(profile, 4, 8, 16 * GB).getHashMb());
+        }
+        assertEquals(3, EngineOptions.forPool(EngineOptions.Profile.REVIEW, 1, 8, 16 * GB).getThreads());
+        assertEquals(3, EngineOptions.forPool(EngineOptions.Profile.ANALYSIS, 1, 8, 16 * GB).getMultiPv());
+    }
+}
@@ -0,0 +1,131 @@
+package com.chess.engine;
+
+import com.chess.model.Board;
+import com.chess.model.Move;
+import com.chess.engine.uci.FakeUciEngine;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for checking engines out of a pool
+ */
+public class EnginePoolTest {
+
+    @Test
+    @DisplayName("Leased engines are exclusive and come back when the lease closes")
+    public void testExclusiveCheckout() throws Exception {
+        try (EnginePool pool = new EnginePool(2)) {
+            assertEquals(2, pool.available());
+            EnginePool.Lease first = pool.acquire(100);
+            EnginePool.Lease second = pool.acquire(100);
+            assertNotSame(first.getEngine(), second.getEngine());
+            assertEquals(0, pool.available());
+
+            ChessEngine engine = first.getEngine();
+            first.close();
+            first.close();
+            assertEquals(1, pool.available());
+            assertThrows(IllegalStateException.class, first::getEngine);
+
+            try (EnginePool.Lease third = pool.acquire(100)) {
+                assertSame(engine, third.getEngine());
+            }
+            second.close();
+            assertEquals(2, pool.available());
+        }
+    }
+
+    @Test
+    @DisplayName("Acquire waits for a free engine and times out")
+    public void testAcquireTimeout() throws Exception {
+        try (EnginePool pool = new EnginePool(1)) {
+            EnginePool.Lease lease = pool.acquire(100);
+            long start = System.currentTimeMillis();
+            assertThrows(TimeoutException.class, () -> pool.acquire(100));
+            assertTrue(System.currentTimeMillis() - start >= 90);
+
+            CompletableFuture<EnginePool.Lease> waiting = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return pool.acquire(5000);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            Thread.sleep(50);
+            assertFalse(waiting.isDone());
+            lease.close();
+            waiting.get(5, TimeUnit.SECONDS).close();
+        }
+    }
+
+    @Test
+    @DisplayName("Concurrent requests each search on their own engine")
+    public void testConcurrentSearches() throws Exception {
+        try (EnginePool pool = new EnginePool(2)) {
+            CompletableFuture<Move> a = CompletableFuture.supplyAsync(() -> search(pool));
+            CompletableFuture<Move> b = CompletableFuture.supplyAsync(() -> search(pool));
+            assertNotNull(a.get(30, TimeUnit.SECONDS));
+            assertNotNull(b.get(30, TimeUnit.SECONDS));
+            assertEquals(2, pool.available());
+        }
+    }
+
+    @Test
+    @DisplayName("A closed pool refuses checkouts")
+    public void testClosedPool() {
+        EnginePool pool = new EnginePool(1);
+        pool.close();
+        assertThrows(IllegalStateException.class, () -> pool.acquire(10));
+    }
+
+    @Test
+    @DisplayName("Switching profiles between checkouts does not resize the hash")
+    public void testProfileChangeKeepsHash() throws Exception {
+        FakeUciEngine fake = new FakeUciEngine();
+        // A 64 GB host, where the profiles' own hash caps differ
+        Function<EngineOptions.Profile, EngineOptions> sizing =
+                profile -> EngineOptions.forPool(profile, 1, 16, 64L * 1024 * 1024 * 1024);
+        Supplier<ChessEngine> factory = () -> new ChessEngine(sizing.apply(EngineOptions.Profile.PLAY), fake::launch);
+        try (EnginePool pool = new EnginePool(1, factory, sizing)) {
+            for (EngineOptions.Profile profile : new EngineOptions.Profile[]{
+                    EngineOptions.Profile.REVIEW, EngineOptions.Profile.PLAY,
+                    EngineOptions.Profile.ANALYSIS, EngineOptions.Profile.PLAY}) {
+                pool.acquire(1000, profile).close();
+            }
+            // A search after the checkouts means every option sent before it has been read
+            assertNotNull(search(pool));
+            assertEquals(1, fake.getHashChanges(), "Hash is only set when the engine starts");
+        }
+    }
+
+    private static Move search(EnginePool pool) {
+        try {
+            return pool.withEngine(5000, engine -> engine.getBestMove(new Board(), SearchLimits.depth(3)));
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    @DisplayName("The shared pool starts in the background and is replaced after closing")
+    public void testSharedPoolStartsAsync() {
+        CompletableFuture<EnginePool> starting = EnginePool.getSharedAsync();
+        assertSame(starting, EnginePool.getSharedAsync(), "one start for every caller");
+        EnginePool pool = starting.join();
+        assertSame(pool, EnginePool.getShared());
+        assertEquals(EnginePool.DEFAULT_SIZE, pool.size());
+
+        EnginePool.closeShared();
+        assertNotSame(starting, EnginePool.getSharedAsync());
+        EnginePool.closeShared();
+        assertThrows(IllegalStateException.class, () -> pool.acquire(10));
+    }
+}
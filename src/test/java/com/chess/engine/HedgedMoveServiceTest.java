@@ -0,0 +1,116 @@
+package com.chess.engine;
+
+import com.chess.model.Board;
+import com.chess.model.Move;
+import com.chess.model.Position;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for hedging UCI move requests with the native engine
+ */
+public class HedgedMoveServiceTest {
+
+    /**
+     * Stands in for Stockfish: answers a2a3 after a delay; when stopped, answers a2a3
+     * if it had a move by then and nothing otherwise
+     */
+    private static class FakeUciEngine extends ChessEngine {
+        private final long delayMs;
+        private final boolean moveWhenStopped;
+        private final CountDownLatch stopped = new CountDownLatch(1);
+        private volatile Board searched;
+        private volatile boolean searching;
+
+        FakeUciEngine(long delayMs, boolean moveWhenStopped) {
+            this.delayMs = delayMs;
+            this.moveWhenStopped = moveWhenStopped;
+        }
+
+        @Override
+        public boolean isEngineAvailable() {
+            return true;
+        }
+
+        @Override
+        public synchronized Move getBestMove(Board board, SearchLimits limits) {
+            searched = board;
+            searching = true;
+            boolean wasStopped = false;
+            try {
+                wasStopped = stopped.await(delayMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                searching = false;
+            }
+            if (wasStopped && !moveWhenStopped) {
+                return null;
+            }
+            Position from = new Position("a2");
+            return new Move(from, new Position("a3"), board.getPiece(from), null);
+        }
+
+        @Override
+        public void stopSearch() {
+            stopped.countDown();
+        }
+    }
+
+    @Test
+    @DisplayName("A UCI move that arrives in time is played")
+    void testUciMoveInTime() {
+        HedgedMoveService service = new HedgedMoveService(new FakeUciEngine(50, true));
+        Move move = service.getBestMove(new Board(), SearchLimits.moveTime(2000), 1000);
+        assertEquals("a2a3", move.getFrom().toAlgebraicNotation() + move.getTo().toAlgebraicNotation());
+        service.close();
+    }
+
+    @Test
+    @DisplayName("A stalled UCI engine is stopped and the native move is played by the deadline")
+    void testStalledUciFallsBack() {
+        FakeUciEngine uci = new FakeUciEngine(60_000, false);
+        HedgedMoveService service = new HedgedMoveService(uci, new NativeEngine());
+        Board board = new Board();
+        long start = System.currentTimeMillis();
+        Move move = service.getBestMove(board, SearchLimits.depth(30), 300);
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertNotNull(move);
+        assertTrue(board.isValidMove(move));
+        assertTrue(elapsed < 1500, "took " + elapsed + " ms");
+        assertEquals(0, uci.stopped.getCount(), "the UCI search should have been stopped");
+        assertNotSame(board, uci.searched, "the search gets its own copy of the board");
+        assertFalse(uci.searching, "the stopped search has let go of the engine");
+        service.close();
+    }
+
+    @Test
+    @DisplayName("A late UCI engine that answers when stopped has its move played")
+    void testStoppedUciMovePlayed() {
+        FakeUciEngine uci = new FakeUciEngine(60_000, true);
+        HedgedMoveService service = new HedgedMoveService(uci, new NativeEngine());
+        long start = System.currentTimeMillis();
+        Move move = service.getBestMove(new Board(), SearchLimits.depth(30), 300);
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertEquals("a2a3", move.getFrom().toAlgebraicNotation() + move.getTo().toAlgebraicNotation());
+        assertTrue(elapsed < 1500, "took " + elapsed + " ms");
+        service.close();
+    }
+
+    @Test
+    @DisplayName("The cap on untimed searches does not cut a long timed search short")
+    void testTimedSearchNotCapped() {
+        HedgedMoveService service = new HedgedMoveService(new FakeUciEngine(500, false), new NativeEngine());
+        service.setMaxDeadlineMs(100);
+        Move move = service.getBestMove(new Board(), SearchLimits.moveTime(1000));
+        assertEquals("a2a3", move.getFrom().toAlgebraicNotation() + move.getTo().toAlgebraicNotation());
+        service.close();
+    }
+}
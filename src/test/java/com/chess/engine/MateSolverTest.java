@@ -0,0 +1,68 @@
+package com.chess.engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the proof-number mate solver
+ */
+public class MateSolverTest {
+
+    /**
+     * Plays the line and checks it ends with the defender mated
+     */
+    private static void assertMates(String fen, int[] line) {
+        SearchBoard board = new SearchBoard(fen);
+        for (int move : line) {
+            assertTrue(board.makeMove(move), "legal: " + SearchBoard.toUci(move));
+        }
+        assertTrue(board.isInCheck() && !board.hasLegalMove(), "the line ends in mate");
+    }
+
+    @Test
+    @DisplayName("Finds the shortest mate and the full line")
+    void testMates() {
+        MateSolver solver = new MateSolver();
+        String backRank = "6k1/5ppp/8/8/8/8/8/3R2K1 w - - 0 1";
+        MateSolver.Result inOne = solver.solve(new SearchBoard(backRank), 3, MateSolver.DEFAULT_MAX_NODES);
+        assertEquals(MateSolver.Status.MATE, inOne.getStatus());
+        assertEquals(1, inOne.getMateIn());
+        assertEquals("d1d8", SearchBoard.toUci(inOne.getLine()[0]));
+
+        // The two rooks take turns to check the king back to the edge
+        String ladder = "8/4k3/8/8/8/8/R7/1R4K1 w - - 0 1";
+        MateSolver.Result inFour = solver.solve(new SearchBoard(ladder), 5, MateSolver.DEFAULT_MAX_NODES);
+        assertEquals(MateSolver.Status.MATE, inFour.getStatus(), inFour.toString());
+        assertEquals(4, inFour.getMateIn());
+        assertEquals(7, inFour.getLine().length);
+        assertMates(ladder, inFour.getLine());
+
+        // Black to move sacrifices the bishop and mates with the queen
+        String sacrifice = "r1b1kb1r/pppp1ppp/5q2/4n3/3KP3/2N3PN/PPP4P/R1BQ1B1R b kq - 0 1";
+        MateSolver.Result inThree = solver.solve(new SearchBoard(sacrifice), 5, MateSolver.DEFAULT_MAX_NODES);
+        assertEquals(3, inThree.getMateIn(), inThree.toString());
+        assertMates(sacrifice, inThree.getLine());
+    }
+
+    @Test
+    @DisplayName("Proves there is no mate, or says it cannot tell within the node budget")
+    void testNoMate() {
+        MateSolver solver = new MateSolver(4);
+        MateSolver.Result none = solver.solve(new SearchBoard("4k3/8/8/8/8/8/8/4K2R w K - 0 1"), 3,
+                MateSolver.DEFAULT_MAX_NODES);
+        assertEquals(MateSolver.Status.NO_MATE, none.getStatus());
+        assertEquals(0, none.getLine().length);
+
+        // Qg6 leaves the king no move, but stalemate is not mate
+        MateSolver.Result stalemate = solver.solve(new SearchBoard("7k/8/8/6K1/8/8/8/6Q1 w - - 0 1"), 1,
+                MateSolver.DEFAULT_MAX_NODES);
+        assertEquals(MateSolver.Status.NO_MATE, stalemate.getStatus());
+
+        MateSolver.Result unknown = new MateSolver(1).solve(new SearchBoard("8/8/8/4k3/8/8/R7/1R4K1 w - - 0 1"),
+                6, 1000);
+        assertEquals(MateSolver.Status.UNKNOWN, unknown.getStatus());
+        assertTrue(unknown.getNodes() <= 1001);
+    }
+}
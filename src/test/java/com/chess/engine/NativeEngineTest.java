@@ -0,0 +1,132 @@
+package com.chess.engine;
+
+import com.chess.engine.endgame.BitbaseGenerator;
+import com.chess.engine.endgame.EndgameOracle;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the native search engine
+ */
+public class NativeEngineTest {
+
+    @Test
+    @DisplayName("A ponder hit turns the background search into a timed one")
+    void testPonderHit() {
+        NativeEngine engine = new NativeEngine();
+        SearchBoard position = new SearchBoard();
+        engine.search(position, SearchLimits.depth(4));
+        int reply = engine.predictReply(afterMove(position, "e2e4"));
+
+        SearchBoard pondered = afterMove(position, "e2e4");
+        if (reply == SearchBoard.NO_MOVE) {
+            reply = pondered.parseUciMove("e7e5");
+        }
+        assertTrue(pondered.makeMove(reply));
+        SearchBoard current = pondered.copy();
+
+        engine.startPonder(pondered);
+        assertTrue(engine.isPondering());
+        long start = System.currentTimeMillis();
+        engine.ponderHit(SearchLimits.moveTime(200), current);
+        int best = engine.awaitPonder();
+        assertTrue(System.currentTimeMillis() - start < 2000);
+        assertNotEquals(SearchBoard.NO_MOVE, best);
+        assertTrue(current.makeMove(best));
+    }
+
+    @Test
+    @DisplayName("Stopping after a ponder miss returns promptly")
+    void testPonderMiss() {
+        NativeEngine engine = new NativeEngine();
+        engine.startPonder(afterMove(new SearchBoard(), "d2d4"));
+        long start = System.currentTimeMillis();
+        engine.stopPonder();
+        assertTrue(System.currentTimeMillis() - start < 1000);
+        assertFalse(engine.isPondering());
+
+        // The engine is free for a normal search afterwards
+        int best = engine.search(new SearchBoard(), SearchLimits.depth(2));
+        assertNotEquals(SearchBoard.NO_MOVE, best);
+    }
+
+    @Test
+    @DisplayName("Selective search reaches the same depth with fewer nodes")
+    void testSelectiveSearchSavesNodes() {
+        String fen = "r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 4 4";
+        NativeEngine plain = new NativeEngine();
+        for (NativeEngine.Feature feature : NativeEngine.Feature.values()) {
+            plain.setFeatureEnabled(feature, false);
+        }
+        NativeEngine selective = new NativeEngine();
+
+        plain.search(new SearchBoard(fen), SearchLimits.depth(5));
+        selective.search(new SearchBoard(fen), SearchLimits.depth(5));
+        assertEquals(5, selective.getCompletedDepth());
+        assertTrue(selective.getNodes() < plain.getNodes(),
+                "selective " + selective.getNodes() + " vs plain " + plain.getNodes());
+    }
+
+    @Test
+    @DisplayName("Pruning does not hide a forced mate")
+    void testSelectiveSearchFindsMate() {
+        // Qd8+ Bxd8 Re8#
+        SearchBoard board = new SearchBoard("r1b2k1r/ppp1bppp/8/1B1Q4/5q2/2P5/PPP2PPP/R3R1K1 w - - 0 1");
+        NativeEngine engine = new NativeEngine();
+        int move = engine.search(board, SearchLimits.depth(5));
+        assertEquals("d5d8", SearchBoard.toUci(move));
+        assertEquals(NativeEngine.MATE - 3, engine.getBestScore());
+    }
+
+    @Test
+    @DisplayName("A mate is preferred to a bitbase win")
+    void testMateWithBitbases() {
+        EndgameOracle oracle = new EndgameOracle(Path.of("does-not-exist"), false);
+        oracle.addTable(new BitbaseGenerator().table("KQK"));
+        NativeEngine engine = new NativeEngine();
+        engine.setEndgameOracle(oracle);
+        int move = engine.search(new SearchBoard("7k/8/6K1/8/8/8/8/Q7 w - - 0 1"), SearchLimits.depth(3));
+        assertEquals("a1g7", SearchBoard.toUci(move));
+        assertEquals(NativeEngine.MATE - 1, engine.getBestScore());
+    }
+
+    @Test
+    @DisplayName("A node budget bounds the search and gives the same move every time")
+    void testNodeBudget() {
+        String fen = "r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 4 4";
+        SearchLimits limits = SearchLimits.depth(30);
+        limits.setNodes(20_000);
+        NativeEngine first = new NativeEngine();
+        int move = first.search(new SearchBoard(fen), limits);
+        assertTrue(first.getNodes() <= 20_000);
+        assertNotEquals(SearchBoard.NO_MOVE, move);
+        assertEquals(move, new NativeEngine().search(new SearchBoard(fen), limits));
+    }
+
+    @Test
+    @DisplayName("Weak levels vary their moves but still play legal ones and take mates")
+    void testReducedSkill() {
+        SearchBoard start = new SearchBoard();
+        for (int i = 0; i < 5; i++) {
+            NativeEngine engine = new NativeEngine();
+            SearchBoard board = start.copy();
+            int move = engine.search(board, Difficulty.BEGINNER.applyTo(SearchLimits.depth(0)));
+            assertTrue(board.makeMove(move));
+        }
+
+        NativeEngine engine = new NativeEngine();
+        int mate = engine.search(new SearchBoard("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1"),
+                Difficulty.BEGINNER.applyTo(SearchLimits.depth(0)));
+        assertEquals("a1a8", SearchBoard.toUci(mate));
+    }
+
+    private static SearchBoard afterMove(SearchBoard board, String uci) {
+        SearchBoard copy = board.copy();
+        assertTrue(copy.makeMove(copy.parseUciMove(uci)));
+        return copy;
+    }
+}
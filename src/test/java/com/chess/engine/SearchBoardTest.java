@@ -0,0 +1,161 @@
+package com.chess.engine;
+
+import com.chess.engine.eval.TaperedEvaluator;
+import com.chess.model.Board;
+import com.chess.model.Move;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the native search board, incremental evaluation and native engine
+ */
+public class SearchBoardTest {
+
+    @Test
+    @DisplayName("Perft from the starting position")
+    void testPerftStartPosition() {
+        SearchBoard board = new SearchBoard();
+        assertEquals(20, board.perft(1));
+        assertEquals(400, board.perft(2));
+        assertEquals(8902, board.perft(3));
+        assertEquals(197281, board.perft(4));
+    }
+
+    @Test
+    @DisplayName("Perft covers castling, en passant and promotions")
+    void testPerftSpecialMoves() {
+        SearchBoard kiwipete = new SearchBoard("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        assertEquals(48, kiwipete.perft(1));
+        assertEquals(2039, kiwipete.perft(2));
+        assertEquals(97862, kiwipete.perft(3));
+
+        SearchBoard endgame = new SearchBoard("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1");
+        assertEquals(2812, endgame.perft(3));
+        assertEquals(43238, endgame.perft(4));
+
+        SearchBoard promotions = new SearchBoard("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1");
+        assertEquals(264, promotions.perft(2));
+        assertEquals(9467, promotions.perft(3));
+    }
+
+    @Test
+    @DisplayName("Make/unmake restores the position and hash key")
+    void testUnmakeRestoresState() {
+        SearchBoard board = new SearchBoard("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        String fen = board.toFEN();
+        long key = board.getKey();
+        int[] moves = new int[SearchBoard.MAX_MOVES];
+        int count = board.generateMoves(moves, false);
+        for (int i = 0; i < count; i++) {
+            if (board.makeMove(moves[i])) {
+                board.unmakeMove();
+            }
+            assertEquals(fen, board.toFEN());
+            assertEquals(key, board.getKey());
+        }
+    }
+
+    @Test
+    @DisplayName("A null move passes the turn and is undone exactly")
+    void testNullMove() {
+        SearchBoard board = new SearchBoard("rnbqkbnr/ppp1pppp/8/3pP3/8/8/PPPP1PPP/RNBQKBNR b KQkq - 0 2");
+        assertTrue(board.makeMove(board.parseUciMove("f7f5")));
+        String fen = board.toFEN();
+        long key = board.getKey();
+
+        board.makeNullMove();
+        assertEquals(SearchBoard.BLACK, board.getSideToMove());
+        assertEquals(-1, board.getEpSquare());
+        assertEquals(new SearchBoard(board.toFEN()).getKey(), board.getKey());
+        board.unmakeNullMove();
+
+        assertEquals(fen, board.toFEN());
+        assertEquals(key, board.getKey());
+    }
+
+    @Test
+    @DisplayName("Incremental evaluation matches a full recompute")
+    void testIncrementalEvaluation() {
+        SearchBoard board = new SearchBoard();
+        TaperedEvaluator incremental = new TaperedEvaluator();
+        board.setEvaluator(incremental);
+        Random random = new Random(42);
+        int[] moves = new int[SearchBoard.MAX_MOVES];
+
+        for (int ply = 0; ply < 200; ply++) {
+            int count = board.generateMoves(moves, false);
+            boolean moved = false;
+            for (int attempt = 0; attempt < count && !moved; attempt++) {
+                moved = board.makeMove(moves[random.nextInt(count)]);
+            }
+            if (!moved) {
+                break;
+            }
+            TaperedEvaluator fresh = new TaperedEvaluator();
+            fresh.refresh(board);
+            assertEquals(fresh.evaluate(board), incremental.evaluate(board), "Mismatch at " + board.toFEN());
+        }
+
+        while (board.getHistoryLength() > 0) {
+            board.unmakeMove();
+        }
+        TaperedEvaluator fresh = new TaperedEvaluator();
+        fresh.refresh(board);
+        assertEquals(fresh.evaluate(board), incremental.evaluate(board));
+    }
+
+    @Test
+    @DisplayName("Conversion from the model board keeps the position")
+    void testFromModelBoard() {
+        Board board = new Board();
+        assertEquals(SearchBoard.START_FEN, SearchBoard.fromBoard(board).toFEN());
+    }
+
+    @Test
+    @DisplayName("Native engine finds mate in one")
+    void testNativeEngineFindsMate() {
+        // Back-rank mate: Ra8#
+        SearchBoard board = new SearchBoard("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        NativeEngine engine = new NativeEngine();
+        int move = engine.search(board, 2000, 6);
+        assertEquals("a1a8", SearchBoard.toUci(move));
+        assertTrue(engine.getBestScore() >= NativeEngine.MATE_BOUND);
+    }
+
+    @Test
+    @DisplayName("Native engine returns a legal model move")
+    void testNativeEngineModelMove() {
+        Board board = new Board();
+        Move move = new NativeEngine().getBestMove(board, 300);
+        assertNotNull(move);
+        assertTrue(board.isValidMove(move), "Engine move should be legal: " + move);
+    }
+
+    @Test
+    @DisplayName("Static exchange evaluation plays out recaptures, x-rays included")
+    void testStaticExchange() {
+        SearchBoard free = new SearchBoard("4k3/8/8/3p4/4P3/8/8/4K3 w - - 0 1");
+        assertEquals(100, free.see(free.parseUciMove("e4d5")));
+
+        SearchBoard even = new SearchBoard("4k3/8/2p5/3p4/4P3/8/8/4K3 w - - 0 1");
+        assertEquals(0, even.see(even.parseUciMove("e4d5")));
+
+        SearchBoard knight = new SearchBoard("4k3/8/2p5/3n4/4P3/8/8/4K3 w - - 0 1");
+        assertEquals(220, knight.see(knight.parseUciMove("e4d5")));
+
+        SearchBoard queen = new SearchBoard("4k3/8/2p5/3p4/8/8/8/3QK3 w - - 0 1");
+        assertEquals(-800, queen.see(queen.parseUciMove("d1d5")));
+
+        // The rook behind joins in once the first one has gone
+        SearchBoard battery = new SearchBoard("4k3/3r4/8/3p4/8/8/3R4/3RK3 w - - 0 1");
+        assertEquals(100, battery.see(battery.parseUciMove("d2d5")));
+
+        // A quiet move onto a square the pawn covers loses the piece
+        SearchBoard quiet = new SearchBoard("4k3/8/2p5/8/8/8/8/3QK3 w - - 0 1");
+        assertEquals(-900, quiet.see(quiet.parseUciMove("d1d5")));
+    }
+}
@@ -0,0 +1,88 @@
+package com.chess.engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for clock-aware time allocation
+ */
+public class TimeManagerTest {
+
+    @Test
+    @DisplayName("Clock budgets stay within the remaining time")
+    void testClockBudget() {
+        SearchBoard board = new SearchBoard();
+        TimeManager manager = TimeManager.forSearch(SearchLimits.clock(60_000, 60_000, 1_000, 1_000, 0), board);
+        assertTrue(manager.getSoftLimitMs() > 0);
+        assertTrue(manager.getSoftLimitMs() <= manager.getHardLimitMs());
+        assertTrue(manager.getHardLimitMs() < 60_000 / 2);
+
+        TimeManager shortOnTime = TimeManager.forSearch(SearchLimits.clock(60_000, 2_000, 0, 0, 0), new SearchBoard(
+                "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1"));
+        assertTrue(shortOnTime.getHardLimitMs() < 2_000);
+    }
+
+    @Test
+    @DisplayName("A single legal reply is played almost immediately")
+    void testForcedMove() {
+        // The rook covers the g-file, so Kh7 is Black's only legal move
+        SearchBoard board = new SearchBoard("7k/8/8/8/8/8/6R1/K7 b - - 0 1");
+        assertEquals(0.0, TimeManager.estimateComplexity(board));
+        TimeManager manager = TimeManager.forSearch(SearchLimits.clock(60_000, 60_000, 0, 0, 0), board);
+        assertTrue(manager.getHardLimitMs() <= 10);
+    }
+
+    @Test
+    @DisplayName("A stable best move shortens the search and a score drop extends it")
+    void testStabilityAndScoreDrop() {
+        SearchBoard board = new SearchBoard();
+        TimeManager stable = TimeManager.forSearch(SearchLimits.clock(300_000, 300_000, 0, 0, 0), board);
+        long initial = stable.getAdjustedSoftLimitMs();
+        for (int depth = 1; depth <= 6; depth++) {
+            stable.iterationCompleted(depth, 123, 20);
+        }
+        assertTrue(stable.getAdjustedSoftLimitMs() < initial);
+
+        TimeManager dropping = TimeManager.forSearch(SearchLimits.clock(300_000, 300_000, 0, 0, 0), board);
+        dropping.iterationCompleted(1, 123, 50);
+        dropping.iterationCompleted(2, 123, -80);
+        assertTrue(dropping.getAdjustedSoftLimitMs() > initial);
+    }
+
+    @Test
+    @DisplayName("Fixed move time and depth limits are honoured exactly")
+    void testFixedLimits() {
+        SearchBoard board = new SearchBoard();
+        TimeManager fixed = TimeManager.forSearch(SearchLimits.moveTime(500), board);
+        assertEquals(500, fixed.getSoftLimitMs());
+        assertEquals(500, fixed.getHardLimitMs());
+        assertEquals("go movetime 500", SearchLimits.moveTime(500).toUciCommand());
+        assertEquals("go wtime 1000 btime 2000 winc 10 binc 20 movestogo 5",
+                SearchLimits.clock(1000, 2000, 10, 20, 5).toUciCommand());
+
+        NativeEngine engine = new NativeEngine();
+        engine.search(board, SearchLimits.depth(3));
+        assertEquals(3, engine.getCompletedDepth());
+    }
+
+    @Test
+    @DisplayName("Difficulty levels cap nodes, depth and latency on top of the clock")
+    void testDifficultyLimits() {
+        SearchBoard board = new SearchBoard();
+        SearchLimits limits = Difficulty.BEGINNER.applyTo(SearchLimits.clock(600_000, 600_000, 5_000, 5_000, 0));
+        assertEquals("go wtime 600000 btime 600000 winc 5000 binc 5000 movetime 300 depth 3 nodes 2000",
+                limits.toUciCommand());
+        assertEquals(0, limits.getSkillLevel());
+        TimeManager manager = TimeManager.forSearch(limits, board);
+        assertTrue(manager.getHardLimitMs() <= 300);
+        assertTrue(manager.getSoftLimitMs() <= manager.getHardLimitMs());
+
+        SearchLimits maximum = Difficulty.MAXIMUM.applyTo(SearchLimits.depth(4));
+        assertEquals(SearchLimits.MAX_SKILL_LEVEL, maximum.getSkillLevel());
+        assertEquals(0, maximum.getNodes());
+        assertTrue(Difficulty.MAXIMUM.isFullStrength());
+        assertFalse(Difficulty.ADVANCED.isFullStrength());
+    }
+}
@@ -0,0 +1,119 @@
+package com.chess.engine.book;
+
+import com.chess.engine.SearchBoard;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the memory-mapped Polyglot book reader, using a generated key table
+ */
+public class PolyglotBookTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static PolyglotKey testKeys() {
+        long[] table = new long[PolyglotKey.TABLE_SIZE];
+        Random random = new Random(7);
+        for (int i = 0; i < table.length; i++) {
+            table[i] = random.nextLong();
+        }
+        return new PolyglotKey(table);
+    }
+
+    /** Polyglot move encoding: to file, to row, from file, from row, promotion */
+    private static int encode(String uci) {
+        int from = SearchBoard.parseSquare(uci.substring(0, 2));
+        int to = SearchBoard.parseSquare(uci.substring(2, 4));
+        int promotion = uci.length() > 4 ? " nbrq".indexOf(uci.charAt(4)) : 0;
+        return (to & 7) | (to >> 3) << 3 | (from & 7) << 6 | (from >> 3) << 9 | promotion << 12;
+    }
+
+    private Path writeBook(List<long[]> entries) throws Exception {
+        entries.sort((a, b) -> Long.compareUnsigned(a[0], b[0]));
+        ByteBuffer buffer = ByteBuffer.allocate(entries.size() * 16);
+        for (long[] entry : entries) {
+            buffer.putLong(entry[0]).putShort((short) entry[1]).putShort((short) entry[2]).putInt(0);
+        }
+        Path file = tempDir.resolve("test.bin");
+        Files.write(file, buffer.array());
+        return file;
+    }
+
+    @Test
+    @DisplayName("Entries are found by key and decoded to legal moves")
+    void testLookup() throws Exception {
+        PolyglotKey keys = testKeys();
+        SearchBoard start = new SearchBoard();
+        long startKey = keys.compute(start);
+        List<long[]> entries = new ArrayList<>();
+        entries.add(new long[]{startKey, encode("e2e4"), 3});
+        entries.add(new long[]{startKey, encode("d2d4"), 1});
+        // Neighbouring keys on both sides must not be picked up
+        entries.add(new long[]{startKey - 1, encode("g1f3"), 5});
+        entries.add(new long[]{startKey + 1, encode("c2c4"), 5});
+        entries.add(new long[]{keys.compute(new SearchBoard("4k3/8/8/8/8/8/8/4K3 w - - 0 1")), encode("e1e2"), 1});
+
+        PolyglotBook book = PolyglotBook.open(writeBook(entries), keys);
+        assertEquals(5, book.getEntryCount());
+
+        List<PolyglotBook.Entry> found = book.getEntries(start);
+        assertEquals(2, found.size());
+        Set<String> moves = new HashSet<>();
+        for (PolyglotBook.Entry entry : found) {
+            moves.add(SearchBoard.toUci(entry.getMove()));
+        }
+        assertEquals(Set.of("e2e4", "d2d4"), moves);
+
+        for (int i = 0; i < 20; i++) {
+            String picked = SearchBoard.toUci(book.pickMove(start));
+            assertTrue(picked.equals("e2e4") || picked.equals("d2d4"));
+        }
+        assertEquals(SearchBoard.NO_MOVE, book.pickMove(new SearchBoard("4k3/8/8/8/8/8/8/3K4 w - - 0 1")));
+    }
+
+    @Test
+    @DisplayName("Castling is stored as the king taking its own rook")
+    void testCastlingDecode() throws Exception {
+        PolyglotKey keys = testKeys();
+        SearchBoard position = new SearchBoard("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        List<long[]> entries = new ArrayList<>();
+        entries.add(new long[]{keys.compute(position), encode("e1h1"), 1});
+        PolyglotBook book = PolyglotBook.open(writeBook(entries), keys);
+
+        int move = book.pickMove(position);
+        assertEquals("e1g1", SearchBoard.toUci(move));
+        assertEquals(SearchBoard.FLAG_CASTLE, SearchBoard.flag(move));
+    }
+
+    @Test
+    @DisplayName("En-passant file only affects the key when a capture is possible")
+    void testEnPassantKey() throws Exception {
+        PolyglotKey keys = testKeys();
+        SearchBoard noCapturer = new SearchBoard("4k3/8/8/8/4P3/8/8/4K3 b - e3 0 1");
+        SearchBoard noEp = new SearchBoard("4k3/8/8/8/4P3/8/8/4K3 b - - 0 1");
+        assertEquals(keys.compute(noEp), keys.compute(noCapturer));
+
+        SearchBoard capturer = new SearchBoard("4k3/8/8/8/3pP3/8/8/4K3 b - e3 0 1");
+        SearchBoard capturerNoEp = new SearchBoard("4k3/8/8/8/3pP3/8/8/4K3 b - - 0 1");
+        assertNotEquals(keys.compute(capturerNoEp), keys.compute(capturer));
+
+        String table = "0x0000000000000001, 2\n3";
+        assertThrows(IllegalArgumentException.class,
+                () -> PolyglotKey.parseTable(new BufferedReader(new StringReader(table))));
+    }
+}
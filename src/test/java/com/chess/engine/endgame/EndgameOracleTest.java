@@ -0,0 +1,120 @@
+package com.chess.engine.endgame;
+
+import com.chess.engine.NativeEngine;
+import com.chess.engine.SearchBoard;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Tests for bitbase generation and probing on three-piece endings
+ */
+public class EndgameOracleTest {
+    private static EndgameOracle oracle;
+    private static BitbaseGenerator generator;
+
+    @BeforeAll
+    static void generate() {
+        generator = new BitbaseGenerator();
+        oracle = new EndgameOracle(Path.of("does-not-exist"), false);
+        for (String signature : new String[]{"KQK", "KRK", "KPK"}) {
+            oracle.addTable(generator.table(signature));
+        }
+    }
+
+    private static EndgameOracle.Result probe(String fen) {
+        return oracle.probe(new SearchBoard(fen));
+    }
+
+    @Test
+    @DisplayName("King and queen or rook against king wins unless the piece hangs")
+    void testMajorPieceEndings() {
+        assertEquals(EndgameOracle.Result.WIN, probe("8/8/8/8/8/8/1Q6/K6k w - - 0 1"));
+        assertEquals(EndgameOracle.Result.LOSS, probe("8/8/8/8/8/8/1Q6/K6k b - - 0 1"));
+        assertEquals(EndgameOracle.Result.WIN, probe("8/8/8/8/8/8/1R6/K6k w - - 0 1"));
+        // Black takes the undefended rook
+        assertEquals(EndgameOracle.Result.DRAW, probe("8/8/8/8/8/8/6Rk/K7 b - - 0 1"));
+        // Stalemate
+        assertEquals(EndgameOracle.Result.DRAW, probe("k7/2Q5/1K6/8/8/8/8/8 b - - 0 1"));
+    }
+
+    @Test
+    @DisplayName("Colours are mirrored when the stronger side is Black")
+    void testMirroredColours() {
+        assertEquals(EndgameOracle.Result.WIN, probe("kr6/8/8/8/8/8/8/7K b - - 0 1"));
+        assertEquals(EndgameOracle.Result.LOSS, probe("kr6/8/8/8/8/8/8/7K w - - 0 1"));
+        assertEquals(EndgameOracle.Result.LOSS, probe("7k/8/8/8/8/8/p7/7K w - - 0 1"));
+    }
+
+    @Test
+    @DisplayName("King and pawn against king matches known results")
+    void testPawnEndings() {
+        // Defending king in the corner in front of a rook pawn
+        assertEquals(EndgameOracle.Result.DRAW, probe("7k/8/8/8/8/8/7P/7K w - - 0 1"));
+        // Rook pawn outside the square of the defending king
+        assertEquals(EndgameOracle.Result.WIN, probe("7k/8/8/8/8/8/P7/K7 w - - 0 1"));
+        // Minor piece against a bare king needs no table
+        assertEquals(EndgameOracle.Result.DRAW, probe("7k/8/8/8/8/8/B7/K7 w - - 0 1"));
+        // Castling rights or too many pieces are outside the bitbases
+        assertEquals(EndgameOracle.Result.UNKNOWN, probe("4k3/8/8/8/8/8/8/R3K2R w KQ - 0 1"));
+    }
+
+    @Test
+    @DisplayName("Search scores bitbase positions as known wins and draws")
+    void testSearchUsesBitbases() {
+        NativeEngine engine = new NativeEngine();
+        engine.setEndgameOracle(oracle);
+        int move = engine.search(new SearchBoard("8/8/8/8/8/8/1Q6/K6k w - - 0 1"), 2000, 3);
+        assertNotEquals(SearchBoard.NO_MOVE, move);
+        assertTrue(engine.getBestScore() > NativeEngine.KNOWN_WIN - 1100);
+        assertTrue(engine.getBestScore() < NativeEngine.MATE_BOUND);
+
+        engine.search(new SearchBoard("7k/8/8/8/8/8/7P/7K w - - 0 1"), 2000, 3);
+        assertEquals(0, engine.getBestScore());
+    }
+
+    @Test
+    @DisplayName("Probing from the search allocates nothing")
+    void testProbeDoesNotAllocate() {
+        java.lang.management.ThreadMXBean threads = java.lang.management.ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        SearchBoard[] positions = {
+            new SearchBoard("8/8/8/8/8/8/1Q6/K6k w - - 0 1"),
+            new SearchBoard("kr6/8/8/8/8/8/8/7K b - - 0 1"),
+            new SearchBoard("7k/8/8/8/8/8/P7/K7 w - - 0 1")
+        };
+        for (SearchBoard position : positions) {
+            oracle.probe(position);
+        }
+        long thread = Thread.currentThread().getId();
+        long before = allocations.getThreadAllocatedBytes(thread);
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            assertNotEquals(EndgameOracle.Result.UNKNOWN, oracle.probe(positions[i % positions.length]));
+        }
+        long allocated = allocations.getThreadAllocatedBytes(thread) - before;
+        // The JIT and the measurement cost a fixed few kilobytes; a single array per probe would be megabytes
+        assertTrue(allocated < probes, "probes allocated " + allocated + " bytes");
+    }
+
+    @Test
+    @DisplayName("Saved tables load back with identical contents")
+    void testSaveAndLoad(@TempDir Path dir) throws Exception {
+        Bitbase table = generator.table("KRK");
+        Path file = dir.resolve("KRK" + Bitbase.FILE_EXTENSION);
+        table.save(file);
+        Bitbase loaded = Bitbase.load(file, "KRK");
+        for (long i = 0; i < table.getPositionCount(); i += 997) {
+            assertEquals(table.get(i), loaded.get(i));
+        }
+        EndgameOracle fromDisk = new EndgameOracle(dir, false);
+        assertEquals(EndgameOracle.Result.WIN, fromDisk.probe(new SearchBoard("8/8/8/8/8/8/1R6/K6k w - - 0 1")));
+    }
+}
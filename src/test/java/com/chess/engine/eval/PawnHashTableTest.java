@@ -0,0 +1,55 @@
+package com.chess.engine.eval;
+
+import com.chess.engine.SearchBoard;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for pawn-structure evaluation and its hash table
+ */
+public class PawnHashTableTest {
+
+    @Test
+    @DisplayName("Passed pawn masks are cached per pawn structure")
+    void testPassedPawnMask() {
+        // White a-pawn is passed, black pawns on d and e files block each other
+        SearchBoard board = new SearchBoard("4k3/8/3p4/P3p3/4P3/8/8/4K3 w - - 0 1");
+        PawnHashTable table = new PawnHashTable(64);
+        int slot = table.probe(board);
+        assertEquals(1L << SearchBoard.parseSquare("a5"), table.getPassedPawns(slot, SearchBoard.WHITE));
+        assertEquals(0L, table.getPassedPawns(slot, SearchBoard.BLACK));
+    }
+
+    @Test
+    @DisplayName("Doubled and isolated pawns score worse than a healthy chain")
+    void testStructurePenalties() {
+        SearchBoard healthy = new SearchBoard("4k3/8/8/8/8/8/3PPP2/4K3 w - - 0 1");
+        SearchBoard broken = new SearchBoard("4k3/8/8/8/8/3P4/3P1P2/4K3 w - - 0 1");
+        PawnHashTable table = new PawnHashTable(64);
+        int healthyEg = table.getEndgameScore(table.probe(healthy));
+        int brokenEg = table.getEndgameScore(table.probe(broken));
+        assertTrue(brokenEg < healthyEg, "Doubled/isolated pawns should be penalised");
+    }
+
+    @Test
+    @DisplayName("Repeated probes of the same structure hit the cache")
+    void testHitRate() {
+        SearchBoard board = new SearchBoard();
+        PawnHashTable table = new PawnHashTable(64);
+        TaperedEvaluator evaluator = new TaperedEvaluator(table);
+        board.setEvaluator(evaluator);
+
+        evaluator.evaluate(board);
+        // Knight moves leave the pawn key unchanged
+        board.makeMove(board.parseUciMove("g1f3"));
+        evaluator.evaluate(board);
+        board.makeMove(board.parseUciMove("g8f6"));
+        evaluator.evaluate(board);
+
+        assertEquals(3, table.getProbes());
+        assertEquals(2, table.getHits());
+        assertEquals(2.0 / 3.0, table.getHitRate(), 1e-9);
+    }
+}
@@ -0,0 +1,93 @@
+package com.chess.engine.eval.nnue;
+
+import com.chess.engine.SearchBoard;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the NNUE evaluator with a small untrained network
+ */
+public class NnueEvaluatorTest {
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    private static NnueNetwork network;
+
+    @BeforeAll
+    static void createNetwork() {
+        network = NnueNetwork.random(16, 42);
+    }
+
+    private static int freshEvaluation(SearchBoard board) {
+        SearchBoard copy = board.copy();
+        NnueEvaluator evaluator = new NnueEvaluator(network);
+        copy.setEvaluator(evaluator);
+        return evaluator.evaluate(copy);
+    }
+
+    @Test
+    @DisplayName("Incremental accumulators match a full recompute through make and unmake")
+    void testIncrementalUpdates() {
+        SearchBoard board = new SearchBoard(KIWIPETE);
+        NnueEvaluator evaluator = new NnueEvaluator(network);
+        board.setEvaluator(evaluator);
+        int initial = evaluator.evaluate(board);
+        short[] initialWhite = evaluator.accumulator(board, SearchBoard.WHITE).clone();
+
+        Random random = new Random(7);
+        int[] moves = new int[SearchBoard.MAX_MOVES];
+        int made = 0;
+        for (int ply = 0; ply < 120; ply++) {
+            int count = board.generateMoves(moves, false);
+            int start = count == 0 ? 0 : random.nextInt(count);
+            boolean moved = false;
+            for (int i = 0; i < count && !moved; i++) {
+                moved = board.makeMove(moves[(start + i) % count]);
+            }
+            if (!moved) {
+                break;
+            }
+            made++;
+            assertEquals(freshEvaluation(board), evaluator.evaluate(board), "after " + board.toFEN());
+        }
+
+        for (int i = 0; i < made; i++) {
+            board.unmakeMove();
+        }
+        assertEquals(initial, evaluator.evaluate(board));
+        assertArrayEquals(initialWhite, evaluator.accumulator(board, SearchBoard.WHITE));
+    }
+
+    @Test
+    @DisplayName("Both sides see the board the same way from their own king")
+    void testColourSymmetry() {
+        SearchBoard board = new SearchBoard(KIWIPETE);
+        SearchBoard mirrored = new SearchBoard("r3k2r/pppbbppp/2n2q1P/1P2p3/3pn3/BN2PNP1/P1PPQPB1/R3K2R b KQkq - 0 1");
+        assertEquals(freshEvaluation(board), freshEvaluation(mirrored));
+    }
+
+    @Test
+    @DisplayName("Networks survive a save and load")
+    void testSaveAndLoad(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("test.nnue");
+        network.save(file);
+        NnueNetwork loaded = NnueNetwork.load(file);
+        assertEquals(network.getHiddenSize(), loaded.getHiddenSize());
+
+        SearchBoard board = new SearchBoard(KIWIPETE);
+        NnueEvaluator evaluator = new NnueEvaluator(loaded);
+        board.setEvaluator(evaluator);
+        assertEquals(freshEvaluation(board), evaluator.evaluate(board));
+
+        Files.write(file, new byte[]{1, 2, 3});
+        assertThrows(IOException.class, () -> NnueNetwork.load(file));
+    }
+}
@@ -0,0 +1,96 @@
+package com.chess.engine.uci;
+
+import com.chess.engine.SearchBoard;
+import com.chess.engine.SearchLimits;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the stand-in UCI engine, driven through the real client
+ */
+public class FakeUciEngineTest {
+
+    private static UciClient connect(UciProcess process) throws Exception {
+        UciClient client = new UciClient(process.getOutput(), process.getInput());
+        client.send("uci");
+        client.isReady().get(2, TimeUnit.SECONDS);
+        return client;
+    }
+
+    @Test
+    @DisplayName("Searches report the configured info lines and end with a legal move")
+    public void testSearch() throws Exception {
+        FakeUciEngine fake = new FakeUciEngine();
+        fake.setThinkTimeMs(50);
+        fake.setInfoLines(4);
+        UciClient client = connect(fake.launch());
+        client.send("setoption name MultiPV value 2");
+
+        List<SearchInfo> events = new CopyOnWriteArrayList<>();
+        String position = "position startpos moves e2e4 e7e5";
+        long start = System.currentTimeMillis();
+        SearchResult result = client.search(position, SearchLimits.moveTime(1000), events::add)
+                .get(2, TimeUnit.SECONDS);
+        assertTrue(System.currentTimeMillis() - start >= 40, "thinks for the configured time");
+        assertEquals(8, events.size(), "four iterations of two lines");
+        assertEquals(2, result.getLines().size());
+
+        SearchBoard board = new SearchBoard();
+        board.makeMove(board.parseUciMove("e2e4"));
+        board.makeMove(board.parseUciMove("e7e5"));
+        assertNotEquals(SearchBoard.NO_MOVE, board.parseUciMove(result.getBestMove()));
+        assertNotNull(result.getPonderMove());
+
+        SearchResult again = client.search(position, SearchLimits.moveTime(10)).get(2, TimeUnit.SECONDS);
+        assertEquals(result.getBestMove(), again.getBestMove(), "the same position gets the same move");
+        assertEquals(2, fake.getSearches());
+        client.close();
+    }
+
+    @Test
+    @DisplayName("A long search ends promptly on stop")
+    public void testStop() throws Exception {
+        FakeUciEngine fake = new FakeUciEngine();
+        fake.setThinkTimeMs(60_000);
+        UciClient client = connect(fake.launch());
+        long start = System.currentTimeMillis();
+        CompletableFuture<SearchResult> search = client.search("position startpos", SearchLimits.moveTime(60_000));
+        Thread.sleep(50);
+        client.stop();
+        assertNotNull(search.get(2, TimeUnit.SECONDS).getBestMove());
+        assertTrue(System.currentTimeMillis() - start < 2000);
+        client.close();
+    }
+
+    @Test
+    @DisplayName("Injected failures hit every nth search")
+    public void testFailures() throws Exception {
+        FakeUciEngine fake = new FakeUciEngine();
+        fake.setFailure(FakeUciEngine.Failure.ILLEGAL_MOVE, 2);
+        UciClient client = connect(fake.launch());
+        assertNotEquals("a1a1", client.search("position startpos", SearchLimits.moveTime(10))
+                .get(2, TimeUnit.SECONDS).getBestMove());
+        assertEquals("a1a1", client.search("position startpos", SearchLimits.moveTime(10))
+                .get(2, TimeUnit.SECONDS).getBestMove());
+        client.close();
+
+        fake.setFailure(FakeUciEngine.Failure.CRASH, 1);
+        UciProcess process = fake.launch();
+        client = connect(process);
+        CompletableFuture<SearchResult> search = client.search("position startpos", SearchLimits.moveTime(10));
+        ExecutionException crash = assertThrows(ExecutionException.class, () -> search.get(2, TimeUnit.SECONDS));
+        assertTrue(crash.getCause() instanceof IOException);
+        Thread.sleep(50);
+        assertFalse(process.isAlive());
+        assertEquals(2, fake.getLaunches());
+    }
+}
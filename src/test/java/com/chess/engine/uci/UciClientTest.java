@@ -0,0 +1,143 @@
+package com.chess.engine.uci;
+
+import com.chess.engine.SearchLimits;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for parsing UCI output and driving searches through piped streams
+ */
+public class UciClientTest {
+    private UciClient client;
+    private BufferedReader commands;
+    private PrintWriter engine;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        PipedInputStream engineOutput = new PipedInputStream();
+        PipedInputStream engineInput = new PipedInputStream();
+        engine = new PrintWriter(new PipedOutputStream(engineOutput), true);
+        client = new UciClient(engineOutput, new PipedOutputStream(engineInput));
+        commands = new BufferedReader(new InputStreamReader(engineInput));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        client.close();
+    }
+
+    @Test
+    @DisplayName("Info lines are parsed into typed fields")
+    public void testParseInfo() {
+        SearchInfo info = SearchInfo.parse("info depth 18 seldepth 27 multipv 2 score cp -35 upperbound "
+                + "nodes 1234567 nps 987654 hashfull 412 tbhits 0 time 1250 pv e2e4 e7e5 g1f3 ");
+        assertEquals(18, info.getDepth());
+        assertEquals(27, info.getSelDepth());
+        assertEquals(2, info.getMultiPv());
+        assertTrue(info.hasScore());
+        assertFalse(info.isMate());
+        assertEquals(-35, info.getScore());
+        assertEquals(SearchInfo.Bound.UPPER, info.getBound());
+        assertEquals(1234567, info.getNodes());
+        assertEquals(987654, info.getNps());
+        assertEquals(412, info.getHashFull());
+        assertEquals(1250, info.getTimeMs());
+        assertEquals(List.of("e2e4", "e7e5", "g1f3"), info.getPv());
+        assertEquals("e2e4", info.getFirstMove());
+
+        SearchInfo mate = SearchInfo.parse("info depth 5 score mate -3 pv h7h8");
+        assertTrue(mate.isMate());
+        assertEquals(-3, mate.getScore());
+        assertEquals(SearchInfo.Bound.EXACT, mate.getBound());
+
+        SearchInfo progress = SearchInfo.parse("info depth 12 currmove e2e4 currmovenumber 1");
+        assertFalse(progress.hasScore());
+        assertFalse(progress.hasPv());
+        assertEquals(-1, progress.getHashFull());
+        assertNull(SearchInfo.parse("bestmove e2e4"));
+    }
+
+    @Test
+    @DisplayName("A search streams info events and completes on bestmove")
+    public void testSearchWithListener() throws Exception {
+        List<SearchInfo> events = new CopyOnWriteArrayList<>();
+        CompletableFuture<SearchResult> search = client.search("position startpos",
+                SearchLimits.depth(2), events::add);
+        assertEquals("position startpos", commands.readLine());
+        assertEquals("go depth 2", commands.readLine());
+        assertFalse(search.isDone());
+
+        engine.println("info depth 1 multipv 1 score cp 20 nodes 30 pv e2e4");
+        engine.println("info depth 1 multipv 2 score cp 10 nodes 30 pv d2d4");
+        engine.println("info depth 2 currmove e2e4 currmovenumber 1");
+        engine.println("info depth 2 multipv 1 score cp 25 nodes 90 pv e2e4 e7e5");
+        engine.println("bestmove e2e4 ponder e7e5");
+
+        SearchResult result = search.get(5, TimeUnit.SECONDS);
+        assertEquals("e2e4", result.getBestMove());
+        assertEquals("e7e5", result.getPonderMove());
+        assertEquals(2, result.getLines().size());
+        assertEquals(25, result.getInfo().getScore());
+        assertEquals("d2d4", result.getLines().get(1).getFirstMove());
+        assertEquals(4, events.size());
+        assertFalse(client.isSearching());
+    }
+
+    @Test
+    @DisplayName("Stop and ponderhit are sent while a search runs")
+    public void testStopAndPonderHit() throws Exception {
+        SearchLimits limits = SearchLimits.moveTime(1000);
+        limits.setPonder(true);
+        CompletableFuture<SearchResult> search = client.search("position startpos moves e2e4", limits);
+        assertEquals("position startpos moves e2e4", commands.readLine());
+        assertTrue(commands.readLine().startsWith("go ponder"));
+        assertThrows(IllegalStateException.class,
+                () -> client.search("position startpos", SearchLimits.depth(1)));
+
+        client.ponderHit();
+        assertEquals("ponderhit", commands.readLine());
+        client.stop();
+        assertEquals("stop", commands.readLine());
+        engine.println("bestmove (none)");
+        assertNull(search.get(5, TimeUnit.SECONDS).getBestMove());
+
+        // Nothing is running now, so stop is not sent
+        client.stop();
+        CompletableFuture<Void> ready = client.isReady();
+        assertEquals("isready", commands.readLine());
+        engine.println("readyok");
+        ready.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("A vanished engine fails the pending search")
+    public void testEngineExit() throws Exception {
+        BlockingQueue<SearchResult> finished = new LinkedBlockingQueue<>();
+        CompletableFuture<SearchResult> search = client.search("position startpos", SearchLimits.depth(1));
+        search.thenAccept(finished::add);
+        commands.readLine();
+        commands.readLine();
+        engine.close();
+        ExecutionException e = assertThrows(ExecutionException.class, () -> search.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof IOException);
+        assertTrue(finished.isEmpty());
+    }
+}
@@ -0,0 +1,66 @@
+package com.chess.teacher;
+
+import com.chess.engine.SearchBoard;
+import com.chess.model.Board;
+import com.chess.model.Move;
+import com.chess.model.Position;
+import com.chess.utils.FENUtils;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the pre-move blunder check
+ */
+public class BlunderGuardTest {
+
+    private static Move move(Board board, String uci) {
+        return SearchBoard.toModelMove(SearchBoard.fromBoard(board).parseUciMove(uci), board);
+    }
+
+    @Test
+    @DisplayName("Missing a free queen or allowing mate is flagged, a sound move is not")
+    public void testWarnings() {
+        try (BlunderGuard guard = new BlunderGuard(2000)) {
+            // White can take a free queen with Rxd5
+            Board board = FENUtils.fromFEN("6k1/5ppp/8/3q4/8/8/5PPP/3R2K1 w - - 0 1");
+            BlunderGuard.Warning missed = guard.check(board, move(board, "h2h3"));
+            assertNotNull(missed);
+            assertFalse(missed.allowsMate());
+            assertTrue(missed.getLoss() > 500, missed.getMessage());
+            assertEquals(new Position("d5"), missed.getBestMove().getTo());
+            assertNull(guard.check(board, move(board, "d1d5")));
+
+            // Rc2 gives up the guard of d1, and Qd1 is mate
+            Board backRank = FENUtils.fromFEN("6k1/5ppp/8/3q4/8/8/5PPP/2R3K1 w - - 0 1");
+            BlunderGuard.Warning mated = guard.check(backRank, move(backRank, "c1c2"));
+            assertNotNull(mated);
+            assertTrue(mated.allowsMate(), mated.getMessage());
+
+            Board start = new Board();
+            assertNull(guard.check(start, move(start, "e2e4")));
+            assertEquals(4, guard.getChecks());
+            assertEquals(0, guard.getTimeouts());
+        }
+    }
+
+    @Test
+    @DisplayName("A check never holds a move up for longer than its budget")
+    public void testLatency() {
+        Board kiwipete = FENUtils.fromFEN("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        String[] moves = {"e2a6", "d5e6", "e5f7", "f3h3", "g2h3", "a2a3"};
+        try (BlunderGuard guard = new BlunderGuard(BlunderGuard.DEFAULT_BUDGET_MS)) {
+            long total = 0;
+            for (int i = 0; i < 30; i++) {
+                Move attempt = move(kiwipete, moves[i % moves.length]);
+                long start = System.nanoTime();
+                guard.check(kiwipete, attempt);
+                long millis = (System.nanoTime() - start) / 1_000_000;
+                assertTrue(millis < 100, "check took " + millis + " ms");
+                total += millis;
+            }
+            assertTrue(total / 30 < 50, "average check " + total / 30 + " ms");
+        }
+    }
+}
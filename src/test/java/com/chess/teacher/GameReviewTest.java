@@ -0,0 +1,99 @@
+package com.chess.teacher;
+
+import com.chess.engine.EnginePool;
+import com.chess.engine.SearchBoard;
+import com.chess.engine.SearchLimits;
+import com.chess.model.Board;
+import com.chess.model.Move;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the post-game review, using native engines
+ */
+public class GameReviewTest {
+    private static EnginePool pool;
+
+    @BeforeAll
+    public static void setUp() {
+        pool = new EnginePool(2);
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        pool.close();
+    }
+
+    /**
+     * The game's moves, played from the starting position
+     */
+    private static List<Move> game(String... uciMoves) {
+        Board board = new Board();
+        List<Move> moves = new ArrayList<>();
+        for (String uci : uciMoves) {
+            Move move = SearchBoard.toModelMove(SearchBoard.fromBoard(board).parseUciMove(uci), board);
+            assertTrue(board.makeMove(move), uci);
+            moves.add(move);
+        }
+        return moves;
+    }
+
+    @Test
+    @DisplayName("Every move streams in once and a hung queen is a blunder")
+    public void testReview() throws Exception {
+        // 3. Qxf7+?? gives the queen for a pawn
+        List<Move> moves = game("e2e4", "e7e5", "d1h5", "b8c6", "h5f7", "e8f7");
+        List<GameReview.MoveReview> streamed = new CopyOnWriteArrayList<>();
+        List<Integer> counts = new CopyOnWriteArrayList<>();
+
+        GameReview.Report report;
+        try (GameReview review = new GameReview(pool, () -> SearchLimits.depth(4))) {
+            report = review.review(moves, (move, reviewed, total) -> {
+                assertEquals(6, total);
+                streamed.add(move);
+                counts.add(reviewed);
+            }).get(60, TimeUnit.SECONDS);
+        }
+
+        assertEquals(6, report.getMoves().size());
+        assertEquals(6, streamed.size());
+        assertEquals(6, counts.stream().distinct().count(), "each move is counted once");
+        for (int ply = 0; ply < 6; ply++) {
+            assertEquals(ply, report.getMoves().get(ply).getPly());
+            assertSame(moves.get(ply), report.getMoves().get(ply).getMove());
+        }
+
+        GameReview.MoveReview blunder = report.getMoves().get(4);
+        assertTrue(blunder.isWhite());
+        assertEquals(GameReview.Judgement.BLUNDER, blunder.getJudgement(), blunder.toString());
+        assertNotNull(blunder.getBestMove());
+        assertTrue(blunder.getAccuracy() < 20);
+        assertEquals(1, report.count(true, GameReview.Judgement.BLUNDER));
+        assertEquals(0, report.count(false, GameReview.Judgement.BLUNDER));
+        assertTrue(report.getAccuracy(false) > report.getAccuracy(true));
+        assertTrue(report.getAverageCentipawnLoss(true) > report.getAverageCentipawnLoss(false));
+    }
+
+    @Test
+    @DisplayName("Losses map to verdicts at the usual thresholds")
+    public void testJudgement() {
+        assertEquals(GameReview.Judgement.BEST, GameReview.Judgement.of(0));
+        assertEquals(GameReview.Judgement.GOOD, GameReview.Judgement.of(50));
+        assertEquals(GameReview.Judgement.INACCURACY, GameReview.Judgement.of(100));
+        assertEquals(GameReview.Judgement.MISTAKE, GameReview.Judgement.of(300));
+        assertEquals(GameReview.Judgement.BLUNDER, GameReview.Judgement.of(301));
+
+        GameReview.MoveReview mateMissed = new GameReview.MoveReview(1, null, null, 9990, 9980);
+        assertEquals(0, mateMissed.getCentipawnLoss(), "a slower mate costs nothing");
+        assertFalse(mateMissed.isWhite());
+    }
+}
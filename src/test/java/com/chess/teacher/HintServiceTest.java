@@ -0,0 +1,74 @@
+package com.chess.teacher;
+
+import com.chess.engine.EnginePool;
+import com.chess.engine.SearchLimits;
+import com.chess.model.Board;
+import com.chess.model.Move;
+import com.chess.model.Position;
+import com.chess.utils.FENUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for precomputed hints, using the native engine
+ */
+public class HintServiceTest {
+    // White can take a free queen with Rxd5
+    private static final String FEN = "6k1/5ppp/8/3q4/8/8/5PPP/3R2K1 w - - 0 1";
+
+    private EnginePool pool;
+    private HintService hints;
+
+    @BeforeEach
+    public void setUp() {
+        pool = new EnginePool(1);
+        hints = new HintService(pool);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        hints.close();
+        pool.close();
+    }
+
+    @Test
+    @DisplayName("Asking again joins the running search, then gets the remembered hint at once")
+    public void testJoinAndCache() throws Exception {
+        Board board = FENUtils.fromFEN(FEN);
+        CompletableFuture<Move> speculative = hints.getHint(board, SearchLimits.depth(6));
+        CompletableFuture<Move> asked = hints.getHint(FENUtils.fromFEN(FEN), SearchLimits.depth(6));
+        assertSame(speculative, asked, "the running search is joined");
+
+        Move hint = asked.get(30, TimeUnit.SECONDS);
+        assertEquals(new Position("d5"), hint.getTo());
+
+        CompletableFuture<Move> again = hints.getHint(board, SearchLimits.depth(6));
+        assertTrue(again.isDone(), "a finished hint comes back at once");
+        assertSame(hint, again.get());
+        assertEquals(2, hints.getHits());
+    }
+
+    @Test
+    @DisplayName("A new position cancels the search for the old one")
+    public void testCancelOnNewPosition() throws Exception {
+        CompletableFuture<Move> stale = hints.getHint(new Board(), SearchLimits.moveTime(20_000));
+        Thread.sleep(100);
+        long start = System.currentTimeMillis();
+        CompletableFuture<Move> fresh = hints.getHint(FENUtils.fromFEN(FEN), SearchLimits.depth(4));
+        assertTrue(stale.isCancelled());
+        assertNotNull(fresh.get(10, TimeUnit.SECONDS));
+        assertTrue(System.currentTimeMillis() - start < 5000, "the old search stopped early");
+
+        hints.cancel();
+        CompletableFuture<Move> restarted = hints.getHint(new Board(), SearchLimits.depth(2));
+        assertNotSame(stale, restarted);
+        assertNotNull(restarted.get(10, TimeUnit.SECONDS));
+    }
+}
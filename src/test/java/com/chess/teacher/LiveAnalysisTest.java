@@ -0,0 +1,106 @@
+package com.chess.teacher;
+
+import com.chess.engine.EnginePool;
+import com.chess.engine.NativeEngine;
+import com.chess.engine.uci.SearchInfo;
+import com.chess.model.Board;
+import com.chess.utils.FENUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the live analysis behind the evaluation bar, using the native engine
+ */
+public class LiveAnalysisTest {
+    // White can take a free queen with Rxd5
+    private static final String FEN = "6k1/5ppp/8/3q4/8/8/5PPP/3R2K1 w - - 0 1";
+
+    private EnginePool pool;
+
+    @BeforeEach
+    public void setUp() {
+        pool = new EnginePool(1);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        pool.close();
+    }
+
+    private static void waitFor(List<?> updates, int count) throws InterruptedException {
+        for (int i = 0; i < 200 && updates.size() < count; i++) {
+            Thread.sleep(25);
+        }
+    }
+
+    @Test
+    @DisplayName("Updates deepen, show the expected line and come at most once a frame")
+    public void testStreaming() throws Exception {
+        List<LiveAnalysis.Update> updates = new CopyOnWriteArrayList<>();
+        List<Long> times = new CopyOnWriteArrayList<>();
+        try (LiveAnalysis analysis = new LiveAnalysis(pool, update -> {
+            updates.add(update);
+            times.add(System.nanoTime());
+        }, 50)) {
+            analysis.analyze(FENUtils.fromFEN(FEN));
+            waitFor(updates, 4);
+            assertEquals(0, pool.available(), "the engine is busy analysing");
+
+            analysis.pause();
+            Thread.sleep(300);
+            assertEquals(1, pool.available(), "pausing gives the engine back");
+        }
+
+        assertTrue(updates.size() >= 4, "updates: " + updates);
+        LiveAnalysis.Update last = updates.get(updates.size() - 1);
+        assertTrue(last.getDepth() >= updates.get(0).getDepth());
+        assertTrue(last.getCentipawns() > 500, "White wins the queen: " + last);
+        assertTrue(last.getPv().startsWith("Rxd5"), last.getPv());
+        for (int i = 1; i < times.size(); i++) {
+            assertTrue(times.get(i) - times.get(i - 1) >= 40_000_000L, "one update per 50 ms frame");
+        }
+    }
+
+    @Test
+    @DisplayName("A new position replaces the old one")
+    public void testRestart() throws Exception {
+        List<LiveAnalysis.Update> updates = new CopyOnWriteArrayList<>();
+        try (LiveAnalysis analysis = new LiveAnalysis(pool, updates::add, 20)) {
+            analysis.analyze(new Board());
+            waitFor(updates, 1);
+            Board winning = FENUtils.fromFEN(FEN);
+            analysis.analyze(winning);
+            updates.clear();
+            waitFor(updates, 2);
+        }
+        assertFalse(updates.isEmpty());
+        for (LiveAnalysis.Update update : updates) {
+            assertTrue(update.getPv().contains("d5"), "only the new position is reported: " + update);
+        }
+    }
+
+    @Test
+    @DisplayName("Scores are turned to White's point of view with mates as the eval bar shows them")
+    public void testScores() {
+        Board blackToMove = FENUtils.fromFEN("6k1/5ppp/8/3q4/8/8/5PPP/3R2K1 b - - 0 1");
+        LiveAnalysis.Update mating = LiveAnalysis.toUpdate(blackToMove,
+                SearchInfo.parse("info depth 6 score mate 2 pv d5d1"));
+        assertTrue(mating.isMate());
+        assertEquals(-(NativeEngine.MATE - 3), mating.getCentipawns());
+        assertEquals(6, mating.getDepth());
+        assertEquals("Qxd1", mating.getPv());
+
+        LiveAnalysis.Update ahead = LiveAnalysis.toUpdate(blackToMove,
+                SearchInfo.parse("info depth 3 score cp 450 pv d5d1 g1f1"));
+        assertFalse(ahead.isMate());
+        assertEquals(-450, ahead.getCentipawns());
+        assertEquals("", LiveAnalysis.describe(blackToMove, List.of("a1a1")));
+    }
+}
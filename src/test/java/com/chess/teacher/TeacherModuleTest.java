@@ -0,0 +1,93 @@
+package com.chess.teacher;
+
+import com.chess.engine.EnginePool;
+import com.chess.engine.MateSolver;
+import com.chess.model.Board;
+import com.chess.model.Move;
+import com.chess.model.Position;
+import com.chess.utils.FENUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for MultiPV analysis in the teacher, using the native engine
+ */
+public class TeacherModuleTest {
+    // White can take a free queen with Rxd5; Ra2 leaves it en prise instead
+    private static final String FEN = "6k1/5ppp/8/3q4/8/8/5PPP/3R2K1 w - - 0 1";
+
+    private static EnginePool pool;
+    private static TeacherModule teacher;
+
+    @BeforeAll
+    public static void setUp() {
+        pool = new EnginePool(1);
+        teacher = new TeacherModule(pool);
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    @DisplayName("One search ranks several moves, best first")
+    public void testRankedMoves() throws Exception {
+        Board board = FENUtils.fromFEN(FEN);
+        List<TeacherModule.RankedMove> ranked = teacher.getRankedMoves(board, 3, 4).get(30, TimeUnit.SECONDS);
+        assertEquals(3, ranked.size());
+        assertEquals(new Position("d5"), ranked.get(0).getMove().getTo());
+        assertTrue(ranked.get(0).getCentipawns() >= ranked.get(1).getCentipawns());
+        assertTrue(ranked.get(1).getCentipawns() >= ranked.get(2).getCentipawns());
+        assertTrue(ranked.get(0).getCentipawns() > 500);
+
+        double eval = teacher.evaluatePosition(board, 4).get(30, TimeUnit.SECONDS);
+        assertTrue(eval > 5.0, "White is winning after taking the queen: " + eval);
+    }
+
+    @Test
+    @DisplayName("Move quality follows the centipawn loss")
+    public void testMoveQuality() throws Exception {
+        Board board = FENUtils.fromFEN(FEN);
+        Move capture = new Move(new Position("d1"), new Position("d5"), board.getPiece(new Position("d1")),
+                board.getPiece(new Position("d5")));
+        TeacherModule.MoveAnalysis best = teacher.analyzeMove(board, capture, 4).get(30, TimeUnit.SECONDS);
+        assertTrue(best.isBestMove());
+        assertEquals(0, best.getCentipawnLoss());
+        assertEquals(1.0, best.getQuality());
+
+        Move retreat = new Move(new Position("g1"), new Position("f1"), board.getPiece(new Position("g1")), null);
+        TeacherModule.MoveAnalysis blunder = teacher.analyzeMove(board, retreat, 4).get(30, TimeUnit.SECONDS);
+        assertFalse(blunder.isBestMove());
+        assertTrue(blunder.getCentipawnLoss() > 500, "Loss " + blunder.getCentipawnLoss());
+        assertTrue(blunder.getQuality() < 0.2);
+        assertTrue(teacher.getMoveFeedback(blunder).startsWith("Blunder"));
+
+        assertTrue(TeacherModule.calculateMoveQuality(0, -50) > TeacherModule.calculateMoveQuality(0, -150));
+        assertTrue(TeacherModule.calculateMoveQuality(900, 800) > TeacherModule.calculateMoveQuality(50, -50));
+    }
+
+    @Test
+    @DisplayName("A forced mate comes back as the full line of model moves")
+    public void testForcedMate() throws Exception {
+        Board board = FENUtils.fromFEN("7k/8/8/8/8/8/R7/1R4K1 w - - 0 1");
+        TeacherModule.ForcedMate mate = teacher.findForcedMate(board, 3).get(30, TimeUnit.SECONDS);
+        assertTrue(mate.isMate());
+        assertEquals(2, mate.getMateIn());
+        for (Move move : mate.getLine()) {
+            assertTrue(board.makeMove(move), "legal: " + move);
+        }
+        assertTrue(board.isCheckmate(board.getCurrentTurn()));
+
+        TeacherModule.ForcedMate none = teacher.findForcedMate(new Board(), 2).get(30, TimeUnit.SECONDS);
+        assertEquals(MateSolver.Status.NO_MATE, none.getStatus());
+        assertTrue(none.getLine().isEmpty());
+    }
+}
@@ -0,0 +1,93 @@
+package com.chess.teacher;
+
+import com.chess.engine.SearchBoard;
+import com.chess.model.Position;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the search-free tactical scanner
+ */
+public class ThreatDetectorTest {
+
+    private static List<ThreatDetector.Threat> scan(String fen, int color, ThreatDetector.Type type) {
+        List<ThreatDetector.Threat> threats = ThreatDetector.scan(new SearchBoard(fen), color);
+        threats.removeIf(threat -> threat.getType() != type);
+        return threats;
+    }
+
+    @Test
+    @DisplayName("Hanging pieces, forks and mates")
+    public void testMaterialThreats() {
+        List<ThreatDetector.Threat> hanging = scan("6k1/5ppp/8/3q4/8/8/5PPP/3R2K1 w - - 0 1",
+                SearchBoard.WHITE, ThreatDetector.Type.HANGING_PIECE);
+        assertEquals(1, hanging.size());
+        assertEquals(new Position("d5"), hanging.get(0).getTargets().get(0));
+        assertEquals(new Position("d1"), hanging.get(0).getFrom());
+        assertTrue(hanging.get(0).isByWhite());
+
+        // A defended pawn is not hanging to a knight, but an undefended one is
+        assertTrue(scan("4k3/8/2p5/3p4/8/4N3/8/4K3 w - - 0 1", SearchBoard.WHITE,
+                ThreatDetector.Type.HANGING_PIECE).isEmpty());
+        assertEquals(1, scan("4k3/8/8/3p4/8/4N3/8/4K3 w - - 0 1", SearchBoard.WHITE,
+                ThreatDetector.Type.HANGING_PIECE).size());
+
+        List<ThreatDetector.Threat> forks = scan("r3k3/2N5/8/8/8/8/8/4K3 b - - 0 1",
+                SearchBoard.WHITE, ThreatDetector.Type.FORK);
+        assertEquals(1, forks.size());
+        assertEquals(new Position("c7"), forks.get(0).getFrom());
+        assertTrue(forks.get(0).getTargets().contains(new Position("a8")));
+        assertTrue(forks.get(0).getTargets().contains(new Position("e8")));
+
+        // Back-rank mate, whichever side is to move
+        for (String side : new String[]{"w", "b"}) {
+            List<ThreatDetector.Threat> mates = scan("6k1/5ppp/8/8/8/8/8/R5K1 " + side + " - - 0 1",
+                    SearchBoard.WHITE, ThreatDetector.Type.MATE_THREAT);
+            assertEquals(1, mates.size(), side);
+            assertEquals(new Position("a8"), mates.get(0).getTargets().get(0));
+        }
+        assertTrue(scan("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1", SearchBoard.BLACK,
+                ThreatDetector.Type.MATE_THREAT).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Pins, skewers and discovered attacks along lines")
+    public void testLineThreats() {
+        List<ThreatDetector.Threat> pins = scan("4k3/4n3/8/8/8/8/8/4R1K1 w - - 0 1",
+                SearchBoard.WHITE, ThreatDetector.Type.PIN);
+        assertEquals(1, pins.size());
+        assertEquals(List.of(new Position("e7"), new Position("e8")), pins.get(0).getTargets());
+
+        List<ThreatDetector.Threat> skewers = scan("8/8/8/8/R3k2q/8/8/6K1 b - - 0 1",
+                SearchBoard.WHITE, ThreatDetector.Type.SKEWER);
+        assertEquals(1, skewers.size());
+        assertEquals(List.of(new Position("e4"), new Position("h4")), skewers.get(0).getTargets());
+
+        List<ThreatDetector.Threat> discovered = scan("4k3/8/8/8/8/8/4N3/4R1K1 w - - 0 1",
+                SearchBoard.WHITE, ThreatDetector.Type.DISCOVERED_ATTACK);
+        assertEquals(1, discovered.size());
+        assertEquals(new Position("e2"), discovered.get(0).getFrom());
+        assertTrue(discovered.get(0).getDescription().contains("check"), discovered.get(0).getDescription());
+
+        assertTrue(ThreatDetector.scan(new SearchBoard(), SearchBoard.WHITE).isEmpty(), "nothing at the start");
+    }
+
+    @Test
+    @DisplayName("A scan takes a few milliseconds at most")
+    public void testLatency() {
+        SearchBoard kiwipete = new SearchBoard("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        for (int i = 0; i < 200; i++) {
+            ThreatDetector.scan(kiwipete, i & 1);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < 200; i++) {
+            ThreatDetector.scan(kiwipete, i & 1);
+        }
+        long averageMicros = (System.nanoTime() - start) / 200 / 1000;
+        assertTrue(averageMicros < 3000, "average scan " + averageMicros + " us");
+    }
+}